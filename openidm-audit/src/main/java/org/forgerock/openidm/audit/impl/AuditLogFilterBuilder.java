@@ -73,7 +73,8 @@ class AuditLogFilterBuilder {
     }
 
     /**
-     * Create the AuditLogFilter from the live configuration.
+     * Create the AuditLogFilter from the live configuration, compiled to only evaluate the filters of the event
+     * type of each event.
      *
      * @param config the config describe audit log filters
      * @return an AuditLogFilter
@@ -103,7 +104,7 @@ class AuditLogFilterBuilder {
                 }
             }
         }
-        return AuditLogFilters.newOrCompositeFilter(filters);
+        return AuditLogFilters.compile(AuditLogFilters.newOrCompositeFilter(filters));
     }
 
     /**
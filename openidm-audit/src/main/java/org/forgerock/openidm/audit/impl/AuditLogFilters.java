@@ -12,7 +12,7 @@
  * information: "Portions Copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 
 package org.forgerock.openidm.audit.impl;
@@ -21,9 +21,12 @@ import static org.forgerock.json.JsonValueFunctions.enumConstant;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.EnumSet;
+import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import javax.script.ScriptException;
 
@@ -338,6 +341,29 @@ public class AuditLogFilters {
         }
     }
 
+    /**
+     * A filter that only evaluates the filters of the event type of the request, each request event type being
+     * looked up once rather than by each event type filter.
+     */
+    private static class EventTypeDispatchFilter implements AuditLogFilter {
+
+        private final Map<String, AuditLogFilter> eventTypeFilters;
+        private final AuditLogFilter filter;
+
+        private EventTypeDispatchFilter(Map<String, AuditLogFilter> eventTypeFilters, AuditLogFilter filter) {
+            this.eventTypeFilters = eventTypeFilters;
+            this.filter = filter;
+        }
+
+        @Override
+        public boolean isFiltered(Context context, CreateRequest request) {
+            final AuditLogFilter eventTypeFilter =
+                    eventTypeFilters.get(request.getResourcePathObject().head(1).toString());
+            return (eventTypeFilter != null && eventTypeFilter.isFiltered(context, request))
+                    || filter.isFiltered(context, request);
+        }
+    }
+
     private static <A extends Enum<A>> Set<A> getActions(Class<A> actionClass, JsonValue actions) {
         final Set<A> filter = EnumSet.noneOf(actionClass);
 
@@ -515,4 +541,55 @@ public class AuditLogFilters {
         }
         return true;
     }
+
+    /**
+     * Compiles a filter for evaluation on each audit event.  The event type filters of an "or" composite filter,
+     * however deeply nested, are grouped by event type so that an event is only tested by the filters of its event
+     * type, and the scripted filters of an event type are evaluated after its other filters so that the evaluation
+     * is short-circuited before running the scripts whenever possible.
+     *
+     * @param filter the filter to compile
+     * @return a filter that filters the same events as {@code filter}
+     */
+    static AuditLogFilter compile(AuditLogFilter filter) {
+        final List<AuditLogFilter> filters = new ArrayList<>();
+        flattenOrCompositeFilter(filter, filters);
+
+        final Map<String, List<AuditLogFilter>> eventTypeFilters = new LinkedHashMap<>();
+        final List<AuditLogFilter> otherFilters = new ArrayList<>();
+        for (AuditLogFilter component : filters) {
+            if (component instanceof EventTypeFilter) {
+                final EventTypeFilter eventTypeFilter = (EventTypeFilter) component;
+                eventTypeFilters.computeIfAbsent(eventTypeFilter.eventType, eventType -> new ArrayList<>())
+                        .add(eventTypeFilter.filter);
+            } else {
+                otherFilters.add(component);
+            }
+        }
+        if (eventTypeFilters.isEmpty()) {
+            return filter;
+        }
+
+        final Map<String, AuditLogFilter> compiledFilters = new LinkedHashMap<>();
+        for (Map.Entry<String, List<AuditLogFilter>> entry : eventTypeFilters.entrySet()) {
+            final List<AuditLogFilter> components = entry.getValue();
+            // stable sort, the scripted filters last
+            components.sort(Comparator.comparing(component -> component instanceof ScriptedFilter));
+            final AuditLogFilter compiledFilter = newOrCompositeFilter(components);
+            if (compiledFilter != NEVER_FILTER) {
+                compiledFilters.put(entry.getKey(), compiledFilter);
+            }
+        }
+        return new EventTypeDispatchFilter(compiledFilters, newOrCompositeFilter(otherFilters));
+    }
+
+    private static void flattenOrCompositeFilter(AuditLogFilter filter, List<AuditLogFilter> filters) {
+        if (filter instanceof OrCompositeFilter) {
+            for (AuditLogFilter component : ((OrCompositeFilter) filter).filters) {
+                flattenOrCompositeFilter(component, filters);
+            }
+        } else if (filter != NEVER_FILTER) {
+            filters.add(filter);
+        }
+    }
 }
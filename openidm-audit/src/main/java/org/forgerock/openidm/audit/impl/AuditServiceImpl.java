@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.audit.impl;
 
@@ -159,8 +159,8 @@ public class AuditServiceImpl implements AuditService {
 
     private AuditLogFilter auditFilter = NEVER_FILTER;
 
-    private List<JsonPointer> watchFieldFilters = new ArrayList<>();
-    private List<JsonPointer> passwordFieldFilters = new ArrayList<>();
+    private ChangedFieldsMatcher watchFieldFilters = ChangedFieldsMatcher.NONE;
+    private ChangedFieldsMatcher passwordFieldFilters = ChangedFieldsMatcher.NONE;
 
     private static final String AUDIT_SERVICE_CONFIG = "auditServiceConfig";
     private static final String EVENT_HANDLERS = "eventHandlers";
@@ -344,12 +344,12 @@ public class AuditServiceImpl implements AuditService {
 
             JsonValue watchedFieldsValue = config.get(WATCHED_FIELDS_CONFIG_POINTER);
             if (null != watchedFieldsValue) {
-                watchFieldFilters = getJsonPointers(watchedFieldsValue.asList(String.class));
+                watchFieldFilters = new ChangedFieldsMatcher(watchedFieldsValue.asList(String.class));
             }
 
             JsonValue passwordFieldsValue = config.get(WATCHED_PASSWORDS_CONFIG_POINTER);
             if (null != passwordFieldsValue) {
-                passwordFieldFilters = getJsonPointers(passwordFieldsValue.asList(String.class));
+                passwordFieldFilters = new ChangedFieldsMatcher(passwordFieldsValue.asList(String.class));
             }
 
             // create the audit service
@@ -371,19 +371,6 @@ public class AuditServiceImpl implements AuditService {
         logger.info("Audit service started.");
     }
 
-    /**
-     * Converts the list of strings into a list of JsonPointers
-     * @param pointerStrings strings to get converted.
-     * @return converted list of pointers.
-     */
-    private List<JsonPointer> getJsonPointers(List<String> pointerStrings) {
-        List<JsonPointer> pointers = new ArrayList<>();
-        for (String pointerString : pointerStrings) {
-            pointers.add(new JsonPointer(pointerString));
-        }
-        return pointers;
-    }
-
     /**
      * Configuration modified handling
      * Ensures audit logging service stays registered
@@ -422,8 +409,8 @@ public class AuditServiceImpl implements AuditService {
     private void cleanup() {
         config = null;
         auditFilter = NEVER_FILTER;
-        watchFieldFilters.clear();
-        passwordFieldFilters.clear();
+        watchFieldFilters = ChangedFieldsMatcher.NONE;
+        passwordFieldFilters = ChangedFieldsMatcher.NONE;
     }
 
     /**
@@ -587,34 +574,14 @@ public class AuditServiceImpl implements AuditService {
      * Checks to see if there are differences between the values in two JsonValues before and after
      * Returns a list containing the changed fields
      *
-     * @param fieldsToCheck list of JsonPointers to search for
+     * @param fieldsToCheck the compiled fields to search for
      * @param before prior JsonValue
      * @param after JsonValue after applied changes
      * @return list of strings indicating which values changed
      */
-    private List<String> checkForFields(List<JsonPointer> fieldsToCheck,  JsonValue before, JsonValue after) {
-        List<String> changedFields = new ArrayList<>();
-        for (JsonPointer jpointer : fieldsToCheck) {
-            // Need to be sure to decrypt any encrypted values so we can compare their string value
-            // (JsonValue does not have an #equals method that works for this purpose)
-            Object beforeValue = cryptoService.decryptIfNecessary(before.get(jpointer)).getObject();
-            Object afterValue = cryptoService.decryptIfNecessary(after.get(jpointer)).getObject();
-            if (!fieldsEqual(beforeValue, afterValue)) {
-                changedFields.add(jpointer.toString());
-            }
-        }
-
-        return changedFields;
-    }
-
-    /**
-     * Checks to see if two objects are equal either as nulls or through their comparator
-     * @param a first object to compare
-     * @param b reference object to compare against
-     * @return boolean indicating equality either as nulls or as objects
-     */
-    private static boolean fieldsEqual(Object a, Object b) {
-        return a == b || (a != null && a.equals(b));
+    private List<String> checkForFields(ChangedFieldsMatcher fieldsToCheck, JsonValue before, JsonValue after) {
+        // Need to be sure to decrypt any encrypted values so we can compare their string value
+        return fieldsToCheck.getChangedFields(before, after, cryptoService::decryptIfNecessary);
     }
 
     private void formatException(final JsonValue entry) throws Exception {
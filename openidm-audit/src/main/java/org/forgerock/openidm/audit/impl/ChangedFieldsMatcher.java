@@ -0,0 +1,163 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.audit.impl;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.UnaryOperator;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+
+/**
+ * Finds which of a set of watched fields changed between the before and after states of an object.
+ * <p>
+ * The field pointers are compiled into a trie when the audit configuration is read, so that the before and after
+ * states are walked once, each path visited once however many watched fields share it. Subtrees that are missing
+ * from both states, or that are the same object in both states, are skipped without comparing the fields below them.
+ */
+class ChangedFieldsMatcher {
+
+    /** A matcher that watches no field */
+    static final ChangedFieldsMatcher NONE = new ChangedFieldsMatcher(Collections.<String>emptyList());
+
+    /** A path element of the watched fields */
+    private static final class Node {
+        private final Map<String, Node> children = new LinkedHashMap<>();
+        private final List<Integer> fields = new ArrayList<>(1);
+    }
+
+    private final List<String> fields;
+    private final Node root = new Node();
+
+    /**
+     * Compiles the watched fields.
+     *
+     * @param pointers the JSON pointers of the watched fields
+     */
+    ChangedFieldsMatcher(List<String> pointers) {
+        this.fields = new ArrayList<>(pointers.size());
+        for (String pointer : pointers) {
+            final JsonPointer jsonPointer = new JsonPointer(pointer);
+            Node node = root;
+            for (String token : jsonPointer.toArray()) {
+                node = node.children.computeIfAbsent(token, key -> new Node());
+            }
+            node.fields.add(fields.size());
+            fields.add(jsonPointer.toString());
+        }
+    }
+
+    /**
+     * Returns whether this matcher watches no field.
+     *
+     * @return true if no field is watched
+     */
+    boolean isEmpty() {
+        return fields.isEmpty();
+    }
+
+    /**
+     * Returns the watched fields whose values differ between two states of an object.
+     *
+     * @param before prior JsonValue
+     * @param after JsonValue after applied changes
+     * @param decryptor decrypts the encrypted values so that their string values can be compared
+     * @return the pointers of the changed fields, in the configured order
+     */
+    List<String> getChangedFields(JsonValue before, JsonValue after, UnaryOperator<JsonValue> decryptor) {
+        if (fields.isEmpty()) {
+            return new ArrayList<>();
+        }
+        final boolean[] changed = new boolean[fields.size()];
+        visit(root, before.getObject(), after.getObject(), decryptor, changed);
+        final List<String> changedFields = new ArrayList<>();
+        for (int i = 0; i < changed.length; i++) {
+            if (changed[i]) {
+                changedFields.add(fields.get(i));
+            }
+        }
+        return changedFields;
+    }
+
+    private static void visit(Node node, Object before, Object after, UnaryOperator<JsonValue> decryptor,
+            boolean[] changed) {
+        if (before == after) {
+            // missing from both states, or the very same value
+            return;
+        }
+        if (!node.fields.isEmpty()) {
+            // JsonValue does not have an #equals method that works for this purpose
+            final Object beforeValue = decryptor.apply(new JsonValue(before)).getObject();
+            final Object afterValue = decryptor.apply(new JsonValue(after)).getObject();
+            if (!fieldsEqual(beforeValue, afterValue)) {
+                for (int field : node.fields) {
+                    changed[field] = true;
+                }
+            }
+        }
+        for (Map.Entry<String, Node> child : node.children.entrySet()) {
+            visit(child.getValue(), getChild(before, child.getKey()), getChild(after, child.getKey()),
+                    decryptor, changed);
+        }
+    }
+
+    /**
+     * Resolves a pointer token the way {@link JsonValue#get(JsonPointer)} does.
+     *
+     * @param value the parent value
+     * @param token the pointer token
+     * @return the child value, or null if there is none
+     */
+    private static Object getChild(Object value, String token) {
+        if (value instanceof JsonValue) {
+            value = ((JsonValue) value).getObject();
+        }
+        if (value instanceof Map) {
+            return ((Map<?, ?>) value).get(token);
+        } else if (value instanceof List) {
+            final List<?> list = (List<?>) value;
+            final int index = toIndex(token);
+            return index >= 0 && index < list.size() ? list.get(index) : null;
+        }
+        return null;
+    }
+
+    private static int toIndex(String token) {
+        if (token.isEmpty() || token.length() > 9) {
+            return -1;
+        }
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) < '0' || token.charAt(i) > '9') {
+                return -1;
+            }
+        }
+        return Integer.parseInt(token);
+    }
+
+    /**
+     * Checks to see if two objects are equal either as nulls or through their comparator
+     * @param a first object to compare
+     * @param b reference object to compare against
+     * @return boolean indicating equality either as nulls or as objects
+     */
+    private static boolean fieldsEqual(Object a, Object b) {
+        return a == b || (a != null && a.equals(b));
+    }
+}
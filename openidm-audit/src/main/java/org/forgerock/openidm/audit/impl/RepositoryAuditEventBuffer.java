@@ -0,0 +1,367 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.audit.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.forgerock.audit.AuditingContext;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.openidm.audit.impl.RepositoryAuditEventHandlerConfiguration.EventBufferingConfiguration;
+import org.forgerock.openidm.audit.impl.RepositoryAuditEventHandlerConfiguration.EventBufferingConfiguration.OverflowPolicy;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Bounded buffer of the audit events of a {@link RepositoryAuditEventHandler}, written to the repository by a
+ * dedicated writer thread.
+ * <p>
+ * The writer takes up to {@code maxBatchedEvents} events at a time, waiting at most {@code writeInterval} for a
+ * batch to fill, and writes the events of each topic with a single "bulk" action, which the JDBC repository
+ * executes as a JDBC batch in one transaction. If a bulk write fails, or the repository does not support it, the
+ * events are created one by one. When the buffer is full, an event either waits for room or is dropped, according
+ * to the overflow policy.
+ * <p>
+ * Stopping the buffer writes all buffered events before the writer thread ends. The depth of the buffer and the
+ * number of written, dropped and failed events are published as an MBean.
+ * <p>
+ * This class is thread safe.
+ */
+class RepositoryAuditEventBuffer implements RepositoryAuditEventBufferMBean {
+
+    private static final Logger logger = LoggerFactory.getLogger(RepositoryAuditEventBuffer.class);
+
+    private static final String MBEAN_NAME = "org.forgerock.openidm.audit:type=RepositoryAuditEventBuffer,name=";
+
+    /** Maximum time, in seconds, to wait for the buffered events to be written on stop */
+    private static final long STOP_TIMEOUT = 30;
+
+    /** A drop is logged as a warning once per this many dropped events */
+    private static final long DROP_WARNING_INTERVAL = 1000;
+
+    /**
+     * A buffered audit event.
+     */
+    private static final class PendingEvent {
+        private final String topic;
+        private final String id;
+        private final JsonValue content;
+
+        PendingEvent(String topic, String id, JsonValue content) {
+            this.topic = topic;
+            this.id = id;
+            this.content = content;
+        }
+    }
+
+    private final String name;
+    private final ResourcePath resourcePath;
+    private final ConnectionFactory connectionFactory;
+    private final int maxSize;
+    private final int maxBatchedEvents;
+    private final long writeIntervalNanos;
+    private final OverflowPolicy overflowPolicy;
+    private final BlockingQueue<PendingEvent> queue;
+
+    private final AtomicLong writtenEvents = new AtomicLong();
+    private final AtomicLong droppedEvents = new AtomicLong();
+    private final AtomicLong failedEvents = new AtomicLong();
+
+    private volatile boolean running;
+    /** Set once the repository rejected a bulk write as not supported, to create events one by one */
+    private volatile boolean bulkUnsupported;
+    private Thread writer;
+
+    /**
+     * Creates the event buffer of a repository audit event handler.
+     *
+     * @param name the name of the handler
+     * @param resourcePath the repository path of the audit events
+     * @param connectionFactory the factory used for obtaining connections to the repository
+     * @param configuration the buffering configuration
+     */
+    RepositoryAuditEventBuffer(String name, ResourcePath resourcePath, ConnectionFactory connectionFactory,
+            EventBufferingConfiguration configuration) {
+        if (configuration.getMaxSize() < 1 || configuration.getMaxBatchedEvents() < 1) {
+            throw new IllegalArgumentException("Audit buffering maxSize and maxBatchedEvents must be positive");
+        }
+        this.name = name;
+        this.resourcePath = resourcePath;
+        this.connectionFactory = connectionFactory;
+        this.maxSize = configuration.getMaxSize();
+        this.maxBatchedEvents = configuration.getMaxBatchedEvents();
+        this.writeIntervalNanos = Duration.duration(configuration.getWriteInterval()).to(TimeUnit.NANOSECONDS);
+        this.overflowPolicy = configuration.getOverflowPolicy();
+        this.queue = new ArrayBlockingQueue<>(maxSize);
+    }
+
+    /**
+     * Starts the writer thread and registers the MBean of the buffer.
+     */
+    synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        writer = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeBuffered();
+            }
+        }, "repo-audit-writer-" + name);
+        writer.setDaemon(true);
+        writer.start();
+        registerMBean();
+    }
+
+    /**
+     * Stops accepting events, writes the buffered events and stops the writer thread.
+     */
+    synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(STOP_TIMEOUT));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writer.isAlive()) {
+            logger.warn("Audit writer {} did not complete within {} seconds, {} events remain unwritten",
+                    name, STOP_TIMEOUT, queue.size());
+            writer.interrupt();
+        } else {
+            // Events added while the writer was completing
+            final List<PendingEvent> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            write(remaining);
+        }
+        writer = null;
+        unregisterMBean();
+    }
+
+    /**
+     * Buffers an audit event. When the buffer is full, the event waits for room or is dropped, according to the
+     * overflow policy.
+     *
+     * @param topic the topic of the event
+     * @param id the id of the event
+     * @param content the event
+     * @return false if the buffer is not running, or the calling thread was interrupted waiting for room, so the
+     *         event must be written directly; true if the event was buffered or dropped
+     */
+    boolean add(String topic, String id, JsonValue content) {
+        if (!running) {
+            return false;
+        }
+        final PendingEvent event = new PendingEvent(topic, id, content);
+        if (overflowPolicy == OverflowPolicy.drop) {
+            if (!queue.offer(event)) {
+                final long dropped = droppedEvents.incrementAndGet();
+                if (dropped % DROP_WARNING_INTERVAL == 1) {
+                    logger.warn("Audit buffer {} is full, dropped {} events so far", name, dropped);
+                }
+            }
+            return true;
+        }
+        try {
+            queue.put(event);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public int getQueueCapacity() {
+        return maxSize;
+    }
+
+    @Override
+    public long getWrittenEvents() {
+        return writtenEvents.get();
+    }
+
+    @Override
+    public long getDroppedEvents() {
+        return droppedEvents.get();
+    }
+
+    @Override
+    public long getFailedEvents() {
+        return failedEvents.get();
+    }
+
+    /**
+     * Writes batches of buffered events until the buffer is stopped and empty.
+     */
+    private void writeBuffered() {
+        try {
+            while (running || !queue.isEmpty()) {
+                write(nextBatch());
+            }
+        } catch (InterruptedException e) {
+            logger.debug("Audit writer {} interrupted", name);
+        }
+    }
+
+    /**
+     * Takes the next batch of events, waiting at most the write interval for the first event, then for the batch to
+     * fill. The batch is not waited for once the buffer is stopping.
+     *
+     * @return the batch, empty if no event was buffered during the write interval
+     * @throws InterruptedException if the writer is interrupted
+     */
+    private List<PendingEvent> nextBatch() throws InterruptedException {
+        final List<PendingEvent> batch = new ArrayList<>(maxBatchedEvents);
+        final PendingEvent first = queue.poll(writeIntervalNanos, TimeUnit.NANOSECONDS);
+        if (first == null) {
+            return batch;
+        }
+        batch.add(first);
+        final long deadline = System.nanoTime() + writeIntervalNanos;
+        while (true) {
+            queue.drainTo(batch, maxBatchedEvents - batch.size());
+            final long remaining = deadline - System.nanoTime();
+            if (batch.size() >= maxBatchedEvents || !running || remaining <= 0) {
+                return batch;
+            }
+            final PendingEvent next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return batch;
+            }
+            batch.add(next);
+        }
+    }
+
+    /**
+     * Writes a batch of events, with a bulk action per topic.
+     *
+     * @param batch the events
+     */
+    private void write(List<PendingEvent> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        final Map<String, List<PendingEvent>> byTopic = new LinkedHashMap<>();
+        for (PendingEvent event : batch) {
+            List<PendingEvent> events = byTopic.get(event.topic);
+            if (events == null) {
+                events = new ArrayList<>();
+                byTopic.put(event.topic, events);
+            }
+            events.add(event);
+        }
+        final Context context = new AuditingContext(ContextUtil.createInternalContext());
+        for (Map.Entry<String, List<PendingEvent>> entry : byTopic.entrySet()) {
+            if (bulkUnsupported || entry.getValue().size() == 1) {
+                writeSingle(context, entry.getValue());
+            } else {
+                writeBulk(context, entry.getKey(), entry.getValue());
+            }
+        }
+    }
+
+    private void writeBulk(Context context, String topic, List<PendingEvent> events) {
+        final JsonValue creates = json(new ArrayList<Object>(events.size()));
+        for (PendingEvent event : events) {
+            creates.add(event.content.getObject());
+        }
+        try {
+            connectionFactory.getConnection().action(context,
+                    newActionRequest(resourcePath.concat(topic), "bulk")
+                            .setContent(json(object(field("create", creates.getObject())))));
+            writtenEvents.addAndGet(events.size());
+            logger.debug("Wrote {} {} audit events in bulk", events.size(), topic);
+        } catch (NotSupportedException e) {
+            logger.info("Repository does not support bulk writes, writing audit events one by one");
+            bulkUnsupported = true;
+            writeSingle(context, events);
+        } catch (ResourceException e) {
+            logger.debug("Bulk write of {} {} audit events failed, writing events one by one",
+                    events.size(), topic, e);
+            writeSingle(context, events);
+        }
+    }
+
+    private void writeSingle(Context context, List<PendingEvent> events) {
+        for (PendingEvent event : events) {
+            try {
+                connectionFactory.getConnection().create(context,
+                        newCreateRequest(resourcePath.concat(event.topic), event.id, event.content));
+                writtenEvents.incrementAndGet();
+            } catch (ResourceException e) {
+                failedEvents.incrementAndGet();
+                logger.error("Failed to write {} audit event {}", event.topic, event.id, e);
+            }
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(MBEAN_NAME + ObjectName.quote(name));
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+            mBeanServer.registerMBean(this, objectName);
+        } catch (Exception e) {
+            logger.warn("Failed to register audit buffer MBean {}", name, e);
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+            final ObjectName objectName = new ObjectName(MBEAN_NAME + ObjectName.quote(name));
+            if (mBeanServer.isRegistered(objectName)) {
+                mBeanServer.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to unregister audit buffer MBean {}", name, e);
+        }
+    }
+}
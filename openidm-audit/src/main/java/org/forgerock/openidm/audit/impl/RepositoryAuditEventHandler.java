@@ -14,13 +14,14 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.forgerock.openidm.audit.impl;
 
 import static org.forgerock.json.resource.Requests.copyOfQueryRequest;
 import static org.forgerock.json.resource.Requests.newCreateRequest;
 import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import javax.inject.Inject;
@@ -43,6 +44,9 @@ import org.forgerock.util.promise.Promise;
 /**
  * Audit event handler for Repository.  This is implemented to use the router where the resourcePath is
  * hardcoded to be "repo/audit".
+ * <p>
+ * Events are written synchronously on the publishing thread, unless buffering is enabled, in which case they are
+ * written in batches by the writer thread of a {@link RepositoryAuditEventBuffer}.
  */
 public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
 
@@ -62,6 +66,9 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
      */
     private final ConnectionFactory connectionFactory;
 
+    /** The buffer of the events to write, null when events are written synchronously */
+    private final RepositoryAuditEventBuffer buffer;
+
     @Inject
     public RepositoryAuditEventHandler(
             final RepositoryAuditEventHandlerConfiguration configuration,
@@ -70,24 +77,35 @@ public class RepositoryAuditEventHandler extends AuditEventHandlerBase {
         super(configuration.getName(), eventTopicsMetaData, configuration.getTopics(), configuration.isEnabled());
         this.resourcePath = ResourcePath.valueOf(configuration.getResourcePath());
         this.connectionFactory = connectionFactory;
+        this.buffer = configuration.getBuffering().isEnabled()
+                ? new RepositoryAuditEventBuffer(configuration.getName(), resourcePath, connectionFactory,
+                        configuration.getBuffering())
+                : null;
     }
 
     @Override
     public void startup() throws ResourceException {
-        // do nothing
+        if (buffer != null) {
+            buffer.start();
+        }
     }
 
     @Override
     public void shutdown() throws ResourceException {
-        // do nothing
+        if (buffer != null) {
+            buffer.stop();
+        }
     }
 
     @Override
     public Promise<ResourceResponse, ResourceException> publishEvent(final Context context,
             final String auditEventTopic,
             final JsonValue auditEventContent) {
+        final String auditEventId = auditEventContent.get(ResourceResponse.FIELD_CONTENT_ID).asString();
+        if (buffer != null && buffer.add(auditEventTopic, auditEventId, auditEventContent)) {
+            return newResourceResponse(auditEventId, null, auditEventContent).asPromise();
+        }
         try {
-            final String auditEventId = auditEventContent.get(ResourceResponse.FIELD_CONTENT_ID).asString();
             return newResultPromise(connectionFactory.getConnection().create(new AuditingContext(context),
                     newCreateRequest(
                             resourcePath.concat(auditEventTopic),
@@ -12,22 +12,42 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.audit.impl;
 
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import org.forgerock.audit.events.handlers.EventHandlerConfiguration;
 
 /**
  * Configuration class for RepositoryAuditEventHandler.
+ * <p>
+ * Events are written synchronously unless buffering is enabled. Example of a buffered configuration:
+ * <pre>
+ *  {
+ *    "name" : "repo",
+ *    "topics" : [ "access", "activity", "recon", "sync" ],
+ *    "buffering" : {
+ *      "enabled" : true,
+ *      "maxSize" : 10000,
+ *      "maxBatchedEvents" : 100,
+ *      "writeInterval" : "100 millis",
+ *      "overflowPolicy" : "block"
+ *    }
+ *  }
+ * </pre>
  * @see RepositoryAuditEventHandler
  */
 @JsonIgnoreProperties(ignoreUnknown=true)
 public class RepositoryAuditEventHandlerConfiguration extends EventHandlerConfiguration {
     private static final String REPO_AUDIT_PATH = "repo/audit";
 
+    @JsonProperty
+    private EventBufferingConfiguration buffering = new EventBufferingConfiguration();
+
     /**
      * Returns the fixed path to repository audits.
      * @return #REPO_AUDIT_PATH
@@ -37,8 +57,148 @@ public class RepositoryAuditEventHandlerConfiguration extends EventHandlerConfig
         return REPO_AUDIT_PATH;
     }
 
+    /**
+     * Returns the configuration of the event buffering.
+     *
+     * @return the buffering configuration
+     */
+    public EventBufferingConfiguration getBuffering() {
+        return buffering;
+    }
+
+    /**
+     * Sets the configuration of the event buffering.
+     *
+     * @param buffering the buffering configuration
+     */
+    public void setBuffering(EventBufferingConfiguration buffering) {
+        this.buffering = buffering;
+    }
+
     @Override
     public boolean isUsableForQueries() {
         return true;
     }
+
+    /**
+     * Configuration of the event buffering. When enabled, events are queued and written to the repository in
+     * batches by a dedicated writer thread.
+     */
+    @JsonIgnoreProperties(ignoreUnknown=true)
+    public static class EventBufferingConfiguration {
+
+        /** What to do with an event when the buffer is full */
+        public enum OverflowPolicy {
+            /** Wait for the writer to make room in the buffer */
+            block,
+            /** Discard the event */
+            drop
+        }
+
+        @JsonProperty
+        private boolean enabled = false;
+
+        @JsonProperty
+        private int maxSize = 10000;
+
+        @JsonProperty
+        private int maxBatchedEvents = 100;
+
+        @JsonProperty
+        private String writeInterval = "100 millis";
+
+        @JsonProperty
+        private OverflowPolicy overflowPolicy = OverflowPolicy.block;
+
+        /**
+         * Returns whether events are buffered.
+         *
+         * @return true if events are buffered, false if they are written synchronously
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Sets whether events are buffered.
+         *
+         * @param enabled true to buffer events
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Returns the maximum number of events held by the buffer.
+         *
+         * @return the capacity of the buffer
+         */
+        public int getMaxSize() {
+            return maxSize;
+        }
+
+        /**
+         * Sets the maximum number of events held by the buffer.
+         *
+         * @param maxSize the capacity of the buffer
+         */
+        public void setMaxSize(int maxSize) {
+            this.maxSize = maxSize;
+        }
+
+        /**
+         * Returns the maximum number of events written in a single batch.
+         *
+         * @return the flush size
+         */
+        public int getMaxBatchedEvents() {
+            return maxBatchedEvents;
+        }
+
+        /**
+         * Sets the maximum number of events written in a single batch.
+         *
+         * @param maxBatchedEvents the flush size
+         */
+        public void setMaxBatchedEvents(int maxBatchedEvents) {
+            this.maxBatchedEvents = maxBatchedEvents;
+        }
+
+        /**
+         * Returns the maximum time an event waits for its batch to fill before it is written, as a duration such as
+         * {@code "100 millis"}.
+         *
+         * @return the flush interval
+         */
+        public String getWriteInterval() {
+            return writeInterval;
+        }
+
+        /**
+         * Sets the maximum time an event waits for its batch to fill before it is written.
+         *
+         * @param writeInterval the flush interval, as a duration such as {@code "100 millis"}
+         */
+        public void setWriteInterval(String writeInterval) {
+            this.writeInterval = writeInterval;
+        }
+
+        /**
+         * Returns what to do with an event when the buffer is full.
+         *
+         * @return the overflow policy
+         */
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        /**
+         * Sets what to do with an event when the buffer is full.
+         *
+         * @param overflowPolicy the overflow policy
+         */
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+    }
 }
\ No newline at end of file
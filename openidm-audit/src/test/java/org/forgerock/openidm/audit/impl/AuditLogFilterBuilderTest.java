@@ -14,7 +14,7 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.forgerock.openidm.audit.impl;
 
@@ -29,6 +29,7 @@ import static org.forgerock.openidm.audit.impl.AuditLogFilters.NEVER_FILTER;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.TYPE_ACTIVITY;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newActionFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newAndCompositeFilter;
+import static org.forgerock.openidm.audit.impl.AuditLogFilters.newEventTypeFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newOrCompositeFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newReconActionFilter;
 import static org.forgerock.openidm.audit.impl.AuditLogFilters.newScriptedFilter;
@@ -541,6 +542,24 @@ public class AuditLogFilterBuilderTest {
         assertThat(newAndCompositeFilter(Arrays.asList(filters)).isFiltered(context, request)).isEqualTo(andFilterResult);
     }
 
+    @Test
+    public void testCompiledFilterDispatchesOnEventType() {
+        Context context = mock(Context.class);
+        AuditLogFilter filter = AuditLogFilters.compile(newOrCompositeFilter(Arrays.asList(
+                newEventTypeFilter("activity", TRUE),
+                newOrCompositeFilter(Arrays.asList(
+                        newEventTypeFilter("recon", FALSE),
+                        newEventTypeFilter("recon", newAndCompositeFilter(Arrays.asList(TRUE, FALSE))))))));
+
+        assertTrue(filter.isFiltered(context, Requests.newCreateRequest("activity", json(object()))));
+        assertFalse(filter.isFiltered(context, Requests.newCreateRequest("recon", json(object()))));
+        assertFalse(filter.isFiltered(context, Requests.newCreateRequest("access", json(object()))));
+
+        AuditLogFilter withOtherFilter = AuditLogFilters.compile(newOrCompositeFilter(Arrays.asList(
+                newEventTypeFilter("recon", FALSE), TRUE)));
+        assertTrue(withOtherFilter.isFiltered(context, Requests.newCreateRequest("access", json(object()))));
+    }
+
     @Test
     public void testGetByGlob() {
 
@@ -0,0 +1,136 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.audit.impl;
+
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.UnaryOperator;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the changed watched fields computed per second for an activity event, by the compiled
+ * {@link ChangedFieldsMatcher} and by resolving each watched field pointer on its own, as the audit service did
+ * before, across the number of watched fields and the number of attributes of the changed object.
+ * <p>
+ * Not run by the unit tests. Run it from the test classpath with:
+ * <pre>
+ * java -cp ... org.forgerock.openidm.audit.impl.ChangedFieldsMatcherBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ChangedFieldsMatcherBenchmark {
+
+    private static final UnaryOperator<JsonValue> NO_DECRYPTION = value -> value;
+
+    @Param({ "1", "10", "50" })
+    public int watchedFields;
+
+    @Param({ "10", "100", "1000" })
+    public int eventSize;
+
+    private List<JsonPointer> pointers;
+    private ChangedFieldsMatcher matcher;
+    private JsonValue before;
+    private JsonValue after;
+
+    @Setup
+    public void setup() {
+        before = json(object());
+        for (int i = 0; i < eventSize; i++) {
+            // half of the attributes nested one level down
+            if (i % 2 == 0) {
+                before.put("attribute" + i, "value" + i);
+            } else {
+                before.putPermissive(new JsonPointer("/group" + (i % 10) + "/attribute" + i), "value" + i);
+            }
+        }
+        after = before.copy();
+        after.put("attribute0", "changed");
+
+        List<String> fields = new ArrayList<>();
+        for (int i = 0; i < watchedFields; i++) {
+            int attribute = i * eventSize / watchedFields;
+            fields.add(attribute % 2 == 0
+                    ? "/attribute" + attribute
+                    : "/group" + (attribute % 10) + "/attribute" + attribute);
+        }
+        matcher = new ChangedFieldsMatcher(fields);
+        pointers = new ArrayList<>();
+        for (String field : fields) {
+            pointers.add(new JsonPointer(field));
+        }
+    }
+
+    @Benchmark
+    public List<String> compiled() {
+        return matcher.getChangedFields(before, after, NO_DECRYPTION);
+    }
+
+    @Benchmark
+    public List<String> pointerList() {
+        List<String> changedFields = new ArrayList<>();
+        for (JsonPointer pointer : pointers) {
+            Object beforeValue = resolve(before, pointer);
+            Object afterValue = resolve(after, pointer);
+            if (beforeValue != afterValue && (beforeValue == null || !beforeValue.equals(afterValue))) {
+                changedFields.add(pointer.toString());
+            }
+        }
+        return changedFields;
+    }
+
+    private static Object resolve(JsonValue value, JsonPointer pointer) {
+        JsonValue field = value.get(pointer);
+        return field != null ? NO_DECRYPTION.apply(field).getObject() : null;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(ChangedFieldsMatcherBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.audit.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.Arrays;
+import java.util.function.UnaryOperator;
+
+import org.forgerock.json.JsonValue;
+import org.testng.annotations.Test;
+
+public class ChangedFieldsMatcherTest {
+
+    private static final UnaryOperator<JsonValue> NO_DECRYPTION = value -> value;
+
+    @Test
+    public void testChangedFieldsInConfiguredOrder() {
+        ChangedFieldsMatcher matcher = new ChangedFieldsMatcher(
+                Arrays.asList("/name/family", "mail", "/name/given", "/phones/1", "/address/city"));
+
+        JsonValue before = json(object(
+                field("mail", "bjensen@example.com"),
+                field("name", object(field("given", "Barbara"), field("family", "Jensen"))),
+                field("phones", array("555-1111", "555-2222"))));
+        JsonValue after = json(object(
+                field("mail", "bjensen@example.com"),
+                field("name", object(field("given", "Babs"), field("family", "Smith"))),
+                field("phones", array("555-1111", "555-3333"))));
+
+        assertThat(matcher.getChangedFields(before, after, NO_DECRYPTION))
+                .containsExactly("/name/family", "/name/given", "/phones/1");
+        assertThat(matcher.getChangedFields(before, before, NO_DECRYPTION)).isEmpty();
+        assertThat(matcher.getChangedFields(json(null), after, NO_DECRYPTION))
+                .containsExactly("/name/family", "/mail", "/name/given", "/phones/1");
+    }
+
+    @Test
+    public void testComparesDecryptedValues() {
+        ChangedFieldsMatcher matcher = new ChangedFieldsMatcher(Arrays.asList("/password"));
+        UnaryOperator<JsonValue> decryptor = value -> value.isMap() ? value.get("$crypto").get("value") : value;
+
+        JsonValue before = json(object(field("password", object(field("$crypto", object(field("value", "Passw0rd")))))));
+        JsonValue after = json(object(field("password", "Passw0rd")));
+
+        assertThat(matcher.getChangedFields(before, after, decryptor)).isEmpty();
+        assertThat(matcher.getChangedFields(before, json(object(field("password", "S3cret"))), decryptor))
+                .containsExactly("/password");
+    }
+
+    @Test
+    public void testNoWatchedFields() {
+        assertThat(ChangedFieldsMatcher.NONE.isEmpty()).isTrue();
+        assertThat(ChangedFieldsMatcher.NONE.getChangedFields(json(object(field("mail", "a"))),
+                json(object(field("mail", "b"))), NO_DECRYPTION)).isEmpty();
+    }
+}
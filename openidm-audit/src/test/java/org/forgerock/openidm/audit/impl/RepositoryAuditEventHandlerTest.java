@@ -0,0 +1,95 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.audit.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.ResourceResponse.FIELD_CONTENT_ID;
+
+import java.util.Collections;
+
+import org.forgerock.audit.events.EventTopicsMetaDataBuilder;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.Resources;
+import org.forgerock.json.resource.Router;
+import org.forgerock.services.context.RootContext;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class RepositoryAuditEventHandlerTest {
+
+    private static final String ACCESS = "access";
+
+    private ConnectionFactory connectionFactory;
+
+    @BeforeMethod
+    public void setUp() {
+        Router router = new Router();
+        router.addRoute(Router.uriTemplate("repo/audit/" + ACCESS), new MemoryBackend());
+        connectionFactory = Resources.newInternalConnectionFactory(router);
+    }
+
+    private RepositoryAuditEventHandler newHandler(boolean buffered) {
+        final RepositoryAuditEventHandlerConfiguration config = new RepositoryAuditEventHandlerConfiguration();
+        config.setName("repo");
+        config.setTopics(Collections.singleton(ACCESS));
+        config.getBuffering().setEnabled(buffered);
+        config.getBuffering().setMaxBatchedEvents(2);
+        return new RepositoryAuditEventHandler(config, EventTopicsMetaDataBuilder.coreTopicSchemas().build(),
+                connectionFactory);
+    }
+
+    @Test
+    public void testBufferedEventsAreWrittenOnShutdown() throws Exception {
+        // given
+        final RepositoryAuditEventHandler handler = newHandler(true);
+        handler.startup();
+
+        // when
+        for (int i = 0; i < 5; i++) {
+            handler.publishEvent(new RootContext(), ACCESS,
+                    json(object(field(FIELD_CONTENT_ID, "event" + i), field("somedata", i))))
+                    .getOrThrow();
+        }
+        handler.shutdown();
+
+        // then
+        for (int i = 0; i < 5; i++) {
+            assertThat(connectionFactory.getConnection().read(new RootContext(),
+                    newReadRequest("repo/audit/" + ACCESS, "event" + i)).getContent().get("somedata").asInteger())
+                    .isEqualTo(i);
+        }
+    }
+
+    @Test
+    public void testEventsAreWrittenDirectlyWhenNotBuffered() throws Exception {
+        // given
+        final RepositoryAuditEventHandler handler = newHandler(false);
+
+        // when
+        handler.publishEvent(new RootContext(), ACCESS,
+                json(object(field(FIELD_CONTENT_ID, "event"), field("somedata", "foo")))).getOrThrow();
+
+        // then
+        assertThat(connectionFactory.getConnection().read(new RootContext(),
+                newReadRequest("repo/audit/" + ACCESS, "event")).getContent().get("somedata").asString())
+                .isEqualTo("foo");
+    }
+}
@@ -0,0 +1,197 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.json.resource.ResourcePath;
+import org.wrensecurity.guava.common.cache.Cache;
+import org.wrensecurity.guava.common.cache.CacheBuilder;
+
+/**
+ * A bounded cache of authentication results of an auth module, keyed by the authentication id. Entries expire after
+ * a time to live, and are invalidated when the resource they were computed from, or a role or relationship, is
+ * changed through the router.
+ * <p>
+ * Results computed while an invalidation is in progress are not cached, so that a result read before a change
+ * cannot outlive the invalidation caused by the change. Callers read the {@link #generation()} before computing
+ * a result and pass it to {@link #put(String, String, Object, long)}.
+ *
+ * @param <V> the type of the cached results
+ */
+public class AuthenticationCache<V> implements AuthenticationCacheMBean {
+
+    /** A cached result with the id of the resource it was computed from */
+    private static final class Entry<V> {
+        private final String resourceId;
+        private final V value;
+
+        private Entry(String resourceId, V value) {
+            this.resourceId = resourceId;
+            this.value = value;
+        }
+    }
+
+    private final String name;
+    private final ResourcePath resourcePath;
+    private final Cache<String, Entry<V>> cache;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    /**
+     * Creates an authentication cache.
+     *
+     * @param name the name of the cache, unique among the caches of the auth modules
+     * @param resourceName the resource the authenticated users are read from, such as {@code managed/user}
+     * @param maxSize the maximum number of cached results
+     * @param timeToLive the time to live of the cached results, in milliseconds
+     */
+    AuthenticationCache(String name, String resourceName, long maxSize, long timeToLive) {
+        this.name = name;
+        this.resourcePath = ResourcePath.valueOf(resourceName);
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(timeToLive, TimeUnit.MILLISECONDS)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the name of this cache.
+     *
+     * @return the name of the cache
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the path of the resource the authenticated users are read from.
+     *
+     * @return the resource path
+     */
+    ResourcePath getResourcePath() {
+        return resourcePath;
+    }
+
+    /**
+     * Returns the current generation of this cache, to pass to {@link #put(String, String, Object, long)} once the
+     * result is computed.
+     *
+     * @return the generation, incremented by each invalidation
+     */
+    public long generation() {
+        return generation.get();
+    }
+
+    /**
+     * Returns the cached result for an authentication id.
+     *
+     * @param key the authentication id
+     * @return the cached result, or null if none is cached
+     */
+    public V get(String key) {
+        final Entry<V> entry = cache.getIfPresent(key);
+        return entry != null ? entry.value : null;
+    }
+
+    /**
+     * Caches the result for an authentication id, unless the cache was invalidated since the given generation.
+     *
+     * @param key the authentication id
+     * @param resourceId the id of the resource the result was computed from, null if unknown
+     * @param value the result
+     * @param generation the generation read before the result was computed
+     */
+    public void put(String key, String resourceId, V value, long generation) {
+        if (this.generation.get() != generation) {
+            return;
+        }
+        cache.put(key, new Entry<>(resourceId, value));
+        if (this.generation.get() != generation) {
+            // invalidated concurrently, the result may be stale
+            cache.invalidate(key);
+        }
+    }
+
+    /**
+     * Invalidates the results computed from a changed resource. Changes of a resource collection, or of a resource
+     * whose id is unknown, invalidate all the results.
+     *
+     * @param changed the path of the changed resource
+     * @return whether the change concerned the resource of this cache
+     */
+    boolean invalidate(ResourcePath changed) {
+        if (!changed.startsWith(resourcePath)) {
+            return false;
+        }
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        if (changed.size() > resourcePath.size()) {
+            final String resourceId = changed.get(resourcePath.size());
+            cache.asMap().values().removeIf(entry -> entry.resourceId == null || resourceId.equals(entry.resourceId));
+        } else {
+            cache.invalidateAll();
+        }
+        return true;
+    }
+
+    /**
+     * Invalidates all the results, as the roles calculated for any of the users may depend on a changed role or
+     * relationship.
+     */
+    void invalidateRoles() {
+        generation.incrementAndGet();
+        invalidations.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Invalidates all the cached results.
+     */
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    // ----- Implementation of AuthenticationCacheMBean
+
+    @Override
+    public long getSize() {
+        return cache.size();
+    }
+
+    @Override
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    @Override
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    @Override
+    public long getInvalidationCount() {
+        return invalidations.get();
+    }
+}
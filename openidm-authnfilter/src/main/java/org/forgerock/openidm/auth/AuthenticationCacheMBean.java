@@ -0,0 +1,52 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth;
+
+/**
+ * Provide JMX / MBean access for monitoring an authentication result cache of an auth module.
+ */
+public interface AuthenticationCacheMBean {
+
+    /**
+     * Gets the number of cached authentication results.
+     * @return the number of cache entries.
+     */
+    long getSize();
+
+    /**
+     * Gets the number of authentications answered from the cache.
+     * @return the number of cache hits.
+     */
+    long getHitCount();
+
+    /**
+     * Gets the number of authentications that were not cached.
+     * @return the number of cache misses.
+     */
+    long getMissCount();
+
+    /**
+     * Gets the number of entries removed as the cache was full or their time to live expired.
+     * @return the number of evicted entries.
+     */
+    long getEvictionCount();
+
+    /**
+     * Gets the number of invalidations caused by changes of the authenticated resources.
+     * @return the number of invalidations.
+     */
+    long getInvalidationCount();
+}
@@ -0,0 +1,239 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.Filter;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Request;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.promise.Promise;
+import org.forgerock.util.time.Duration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the authentication result caches of the auth modules, registers them as MBeans, and invalidates them as a
+ * router {@link Filter} when the resources they were computed from are updated, patched, deleted or the target of an
+ * action, or when relationships are created below them.
+ * <p>
+ * The roles of an authenticated user are calculated from its roles and relationships, so any change of a managed or
+ * internal role, or of a relationship, including through the relationship endpoints of a managed object such as
+ * {@code managed/role/{id}/members}, invalidates all the cached results.
+ * <p>
+ * Caching is enabled per auth module with the {@code authenticationCache} property of the module properties:
+ * <pre><code>
+ * "authenticationCache" : {
+ *     "enabled" : true,
+ *     "maxSize" : 1000,
+ *     "timeToLive" : "60 seconds"
+ * }
+ * </code></pre>
+ * Changes made on other cluster nodes, or directly on the repository, are only seen once the cached results expire.
+ */
+public class AuthenticationCacheManager implements Filter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AuthenticationCacheManager.class);
+
+    /** The authenticationCache key within the auth module properties. */
+    public static final String AUTHENTICATION_CACHE = "authenticationCache";
+
+    private static final String CONFIG_ENABLED = "enabled";
+    private static final String CONFIG_MAX_SIZE = "maxSize";
+    private static final String CONFIG_TIME_TO_LIVE = "timeToLive";
+
+    private static final long DEFAULT_MAX_SIZE = 1000;
+    private static final String DEFAULT_TIME_TO_LIVE = "60 seconds";
+
+    private static final String MBEAN_NAME = "org.forgerock.openidm.auth:type=AuthenticationCache,name=";
+
+    /** The resources whose changes may change the roles calculated for any authenticated user */
+    private static final List<ResourcePath> ROLE_RESOURCES = Arrays.asList(
+            ResourcePath.valueOf("managed/role"),
+            ResourcePath.valueOf("internal/role"),
+            ResourcePath.valueOf("repo/relationships"));
+
+    /** The caches of the configured auth modules, by name */
+    private final Map<String, AuthenticationCache<?>> caches = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the authentication cache configured by the properties of an auth module.
+     *
+     * @param name the name of the cache, made unique by a suffix if needed
+     * @param resourceName the resource the authenticated users are read from
+     * @param moduleProperties the auth module properties
+     * @param <V> the type of the cached results
+     * @return the cache, or null if caching is not enabled for the auth module
+     */
+    public <V> AuthenticationCache<V> newCache(String name, String resourceName, JsonValue moduleProperties) {
+        final JsonValue config = moduleProperties.get(AUTHENTICATION_CACHE);
+        if (config.isNull() || resourceName == null
+                || !config.get(CONFIG_ENABLED).defaultTo(true).asBoolean()) {
+            return null;
+        }
+        final long maxSize = config.get(CONFIG_MAX_SIZE).defaultTo(DEFAULT_MAX_SIZE).asLong();
+        final Duration timeToLive =
+                Duration.duration(config.get(CONFIG_TIME_TO_LIVE).defaultTo(DEFAULT_TIME_TO_LIVE).asString());
+        if (timeToLive.isUnlimited() || timeToLive.to(TimeUnit.MILLISECONDS) <= 0) {
+            logger.warn("Authentication cache {} disabled, its time to live must be limited and positive", name);
+            return null;
+        }
+
+        String uniqueName = name;
+        for (int i = 2; caches.containsKey(uniqueName); i++) {
+            uniqueName = name + "-" + i;
+        }
+        final AuthenticationCache<V> cache = new AuthenticationCache<>(uniqueName, resourceName, maxSize,
+                timeToLive.to(TimeUnit.MILLISECONDS));
+        caches.put(uniqueName, cache);
+        try {
+            final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+            mbeanServer.registerMBean(cache, new ObjectName(MBEAN_NAME + ObjectName.quote(uniqueName)));
+        } catch (JMException e) {
+            logger.warn("Failed to register MBean of authentication cache {}", uniqueName, e);
+        }
+        logger.debug("Created authentication cache {} on {}", uniqueName, resourceName);
+        return cache;
+    }
+
+    /**
+     * Discards the caches of the auth modules, as the authentication configuration changed.
+     */
+    public void clear() {
+        final MBeanServer mbeanServer = ManagementFactory.getPlatformMBeanServer();
+        for (AuthenticationCache<?> cache : caches.values()) {
+            cache.invalidateAll();
+            try {
+                mbeanServer.unregisterMBean(new ObjectName(MBEAN_NAME + ObjectName.quote(cache.getName())));
+            } catch (JMException e) {
+                logger.debug("Failed to unregister MBean of authentication cache {}", cache.getName(), e);
+            }
+        }
+        caches.clear();
+    }
+
+    private void invalidate(Request request) {
+        final ResourcePath changed = request.getResourcePathObject();
+        for (ResourcePath roleResource : ROLE_RESOURCES) {
+            if (changed.startsWith(roleResource)) {
+                for (AuthenticationCache<?> cache : caches.values()) {
+                    cache.invalidateRoles();
+                }
+                logger.debug("Invalidated authentication caches on {} of {}", request.getRequestType(),
+                        request.getResourcePath());
+                return;
+            }
+        }
+        for (AuthenticationCache<?> cache : caches.values()) {
+            if (cache.invalidate(changed)) {
+                logger.debug("Invalidated authentication cache {} on {} of {}",
+                        cache.getName(), request.getRequestType(), request.getResourcePath());
+            }
+        }
+    }
+
+    /**
+     * Returns whether a path is the collection of a cached resource, such as {@code managed/user}, whose new
+     * resources have no cached results.
+     */
+    private boolean isCollection(ResourcePath path) {
+        for (AuthenticationCache<?> cache : caches.values()) {
+            if (cache.getResourcePath().equals(path)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // ----- Implementation of Filter
+
+    @Override
+    public Promise<ActionResponse, ResourceException> filterAction(Context context, ActionRequest actionRequest,
+            RequestHandler handler) {
+        return handler.handleAction(context, actionRequest)
+                .thenOnResult(response -> invalidate(actionRequest));
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterCreate(Context context, CreateRequest createRequest,
+            RequestHandler handler) {
+        // failed authentications are not cached, so new resources have no cached results, but creating a role or
+        // a relationship, such as managed/user/{id}/roles, changes the roles of existing resources
+        return handler.handleCreate(context, createRequest)
+                .thenOnResult(response -> {
+                    if (!isCollection(createRequest.getResourcePathObject())) {
+                        invalidate(createRequest);
+                    }
+                });
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterDelete(Context context, DeleteRequest deleteRequest,
+            RequestHandler handler) {
+        return handler.handleDelete(context, deleteRequest)
+                .thenOnResult(response -> invalidate(deleteRequest));
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterPatch(Context context, PatchRequest patchRequest,
+            RequestHandler handler) {
+        return handler.handlePatch(context, patchRequest)
+                .thenOnResult(response -> invalidate(patchRequest));
+    }
+
+    @Override
+    public Promise<QueryResponse, ResourceException> filterQuery(Context context, QueryRequest queryRequest,
+            QueryResourceHandler queryResourceHandler, RequestHandler handler) {
+        return handler.handleQuery(context, queryRequest, queryResourceHandler);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterRead(Context context, ReadRequest readRequest,
+            RequestHandler handler) {
+        return handler.handleRead(context, readRequest);
+    }
+
+    @Override
+    public Promise<ResourceResponse, ResourceException> filterUpdate(Context context, UpdateRequest updateRequest,
+            RequestHandler handler) {
+        return handler.handleUpdate(context, updateRequest)
+                .thenOnResult(response -> invalidate(updateRequest));
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 
 package org.forgerock.openidm.auth;
@@ -100,6 +100,7 @@ import org.forgerock.openidm.idp.impl.IdentityProviderService;
 import org.forgerock.openidm.idp.impl.IdentityProviderServiceException;
 import org.forgerock.openidm.idp.impl.ProviderConfigMapper;
 import org.forgerock.openidm.idp.impl.api.IdentityProviderServiceResourceWithNoSecret;
+import org.forgerock.openidm.router.RouterFilterRegistration;
 import org.forgerock.openidm.keystore.SharedKeyService;
 import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.util.HeaderUtil;
@@ -263,6 +264,27 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         identityProviderService = null;
     }
 
+    /** The authentication caches of the auth modules, invalidated as a router filter */
+    private final AuthenticationCacheManager cacheManager = new AuthenticationCacheManager();
+
+    /**
+     * Adds the router filter invalidating the authentication caches on changes of the authenticated resources.
+     *
+     * @param filterRegistration the router filter registration service
+     */
+    @Reference(
+            name = "RouterFilterRegistration",
+            unbind = "unbindRouterFilterRegistration",
+            cardinality = ReferenceCardinality.OPTIONAL,
+            policy = ReferencePolicy.DYNAMIC)
+    void bindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.addFilter(cacheManager);
+    }
+
+    void unbindRouterFilterRegistration(RouterFilterRegistration filterRegistration) {
+        filterRegistration.removeFilter(cacheManager);
+    }
+
     /** An on-demand Provider for the ConnectionFactory */
     private final Provider<ConnectionFactory> connectionFactoryProvider =
             new Provider<ConnectionFactory>() {
@@ -283,7 +305,7 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
 
     /** a factory Function to build an Authenticator from an auth module config */
     private final AuthenticatorFactory toAuthenticatorFromProperties =
-            new AuthenticatorFactory(connectionFactoryProvider, cryptoServiceProvider);
+            new AuthenticatorFactory(connectionFactoryProvider, cryptoServiceProvider, cacheManager);
 
     /** A {@link Predicate} that returns whether the auth module is enabled */
     private static final Predicate<JsonValue> enabledAuthModules =
@@ -500,6 +522,8 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         final JsonValue authModuleConfig = amendedConfig.get(SERVER_AUTH_CONTEXT_KEY).get(AUTH_MODULES_KEY);
         amendAuthConfig(authModuleConfig);
 
+        // the auth modules and authenticators create new caches from the new configuration
+        cacheManager.clear();
         try {
             authFilterWrapper.setFilter(configureAuthenticationFilter(amendedConfig));
         } catch (AuthenticationException e) {
@@ -542,6 +566,7 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         logger.debug("OpenIDM Config for Authentication {} is deactivated.", config.get(Constants.SERVICE_PID));
         config = null;
         authenticators.clear();
+        cacheManager.clear();
 
         // remove CAF filter from CHF filter wrapper
         if (authFilterWrapper != null) {
@@ -642,7 +667,8 @@ public class AuthenticationService implements SingletonResourceProvider, Identit
         }
 
         // wrap all auth modules in our wrapper to apply the IDM business logic
-        return configureModule(new IDMAuthModuleWrapper(module, connectionFactory, cryptoService, scriptRegistry))
+        return configureModule(
+                new IDMAuthModuleWrapper(module, connectionFactory, cryptoService, scriptRegistry, cacheManager))
                 .withSettings(moduleProperties.asMap());
     }
 
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.auth;
@@ -43,11 +44,25 @@ public class AuthenticatorFactory implements Function<JsonValue, Authenticator>
 
     private final Provider<ConnectionFactory> connectionFactoryProvider;
     private final Provider<CryptoService> cryptoServiceProvider;
+    private final AuthenticationCacheManager cacheManager;
 
     public AuthenticatorFactory(final Provider<ConnectionFactory> connectionFactoryProvider,
             final Provider<CryptoService> cryptoServiceProvider) {
+        this(connectionFactoryProvider, cryptoServiceProvider, null);
+    }
+
+    /**
+     * Constructs a factory of authenticators caching successful authentications when configured.
+     *
+     * @param connectionFactoryProvider the provider of the connection factory
+     * @param cryptoServiceProvider the provider of the crypto service
+     * @param cacheManager the manager of the authentication caches, null to disable caching
+     */
+    public AuthenticatorFactory(final Provider<ConnectionFactory> connectionFactoryProvider,
+            final Provider<CryptoService> cryptoServiceProvider, final AuthenticationCacheManager cacheManager) {
         this.connectionFactoryProvider = connectionFactoryProvider;
         this.cryptoServiceProvider = cryptoServiceProvider;
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -60,12 +75,18 @@ public class AuthenticatorFactory implements Function<JsonValue, Authenticator>
     @Override
     public Authenticator apply(JsonValue jsonValue) {
         if (!jsonValue.get(QUERY_ID).isNull()) {
+            final String queryOnResource = jsonValue.get(QUERY_ON_RESOURCE).required().asString();
+            final String queryId = jsonValue.get(QUERY_ID).required().asString();
             return new ResourceQueryAuthenticator(cryptoServiceProvider, connectionFactoryProvider,
-                    jsonValue.get(QUERY_ON_RESOURCE).required().asString(),
-                    jsonValue.get(QUERY_ID).required().asString(),
+                    queryOnResource,
+                    queryId,
                     jsonValue.get(PROPERTY_MAPPING).get(AUTHENTICATION_ID).required().asString(),
                     jsonValue.get(PROPERTY_MAPPING).get(USER_CREDENTIAL).required().asString(),
-                    jsonValue.get(PROPERTY_MAPPING).get(USER_ROLES).asString());
+                    jsonValue.get(PROPERTY_MAPPING).get(USER_ROLES).asString(),
+                    cacheManager != null
+                            ? cacheManager.<ResourceQueryAuthenticator.CachedCredential>newCache(
+                                    "credentials/" + queryOnResource + "/" + queryId, queryOnResource, jsonValue)
+                            : null);
         } else if (!jsonValue.get(USERNAME_PROPERTY).isNull()
                 && !jsonValue.get(PASSWORD_PROPERTY).isNull()) {
             return new StaticAuthenticator(
@@ -12,11 +12,13 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.auth;
 
 import static org.forgerock.json.resource.ResourceException.newResourceException;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
 
 import org.eclipse.jetty.jaas.spi.UserInfo;
 import org.eclipse.jetty.util.security.Password;
@@ -33,6 +35,10 @@ import org.forgerock.util.Reject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
 import java.util.HashSet;
 import java.util.Set;
 import javax.inject.Provider;
@@ -40,11 +46,31 @@ import javax.inject.Provider;
 /**
  * Authenticator class which performs authentication against managed/internal user tables using a queryId to fetch
  * the complete local user data and validates the password locally.
+ * <p>
+ * When an {@link AuthenticationCache} is given, successful authentications are cached with a salted digest of the
+ * verified password, so that repeated authentications with the same password skip the query and the verification
+ * of the stored credential.
  */
 class ResourceQueryAuthenticator implements Authenticator {
 
     private static final Logger logger = LoggerFactory.getLogger(ResourceQueryAuthenticator.class);
 
+    /** The algorithm of the digests of the cached passwords */
+    private static final String DIGEST_ALGORITHM = "SHA-256";
+
+    /**
+     * A cached successful authentication.
+     */
+    static final class CachedCredential {
+        private final ResourceResponse resource;
+        private final byte[] digest;
+
+        private CachedCredential(ResourceResponse resource, byte[] digest) {
+            this.resource = resource;
+            this.digest = digest;
+        }
+    }
+
     private final Provider<CryptoService> cryptoServiceProvider;
     private final Provider<ConnectionFactory> connectionFactoryProvider;
     private final String queryOnResource;
@@ -52,6 +78,10 @@ class ResourceQueryAuthenticator implements Authenticator {
     private final String userRolesProperty;
     private final String authenticationIdProperty;
     private final String userCredentialProperty;
+    private final AuthenticationCache<CachedCredential> cache;
+
+    /** The salt of the digests of the cached passwords, random for each authenticator */
+    private final byte[] digestSalt = new byte[16];
 
     /**
      * Constructs an instance of the ResourceQueryAuthenticator.
@@ -65,6 +95,24 @@ class ResourceQueryAuthenticator implements Authenticator {
      */
     public ResourceQueryAuthenticator(Provider<CryptoService> cryptoService, Provider<ConnectionFactory> connectionFactory,
             String queryOnResource, String queryId,  String authenticationIdProperty, String userCredentialProperty, String userRolesProperty) {
+        this(cryptoService, connectionFactory, queryOnResource, queryId, authenticationIdProperty,
+                userCredentialProperty, userRolesProperty, null);
+    }
+
+    /**
+     * Constructs an instance of the ResourceQueryAuthenticator caching successful authentications.
+     * @param cryptoService The CryptoService.
+     * @param connectionFactory The ConnectionFactory.
+     * @param queryOnResource The query resource.
+     * @param queryId The query id.
+     * @param authenticationIdProperty The user id property.
+     * @param userCredentialProperty The user credential property.
+     * @param userRolesProperty The property for reading authorization roles
+     * @param cache The cache of successful authentications, null to disable caching
+     */
+    public ResourceQueryAuthenticator(Provider<CryptoService> cryptoService, Provider<ConnectionFactory> connectionFactory,
+            String queryOnResource, String queryId,  String authenticationIdProperty, String userCredentialProperty, String userRolesProperty,
+            AuthenticationCache<CachedCredential> cache) {
 
         Reject.ifNull(cryptoService, "CryptoService is null");
         Reject.ifNull(connectionFactory, "ConnectionFactory is null");
@@ -80,6 +128,8 @@ class ResourceQueryAuthenticator implements Authenticator {
         this.authenticationIdProperty = authenticationIdProperty;
         this.userCredentialProperty = userCredentialProperty;
         this.userRolesProperty = userRolesProperty;
+        this.cache = cache;
+        new SecureRandom().nextBytes(digestSalt);
     }
 
     /**
@@ -100,6 +150,28 @@ class ResourceQueryAuthenticator implements Authenticator {
             throw new InternalServerErrorException("No CryptoService available");
         }
 
+        if (cache == null || password == null) {
+            return authenticate(username, password, context, cryptoService);
+        }
+        final byte[] digest = digest(password);
+        final CachedCredential cached = cache.get(username);
+        if (cached != null && MessageDigest.isEqual(cached.digest, digest)) {
+            logger.debug("Authentication succeeded for {} from the cache", username);
+            return AuthenticatorResult.authenticationSuccess(newResourceResponse(cached.resource.getId(),
+                    cached.resource.getRevision(), cached.resource.getContent().copy()));
+        }
+        final long generation = cache.generation();
+        final AuthenticatorResult result = authenticate(username, password, context, cryptoService);
+        if (result.isAuthenticated()) {
+            final ResourceResponse resource = result.getResource();
+            cache.put(username, resource.getId(), new CachedCredential(newResourceResponse(resource.getId(),
+                    resource.getRevision(), resource.getContent().copy()), digest), generation);
+        }
+        return result;
+    }
+
+    private AuthenticatorResult authenticate(String username, String password, Context context,
+            CryptoService cryptoService) throws ResourceException {
         final ResourceResponse resource = getResource(username, context);
         if (resource != null) {
             if (cryptoService.isHashed(resource.getContent().get(userCredentialProperty))) {
@@ -125,6 +197,16 @@ class ResourceQueryAuthenticator implements Authenticator {
         return AuthenticatorResult.FAILED;
     }
 
+    private byte[] digest(String password) throws InternalServerErrorException {
+        try {
+            final MessageDigest messageDigest = MessageDigest.getInstance(DIGEST_ALGORITHM);
+            messageDigest.update(digestSalt);
+            return messageDigest.digest(password.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new InternalServerErrorException(e.getMessage(), e);
+        }
+    }
+
     private ResourceResponse getResource(String username, Context context) throws ResourceException {
         QueryRequest request = Requests.newQueryRequest(queryOnResource)
                 .setQueryId(queryId)
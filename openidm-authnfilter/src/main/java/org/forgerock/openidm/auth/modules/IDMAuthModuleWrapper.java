@@ -14,7 +14,7 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
- * Portions Copyright 2018-2020 Wren Security
+ * Portions Copyright 2018-2026 Wren Security
  */
 package org.forgerock.openidm.auth.modules;
 
@@ -54,6 +54,8 @@ import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.Responses;
+import org.forgerock.openidm.auth.AuthenticationCache;
+import org.forgerock.openidm.auth.AuthenticationCacheManager;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.openidm.util.HeaderUtil;
@@ -118,6 +120,25 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
     private UserDetailQueryBuilder queryBuilder;
     private RoleCalculator roleCalculator;
 
+    /** The manager of the authentication caches, null if caching is not available */
+    private final AuthenticationCacheManager cacheManager;
+
+    /** The cache of the queried user details and calculated roles, null if not enabled */
+    private AuthenticationCache<UserDetail> userDetailCache;
+
+    /**
+     * The user detail queried for an authenticated principal and the roles calculated from it.
+     */
+    private static final class UserDetail {
+        private final ResourceResponse resource;
+        private final List<String> roles;
+
+        private UserDetail(ResourceResponse resource, List<String> roles) {
+            this.resource = resource;
+            this.roles = roles;
+        }
+    }
+
     /**
      * Constructs a new instance of the IDMAuthModuleWrapper.
      *
@@ -128,8 +149,24 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
      */
     public IDMAuthModuleWrapper(AsyncServerAuthModule authModule,
             ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry) {
+        this(authModule, connectionFactory, cryptoService, scriptRegistry, null);
+    }
+
+    /**
+     * Constructs a new instance of the IDMAuthModuleWrapper caching the user details and roles of the authenticated
+     * principals when configured.
+     *
+     * @param authModule The auth module wrapped by this module.
+     * @param connectionFactory
+     * @param cryptoService
+     * @param scriptRegistry
+     * @param cacheManager The manager of the authentication caches, null to disable caching.
+     */
+    public IDMAuthModuleWrapper(AsyncServerAuthModule authModule,
+            ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
+            AuthenticationCacheManager cacheManager) {
         this(authModule, connectionFactory, cryptoService, scriptRegistry,
-                new RoleCalculatorFactory(), new AugmentationScriptExecutor());
+                new RoleCalculatorFactory(), new AugmentationScriptExecutor(), cacheManager);
     }
 
     /**
@@ -144,12 +181,31 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
             ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
             RoleCalculatorFactory roleCalculatorFactory,
             AugmentationScriptExecutor augmentationScriptExecutor) {
+        this(authModule, connectionFactory, cryptoService, scriptRegistry, roleCalculatorFactory,
+                augmentationScriptExecutor, null);
+    }
+
+    /**
+     * Constructs a new instance of the IDMAuthModuleWrapper with the provided parameters, for test use.
+     *
+     * @param authModule The auth module wrapped by this module.
+     * @param roleCalculatorFactory An instance of the RoleCalculatorFactory.
+     * @param augmentationScriptExecutor An instance of the AugmentationScriptExecutor.
+     * @param cacheManager The manager of the authentication caches, null to disable caching.
+     */
+    IDMAuthModuleWrapper(
+            AsyncServerAuthModule authModule,
+            ConnectionFactory connectionFactory, CryptoService cryptoService, ScriptRegistry scriptRegistry,
+            RoleCalculatorFactory roleCalculatorFactory,
+            AugmentationScriptExecutor augmentationScriptExecutor,
+            AuthenticationCacheManager cacheManager) {
         this.authModule = authModule;
         this.connectionFactory = connectionFactory;
         this.cryptoService = cryptoService;
         this.scriptRegistry = scriptRegistry;
         this.roleCalculatorFactory = roleCalculatorFactory;
         this.augmentationScriptExecutor = augmentationScriptExecutor;
+        this.cacheManager = cacheManager;
     }
 
     /**
@@ -265,6 +321,11 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
         roleCalculator = roleCalculatorFactory.create(defaultRoles, userRoles, groupMembership,
                 roleMapping, groupComparison);
 
+        if (cacheManager != null) {
+            userDetailCache = cacheManager.newCache("roles/" + getModuleId() + "/" + queryOnResource,
+                    queryOnResource, properties);
+        }
+
         JsonValue scriptConfig = properties.get(SERVLET_FILTER_AUGMENT_SECURITY_CONTEXT);
         if (!scriptConfig.isNull()) {
             augmentScript = getAugmentScript(scriptConfig);
@@ -343,10 +404,21 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
 
                         try {
                             // query the resource - could return null
-                            final ResourceResponse resource = getAuthenticatedResource(principalName, messageInfo);
+                            final ResourceResponse resource;
+                            final List<String> roles;
+                            final UserDetail cached = getCachedUserDetail(principalName, messageInfo);
+                            if (cached != null) {
+                                resource = cached.resource;
+                                roles = cached.roles;
+                            } else {
+                                final long generation = userDetailCache != null ? userDetailCache.generation() : 0;
+                                resource = getAuthenticatedResource(principalName, messageInfo);
+                                roles = roleCalculator.calculateRoles(principalName, resource);
+                                cacheUserDetail(principalName, messageInfo, resource, roles, generation);
+                            }
 
                             // Calculate (and set) roles if not already set
-                            securityContextMapper.setRoles(roleCalculator.calculateRoles(principalName, resource));
+                            securityContextMapper.setRoles(roles);
 
                             // set "resource" (component) if not already set
                             securityContextMapper.setResource(queryOnResource);
@@ -383,6 +455,42 @@ public class IDMAuthModuleWrapper implements AsyncServerAuthModule {
                 });
     }
 
+    /**
+     * Returns the cached user detail of a principal, unless the user detail was provided by the authentication.
+     *
+     * @param principalName the principal that was authenticated
+     * @param messageInfo
+     * @return the cached user detail, or null if none is cached
+     */
+    private UserDetail getCachedUserDetail(String principalName, MessageInfoContext messageInfo) {
+        if (userDetailCache == null
+                || messageInfo.getRequestContextMap().containsKey(AUTHENTICATED_RESOURCE)) {
+            return null;
+        }
+        final UserDetail cached = userDetailCache.get(principalName);
+        if (cached == null) {
+            return null;
+        }
+        return new UserDetail(Responses.newResourceResponse(cached.resource.getId(),
+                cached.resource.getRevision(), cached.resource.getContent().copy()), cached.roles);
+    }
+
+    /**
+     * Caches the queried user detail of a principal, unless the user detail was provided by the authentication, as
+     * it is then read again for each authentication, or was not found, as the query may have failed.
+     */
+    private void cacheUserDetail(String principalName, MessageInfoContext messageInfo, ResourceResponse resource,
+            List<String> roles, long generation) {
+        if (userDetailCache == null || resource == null || roles == null
+                || messageInfo.getRequestContextMap().containsKey(AUTHENTICATED_RESOURCE)) {
+            return;
+        }
+        userDetailCache.put(principalName, resource.getId(),
+                new UserDetail(Responses.newResourceResponse(resource.getId(), resource.getRevision(),
+                        resource.getContent().copy()), Collections.unmodifiableList(new ArrayList<>(roles))),
+                generation);
+    }
+
     /**
      * Query for the authentication resource.
      *
@@ -0,0 +1,154 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.auth;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.PatchRequest;
+import org.forgerock.json.resource.RequestHandler;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.util.promise.Promises;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+public class AuthenticationCacheTest {
+
+    private final AuthenticationCacheManager cacheManager = new AuthenticationCacheManager();
+
+    private static final JsonValue CACHE_ENABLED =
+            json(object(field(AuthenticationCacheManager.AUTHENTICATION_CACHE, object())));
+
+    @AfterMethod
+    public void tearDown() {
+        cacheManager.clear();
+    }
+
+    @Test
+    public void testCachingIsOptIn() {
+        assertThat(cacheManager.<String>newCache("test", "managed/user", json(object()))).isNull();
+        assertThat(cacheManager.<String>newCache("test", "managed/user", json(object(
+                field(AuthenticationCacheManager.AUTHENTICATION_CACHE, object(field("enabled", false)))))))
+                .isNull();
+    }
+
+    @Test
+    public void testInvalidateChangedResource() {
+        AuthenticationCache<String> cache = cacheManager.newCache("test", "managed/user", CACHE_ENABLED);
+        cache.put("bjensen", "1", "Barbara", cache.generation());
+        cache.put("scarter", "2", "Sam", cache.generation());
+
+        assertThat(cache.invalidate(ResourcePath.valueOf("managed/role/1"))).isFalse();
+        assertThat(cache.invalidate(ResourcePath.valueOf("managed/user/1"))).isTrue();
+        assertThat(cache.get("bjensen")).isNull();
+        assertThat(cache.get("scarter")).isEqualTo("Sam");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+
+        cache.invalidate(ResourcePath.valueOf("managed/user"));
+        assertThat(cache.get("scarter")).isNull();
+        assertThat(cache.getInvalidationCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void testResultComputedDuringInvalidationIsNotCached() {
+        AuthenticationCache<String> cache = cacheManager.newCache("test", "managed/user", CACHE_ENABLED);
+        long generation = cache.generation();
+        cache.invalidate(ResourcePath.valueOf("managed/user/1"));
+        cache.put("bjensen", "1", "Barbara", generation);
+        assertThat(cache.get("bjensen")).isNull();
+    }
+
+    @Test
+    public void testFilterInvalidatesOnPatch() throws Exception {
+        AuthenticationCache<String> cache = cacheManager.newCache("test", "managed/user", CACHE_ENABLED);
+        cache.put("bjensen", "1", "Barbara", cache.generation());
+
+        RequestHandler handler = mock(RequestHandler.class);
+        ResourceResponse response = newResourceResponse("1", "2", json(object()));
+        when(handler.handlePatch(any(), any(PatchRequest.class)))
+                .thenReturn(Promises.<ResourceResponse, ResourceException>newResultPromise(response));
+        cacheManager.filterPatch(new RootContext(), Requests.newPatchRequest("managed/user/1"), handler)
+                .getOrThrowUninterruptibly();
+
+        assertThat(cache.get("bjensen")).isNull();
+    }
+
+    @Test
+    public void testFilterInvalidatesAllOnRoleChange() throws Exception {
+        AuthenticationCache<String> cache = cacheManager.newCache("test", "managed/user", CACHE_ENABLED);
+        cache.put("bjensen", "1", "Barbara", cache.generation());
+        cache.put("scarter", "2", "Sam", cache.generation());
+
+        RequestHandler handler = mock(RequestHandler.class);
+        ResourceResponse response = newResourceResponse("admin", "1", json(object()));
+        when(handler.handleDelete(any(), any(DeleteRequest.class)))
+                .thenReturn(Promises.<ResourceResponse, ResourceException>newResultPromise(response));
+        cacheManager.filterDelete(new RootContext(), Requests.newDeleteRequest("managed/role/admin"), handler)
+                .getOrThrowUninterruptibly();
+
+        assertThat(cache.get("bjensen")).isNull();
+        assertThat(cache.get("scarter")).isNull();
+        assertThat(cache.getInvalidationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testFilterInvalidatesOnRelationshipCreate() throws Exception {
+        AuthenticationCache<String> cache = cacheManager.newCache("test", "managed/user", CACHE_ENABLED);
+        cache.put("bjensen", "1", "Barbara", cache.generation());
+        cache.put("scarter", "2", "Sam", cache.generation());
+
+        RequestHandler handler = mock(RequestHandler.class);
+        ResourceResponse response = newResourceResponse("3", "1", json(object()));
+        when(handler.handleCreate(any(), any(CreateRequest.class)))
+                .thenReturn(Promises.<ResourceResponse, ResourceException>newResultPromise(response));
+
+        // a new user has no cached results
+        cacheManager.filterCreate(new RootContext(), Requests.newCreateRequest("managed/user", json(object())),
+                handler).getOrThrowUninterruptibly();
+        assertThat(cache.get("bjensen")).isEqualTo("Barbara");
+
+        cacheManager.filterCreate(new RootContext(), Requests.newCreateRequest("managed/user/1/roles",
+                json(object(field("_ref", "managed/role/admin")))), handler).getOrThrowUninterruptibly();
+        assertThat(cache.get("bjensen")).isNull();
+        assertThat(cache.get("scarter")).isEqualTo("Sam");
+
+        cacheManager.filterCreate(new RootContext(), Requests.newCreateRequest("repo/relationships",
+                json(object())), handler).getOrThrowUninterruptibly();
+        assertThat(cache.get("scarter")).isNull();
+    }
+
+    @Test
+    public void testCacheNamesAreUnique() {
+        AuthenticationCache<String> first = cacheManager.newCache("test", "managed/user", CACHE_ENABLED);
+        AuthenticationCache<String> second = cacheManager.newCache("test", "managed/user", CACHE_ENABLED);
+        assertThat(first.getName()).isEqualTo("test");
+        assertThat(second.getName()).isEqualTo("test-2");
+    }
+}
@@ -61,6 +61,7 @@ import org.forgerock.openidm.smartevent.Publisher;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.AsyncFunction;
 import org.forgerock.util.Function;
+import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.query.QueryFilter;
 import org.forgerock.util.query.QueryFilterVisitor;
@@ -141,6 +142,19 @@ class CollectionRelationshipProvider extends RelationshipProvider implements Col
         }
     }
 
+    /** {@inheritDoc} */
+    @Override
+    protected JsonValue getRelationshipValue(Context context, String resourceId,
+            List<ResourceResponse> relationships) {
+        final Function<ResourceResponse, ResourceResponse, NeverThrowsException> format =
+                formatResponseNoException(context, relationshipsRequest(resourceId));
+        final JsonValue buf = json(array());
+        for (ResourceResponse relationship : relationships) {
+            buf.add(format.apply(relationship).getContent().getObject());
+        }
+        return buf;
+    }
+
     @Override
     public Promise<JsonValue, ResourceException> setRelationshipValueForResource(final boolean clearExisting, Context context, String resourceId,
             JsonValue relationships) {
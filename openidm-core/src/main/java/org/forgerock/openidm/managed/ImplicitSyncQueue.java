@@ -0,0 +1,734 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newDeleteRequest;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.forgerock.services.context.ClientContext.newInternalClientContext;
+import static org.forgerock.util.query.QueryFilter.and;
+import static org.forgerock.util.query.QueryFilter.equalTo;
+import static org.forgerock.util.query.QueryFilter.lessThanOrEqualTo;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.crypto.JsonCryptoException;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.core.IdentityServer;
+import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.sync.impl.SynchronizationService.SyncServiceAction;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.openidm.util.JsonUtil;
+import org.forgerock.services.TransactionId;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.services.context.SecurityContext;
+import org.forgerock.services.context.TransactionIdContext;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+
+/**
+ * Queues the implicit synchronization of managed object changes in the repository, to be performed
+ * by a pool of workers rather than by the request changing the managed object.
+ * <p>
+ * The queue holds at most one entry per managed object. A change to an object whose entry is still
+ * pending is coalesced into it: the entry keeps the value of the object before its first pending
+ * change and takes the value of the latest change, so the object is synchronized once. A change to
+ * an object whose entry is being synchronized is coalesced into the {@code next} change of the
+ * entry, which becomes pending once the synchronization completed, so the changes of an object are
+ * synchronized in order.
+ * <p>
+ * Entries are claimed by updating them with the revision they were read with, so each entry is
+ * synchronized by exactly one node of a cluster. The claim is renewed while the entry is being
+ * synchronized; a claim not renewed for longer than the claim timeout is assumed to belong to a
+ * failed node and the entry is returned to the pending state. A worker completes an entry only
+ * while it still holds the claim.
+ * <p>
+ * An entry whose synchronization failed is returned to the pending state, to be retried once an
+ * exponentially growing delay elapsed. Once {@code maxAttempts} attempts failed, the entry is kept
+ * in the failed state until the object changes again. Changes of an object whose synchronization
+ * failed are queued as the {@code next} change of its entry, so they are synchronized after it.
+ * <p>
+ * Each change keeps the transaction id and the security identity of the request that made it, so
+ * the synchronization and the onSync script of a coalesced change run in the context of the latest
+ * request changing the object, and are audited with its transaction id.
+ * <p>
+ * The values of the object held by an entry are encrypted, as they may hold decrypted properties.
+ */
+class ImplicitSyncQueue {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImplicitSyncQueue.class);
+
+    /** The repository container of the queue entries */
+    static final String QUEUE_CONTAINER = "repo/synchronisation/implicitSyncQueue";
+
+    /**
+     * The state of a queue entry.
+     */
+    enum State {
+        /** Waiting to be claimed by a worker */
+        PENDING,
+        /** Claimed and being synchronized by a worker */
+        CLAIMED,
+        /** Failed to synchronize in {@code maxAttempts} attempts, until the object changes again */
+        FAILED
+    }
+
+    /** Maximum delay, in milliseconds, before a failed entry is retried */
+    private static final long MAX_RETRY_DELAY = TimeUnit.HOURS.toMillis(1);
+
+    private static final String FIELD_OBJECT_SET = "objectSet";
+    private static final String FIELD_RESOURCE_ID = "resourceId";
+    private static final String FIELD_ACTION = "action";
+    private static final String FIELD_OLD_VALUE = "oldValue";
+    private static final String FIELD_NEW_VALUE = "newValue";
+    private static final String FIELD_CONTEXT = "context";
+    private static final String FIELD_TRANSACTION_ID = "transactionId";
+    private static final String FIELD_AUTHENTICATION_ID = "authenticationId";
+    private static final String FIELD_AUTHORIZATION = "authorization";
+    private static final String FIELD_STATE = "state";
+    private static final String FIELD_CLAIMED_BY = "claimedBy";
+    private static final String FIELD_CLAIMED_AT = "claimedAt";
+    private static final String FIELD_CLAIM_ID = "claimId";
+    private static final String FIELD_ATTEMPTS = "attempts";
+    private static final String FIELD_RETRY_AT = "retryAt";
+    private static final String FIELD_LAST_ERROR = "lastError";
+    private static final String FIELD_QUEUED_AT = "queuedAt";
+    private static final String FIELD_NEXT = "next";
+
+    private final IDMConnectionFactory connectionFactory;
+    private final CryptoService cryptoService;
+
+    /** The managed object sets whose changes are synchronized, by name */
+    private final Map<String, ManagedObjectSet> objectSets;
+
+    private final int workers;
+    private final long pollInterval;
+    private final int batchSize;
+    private final long claimTimeout;
+    private final int maxAttempts;
+    private final long retryDelay;
+    private final String cipher;
+    private final String encryptionKey;
+    private final String instanceId;
+
+    private ScheduledExecutorService poller;
+    private ScheduledExecutorService claimRenewer;
+    private ExecutorService workerPool;
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private volatile boolean stopping = false;
+    private long lastRecovery = 0;
+
+    /**
+     * Creates the implicit synchronization queue.
+     *
+     * @param connectionFactory the router connection factory
+     * @param cryptoService the cryptographic service, to encrypt the values held by the queue
+     * @param objectSets the managed object sets whose changes are synchronized, by name
+     * @param config the {@code syncQueue} configuration of the managed objects service
+     */
+    ImplicitSyncQueue(IDMConnectionFactory connectionFactory, CryptoService cryptoService,
+            Map<String, ManagedObjectSet> objectSets, JsonValue config) {
+        this.connectionFactory = connectionFactory;
+        this.cryptoService = cryptoService;
+        this.objectSets = objectSets;
+        this.workers = config.get("workers").defaultTo(4).asInteger();
+        this.pollInterval = config.get("pollInterval").defaultTo(1000).asLong();
+        this.batchSize = config.get("batchSize").defaultTo(100).asInteger();
+        this.claimTimeout = config.get("claimTimeout").defaultTo(300000).asLong();
+        this.maxAttempts = config.get("maxAttempts").defaultTo(5).asInteger();
+        this.retryDelay = config.get("retryDelay").defaultTo(1000).asLong();
+        this.cipher = config.get("encryption").get("cipher").defaultTo(SchemaField.DEFAULT_CIPHER).asString();
+        this.encryptionKey = config.get("encryption").get("key").defaultTo("openidm-sym-default").asString();
+        this.instanceId = IdentityServer.getInstance().getProperty(IdentityServer.NODE_ID,
+                UUID.randomUUID().toString());
+    }
+
+    /**
+     * Starts draining the queue.
+     */
+    synchronized void start() {
+        stopping = false;
+        workerPool = Executors.newFixedThreadPool(workers, namedThreads("implicit-sync-worker-"));
+        claimRenewer = Executors.newSingleThreadScheduledExecutor(namedThreads("implicit-sync-claim-renewer-"));
+        poller = Executors.newSingleThreadScheduledExecutor(namedThreads("implicit-sync-poller-"));
+        poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                drain();
+            }
+        }, pollInterval, pollInterval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Returns a factory of daemon threads named after the given prefix and a sequence number.
+     */
+    private static ThreadFactory namedThreads(final String prefix) {
+        final AtomicInteger count = new AtomicInteger();
+        return new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable runnable) {
+                final Thread thread = new Thread(runnable, prefix + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            }
+        };
+    }
+
+    /**
+     * Stops draining the queue, once the entries being synchronized completed. Pending entries
+     * remain in the queue.
+     */
+    synchronized void stop() {
+        if (poller == null) {
+            return;
+        }
+        stopping = true;
+        poller.shutdown();
+        try {
+            // the workers complete the entries claimed by a drain in progress
+            if (!poller.awaitTermination(1, TimeUnit.MINUTES)) {
+                logger.warn("Implicit sync queue workers did not complete");
+            }
+            workerPool.shutdown();
+            workerPool.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        claimRenewer.shutdown();
+        poller = null;
+        claimRenewer = null;
+        workerPool = null;
+    }
+
+    /**
+     * Queues the synchronization of a managed object change, coalescing it with a change of the
+     * object which is already queued.
+     *
+     * @param context the context of the request changing the managed object
+     * @param objectSet the name of the managed object set
+     * @param resourceId the id of the managed object
+     * @param action the synchronization action of the change
+     * @param oldValue the value of the object before the change
+     * @param newValue the value of the object after the change
+     * @throws ResourceException if the change could not be queued
+     */
+    void enqueue(Context context, String objectSet, String resourceId, SyncServiceAction action,
+            JsonValue oldValue, JsonValue newValue) throws ResourceException {
+        final String entryId = entryId(objectSet, resourceId);
+        final JsonValue change = json(object(
+                field(FIELD_ACTION, action.name()),
+                field(FIELD_OLD_VALUE, encrypt(oldValue).getObject()),
+                field(FIELD_NEW_VALUE, encrypt(newValue).getObject()),
+                field(FIELD_CONTEXT, captureContext(context).getObject())));
+        while (true) {
+            try {
+                final ResourceResponse entry = readEntry(entryId);
+                if (entry == null) {
+                    final JsonValue content = change.copy();
+                    content.put(FIELD_OBJECT_SET, objectSet);
+                    content.put(FIELD_RESOURCE_ID, resourceId);
+                    content.put(FIELD_STATE, State.PENDING.name());
+                    content.put(FIELD_CLAIMED_BY, null);
+                    content.put(FIELD_CLAIMED_AT, null);
+                    content.put(FIELD_CLAIM_ID, null);
+                    content.put(FIELD_QUEUED_AT, System.currentTimeMillis());
+                    content.put(FIELD_ATTEMPTS, 0);
+                    content.put(FIELD_RETRY_AT, 0L);
+                    content.put(FIELD_LAST_ERROR, null);
+                    content.put(FIELD_NEXT, null);
+                    getConnection().create(ContextUtil.createInternalContext(),
+                            newCreateRequest(QUEUE_CONTAINER, entryId, content));
+                    return;
+                }
+                final JsonValue content = entry.getContent().copy();
+                final State state = content.get(FIELD_STATE).asEnum(State.class);
+                if (state == State.PENDING && content.get(FIELD_ATTEMPTS).defaultTo(0).asInteger() == 0
+                        && content.get(FIELD_NEXT).isNull()) {
+                    if (coalesce(content, change)) {
+                        updateEntry(entry, content);
+                    } else {
+                        // the object was created and deleted before it was synchronized
+                        getConnection().delete(ContextUtil.createInternalContext(),
+                                newDeleteRequest(QUEUE_CONTAINER, entryId).setRevision(entry.getRevision()));
+                    }
+                } else {
+                    // the entry is being synchronized, or its failed change is retried before this change
+                    if (state == State.FAILED) {
+                        resetAttempts(content);
+                        content.put(FIELD_STATE, State.PENDING.name());
+                    }
+                    final JsonValue next = content.get(FIELD_NEXT);
+                    if (next.isNull()) {
+                        content.put(FIELD_NEXT, change.getObject());
+                    } else if (!coalesce(next, change)) {
+                        content.put(FIELD_NEXT, null);
+                    }
+                    updateEntry(entry, content);
+                }
+                return;
+            } catch (PreconditionFailedException | NotFoundException e) {
+                logger.debug("Implicit sync queue entry {} changed while queuing {} of {}", entryId,
+                        action, resourceId);
+            }
+        }
+    }
+
+    /**
+     * Coalesces a change into a pending change of the same object.
+     *
+     * @param pending the pending change, updated with the coalesced change
+     * @param change the new change
+     * @return false if the changes cancel out, as the object was created and then deleted
+     */
+    private static boolean coalesce(JsonValue pending, JsonValue change) {
+        final SyncServiceAction action = coalesce(
+                pending.get(FIELD_ACTION).asEnum(SyncServiceAction.class),
+                change.get(FIELD_ACTION).asEnum(SyncServiceAction.class));
+        if (action == null) {
+            return false;
+        }
+        pending.put(FIELD_ACTION, action.name());
+        pending.put(FIELD_NEW_VALUE, change.get(FIELD_NEW_VALUE).getObject());
+        pending.put(FIELD_CONTEXT, change.get(FIELD_CONTEXT).getObject());
+        return true;
+    }
+
+    /**
+     * Captures the transaction id and the security identity of the request queuing a change.
+     *
+     * @param context the context of the request
+     * @return the captured context, to be restored by {@link #restoreContext(JsonValue)}
+     */
+    static JsonValue captureContext(Context context) {
+        final JsonValue captured = json(object());
+        if (context.containsContext(TransactionIdContext.class)) {
+            captured.put(FIELD_TRANSACTION_ID,
+                    context.asContext(TransactionIdContext.class).getTransactionId().getValue());
+        }
+        if (context.containsContext(SecurityContext.class)) {
+            final SecurityContext securityContext = context.asContext(SecurityContext.class);
+            captured.put(FIELD_AUTHENTICATION_ID, securityContext.getAuthenticationId());
+            captured.put(FIELD_AUTHORIZATION, securityContext.getAuthorization());
+        }
+        return captured;
+    }
+
+    /**
+     * Restores the context of the request which queued a change, as an internal context. A change
+     * queued without a security identity is synchronized as the internal user, and a change queued
+     * without a transaction id under a new one.
+     *
+     * @param captured the context captured by {@link #captureContext(Context)}, null for an entry
+     *        queued before contexts were captured
+     * @return the context to synchronize the change in
+     */
+    static Context restoreContext(JsonValue captured) {
+        final JsonValue capturedTransactionId = captured.get(FIELD_TRANSACTION_ID);
+        final TransactionId transactionId = capturedTransactionId.isNull()
+                ? new TransactionId()
+                : new TransactionId(capturedTransactionId.asString());
+        final JsonValue authenticationId = captured.get(FIELD_AUTHENTICATION_ID);
+        if (authenticationId.isNull()) {
+            return new TransactionIdContext(ContextUtil.createInternalContext(), transactionId);
+        }
+        return newInternalClientContext(new SecurityContext(new TransactionIdContext(new RootContext(), transactionId),
+                authenticationId.asString(), captured.get(FIELD_AUTHORIZATION).defaultTo(object()).asMap()));
+    }
+
+    /**
+     * Returns the synchronization action of two consecutive changes of an object.
+     *
+     * @param pending the action of the first change
+     * @param next the action of the second change
+     * @return the action synchronizing both changes, or null if the changes cancel out
+     */
+    static SyncServiceAction coalesce(SyncServiceAction pending, SyncServiceAction next) {
+        switch (pending) {
+        case notifyCreate:
+            return next == SyncServiceAction.notifyDelete ? null : SyncServiceAction.notifyCreate;
+        default:
+            // an object deleted and created again with the same id is synchronized as an update
+            return next == SyncServiceAction.notifyCreate ? SyncServiceAction.notifyUpdate : next;
+        }
+    }
+
+    /**
+     * Claims and synchronizes pending entries until none are left. Runs on the poller thread, and
+     * returns immediately if the queue is being drained already.
+     */
+    void drain() {
+        if (!draining.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            recoverStaleClaims();
+            List<ResourceResponse> claimed;
+            do {
+                claimed = new ArrayList<>();
+                final QueryFilter<JsonPointer> due = and(
+                        equalTo(new JsonPointer(FIELD_STATE), State.PENDING.name()),
+                        lessThanOrEqualTo(new JsonPointer(FIELD_RETRY_AT), System.currentTimeMillis()));
+                for (ResourceResponse entry : queryEntries(due, batchSize)) {
+                    final ResourceResponse claim = claim(entry);
+                    if (claim != null) {
+                        claimed.add(claim);
+                    }
+                }
+                final List<Callable<Void>> tasks = new ArrayList<>(claimed.size());
+                for (final ResourceResponse entry : claimed) {
+                    tasks.add(new Callable<Void>() {
+                        @Override
+                        public Void call() {
+                            synchronize(entry);
+                            return null;
+                        }
+                    });
+                }
+                workerPool.invokeAll(tasks);
+            } while (!claimed.isEmpty() && !stopping);
+        } catch (ResourceException e) {
+            logger.warn("Failed to query the implicit sync queue", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            logger.warn("Failed to drain the implicit sync queue", e);
+        } finally {
+            draining.set(false);
+        }
+    }
+
+    /**
+     * Returns the entries claimed for longer than the claim timeout to the pending state.
+     *
+     * @throws ResourceException if querying the claimed entries failed
+     */
+    private void recoverStaleClaims() throws ResourceException {
+        final long now = System.currentTimeMillis();
+        if (now - lastRecovery < claimTimeout) {
+            return;
+        }
+        lastRecovery = now;
+        for (ResourceResponse entry : queryEntries(equalTo(new JsonPointer(FIELD_STATE), State.CLAIMED.name()), 0)) {
+            if (now - entry.getContent().get(FIELD_CLAIMED_AT).defaultTo(0L).asLong() > claimTimeout) {
+                logger.info("Recovering implicit sync queue entry {} claimed by {}", entry.getId(),
+                        entry.getContent().get(FIELD_CLAIMED_BY).asString());
+                final JsonValue content = entry.getContent().copy();
+                content.put(FIELD_STATE, State.PENDING.name());
+                content.put(FIELD_CLAIMED_BY, null);
+                content.put(FIELD_CLAIMED_AT, null);
+                content.put(FIELD_CLAIM_ID, null);
+                try {
+                    updateEntry(entry, content);
+                } catch (PreconditionFailedException | NotFoundException e) {
+                    logger.debug("Implicit sync queue entry {} changed while recovering it", entry.getId());
+                }
+            }
+        }
+    }
+
+    /**
+     * Claims a pending entry, unless claimed by another worker in the meantime.
+     *
+     * @param entry the pending entry
+     * @return the claimed entry, or null if it was claimed by another worker
+     * @throws ResourceException if updating the entry failed
+     */
+    private ResourceResponse claim(ResourceResponse entry) throws ResourceException {
+        final JsonValue content = entry.getContent().copy();
+        content.put(FIELD_STATE, State.CLAIMED.name());
+        content.put(FIELD_CLAIMED_BY, instanceId);
+        content.put(FIELD_CLAIMED_AT, System.currentTimeMillis());
+        content.put(FIELD_CLAIM_ID, UUID.randomUUID().toString());
+        try {
+            return updateEntry(entry, content);
+        } catch (PreconditionFailedException | NotFoundException e) {
+            logger.debug("Implicit sync queue entry {} was claimed by another worker", entry.getId());
+            return null;
+        }
+    }
+
+    /**
+     * Synchronizes the change of a claimed entry, renewing the claim meanwhile, and then completes
+     * the entry.
+     *
+     * @param entry the claimed entry
+     */
+    private void synchronize(ResourceResponse entry) {
+        final JsonValue content = entry.getContent();
+        final String objectSetName = content.get(FIELD_OBJECT_SET).asString();
+        final String resourceId = content.get(FIELD_RESOURCE_ID).asString();
+        final ManagedObjectSet objectSet = objectSets.get(objectSetName);
+        final Claim claim = new Claim(entry);
+        Exception failure = null;
+        if (objectSet == null) {
+            logger.warn("Dropping implicit sync of managed/{}/{}, the managed object is no longer defined",
+                    objectSetName, resourceId);
+        } else {
+            final long renewInterval = Math.max(claimTimeout / 3, 1);
+            final ScheduledFuture<?> renewal = claimRenewer.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    claim.renew();
+                }
+            }, renewInterval, renewInterval, TimeUnit.MILLISECONDS);
+            try {
+                objectSet.performQueuedSyncAction(restoreContext(content.get(FIELD_CONTEXT)), resourceId,
+                        content.get(FIELD_ACTION).asEnum(SyncServiceAction.class),
+                        decrypt(content.get(FIELD_OLD_VALUE)), decrypt(content.get(FIELD_NEW_VALUE)));
+            } catch (ResourceException | RuntimeException e) {
+                logger.warn("Failed implicit sync of managed/{}/{}", objectSetName, resourceId, e);
+                failure = e;
+            } finally {
+                renewal.cancel(false);
+            }
+        }
+        claim.complete(failure);
+    }
+
+    /**
+     * Returns the delay before an entry is retried.
+     *
+     * @param attempts the number of failed attempts to synchronize the entry
+     * @return the delay in milliseconds, doubled by each failed attempt
+     */
+    long retryDelayAfter(int attempts) {
+        final int doublings = Math.min(attempts - 1, 30);
+        return Math.min(retryDelay << doublings, Math.max(MAX_RETRY_DELAY, retryDelay));
+    }
+
+    private static void resetAttempts(JsonValue content) {
+        content.put(FIELD_ATTEMPTS, 0);
+        content.put(FIELD_RETRY_AT, 0L);
+        content.put(FIELD_LAST_ERROR, null);
+    }
+
+    private static void releaseClaim(JsonValue content) {
+        content.put(FIELD_CLAIMED_BY, null);
+        content.put(FIELD_CLAIMED_AT, null);
+        content.put(FIELD_CLAIM_ID, null);
+    }
+
+    /**
+     * The claim of an entry by a worker. The claim tracks the revision of the entry, which changes
+     * as the claim is renewed and as changes are queued into the entry, and is lost if the entry is
+     * recovered as stale.
+     */
+    private final class Claim {
+        private final String claimId;
+        private ResourceResponse entry;
+        private boolean released = false;
+
+        Claim(ResourceResponse entry) {
+            this.claimId = entry.getContent().get(FIELD_CLAIM_ID).asString();
+            this.entry = entry;
+        }
+
+        /**
+         * Renews the claim, so that the entry is not recovered as stale while being synchronized.
+         */
+        synchronized void renew() {
+            try {
+                while (!released) {
+                    final JsonValue content = entry.getContent().copy();
+                    content.put(FIELD_CLAIMED_AT, System.currentTimeMillis());
+                    try {
+                        entry = updateEntry(entry, content);
+                        return;
+                    } catch (PreconditionFailedException | NotFoundException e) {
+                        refresh();
+                    }
+                }
+            } catch (ResourceException e) {
+                logger.warn("Failed to renew the claim of implicit sync queue entry {}", entry.getId(), e);
+            }
+        }
+
+        /**
+         * Completes the entry, unless the claim was lost. A synchronized entry is removed, or
+         * returned to the pending state with the change queued while it was being synchronized. A
+         * failed entry is returned to the pending state to be retried, or kept in the failed state
+         * once out of attempts.
+         *
+         * @param failure the failure of the synchronization, or null if it succeeded
+         */
+        synchronized void complete(Exception failure) {
+            try {
+                while (!released) {
+                    try {
+                        if (failure == null) {
+                            completeSynchronized();
+                        } else {
+                            completeFailed(failure);
+                        }
+                        released = true;
+                    } catch (PreconditionFailedException | NotFoundException e) {
+                        // a change was queued in the meantime
+                        refresh();
+                    }
+                }
+            } catch (ResourceException e) {
+                logger.warn("Failed to complete implicit sync queue entry {}", entry.getId(), e);
+            }
+        }
+
+        private void completeSynchronized() throws ResourceException {
+            final JsonValue next = entry.getContent().get(FIELD_NEXT);
+            if (next.isNull()) {
+                getConnection().delete(ContextUtil.createInternalContext(),
+                        newDeleteRequest(QUEUE_CONTAINER, entry.getId()).setRevision(entry.getRevision()));
+            } else {
+                final JsonValue content = entry.getContent().copy();
+                content.put(FIELD_ACTION, next.get(FIELD_ACTION).getObject());
+                content.put(FIELD_OLD_VALUE, next.get(FIELD_OLD_VALUE).getObject());
+                content.put(FIELD_NEW_VALUE, next.get(FIELD_NEW_VALUE).getObject());
+                content.put(FIELD_CONTEXT, next.get(FIELD_CONTEXT).getObject());
+                content.put(FIELD_STATE, State.PENDING.name());
+                releaseClaim(content);
+                resetAttempts(content);
+                content.put(FIELD_QUEUED_AT, System.currentTimeMillis());
+                content.put(FIELD_NEXT, null);
+                updateEntry(entry, content);
+            }
+        }
+
+        private void completeFailed(Exception failure) throws ResourceException {
+            final JsonValue content = entry.getContent().copy();
+            final int attempts = content.get(FIELD_ATTEMPTS).defaultTo(0).asInteger() + 1;
+            content.put(FIELD_ATTEMPTS, attempts);
+            content.put(FIELD_LAST_ERROR, failure.getMessage());
+            releaseClaim(content);
+            if (attempts >= maxAttempts) {
+                logger.error("Implicit sync of managed/{}/{} failed {} times, keeping it in the failed state",
+                        content.get(FIELD_OBJECT_SET).asString(), content.get(FIELD_RESOURCE_ID).asString(),
+                        attempts);
+                content.put(FIELD_STATE, State.FAILED.name());
+            } else {
+                content.put(FIELD_STATE, State.PENDING.name());
+                content.put(FIELD_RETRY_AT, System.currentTimeMillis() + retryDelayAfter(attempts));
+            }
+            updateEntry(entry, content);
+        }
+
+        /**
+         * Reads the entry again, releasing the claim if the entry is no longer claimed by it.
+         */
+        private void refresh() throws ResourceException {
+            final ResourceResponse current = readEntry(entry.getId());
+            if (current == null
+                    || !State.CLAIMED.name().equals(current.getContent().get(FIELD_STATE).asString())
+                    || claimId == null
+                    || !claimId.equals(current.getContent().get(FIELD_CLAIM_ID).asString())) {
+                logger.warn("Implicit sync queue entry {} was recovered while being synchronized, "
+                        + "it is synchronized again", entry.getId());
+                released = true;
+            } else {
+                entry = current;
+            }
+        }
+    }
+
+    private ResourceResponse readEntry(String entryId) throws ResourceException {
+        try {
+            return getConnection().read(ContextUtil.createInternalContext(), newReadRequest(QUEUE_CONTAINER, entryId));
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private ResourceResponse updateEntry(ResourceResponse entry, JsonValue content) throws ResourceException {
+        return getConnection().update(ContextUtil.createInternalContext(),
+                newUpdateRequest(QUEUE_CONTAINER, entry.getId(), content).setRevision(entry.getRevision()));
+    }
+
+    private List<ResourceResponse> queryEntries(QueryFilter<JsonPointer> filter, int pageSize)
+            throws ResourceException {
+        final QueryRequest request = newQueryRequest(QUEUE_CONTAINER)
+                .setQueryFilter(filter)
+                .addSortKey(SortKey.ascendingOrder(FIELD_QUEUED_AT));
+        if (pageSize > 0) {
+            request.setPageSize(pageSize);
+        }
+        final List<ResourceResponse> entries = new ArrayList<>();
+        getConnection().query(ContextUtil.createInternalContext(), request, entries);
+        return entries;
+    }
+
+    /**
+     * Encrypts a value as a whole, preserving the encrypted properties it holds.
+     */
+    private JsonValue encrypt(JsonValue value) throws ResourceException {
+        if (value.isNull()) {
+            return value;
+        }
+        try {
+            return cryptoService.encrypt(json(JsonUtil.writeValueAsString(value)), cipher, encryptionKey);
+        } catch (JsonCryptoException | JsonProcessingException e) {
+            throw new InternalServerErrorException("Failed to encrypt the queued implicit sync", e);
+        }
+    }
+
+    private JsonValue decrypt(JsonValue value) {
+        if (value.isNull()) {
+            return json(null);
+        }
+        return JsonUtil.parseStringified(cryptoService.decrypt(value).asString());
+    }
+
+    /**
+     * @return the id of the queue entry of a managed object, a name based UUID as the queue holds an
+     *         entry per object
+     */
+    static String entryId(String objectSet, String resourceId) {
+        return UUID.nameUUIDFromBytes(("managed/" + objectSet + "/" + resourceId).getBytes(StandardCharsets.UTF_8))
+                .toString();
+    }
+
+    private Connection getConnection() throws ResourceException {
+        return connectionFactory.getConnection();
+    }
+}
@@ -136,6 +136,12 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
 
     private final Router managedRouter = new Router();
 
+    /** The managed object sets, by name, for the implicit sync queue to synchronize their changes */
+    private final ConcurrentMap<String, ManagedObjectSet> managedObjectSets = new ConcurrentHashMap<>();
+
+    /** The queue of implicit synchronizations, if managed object changes are synchronized asynchronously */
+    private ImplicitSyncQueue syncQueue;
+
     /**
      * RequestHandler to handle requests for both a {@link ManagedObjectSet} and its nested
      * {@link RelationshipProvider}s.
@@ -237,11 +243,14 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
     @Activate
     protected void activate(ComponentContext context) throws Exception {
         JsonValue configuration = enhancedConfig.getConfigurationAsJson(context);
+        startSyncQueue(configuration);
         for (JsonValue managedObjectConfig : configuration.get("objects").expect(List.class)) {
             final ManagedObjectSet objectSet = new ManagedObjectSet(scriptRegistry, cryptoService, syncRoute, connectionFactory, managedObjectConfig);
             if (managedRoutes.containsKey(objectSet.getName())) {
                 throw new ComponentException("Duplicate definition of managed object type: " + objectSet.getName());
             }
+            objectSet.setSyncQueue(syncQueue);
+            managedObjectSets.put(objectSet.getName(), objectSet);
 
             managedRoutes.put(objectSet.getName(),
                     managedRouter.addRoute(RoutingMode.STARTS_WITH, uriTemplate(objectSet.getTemplate()),
@@ -257,6 +266,8 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
     @Modified
     protected void modified(ComponentContext context) throws Exception {
         JsonValue configuration = enhancedConfig.getConfigurationAsJson(context);
+        stopSyncQueue();
+        startSyncQueue(configuration);
 
         Set<String> routesToKeep = new HashSet<String>();
         for (JsonValue value : configuration.get("objects").expect(List.class)) {
@@ -264,6 +275,8 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
             if (routesToKeep.contains(objectSet.getName())) {
                 throw new ComponentException("Duplicate definition of managed object type: " + objectSet.getName());
             }
+            objectSet.setSyncQueue(syncQueue);
+            managedObjectSets.put(objectSet.getName(), objectSet);
             RouteMatcher<Request> oldRoute = managedRoutes.get(objectSet.getName());
             if (null != oldRoute) {
                 managedRouter.removeRoute(oldRoute);
@@ -279,6 +292,32 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
                 continue;
             }
             managedRouter.removeRoute(managedRoutes.remove(entry.getKey()));
+            managedObjectSets.remove(entry.getKey());
+        }
+    }
+
+    /**
+     * Starts the implicit sync queue if enabled by the {@code syncQueue} configuration.
+     *
+     * @param configuration the configuration of the managed objects service
+     */
+    private void startSyncQueue(JsonValue configuration) {
+        JsonValue queueConfig = configuration.get("syncQueue");
+        if (queueConfig.get("enabled").defaultTo(false).asBoolean()) {
+            syncQueue = new ImplicitSyncQueue(connectionFactory, cryptoService, managedObjectSets, queueConfig);
+            syncQueue.start();
+            logger.info("Managed object changes are synchronized asynchronously");
+        }
+    }
+
+    /**
+     * Stops the implicit sync queue, if started. Changes still queued are synchronized once the queue is started
+     * again.
+     */
+    private void stopSyncQueue() {
+        if (syncQueue != null) {
+            syncQueue.stop();
+            syncQueue = null;
         }
     }
 
@@ -290,8 +329,10 @@ public class ManagedObjectService implements RequestHandler, Describable<ApiDesc
      */
     @Deactivate
     protected void deactivate(ComponentContext context) {
+        stopSyncQueue();
         managedRouter.removeAllRoutes();
         managedRoutes.clear();
+        managedObjectSets.clear();
     }
 
     @Override
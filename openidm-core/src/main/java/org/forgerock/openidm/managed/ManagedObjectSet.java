@@ -161,6 +161,9 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
      */
     private static final Logger logger = LoggerFactory.getLogger(ManagedObjectSet.class);
 
+    /** The number of results of an unpaged query whose relationship fields are fetched together */
+    private static final int QUERY_RELATIONSHIP_BATCH_SIZE = 50;
+
     /** The managed objects service that instantiated this managed object set. */
     private final CryptoService cryptoService;
 
@@ -188,6 +191,9 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
     /** reference to the sync service route; used to decided whether or not to perform a sync action */
     private final AtomicReference<RouteService> syncRoute;
 
+    /** The queue of implicit synchronizations, or null if managed object changes are synchronized by the request */
+    private volatile ImplicitSyncQueue syncQueue;
+
     /** Map of relationship property names and their accompanying sets */
     private final Map<JsonPointer, RelationshipProvider> relationshipProviders = new HashMap<>();
 
@@ -893,36 +899,15 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         try {
             final JsonValue joined = json(object());
 
-            /*
-             * Create set only containing the head of request fields
-             * Allows for a relationship to be fetched when only an expansion is requested.
-             * ie. a field of foo/name will retrieve the foo relationship
-             */
-            final Set<JsonPointer> fieldHeads = new HashSet<>();
-            for (JsonPointer field : requestFields) {
-                // A blank _fields param can yield a single '/' (empty) pointer
-                if (!field.isEmpty()) {
-                    fieldHeads.add(new JsonPointer(field.get(0)));
-                }
-            }
-
-            for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
+            for (Map.Entry<JsonPointer, RelationshipProvider> entry
+                    : getRequestedRelationshipProviders(requestFields).entrySet()) {
                 final JsonPointer field = entry.getKey();
-                final RelationshipProvider provider = entry.getValue();
-
-                if (requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
-                        || provider.getSchemaField().isReturnedByDefault()
-                        || fieldHeads.contains(field)) { // only check head of request fields (see above)
-                    try {
-                        joined.put(field, provider.getRelationshipValueForResource(context,
-                                resourceId).getOrThrow().getObject());
-                    } catch (NotFoundException e) {
-                        logger.debug("No {} relationships found for {}", field, resourceId);
-                        joined.put(field, null);
-                    }
-                } else {
-                    // relationship was not requested or set to return by default
-                    logger.debug("Relationship field {} skipped", field);
+                try {
+                    joined.put(field, entry.getValue().getRelationshipValueForResource(context,
+                            resourceId).getOrThrow().getObject());
+                } catch (NotFoundException e) {
+                    logger.debug("No {} relationships found for {}", field, resourceId);
+                    joined.put(field, null);
                 }
             }
 
@@ -932,6 +917,62 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         }
     }
 
+    /**
+     * Returns the providers of the relationship fields to fetch, as they are requested or returned by default.
+     *
+     * @param requestFields The fields requested in the initial request
+     * @return The providers of the relationship fields to fetch, by field
+     */
+    private Map<JsonPointer, RelationshipProvider> getRequestedRelationshipProviders(
+            final List<JsonPointer> requestFields) {
+        final Map<JsonPointer, RelationshipProvider> requested = new LinkedHashMap<>();
+        final Set<JsonPointer> fieldHeads = getFieldHeads(requestFields);
+        for (Map.Entry<JsonPointer, RelationshipProvider> entry : relationshipProviders.entrySet()) {
+            if (isRelationshipFieldRequested(entry.getKey(), entry.getValue(), requestFields, fieldHeads)) {
+                requested.put(entry.getKey(), entry.getValue());
+            } else {
+                // relationship was not requested or set to return by default
+                logger.debug("Relationship field {} skipped", entry.getKey());
+            }
+        }
+        return requested;
+    }
+
+    /**
+     * Create set only containing the head of request fields
+     * Allows for a relationship to be fetched when only an expansion is requested.
+     * ie. a field of foo/name will retrieve the foo relationship
+     *
+     * @param requestFields The fields requested in the initial request
+     * @return the heads of the request fields
+     */
+    private static Set<JsonPointer> getFieldHeads(final List<JsonPointer> requestFields) {
+        final Set<JsonPointer> fieldHeads = new HashSet<>();
+        for (JsonPointer field : requestFields) {
+            // A blank _fields param can yield a single '/' (empty) pointer
+            if (!field.isEmpty()) {
+                fieldHeads.add(new JsonPointer(field.get(0)));
+            }
+        }
+        return fieldHeads;
+    }
+
+    /**
+     * Returns whether a relationship field is to be fetched, as it is requested or returned by default.
+     *
+     * @param field The relationship field
+     * @param provider The provider of the relationship field
+     * @param requestFields The fields requested in the initial request
+     * @param fieldHeads The heads of the request fields
+     * @return true if the relationship field is to be fetched
+     */
+    private static boolean isRelationshipFieldRequested(final JsonPointer field, final RelationshipProvider provider,
+            final List<JsonPointer> requestFields, final Set<JsonPointer> fieldHeads) {
+        return requestFields.contains(SchemaField.FIELD_ALL_RELATIONSHIPS)
+                || provider.getSchemaField().isReturnedByDefault()
+                || fieldHeads.contains(field); // only check head of request fields (see above)
+    }
+
     /**
      * This will traverse the jsonValue and validate that all relationship references are valid and available for
      * assignment.
@@ -1242,6 +1283,47 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         return null;
     }
 
+    /**
+     * Populates the relationship fields of a batch of query results and passes the results to the query handler.
+     * The batch is cleared once handled.
+     *
+     * @param context The current context
+     * @param request The query request
+     * @param batch The query results from the repo
+     * @param loader The loader of the relationship fields of the query results
+     * @param handler The handler of the query
+     * @param resultCount The count of results passed to the handler
+     * @return true if the handler accepts more results
+     * @throws ResourceException if fetching the relationship fields failed
+     */
+    private boolean handleQueryBatch(final Context context, final QueryRequest request,
+            final List<ResourceResponse> batch, final RelationshipLoader loader, final QueryResourceHandler handler,
+            final AtomicInteger resultCount) throws ResourceException {
+        final List<String> resourceIds = new ArrayList<>(batch.size());
+        for (ResourceResponse resource : batch) {
+            resourceIds.add(resource.getId());
+        }
+        EventEntry measure = Publisher.start(Name.get("openidm/internal/managed/set/fetchRelationshipFieldsBatch"), null, context);
+        try {
+            loader.load(resourceIds);
+        } finally {
+            measure.end();
+        }
+        try {
+            for (ResourceResponse resource : batch) {
+                resource.getContent().asMap().putAll(loader.take(resource.getId()).asMap());
+                final ResourceResponse resourceResponse = prepareResponse(context, resource, request.getFields());
+                resultCount.incrementAndGet();
+                if (!handler.handleResource(prepareResponse(context, resourceResponse, request.getFields()))) {
+                    return false;
+                }
+            }
+            return true;
+        } finally {
+            batch.clear();
+        }
+    }
+
     @Override
     public Promise<QueryResponse, ResourceException> queryCollection(final Context context, final QueryRequest request,
             final QueryResourceHandler handler) {
@@ -1254,7 +1336,17 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         // The onRetrieve script should only be run queries that return full managed objects
         final boolean onRetrieve = executeOnRetrieve != null && Boolean.parseBoolean(executeOnRetrieve);
 
-        final List<Map<String,Object>> results = new ArrayList<Map<String,Object>>();
+        // Query-all-ids queries do not populate relationships
+        final RelationshipLoader loader = new RelationshipLoader(managedContext,
+                ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId())
+                        ? Collections.<JsonPointer, RelationshipProvider>emptyMap()
+                        : getRequestedRelationshipProviders(request.getFields()));
+        // Results awaiting their relationship fields, so these are fetched for the page at once
+        final int batchSize = request.getPageSize() > 0
+                ? Math.min(request.getPageSize(), RelationshipProvider.RELATIONSHIP_BATCH_SIZE)
+                : QUERY_RELATIONSHIP_BATCH_SIZE;
+        final List<ResourceResponse> batch = new ArrayList<>(batchSize);
+        final AtomicInteger resultCount = new AtomicInteger();
         final ResourceException[] ex = new ResourceException[]{null};
         try {
             // Create new QueryRequest to send to the repository
@@ -1276,7 +1368,6 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             		new QueryResourceHandler() {
                 @Override
                 public boolean handleResource(ResourceResponse resource) {
-                    ResourceResponse resourceResponse = null;
                     // Check if the onRetrieve script should be run
                     if (onRetrieve) {
                         try {
@@ -1286,35 +1377,39 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
                             return false;
                         }
                     }
-                    if (ServerConstants.QUERY_ALL_IDS.equals(request.getQueryId())) {
-                        // Don't populate relationships if this is a query-all-ids query.
-                        resourceResponse = resource;    
-                    } else {
-                        // Populate the relationship fields
-                        try {
-                            JsonValue relationships = fetchRelationshipFields(managedContext, resource.getId(), request.getFields());
-                            resource.getContent().asMap().putAll(relationships.asMap());
-                            resourceResponse = prepareResponse(managedContext, resource, request.getFields());
-                        } catch (ResourceException e) {
-                            ex[0] = e;
-                            return false;
-                        } catch (Exception e) {
-                            ex[0] = new InternalServerErrorException(e.getMessage(), e);
-                            return false;
-                        }
+                    if (loader.isEmpty()) {
+                        // No relationship field to populate, as with a query-all-ids query.
+                        resultCount.incrementAndGet();
+                        return handler.handleResource(prepareResponse(managedContext, resource, request.getFields()));
+                    }
+                    batch.add(resource);
+                    if (batch.size() < batchSize) {
+                        return true;
+                    }
+                    try {
+                        return handleQueryBatch(managedContext, request, batch, loader, handler, resultCount);
+                    } catch (ResourceException e) {
+                        ex[0] = e;
+                        return false;
+                    } catch (Exception e) {
+                        ex[0] = new InternalServerErrorException(e.getMessage(), e);
+                        return false;
                     }
-                    results.add(resourceResponse.getContent().asMap());
-                    return handler.handleResource(prepareResponse(managedContext, resourceResponse, request.getFields()));
                 }
             });
         	
         	if(ex[0] != null) {
             	return ex[0].asPromise();
         	}
+        	if (!batch.isEmpty()) {
+        	    handleQueryBatch(managedContext, request, batch, loader, handler, resultCount);
+        	}
         	
+            // Log a summary rather than the results, which are not retained
             activityLogger.log(managedContext, request, 
             		"query: " + request.getQueryId() + ", parameters: " + request.getAdditionalParameters(), 
-            		request.getQueryId(), null, new JsonValue(results), Status.SUCCESS);
+            		request.getQueryId(), null, json(object(field("resultCount", resultCount.get()))),
+            		Status.SUCCESS);
             
         	return queryResponse.asPromise();
 
@@ -1697,6 +1792,16 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
         return stripped;
     }
 
+    /**
+     * Sets the queue the implicit synchronization of managed object changes is passed to, rather than being
+     * performed by the request changing the managed object.
+     *
+     * @param syncQueue the implicit synchronization queue, or null to synchronize changes in the request
+     */
+    void setSyncQueue(ImplicitSyncQueue syncQueue) {
+        this.syncQueue = syncQueue;
+    }
+
     public void performSyncAction(final Context context, final Request request, final String resourceId,
             final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue)
         throws ResourceException {
@@ -1717,6 +1822,52 @@ class ManagedObjectSet implements CollectionResourceProvider, ScriptListener, Ma
             return;
         }
 
+        final ImplicitSyncQueue queue = syncQueue;
+        if (queue != null) {
+            // The change is synchronized, and onSync executed, once the queued sync completes
+            queue.enqueue(context, name, resourceId, action, oldValue, newValue);
+            return;
+        }
+        executeSyncAction(context, request, resourceId, action, oldValue, newValue);
+    }
+
+    /**
+     * Performs the implicit synchronization of a managed object change taken from the {@link ImplicitSyncQueue}. The
+     * onSync script is executed with a request corresponding to the synchronization action, as the original request
+     * is not retained by the queue, in the context restored from the request which queued the change.
+     *
+     * @param context the context restored from the request which queued the change
+     * @param resourceId the id of the managed object
+     * @param action the synchronization action of the change
+     * @param oldValue the value of the object before the change
+     * @param newValue the value of the object after the change
+     * @throws ResourceException if executing the onSync script failed
+     */
+    void performQueuedSyncAction(final Context context, final String resourceId,
+            final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue)
+        throws ResourceException {
+        if (null == syncRoute.get()) {
+            logger.warn("Sync service was not available.");
+            return;
+        }
+        final Request request;
+        switch (action) {
+        case notifyCreate:
+            request = Requests.newCreateRequest(managedObjectPath, resourceId, newValue);
+            break;
+        case notifyDelete:
+            request = Requests.newDeleteRequest(managedObjectPath.child(resourceId));
+            break;
+        default:
+            request = Requests.newUpdateRequest(managedObjectPath.child(resourceId), newValue);
+            break;
+        }
+        executeSyncAction(new ManagedObjectContext(context), request, resourceId, action, oldValue, newValue);
+    }
+
+    private void executeSyncAction(final Context context, final Request request, final String resourceId,
+            final SynchronizationService.SyncServiceAction action, final JsonValue oldValue, final JsonValue newValue)
+        throws ResourceException {
         try {
             JsonValue content = new JsonValue(new LinkedHashMap<String, Object>(2));
             content.put("oldValue", oldValue.getObject());
@@ -0,0 +1,111 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.services.context.Context;
+
+/**
+ * Loads the relationship fields of a page of managed objects.
+ * <p>
+ * The relationships of each requested field are read for all the objects of the page with a single repo query,
+ * whether the field is a collection or a singleton relationship, and are held until the object they belong to is
+ * taken, so resolving the fields of any object of the page does not query the repo again.
+ */
+class RelationshipLoader {
+
+    private final Context context;
+
+    /** The providers of the requested relationship fields */
+    private final Map<JsonPointer, RelationshipProvider> providers;
+
+    /** The loaded relationship fields, by resource id */
+    private final Map<String, JsonValue> loaded = new HashMap<>();
+
+    /**
+     * Creates a loader of relationship fields.
+     *
+     * @param context The current context
+     * @param providers The providers of the requested relationship fields, by field
+     */
+    RelationshipLoader(Context context, Map<JsonPointer, RelationshipProvider> providers) {
+        this.context = context;
+        this.providers = providers;
+    }
+
+    /**
+     * @return true if no relationship field is requested, so there is nothing to load
+     */
+    boolean isEmpty() {
+        return providers.isEmpty();
+    }
+
+    /**
+     * Loads the relationship fields of several resources, with a repo query per field. Resources whose fields are
+     * already loaded are not loaded again.
+     *
+     * @param resourceIds The ids of the resources
+     * @throws ResourceException if querying the relationships failed
+     */
+    void load(List<String> resourceIds) throws ResourceException {
+        final List<String> toLoad = new ArrayList<>(resourceIds.size());
+        for (String resourceId : resourceIds) {
+            if (!loaded.containsKey(resourceId)) {
+                toLoad.add(resourceId);
+            }
+        }
+        if (toLoad.isEmpty()) {
+            return;
+        }
+        final Map<String, JsonValue> fields = new HashMap<>();
+        for (String resourceId : toLoad) {
+            fields.put(resourceId, json(object()));
+        }
+        for (Map.Entry<JsonPointer, RelationshipProvider> entry : providers.entrySet()) {
+            for (Map.Entry<String, JsonValue> value
+                    : entry.getValue().getRelationshipValuesForResources(context, toLoad).entrySet()) {
+                fields.get(value.getKey()).put(entry.getKey(), value.getValue().getObject());
+            }
+        }
+        loaded.putAll(fields);
+    }
+
+    /**
+     * Returns the relationship fields of a resource and releases them, loading them if they were not loaded with
+     * the page.
+     *
+     * @param resourceId The id of the resource
+     * @return A {@link JsonValue} map containing all requested relationship fields and their values
+     * @throws ResourceException if querying the relationships failed
+     */
+    JsonValue take(String resourceId) throws ResourceException {
+        if (!loaded.containsKey(resourceId)) {
+            load(Collections.singletonList(resourceId));
+        }
+        return loaded.remove(resourceId);
+    }
+}
@@ -31,10 +31,13 @@ import static org.forgerock.util.promise.Promises.newResultPromise;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import org.apache.commons.lang3.StringUtils;
 import org.forgerock.http.routing.UriRouterContext;
@@ -50,6 +53,8 @@ import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.InternalServerErrorException;
 import org.forgerock.json.resource.PatchRequest;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.Request;
 import org.forgerock.json.resource.RequestHandler;
@@ -67,6 +72,7 @@ import org.forgerock.util.Function;
 import org.forgerock.util.promise.NeverThrowsException;
 import org.forgerock.util.promise.Promise;
 import org.forgerock.util.promise.ResultHandler;
+import org.forgerock.util.query.QueryFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -93,6 +99,12 @@ public abstract class RelationshipProvider {
     /** Path to this resource in the repo */
     protected static final ResourcePath REPO_RESOURCE_PATH = new ResourcePath("repo", "relationships");
 
+    /** The maximum number of resources whose relationships are fetched with a single repo query */
+    static final int RELATIONSHIP_BATCH_SIZE = 500;
+
+    /** Whether the repo lacks the {@value #RELATIONSHIPS_QUERY_ID} query, so the query filter is used instead */
+    private volatile boolean relationshipsQueryUnsupported = false;
+
     /** The resource container that property associated with this provider is a field of.  This will typically be a 
      *  managed object path such as: "managed/user" or "managed/role". */
     protected final ResourcePath resourceContainer;
@@ -105,7 +117,13 @@ public abstract class RelationshipProvider {
 
     /** An optimized relationship query ID */
     protected static final String RELATIONSHIP_QUERY_ID = "find-relationships-for-resource";
+
+    /** An optimized relationship query ID for several resources */
+    protected static final String RELATIONSHIPS_QUERY_ID = "find-relationships-for-resources";
     
+    /** A query field representing the full paths of several managed object instances */
+    protected static final String QUERY_FIELD_RESOURCE_PATHS = "fullResourceIds";
+
     /** A query field representing the full path of the managed object instance of this relationship field  */
     protected static final String QUERY_FIELD_RESOURCE_PATH = "fullResourceId";
     
@@ -339,6 +357,139 @@ public abstract class RelationshipProvider {
     public abstract Promise<JsonValue, ResourceException> getRelationshipValueForResource(Context context, 
             String resourceId);
 
+    /**
+     * Get the full relationship representations for this provider of several resources. The relationships of up to
+     * {@value #RELATIONSHIP_BATCH_SIZE} resources are fetched with a single repo query, rather than one query per
+     * resource as with {@link #getRelationshipValueForResource(Context, String)}.
+     *
+     * @param context Context of this request
+     * @param resourceIds Ids of the resources to fetch relationships on
+     *
+     * @return The full representation of the relationship of each of the resources, by resource id; a null
+     *         {@link JsonValue} if a resource has no relationship
+     * @throws ResourceException if an error occurred
+     */
+    public Map<String, JsonValue> getRelationshipValuesForResources(Context context, List<String> resourceIds)
+            throws ResourceException {
+        final Map<String, List<ResourceResponse>> relationships = new HashMap<>();
+        for (int i = 0; i < resourceIds.size(); i += RELATIONSHIP_BATCH_SIZE) {
+            queryRelationships(context, resourceIds.subList(i,
+                    Math.min(i + RELATIONSHIP_BATCH_SIZE, resourceIds.size())), relationships);
+        }
+        final Map<String, JsonValue> values = new LinkedHashMap<>();
+        for (String resourceId : resourceIds) {
+            final List<ResourceResponse> resourceRelationships = relationships.get(resourceId);
+            values.put(resourceId, getRelationshipValue(context, resourceId,
+                    resourceRelationships != null
+                            ? resourceRelationships
+                            : Collections.<ResourceResponse>emptyList()));
+        }
+        return values;
+    }
+
+    /**
+     * Queries the relationships of this provider's field of several resources with the {@value #RELATIONSHIPS_QUERY_ID}
+     * query, or with a query filter matching them the same way if the repo does not define it.
+     *
+     * @param context Context of this request
+     * @param resourceIds Ids of the resources to fetch relationships on
+     * @param relationships the map to add the relationships found to, by resource id
+     * @throws ResourceException if the query failed
+     */
+    private void queryRelationships(final Context context, final List<String> resourceIds,
+            final Map<String, List<ResourceResponse>> relationships) throws ResourceException {
+        final Map<String, String> resourceIdsByPath = new LinkedHashMap<>();
+        for (String resourceId : resourceIds) {
+            resourceIdsByPath.put(resourceContainer.child(resourceId).toString(), resourceId);
+        }
+        final Set<String> handledIds = new HashSet<>();
+        final QueryResourceHandler handler = new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                final JsonValue content = resource.getContent();
+                // a relationship between two resources of the batch on the same field is returned once per end,
+                // and each row already adds it to both ends
+                final String id = resource.getId() != null
+                        ? resource.getId()
+                        : content.get(FIELD_CONTENT_ID).asString();
+                if (id != null && !handledIds.add(id)) {
+                    return true;
+                }
+                final Set<String> owners = new HashSet<>(2);
+                if (schemaField.getName().equals(content.get(REPO_FIELD_FIRST_PROPERTY_NAME).asString())) {
+                    addIfNotNull(owners, resourceIdsByPath.get(content.get(REPO_FIELD_FIRST_ID).asString()));
+                }
+                if (schemaField.getName().equals(content.get(REPO_FIELD_SECOND_PROPERTY_NAME).asString())) {
+                    addIfNotNull(owners, resourceIdsByPath.get(content.get(REPO_FIELD_SECOND_ID).asString()));
+                }
+                for (String owner : owners) {
+                    List<ResourceResponse> ownerRelationships = relationships.get(owner);
+                    if (ownerRelationships == null) {
+                        ownerRelationships = new ArrayList<>();
+                        relationships.put(owner, ownerRelationships);
+                    }
+                    ownerRelationships.add(resource);
+                }
+                return true;
+            }
+        };
+        // the paths are passed as a comma separated list parameter, so a path containing a comma needs the filter
+        if (!relationshipsQueryUnsupported && !StringUtils.join(resourceIdsByPath.keySet(), "").contains(",")) {
+            final QueryRequest queryRequest = Requests.newQueryRequest(REPO_RESOURCE_PATH)
+                    .setQueryId(RELATIONSHIPS_QUERY_ID)
+                    .setAdditionalParameter(QUERY_FIELD_RESOURCE_PATHS,
+                            StringUtils.join(resourceIdsByPath.keySet(), ","))
+                    .setAdditionalParameter(QUERY_FIELD_FIELD_NAME, schemaField.getName());
+            try {
+                getConnection().query(context, queryRequest, handler);
+                return;
+            } catch (BadRequestException e) {
+                // the repo configuration predates the query
+                logger.debug("Query {} not available, using a query filter", RELATIONSHIPS_QUERY_ID, e);
+                relationshipsQueryUnsupported = true;
+            }
+        }
+        final List<QueryFilter<JsonPointer>> filters = new ArrayList<>();
+        for (String resourceFullPath : resourceIdsByPath.keySet()) {
+            filters.add(QueryFilter.and(
+                    QueryFilter.equalTo(new JsonPointer(REPO_FIELD_FIRST_ID), resourceFullPath),
+                    QueryFilter.equalTo(new JsonPointer(REPO_FIELD_FIRST_PROPERTY_NAME), schemaField.getName())));
+            filters.add(QueryFilter.and(
+                    QueryFilter.equalTo(new JsonPointer(REPO_FIELD_SECOND_ID), resourceFullPath),
+                    QueryFilter.equalTo(new JsonPointer(REPO_FIELD_SECOND_PROPERTY_NAME), schemaField.getName())));
+        }
+        getConnection().query(context, Requests.newQueryRequest(REPO_RESOURCE_PATH)
+                .setQueryFilter(QueryFilter.or(filters)), handler);
+    }
+
+    private static void addIfNotNull(Set<String> set, String value) {
+        if (value != null) {
+            set.add(value);
+        }
+    }
+
+    /**
+     * Formats the full relationship representation of a resource from its relationships in the repo.
+     *
+     * @param context Context of this request
+     * @param resourceId Id of the resource the relationships are on
+     * @param relationships the relationships of the resource, as stored in the repo
+     * @return The full representation of the relationship, or a null {@link JsonValue} if there is none
+     * @throws ResourceException if the relationships are not valid for this provider
+     */
+    protected abstract JsonValue getRelationshipValue(Context context, String resourceId,
+            List<ResourceResponse> relationships) throws ResourceException;
+
+    /**
+     * Returns a request to format the relationships of a resource with {@link #formatResponseNoException}.
+     *
+     * @param resourceId Id of the resource the relationships are on
+     * @return the request
+     */
+    protected static Request relationshipsRequest(String resourceId) {
+        return Requests.newQueryRequest("").setAdditionalParameter(PARAM_MANAGED_OBJECT_ID, resourceId);
+    }
+
     /**
      * Set the supplied {@link JsonValue} as the current state of this relationship. This will support updating any 
      * existing relationship (_id is present) and remove any relationship not present in the value from the repository.
@@ -108,6 +108,21 @@ class SingletonRelationshipProvider extends RelationshipProvider implements Sing
         }
     }
     
+    /** {@inheritDoc} */
+    @Override
+    protected JsonValue getRelationshipValue(Context context, String resourceId,
+            List<ResourceResponse> relationships) throws ResourceException {
+        if (relationships.isEmpty()) {
+            return json(null);
+        } else if (relationships.size() == 1) {
+            return formatResponseNoException(context, relationshipsRequest(resourceId))
+                    .apply(relationships.get(0)).getContent();
+        } else {
+            // This is a singleton relationship with more than 1 reference, query it again to report the error.
+            return getRelationshipValueForResource(context, resourceId).getOrThrowUninterruptibly();
+        }
+    }
+
     /**
      * Queries relationships, returning the relationship associated with this providers resource path and the specified 
      * relationship field.
@@ -12,6 +12,7 @@
  * own identifying information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync;
 
@@ -56,6 +57,9 @@ public class PropertyMapping {
     /** A condition script */
     private final Condition condition;
 
+    /** Whether a condition is configured, the condition always passing otherwise */
+    private final boolean hasCondition;
+
     /** A transform script */
     private final Script transform;
     
@@ -76,6 +80,7 @@ public class PropertyMapping {
      */
     public PropertyMapping(JsonValue config) throws JsonValueException {
         condition = Conditions.newCondition(config.get("condition"));
+        hasCondition = !config.get("condition").isNull();
         targetPointer = config.get("target").required().as(pointer());
         sourcePointer = config.get("source").as(pointer()); // optional
         transform = Scripts.newScript(config.get("transform"));
@@ -132,7 +137,7 @@ public class PropertyMapping {
     public void apply(JsonValue sourceObject, JsonValue oldSource, JsonValue targetObject, JsonValue oldTarget, String linkQualifier,
             Context context) throws SynchronizationException {
         // optional property mapping condition
-        if (!evaluateCondition(sourceObject, oldSource, targetObject, oldTarget, linkQualifier, context)) {
+        if (hasCondition && !evaluateCondition(sourceObject, oldSource, targetObject, oldTarget, linkQualifier, context)) {
             return;
         }
         Object result = null;
@@ -184,6 +189,42 @@ public class PropertyMapping {
         return condition.evaluate(params, context);
     }
 
+    /**
+     * Determines if {@code PropertyMapping} has a condition.
+     *
+     * @return {@code true} if {@code PropertyMapping} has a condition and {@code false} otherwise
+     */
+    public boolean hasCondition() {
+        return hasCondition;
+    }
+
+    /**
+     * Returns the source attribute of this property mapping.
+     *
+     * @return the source attribute, or null if none is configured
+     */
+    public JsonPointer getSourcePointer() {
+        return sourcePointer;
+    }
+
+    /**
+     * Returns the target attribute of this property mapping.
+     *
+     * @return the target attribute
+     */
+    public JsonPointer getTargetPointer() {
+        return targetPointer;
+    }
+
+    /**
+     * Returns the default value of this property mapping, used when the mapped value is null.
+     *
+     * @return the default value, or null if none is configured
+     */
+    public Object getDefaultValue() {
+        return defaultValue;
+    }
+
     /**
      * Determines if {@code PropertyMapping} has a transform-script.
      *
@@ -74,6 +74,15 @@ public abstract class AbstractSyncAuditEventLogger<T extends AbstractSyncAuditEv
         this.exception = exception;
     }
 
+    /**
+     * Returns the sync operation of the event.
+     *
+     * @return the sync operation, or null if the event is not about a sync operation
+     */
+    SyncOperation getSyncOperation() {
+        return syncOperation;
+    }
+
     /**
      * Returns the message that was previously set.
      *
@@ -137,6 +146,15 @@ public abstract class AbstractSyncAuditEventLogger<T extends AbstractSyncAuditEv
         this.status = status;
     }
 
+    /**
+     * Returns the status that was previously set.
+     *
+     * @return the status
+     */
+    public Status getStatus() {
+        return status;
+    }
+
     /**
      * Simpler setter.
      *
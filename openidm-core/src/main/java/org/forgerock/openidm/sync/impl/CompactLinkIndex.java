@@ -0,0 +1,294 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Compact index of the links of a mapping and link qualifier, keyed by the source identifier.
+ * <p>
+ * An alternative to holding a {@link Link} object per linked identity when links are prefetched
+ * for a reconciliation. The link properties are stored UTF-8 encoded in off-heap (direct) memory
+ * chunks, and located through a primitive open-addressing hash table. The heap footprint is
+ * 12 bytes per link plus table slack, regardless of the identifier lengths, which keeps the
+ * prefetched links of large mappings out of the garbage collector's way. {@link Link} instances
+ * are only created when a recon task asks for the link of a source identifier, and are not
+ * retained by the index.
+ * <p>
+ * Source identifiers are normalized according to the case sensitivity of the link type of the
+ * mapping, both when added and when looked up. Target identifiers are stored normalized.
+ * <p>
+ * The index is built on a single thread, and may be read concurrently once built.
+ * Modifying {@link Map} operations are not supported, other than {@link #put(String, Link)}.
+ */
+class CompactLinkIndex extends AbstractMap<String, Link> {
+
+    /** Size of the off-heap memory chunks holding the link properties */
+    private static final int CHUNK_SIZE = 1 << 20;
+
+    /** Initial number of slots, must be a power of two */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /** Length marker for a null property */
+    private static final int NULL_LENGTH = -1;
+
+    private final ObjectMapping mapping;
+    private final String linkQualifier;
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer currentChunk;
+
+    /** Address of each entry, {@code (chunk index << 32 | offset) + 1}; 0 marks an empty slot */
+    private long[] addresses;
+    /** Hash of the source identifier of each entry */
+    private int[] hashes;
+    private int size;
+
+    /**
+     * Creates an empty index.
+     *
+     * @param mapping the mapping the links belong to
+     * @param linkQualifier the link qualifier of the links
+     */
+    CompactLinkIndex(ObjectMapping mapping, String linkQualifier) {
+        this.mapping = mapping;
+        this.linkQualifier = linkQualifier;
+        this.addresses = new long[INITIAL_CAPACITY];
+        this.hashes = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds a link to the index, replacing any link for the same source identifier.
+     *
+     * @param sourceId the source identifier of the link
+     * @param link the link
+     * @return always null, the replaced link is not retained
+     */
+    @Override
+    public Link put(String sourceId, Link link) {
+        add(link._id, link._rev, sourceId, link.targetId);
+        return null;
+    }
+
+    /**
+     * Adds a link to the index, replacing any link for the same source identifier.
+     *
+     * @param id the link identifier
+     * @param rev the link revision
+     * @param sourceId the source identifier
+     * @param targetId the target identifier
+     */
+    void add(String id, String rev, String sourceId, String targetId) {
+        byte[] source = encode(mapping.getLinkType().normalizeSourceId(sourceId));
+        byte[] target = encode(mapping.getLinkType().normalizeTargetId(targetId));
+        byte[] linkId = encode(id);
+        byte[] linkRev = encode(rev);
+        long address = store(source, target, linkId, linkRev);
+
+        int hash = Arrays.hashCode(source);
+        int slot = findSlot(source, hash);
+        if (addresses[slot] == 0) {
+            if ((size + 1) * 4 > addresses.length * 3) {
+                resize();
+                slot = findSlot(source, hash);
+            }
+            ++size;
+        }
+        addresses[slot] = address + 1;
+        hashes[slot] = hash;
+    }
+
+    /**
+     * Returns a new {@link Link} for the given source identifier.
+     *
+     * @param key the source identifier
+     * @return the link, or null if there is no link for the source identifier
+     */
+    @Override
+    public Link get(Object key) {
+        if (!(key instanceof String)) {
+            return null;
+        }
+        byte[] source = encode(mapping.getLinkType().normalizeSourceId((String) key));
+        int slot = findSlot(source, Arrays.hashCode(source));
+        return addresses[slot] != 0 ? toLink(addresses[slot] - 1) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Set<Entry<String, Link>> entrySet() {
+        return new AbstractSet<Entry<String, Link>>() {
+            @Override
+            public Iterator<Entry<String, Link>> iterator() {
+                return new Iterator<Entry<String, Link>>() {
+                    private int slot = nextSlot(0);
+
+                    @Override
+                    public boolean hasNext() {
+                        return slot < addresses.length;
+                    }
+
+                    @Override
+                    public Entry<String, Link> next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        Link link = toLink(addresses[slot] - 1);
+                        slot = nextSlot(slot + 1);
+                        return new SimpleImmutableEntry<>(link.sourceId, link);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    private int nextSlot(int from) {
+        int slot = from;
+        while (slot < addresses.length && addresses[slot] == 0) {
+            ++slot;
+        }
+        return slot;
+    }
+
+    private int findSlot(byte[] source, int hash) {
+        int mask = addresses.length - 1;
+        int slot = spread(hash) & mask;
+        while (addresses[slot] != 0
+                && (hashes[slot] != hash || !sourceEquals(addresses[slot] - 1, source))) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void resize() {
+        long[] oldAddresses = addresses;
+        int[] oldHashes = hashes;
+        addresses = new long[oldAddresses.length * 2];
+        hashes = new int[oldHashes.length * 2];
+        int mask = addresses.length - 1;
+        for (int i = 0; i < oldAddresses.length; i++) {
+            if (oldAddresses[i] != 0) {
+                int slot = spread(oldHashes[i]) & mask;
+                while (addresses[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                addresses[slot] = oldAddresses[i];
+                hashes[slot] = oldHashes[i];
+            }
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    /**
+     * Appends the encoded properties of a link to the off-heap chunks.
+     *
+     * @return the address of the stored entry
+     */
+    private long store(byte[]... properties) {
+        int length = 0;
+        for (byte[] property : properties) {
+            length += Integer.BYTES + (property != null ? property.length : 0);
+        }
+        if (currentChunk == null || currentChunk.remaining() < length) {
+            currentChunk = ByteBuffer.allocateDirect(Math.max(CHUNK_SIZE, length));
+            chunks.add(currentChunk);
+        }
+        long address = ((long) (chunks.size() - 1) << 32) | currentChunk.position();
+        for (byte[] property : properties) {
+            if (property != null) {
+                currentChunk.putInt(property.length);
+                currentChunk.put(property);
+            } else {
+                currentChunk.putInt(NULL_LENGTH);
+            }
+        }
+        return address;
+    }
+
+    private boolean sourceEquals(long address, byte[] source) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int offset = (int) address;
+        int length = chunk.getInt(offset);
+        if (source == null || length != source.length) {
+            return source == null && length == NULL_LENGTH;
+        }
+        offset += Integer.BYTES;
+        for (int i = 0; i < length; i++) {
+            if (chunk.get(offset + i) != source[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private Link toLink(long address) {
+        ByteBuffer chunk = chunks.get((int) (address >>> 32));
+        int[] offset = { (int) address };
+        Link link = new Link(mapping);
+        link.sourceId = decode(chunk, offset);
+        link.targetId = decode(chunk, offset);
+        link._id = decode(chunk, offset);
+        link._rev = decode(chunk, offset);
+        link.linkQualifier = linkQualifier;
+        link.initialized = true;
+        return link;
+    }
+
+    private static byte[] encode(String value) {
+        return value != null ? value.getBytes(StandardCharsets.UTF_8) : null;
+    }
+
+    private static String decode(ByteBuffer chunk, int[] offset) {
+        int length = chunk.getInt(offset[0]);
+        offset[0] += Integer.BYTES;
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = chunk.get(offset[0] + i);
+        }
+        offset[0] += length;
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
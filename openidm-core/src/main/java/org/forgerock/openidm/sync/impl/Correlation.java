@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.sync.impl;
@@ -22,6 +23,7 @@ import javax.script.ScriptException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 import org.forgerock.json.JsonValue;
@@ -143,8 +145,18 @@ class Correlation {
             switch (type) {
             case correlationQuery:
                 // Execute the correlationQuery and return the results
-                return json(queryTargetObjectSet(execScript(type.toString(),  correlationQueries.get(linkQualifier),
-                        scope, context).asMap())).get(QueryResponse.FIELD_RESULT).required();
+                final Map<String, Object> queryParameters = execScript(type.toString(),
+                        correlationQueries.get(linkQualifier), scope, context).asMap();
+                // Answer simple equality queries from the targets preloaded by the recon, if any. The target object
+                // set is still queried if the index finds no target, as it may compare values differently.
+                final CorrelationIndex correlationIndex =
+                        reconContext != null ? reconContext.getCorrelationIndex() : null;
+                final List<Object> indexedResults =
+                        correlationIndex != null ? correlationIndex.correlate(queryParameters) : null;
+                if (indexedResults != null && !indexedResults.isEmpty()) {
+                    return json(indexedResults);
+                }
+                return json(queryTargetObjectSet(queryParameters)).get(QueryResponse.FIELD_RESULT).required();
             case correlationScript:
                 // Execute the correlationScript and return the results corresponding to the given linkQualifier
                 return execScript(type.toString(), correlationScript, scope, context);
@@ -0,0 +1,343 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.resource.QueryRequest.FIELD_QUERY_FILTER;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_FIELDS;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_QUERY_FILTER;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Answers the correlation queries of a reconciliation from the target values preloaded by its target query, instead
+ * of querying the target object set for each unlinked source object.
+ * <p>
+ * Only correlation queries whose {@code _queryFilter} is an equality, or a conjunction of equalities, on distinct
+ * target attributes are answered from the index; other correlation queries, and correlation scripts, still query
+ * the target object set. A hash index is built over the preloaded targets for each combination of correlated
+ * attributes the first time it is queried, and is kept up to date with the targets the reconciliation creates,
+ * updates and deletes. Multi-valued target attributes are indexed by each of their values, numbers are compared by
+ * their numeric value, and string values are compared without regard to case when the target ids are case
+ * insensitive.
+ * <p>
+ * The case handling of the target ids need not be that of the correlated attributes, as with the case insensitive
+ * attributes of an LDAP directory. The index therefore only answers the correlation queries it finds targets for;
+ * a query it finds no target for still queries the target object set, see {@link Correlation}.
+ */
+class CorrelationIndex {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CorrelationIndex.class);
+
+    /** The keys a correlation query answered from the index may define */
+    private static final Set<String> INDEXABLE_PARAMETERS = Set.of(PARAM_QUERY_FILTER, FIELD_QUERY_FILTER, PARAM_FIELDS);
+
+    /** Collects the attributes and values of a conjunction of equalities, or returns false if it is not one */
+    private static final QueryFilterVisitor<Boolean, Map<JsonPointer, Object>, JsonPointer> EQUALITY_COLLECTOR =
+            new EqualityCollector();
+
+    /** The current targets, by id */
+    private final Map<String, JsonValue> targets = new ConcurrentHashMap<>();
+
+    /** The indexes by correlated attributes, the attributes in their string order */
+    private final Map<List<JsonPointer>, Map<List<String>, Set<String>>> indexes = new ConcurrentHashMap<>();
+
+    private final boolean caseSensitive;
+
+    /**
+     * Creates the index of the targets preloaded by a reconciliation.
+     *
+     * @param preloadedTargets the preloaded targets, by their possibly normalized id
+     * @param caseSensitive whether the target ids, and so the values of the target attributes, are case sensitive
+     */
+    CorrelationIndex(Map<String, JsonValue> preloadedTargets, boolean caseSensitive) {
+        this.caseSensitive = caseSensitive;
+        for (Map.Entry<String, JsonValue> entry : preloadedTargets.entrySet()) {
+            JsonValue target = entry.getValue();
+            if (target.isNull()) {
+                continue;
+            }
+            String id = target.get(ResourceResponse.FIELD_CONTENT_ID).asString();
+            if (id == null) {
+                id = entry.getKey();
+                target = target.copy();
+                target.put(ResourceResponse.FIELD_CONTENT_ID, id);
+            }
+            targets.put(id, target);
+        }
+    }
+
+    /**
+     * Answers a correlation query from the index.
+     *
+     * @param queryParameters the parameters of the correlation query, as returned by the correlation query script
+     * @return copies of the matching targets, or null if the query can not be answered from the index
+     */
+    List<Object> correlate(Map<String, Object> queryParameters) {
+        final Map<JsonPointer, Object> equalities = parseEqualities(queryParameters);
+        if (equalities == null) {
+            return null;
+        }
+        final List<JsonPointer> attributes = new ArrayList<>(equalities.keySet());
+        final List<String> key = new ArrayList<>(equalities.size());
+        for (Object value : equalities.values()) {
+            key.add(normalize(value));
+        }
+        Map<List<String>, Set<String>> index = indexes.get(attributes);
+        if (index == null) {
+            index = buildIndex(attributes);
+        }
+        final Set<String> ids = index.getOrDefault(key, Collections.<String>emptySet());
+        final List<Object> results = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            final JsonValue target = targets.get(id);
+            if (target != null) {
+                // the target is handed to the sync operation, which may modify it
+                results.add(target.copy().getObject());
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Updates the index with a target created, updated or deleted by the reconciliation.
+     *
+     * @param id the id of the target
+     * @param target the new value of the target, or null if it was deleted
+     */
+    synchronized void targetChanged(String id, JsonValue target) {
+        final JsonValue newTarget = target != null && !target.isNull() ? target.copy() : null;
+        final JsonValue oldTarget = newTarget != null ? targets.put(id, newTarget) : targets.remove(id);
+        for (Map.Entry<List<JsonPointer>, Map<List<String>, Set<String>>> index : indexes.entrySet()) {
+            if (oldTarget != null) {
+                for (List<String> key : keys(index.getKey(), oldTarget)) {
+                    final Set<String> ids = index.getValue().get(key);
+                    if (ids != null) {
+                        ids.remove(id);
+                    }
+                }
+            }
+            if (newTarget != null) {
+                addKeys(index.getValue(), index.getKey(), id, newTarget);
+            }
+        }
+    }
+
+    private synchronized Map<List<String>, Set<String>> buildIndex(List<JsonPointer> attributes) {
+        Map<List<String>, Set<String>> index = indexes.get(attributes);
+        if (index == null) {
+            final long start = System.currentTimeMillis();
+            index = new ConcurrentHashMap<>();
+            for (Map.Entry<String, JsonValue> target : targets.entrySet()) {
+                addKeys(index, attributes, target.getKey(), target.getValue());
+            }
+            indexes.put(attributes, index);
+            LOGGER.debug("Indexed {} targets by {} in {} ms", targets.size(), attributes,
+                    System.currentTimeMillis() - start);
+        }
+        return index;
+    }
+
+    private void addKeys(Map<List<String>, Set<String>> index, List<JsonPointer> attributes, String id,
+            JsonValue target) {
+        for (List<String> key : keys(attributes, target)) {
+            index.computeIfAbsent(key, k -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    /**
+     * Returns the index keys of a target, one for each combination of the values of its multi-valued attributes.
+     */
+    private List<List<String>> keys(List<JsonPointer> attributes, JsonValue target) {
+        List<List<String>> keys = Collections.singletonList(Collections.<String>emptyList());
+        for (JsonPointer attribute : attributes) {
+            final JsonValue value = target.get(attribute);
+            final List<String> values = new ArrayList<>();
+            if (value != null && value.isList()) {
+                for (Object element : value.asList()) {
+                    addNormalized(values, element);
+                }
+            } else if (value != null) {
+                addNormalized(values, value.getObject());
+            }
+            final List<List<String>> combinations = new ArrayList<>(keys.size() * values.size());
+            for (List<String> key : keys) {
+                for (String element : values) {
+                    final List<String> combination = new ArrayList<>(key.size() + 1);
+                    combination.addAll(key);
+                    combination.add(element);
+                    combinations.add(combination);
+                }
+            }
+            keys = combinations;
+        }
+        return keys;
+    }
+
+    private void addNormalized(List<String> values, Object value) {
+        if (value instanceof String || value instanceof Number || value instanceof Boolean) {
+            values.add(normalize(value));
+        }
+    }
+
+    private String normalize(Object value) {
+        if (value instanceof Number) {
+            return normalizeNumber((Number) value);
+        }
+        final String string = String.valueOf(value);
+        return caseSensitive ? string : string.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Returns the canonical string of a number, so that equal numbers of different types, such as 1 and 1.0, have
+     * the same index key.
+     */
+    private static String normalizeNumber(Number number) {
+        try {
+            return new BigDecimal(number.toString()).stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            // NaN or infinity
+            return number.toString();
+        }
+    }
+
+    /**
+     * Returns the attributes and values of a correlation query that is a conjunction of equalities on distinct
+     * attributes, in the string order of the attributes.
+     *
+     * @param queryParameters the parameters of the correlation query
+     * @return the equalities, or null if the query is not such a conjunction
+     */
+    static Map<JsonPointer, Object> parseEqualities(Map<String, Object> queryParameters) {
+        if (queryParameters == null || !INDEXABLE_PARAMETERS.containsAll(queryParameters.keySet())) {
+            return null;
+        }
+        Object queryFilter = queryParameters.get(PARAM_QUERY_FILTER);
+        if (queryFilter == null) {
+            queryFilter = queryParameters.get(FIELD_QUERY_FILTER);
+        }
+        if (queryFilter == null || queryParameters.size() > (queryParameters.containsKey(PARAM_FIELDS) ? 2 : 1)) {
+            return null;
+        }
+        final QueryFilter<JsonPointer> filter;
+        try {
+            filter = QueryFilters.parse(String.valueOf(queryFilter));
+        } catch (IllegalArgumentException e) {
+            // let the query report the invalid filter
+            return null;
+        }
+        final Map<JsonPointer, Object> equalities = new TreeMap<>((a, b) -> a.toString().compareTo(b.toString()));
+        return filter.accept(EQUALITY_COLLECTOR, equalities) && !equalities.isEmpty() ? equalities : null;
+    }
+
+    private static final class EqualityCollector
+            implements QueryFilterVisitor<Boolean, Map<JsonPointer, Object>, JsonPointer> {
+
+        @Override
+        public Boolean visitAndFilter(Map<JsonPointer, Object> p, List<QueryFilter<JsonPointer>> subFilters) {
+            for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                if (!subFilter.accept(this, p)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public Boolean visitEqualsFilter(Map<JsonPointer, Object> p, JsonPointer field, Object valueAssertion) {
+            if (!(valueAssertion instanceof String || valueAssertion instanceof Number
+                    || valueAssertion instanceof Boolean)) {
+                return false;
+            }
+            // a repeated attribute could only match a multi-valued attribute containing each value
+            return p.put(field, valueAssertion) == null;
+        }
+
+        @Override
+        public Boolean visitBooleanLiteralFilter(Map<JsonPointer, Object> p, boolean value) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitContainsFilter(Map<JsonPointer, Object> p, JsonPointer field, Object valueAssertion) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitExtendedMatchFilter(Map<JsonPointer, Object> p, JsonPointer field, String operator,
+                Object valueAssertion) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitGreaterThanFilter(Map<JsonPointer, Object> p, JsonPointer field, Object valueAssertion) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitGreaterThanOrEqualToFilter(Map<JsonPointer, Object> p, JsonPointer field,
+                Object valueAssertion) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitLessThanFilter(Map<JsonPointer, Object> p, JsonPointer field, Object valueAssertion) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitLessThanOrEqualToFilter(Map<JsonPointer, Object> p, JsonPointer field,
+                Object valueAssertion) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitNotFilter(Map<JsonPointer, Object> p, QueryFilter<JsonPointer> subFilter) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitOrFilter(Map<JsonPointer, Object> p, List<QueryFilter<JsonPointer>> subFilters) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitPresentFilter(Map<JsonPointer, Object> p, JsonPointer field) {
+            return false;
+        }
+
+        @Override
+        public Boolean visitStartsWithFilter(Map<JsonPointer, Object> p, JsonPointer field, Object valueAssertion) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.Set;
+
+/**
+ * The (normalized) target identifiers handled during the source phase of a reconciliation, which
+ * the target phase does not reconcile again.
+ * <p>
+ * Implementations must be thread safe.
+ */
+interface HandledTargetIds {
+
+    /**
+     * Records the given (normalized) target identifier as handled.
+     *
+     * @param id the normalized target identifier
+     * @return true if the identifier was not yet recorded as handled
+     */
+    boolean add(String id);
+
+    /**
+     * @param id the normalized target identifier
+     * @return true if the identifier was recorded as handled
+     */
+    boolean contains(String id);
+
+    /**
+     * Returns the handled target identifiers of a preloaded target set, recorded by removing them
+     * from the set of the targets still to be reconciled in the target phase.
+     *
+     * @param remainingIds the thread safe set of the targets still to be reconciled
+     * @return the handled target identifiers
+     */
+    static HandledTargetIds removingFrom(final Set<String> remainingIds) {
+        return new HandledTargetIds() {
+            @Override
+            public boolean add(String id) {
+                return remainingIds.remove(id);
+            }
+
+            @Override
+            public boolean contains(String id) {
+                return !remainingIds.contains(id);
+            }
+
+            @Override
+            public String toString() {
+                return remainingIds.toString();
+            }
+        };
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -117,7 +118,7 @@ class Link {
      * @param id the local (unqualified) link identifier
      * @return the qualified id, qualified to the repository
      */
-    private static String linkId(String id) {
+    static String linkId(String id) {
         //StringBuilder sb = new StringBuilder("repo/link/").append(mapping.getLinkType().getName());
         StringBuilder sb = new StringBuilder("repo/link");
         if (id != null) {
@@ -310,13 +311,8 @@ class Link {
     public static Map<String, Link> getLinksForMapping(ObjectMapping mapping, String linkQualifier) throws SynchronizationException {
         Map<String, Link> sourceIdToLink = new ConcurrentHashMap<String, Link>();
         if (mapping != null) {
-            JsonValue query = new JsonValue(new HashMap<String, Object>());
-            query.put(FIELD_QUERY_FILTER,
-                    QueryFilter.and(Arrays.asList(
-                            QueryFilter.equalTo("/linkType", mapping.getLinkType().getName()),
-                            QueryFilter.equalTo("/linkQualifier", linkQualifier)))
-                            .toString());
-            JsonValue queryResults = linkQuery(mapping.getConnectionFactory(), ObjectSetContext.get(), query);
+            JsonValue queryResults = linkQuery(mapping.getConnectionFactory(), ObjectSetContext.get(),
+                    linksForMappingQuery(mapping, linkQualifier));
             for (JsonValue entry : queryResults) {
                 Link link = new Link(mapping);
                 link.fromJsonValue(entry);
@@ -326,6 +322,49 @@ class Link {
         return sourceIdToLink;
     }
 
+    /**
+     * Queries all the links for a given mapping into a {@link CompactLinkIndex}, indexed by the source identifier.
+     * The query results are added to the index as they are received, without holding them all in memory.
+     *
+     * @param mapping the mapping to look up the links for
+     * @param linkQualifier the link qualifier of the links
+     * @throws SynchronizationException if the query could not be performed.
+     * @return the compact index from source identifier to the link for it
+     */
+    static Map<String, Link> getCompactLinksForMapping(final ObjectMapping mapping, String linkQualifier)
+            throws SynchronizationException {
+        final CompactLinkIndex index = new CompactLinkIndex(mapping, linkQualifier);
+        try {
+            QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(linkId(null),
+                    linksForMappingQuery(mapping, linkQualifier).asMap());
+            mapping.getConnectionFactory().getConnection().query(ObjectSetContext.get(), request,
+                    new QueryResourceHandler() {
+                        @Override
+                        public boolean handleResource(ResourceResponse resource) {
+                            Link link = new Link(mapping);
+                            link.fromJsonValue(resource.getContent());
+                            index.put(link.sourceId, link);
+                            return true;
+                        }
+                    });
+        } catch (JsonValueException jve) {
+            throw new SynchronizationException("Malformed link query response", jve);
+        } catch (ResourceException ose) {
+            throw new SynchronizationException("Link query failed", ose);
+        }
+        return index;
+    }
+
+    private static JsonValue linksForMappingQuery(ObjectMapping mapping, String linkQualifier) {
+        JsonValue query = new JsonValue(new HashMap<String, Object>());
+        query.put(FIELD_QUERY_FILTER,
+                QueryFilter.and(Arrays.asList(
+                        QueryFilter.equalTo("/linkType", mapping.getLinkType().getName()),
+                        QueryFilter.equalTo("/linkQualifier", linkQualifier)))
+                        .toString());
+        return query;
+    }
+
     /** Compares the given Id to the current targetId,
      * taking into account the settings for case sensitivity
      * @param compareTargetId The target id to compare
@@ -341,6 +380,39 @@ class Link {
         }
     }
 
+    /**
+     * Prepares the creation of this link by a {@link LinkWriteBuffer}, assigning its identifier.
+     * The revision of the link is unknown until the buffer has written it.
+     *
+     * @return the link content to write, including its identifier
+     */
+    JsonValue prepareCreate() {
+        _id = UUID.randomUUID().toString(); // client-assigned identifier
+        _rev = null;
+        initialized = true;
+        JsonValue jv = toJsonValue();
+        jv.put("_id", _id);
+        return jv;
+    }
+
+    /**
+     * Prepares the update of this link by a {@link LinkWriteBuffer}. The revision of the link is
+     * unknown once the buffer has written it.
+     *
+     * @return the link content to write, including its identifier and expected revision
+     * @throws SynchronizationException if the link does not exist
+     */
+    JsonValue prepareUpdate() throws SynchronizationException {
+        if (_id == null) {
+            throw new SynchronizationException("Attempt to update non-existent link");
+        }
+        JsonValue jv = toJsonValue();
+        jv.put("_id", _id);
+        jv.put("_rev", _rev);
+        _rev = null;
+        return jv;
+    }
+
     void create(Context context) throws SynchronizationException {
         _id = UUID.randomUUID().toString(); // client-assigned identifier
         JsonValue jv = toJsonValue();
@@ -0,0 +1,386 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newActionRequest;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.services.context.Context;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Write-behind buffer for the links created and updated by a reconciliation.
+ * <p>
+ * Instead of a repository request and transaction per link, link mutations are collected and
+ * written to the repository as one bulk request, which the JDBC repository executes as a JDBC
+ * batch in a single transaction. The buffer is flushed once it holds {@code linkWriteBatchSize}
+ * links, when the oldest buffered link is older than {@code linkWriteFlushInterval} milliseconds,
+ * and always at the end of each recon phase.
+ * <p>
+ * The recon entry of a sync operation that buffered a link is only reported once the link is
+ * written. If a bulk write fails, the links of the batch are written one by one, and the recon
+ * entry of each link that still fails is reported as failed instead.
+ * <p>
+ * This class is thread safe.
+ */
+class LinkWriteBuffer {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(LinkWriteBuffer.class);
+
+    /** Default number of link writes per bulk request */
+    static final int DEFAULT_BATCH_SIZE = 100;
+
+    /** Default maximum time, in milliseconds, a link write is buffered */
+    static final long DEFAULT_FLUSH_INTERVAL = 1000;
+
+    /** Maximum time, in milliseconds, to wait for a link to be written */
+    static final long AWAIT_WRITTEN_TIMEOUT = TimeUnit.MINUTES.toMillis(5);
+
+    /** Interval at which a thread waiting for a link to be written checks for cancellation */
+    private static final long AWAIT_INTERVAL_MILLIS = 100;
+
+    /**
+     * A buffered link mutation.
+     */
+    static final class PendingLink {
+        private final boolean create;
+        private final String linkId;
+        private final JsonValue content;
+        private final Context context;
+        /** Whether the write completed, guarded by the buffer */
+        private boolean written;
+        /** The failure of the write, guarded by the buffer */
+        private ResourceException failure;
+        /** The recon entry to report once the write completed, guarded by the buffer */
+        private ReconAuditEventLogger entry;
+
+        PendingLink(boolean create, JsonValue content, Context context) {
+            this.create = create;
+            this.linkId = content.get("_id").asString();
+            this.content = content;
+            this.context = context;
+        }
+    }
+
+    private final ReconciliationContext reconContext;
+    private final ObjectMapping mapping;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final long awaitTimeout;
+
+    private List<PendingLink> pending = new ArrayList<>();
+    /** The links buffered or being written */
+    private final Set<String> unwrittenIds = new HashSet<>();
+    private long oldestPendingNanos;
+
+    /**
+     * Creates the link write buffer of a reconciliation run.
+     *
+     * @param reconContext the reconciliation context
+     * @param batchSize the number of link writes per bulk request
+     * @param flushInterval maximum time, in milliseconds, a link write is buffered
+     */
+    LinkWriteBuffer(ReconciliationContext reconContext, int batchSize, long flushInterval) {
+        this(reconContext, batchSize, flushInterval, AWAIT_WRITTEN_TIMEOUT);
+    }
+
+    /**
+     * Creates the link write buffer of a reconciliation run.
+     *
+     * @param reconContext the reconciliation context
+     * @param batchSize the number of link writes per bulk request
+     * @param flushInterval maximum time, in milliseconds, a link write is buffered
+     * @param awaitTimeout maximum time, in milliseconds, to wait for a link to be written
+     */
+    LinkWriteBuffer(ReconciliationContext reconContext, int batchSize, long flushInterval, long awaitTimeout) {
+        this.reconContext = reconContext;
+        this.mapping = reconContext.mapping;
+        this.batchSize = batchSize;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        this.awaitTimeout = awaitTimeout;
+    }
+
+    /**
+     * Buffers the creation of a link. The link is assigned its identifier; its revision remains
+     * unknown until the link is written.
+     *
+     * @param link the link to create
+     * @param context the context of the sync operation creating the link
+     * @param operation the sync operation creating the link, whose recon entry is deferred until the link is written
+     * @throws SynchronizationException if a flush triggered by this link failed
+     */
+    void create(Link link, Context context, SyncOperation operation) throws SynchronizationException {
+        PendingLink pendingLink = new PendingLink(true, link.prepareCreate(), context);
+        operation.pendingLinkWrite = pendingLink;
+        add(pendingLink);
+    }
+
+    /**
+     * Buffers the update of a link.
+     *
+     * @param link the link to update
+     * @param context the context of the sync operation updating the link
+     * @param operation the sync operation updating the link, whose recon entry is deferred until the link is written
+     * @throws SynchronizationException if writing the link failed
+     */
+    void update(Link link, Context context, SyncOperation operation) throws SynchronizationException {
+        if (link._rev == null) {
+            // Written by this buffer before, the expected revision is not known
+            awaitWritten(link);
+            link.update(context);
+            return;
+        }
+        PendingLink pendingLink = new PendingLink(false, link.prepareUpdate(), context);
+        operation.pendingLinkWrite = pendingLink;
+        add(pendingLink);
+    }
+
+    /**
+     * Defers the recon entry of a sync operation until the link it buffered is written, so that a link
+     * that fails to be written is reported by this single entry, as failed.
+     *
+     * @param entry the recon entry of a sync operation
+     * @return true if the entry is reported once the link of its operation is written, false if it is
+     *         to be reported now
+     */
+    boolean deferEntry(ReconAuditEventLogger entry) {
+        SyncOperation operation = entry.getSyncOperation();
+        if (operation == null) {
+            return false;
+        }
+        synchronized (this) {
+            PendingLink pendingLink = operation.pendingLinkWrite;
+            if (pendingLink == null) {
+                return false;
+            }
+            operation.pendingLinkWrite = null;
+            if (!pendingLink.written) {
+                pendingLink.entry = entry;
+                return true;
+            }
+            if (pendingLink.failure != null) {
+                setFailed(entry, pendingLink);
+            }
+            return false;
+        }
+    }
+
+    /**
+     * Ensures a link about to be deleted or updated directly is written, and its revision known.
+     * Written links are released whether their write succeeded or failed; the wait is given up
+     * if the reconciliation is canceled or the link is not written within
+     * {@link #AWAIT_WRITTEN_TIMEOUT} milliseconds.
+     *
+     * @param link the link
+     * @throws SynchronizationException if waiting for or reading the link failed
+     */
+    void awaitWritten(Link link) throws SynchronizationException {
+        if (link._id == null || link._rev != null) {
+            return;
+        }
+        boolean buffered = false;
+        synchronized (this) {
+            for (PendingLink pendingLink : pending) {
+                buffered |= link._id.equals(pendingLink.linkId);
+            }
+        }
+        if (buffered) {
+            writeBatch(drain());
+        }
+        try {
+            synchronized (this) {
+                // The link may be written by the write stage of the recon pipeline
+                final long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(awaitTimeout);
+                while (unwrittenIds.contains(link._id)) {
+                    if (reconContext.isCanceled()) {
+                        throw new SynchronizationException("Reconciliation canceled while waiting for link "
+                                + link._id + " to be written");
+                    }
+                    if (System.nanoTime() - deadline >= 0) {
+                        throw new SynchronizationException("Timed out waiting for link " + link._id
+                                + " to be written");
+                    }
+                    wait(AWAIT_INTERVAL_MILLIS);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SynchronizationException("Interrupted waiting for link " + link._id + " to be written", e);
+        }
+        link.getLinkForSource(link.sourceId);
+    }
+
+    /**
+     * Writes all buffered links. Failures are reported against the source objects of the links,
+     * so this method does not throw.
+     */
+    void flush() {
+        writeBatch(drain());
+    }
+
+    private void add(PendingLink pendingLink) throws SynchronizationException {
+        List<PendingLink> batch = null;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                oldestPendingNanos = System.nanoTime();
+            }
+            pending.add(pendingLink);
+            unwrittenIds.add(pendingLink.linkId);
+            if (pending.size() >= batchSize || System.nanoTime() - oldestPendingNanos >= flushIntervalNanos) {
+                batch = drain();
+            }
+        }
+        if (batch != null) {
+            final List<PendingLink> toWrite = batch;
+            ReconPipeline pipeline = reconContext.getPipeline();
+            if (pipeline != null) {
+                pipeline.write(new ReconPipeline.Write() {
+                    @Override
+                    public void execute() {
+                        writeBatch(toWrite);
+                    }
+                });
+            } else {
+                writeBatch(toWrite);
+            }
+        }
+    }
+
+    private synchronized List<PendingLink> drain() {
+        List<PendingLink> batch = pending;
+        pending = new ArrayList<>();
+        return batch;
+    }
+
+    private void writeBatch(List<PendingLink> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            writeBulk(batch);
+        } finally {
+            synchronized (this) {
+                for (PendingLink pendingLink : batch) {
+                    unwrittenIds.remove(pendingLink.linkId);
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    private void writeBulk(List<PendingLink> batch) {
+        JsonValue creates = json(array());
+        JsonValue updates = json(array());
+        for (PendingLink pendingLink : batch) {
+            (pendingLink.create ? creates : updates).add(pendingLink.content.getObject());
+        }
+        ActionRequest request = newActionRequest(Link.linkId(null), "bulk")
+                .setContent(json(object(
+                        field("create", creates.getObject()),
+                        field("update", updates.getObject()))));
+        try {
+            mapping.getConnectionFactory().getConnection().action(batch.get(0).context, request);
+            LOGGER.debug("Wrote {} links of {} in bulk", batch.size(), reconContext.getReconId());
+        } catch (ResourceException e) {
+            LOGGER.debug("Bulk write of {} links failed, writing links individually", batch.size(), e);
+            for (PendingLink pendingLink : batch) {
+                writeSingle(pendingLink);
+            }
+            return;
+        }
+        for (PendingLink pendingLink : batch) {
+            written(pendingLink, null);
+        }
+    }
+
+    private void writeSingle(PendingLink pendingLink) {
+        JsonValue content = pendingLink.content.copy();
+        String linkId = pendingLink.linkId;
+        try {
+            if (pendingLink.create) {
+                content.remove("_id");
+                mapping.getConnectionFactory().getConnection().create(pendingLink.context,
+                        newCreateRequest(Link.linkId(null), linkId, content));
+            } else {
+                String linkRev = content.get("_rev").asString();
+                content.remove("_id");
+                content.remove("_rev");
+                mapping.getConnectionFactory().getConnection().update(pendingLink.context,
+                        newUpdateRequest(Link.linkId(linkId), content).setRevision(linkRev));
+            }
+        } catch (ResourceException e) {
+            LOGGER.warn("Failed to {} link {} of {}", pendingLink.create ? "create" : "update", linkId,
+                    reconContext.getReconId(), e);
+            written(pendingLink, e);
+            return;
+        }
+        written(pendingLink, null);
+    }
+
+    /**
+     * Completes the write of a link, reporting the recon entry deferred until it was written, if any.
+     *
+     * @param pendingLink the link written
+     * @param failure the failure of the write, or null if the link was written
+     */
+    private void written(PendingLink pendingLink, ResourceException failure) {
+        ReconAuditEventLogger entry;
+        synchronized (this) {
+            pendingLink.written = true;
+            pendingLink.failure = failure;
+            entry = pendingLink.entry;
+            if (entry != null && failure != null) {
+                setFailed(entry, pendingLink);
+            }
+        }
+        if (entry == null) {
+            return;
+        }
+        try {
+            mapping.logEntry(entry, reconContext);
+        } catch (SynchronizationException e) {
+            LOGGER.warn("Failed to report the recon entry of link {} of {}", pendingLink.linkId,
+                    reconContext.getReconId(), e);
+        }
+    }
+
+    private void setFailed(ReconAuditEventLogger entry, PendingLink pendingLink) {
+        if (entry.getStatus() != null && entry.getStatus() != Status.FAILURE) {
+            reconContext.getStatistics().statusChanged(entry.getStatus(), Status.FAILURE);
+        }
+        entry.setStatus(Status.FAILURE);
+        entry.setException(pendingLink.failure);
+        entry.setMessage("Failed to " + (pendingLink.create ? "create" : "update") + " link: "
+                + pendingLink.failure.getMessage());
+    }
+}
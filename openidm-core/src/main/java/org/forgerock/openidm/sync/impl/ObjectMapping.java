@@ -42,6 +42,8 @@ import org.forgerock.openidm.util.DurationStatistics;
 import org.forgerock.services.context.Context;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.services.context.SecurityContext;
 import org.forgerock.openidm.audit.util.Status;
@@ -139,6 +141,54 @@ class ObjectMapping {
      */
     private int reconSourceQueryPageSize;
 
+    /**
+     * A boolean indicating if the target phase should page through the target object set instead of
+     * preloading all target ids before the source phase.
+     */
+    private final boolean streamTargetPhase;
+
+    /**
+     * A page size for recon target queries, if the target phase is streamed.
+     */
+    private final int reconTargetQueryPageSize;
+
+    /**
+     * The configuration of the staged recon pipeline, or null if the recon phases feed the task threads directly.
+     */
+    private final JsonValue reconPipelineConfig;
+
+    /**
+     * The number of link writes a recon buffers and writes in bulk, or 0 to write each link directly.
+     */
+    private final int linkWriteBatchSize;
+
+    /**
+     * The maximum time, in milliseconds, a recon buffers a link write.
+     */
+    private final long linkWriteFlushInterval;
+
+    /**
+     * The number of partitions a recon splits the source set in across the cluster, or 0 to recon locally.
+     * <p>
+     * Partitions are assigned by the hash of the normalized source identifier, which source queries cannot
+     * filter on, so each partition queries the complete source set and skips the objects of the other
+     * partitions, and the coordinating node queries the source identifiers once more. A partitioned recon
+     * thus issues {@code reconPartitions + 1} queries of the complete source set, which pays off when
+     * reconciling an object costs more than querying it, not for sources that are slow to query.
+     */
+    private final int reconPartitions;
+
+    /**
+     * The minimum time, in milliseconds, between the checkpoints a recon stores while reconciling source pages,
+     * or 0 to not checkpoint recons.
+     */
+    private final long reconCheckpointInterval;
+
+    /**
+     * The property mappings, compiled once for all the sync operations of this mapping.
+     */
+    private final PropertyMappingPlan propertyMappingPlan;
+
     /**
      * A {@link List} containing the configured link qualifiers.
      */
@@ -161,6 +211,17 @@ class ObjectMapping {
      */
     private final boolean prefetchLinks;
 
+    /**
+     * Whether prefetched links are held in a {@link CompactLinkIndex} rather than as {@link Link} objects.
+     */
+    private final boolean compactLinkIndex;
+
+    /**
+     * The number of source entries whose linked targets the source phase reads ahead in one query,
+     * or 0 to read each target on demand.
+     */
+    private final int targetReadAheadSize;
+
     /**
      * Whether to maintain links for sync-d targets
      * Default to {@code TRUE}
@@ -182,12 +243,12 @@ class ObjectMapping {
     /**
      * Reconcile a given source ID
      */
-    private final Recon sourceRecon = new SourceRecon(this);
+    Recon sourceRecon = new SourceRecon(this);
 
     /**
      * Reconcile a given target ID
      */
-    private final Recon targetRecon = new TargetRecon(this);
+    Recon targetRecon = new TargetRecon(this);
 
     /**
      * Create an instance of a mapping between source and target
@@ -221,6 +282,8 @@ class ObjectMapping {
                     field(SourceUnit.ATTR_NAME, "roles/onRecon.groovy")))));
         resultScript = Scripts.newScript(config.get("result"));
         prefetchLinks = config.get("prefetchLinks").defaultTo(true).asBoolean();
+        compactLinkIndex = config.get("compactLinkIndex").defaultTo(false).asBoolean();
+        targetReadAheadSize = config.get("targetReadAheadSize").defaultTo(0).asInteger();
         taskThreads = config.get("taskThreads").defaultTo(DEFAULT_TASK_THREADS).asInteger();
         feedSize = config.get("feedSize").defaultTo(ReconFeeder.DEFAULT_FEED_SIZE).asInteger();
         syncEnabled = config.get("enableSync").defaultTo(true).asBoolean();
@@ -228,6 +291,16 @@ class ObjectMapping {
         reconSourceQueryPaging = config.get("reconSourceQueryPaging").defaultTo(false).asBoolean();
         reconSourceQueryPageSize = config.get("reconSourceQueryPageSize")
                 .defaultTo(reconSourceQueryPaging ? ReconFeeder.DEFAULT_FEED_SIZE : 0).asInteger();
+        streamTargetPhase = config.get("streamTargetPhase").defaultTo(false).asBoolean();
+        reconTargetQueryPageSize = config.get("reconTargetQueryPageSize")
+                .defaultTo(ReconFeeder.DEFAULT_FEED_SIZE).asInteger();
+        reconPipelineConfig = ReconPipeline.isEnabled(config) ? config.get("reconPipeline").copy() : null;
+        linkWriteBatchSize = config.get("linkWriteBatchSize").defaultTo(0).asInteger();
+        linkWriteFlushInterval = config.get("linkWriteFlushInterval")
+                .defaultTo(LinkWriteBuffer.DEFAULT_FLUSH_INTERVAL).asLong();
+        reconPartitions = config.get("reconPartitions").defaultTo(0).asInteger();
+        reconCheckpointInterval = config.get("reconCheckpointInterval").defaultTo(0L).asLong();
+        propertyMappingPlan = new PropertyMappingPlan(config.get("properties"));
 
         LOGGER.debug("Instantiated {}", name);
     }
@@ -282,6 +355,13 @@ class ObjectMapping {
         return config;
     }
 
+    /**
+     * @return The compiled property mappings of the object mapping
+     */
+    PropertyMappingPlan getPropertyMappingPlan() {
+        return propertyMappingPlan;
+    }
+
     /**
      * Returns the complete set of link Qualifiers.
      *
@@ -697,6 +777,7 @@ class ObjectMapping {
      */
     private void doRecon(ReconciliationContext reconContext) throws SynchronizationException {
         final ReconciliationStatistic stats = reconContext.getStatistics();
+        final ReconCheckpoint resumedCheckpoint = reconContext.getResumedCheckpoint();
         stats.reconStart();
         String reconId = reconContext.getReconId();
         EventEntry measureIdQueries = Publisher.start(EVENT_RECON_ID_QUERIES, reconId, null);
@@ -710,16 +791,29 @@ class ObjectMapping {
             ObjectSetContext.push(context);
             logReconStart(reconContext, context);
 
+            // A resumed recon continues from the first source page not reconciled before its checkpoint
+            final boolean runSourcePhase = resumedCheckpoint == null || !resumedCheckpoint.isSourcePhaseCompleted();
+            final String firstSourcePagingCookie =
+                    resumedCheckpoint != null ? resumedCheckpoint.getSourcePagingCookie() : null;
+            if (resumedCheckpoint != null) {
+                LOGGER.info("Resuming recon {} on mapping {} from its {}", reconId, name, resumedCheckpoint);
+                stats.mergePartitionResult(resumedCheckpoint.getResult());
+            }
+
             // Get the relevant source (and optionally target) identifiers before we assess the situations
             stats.sourceQueryStart();
             final long firstSourceQueryStart = startNanoTime(reconContext);
 
-            ReconQueryResult sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize, null);
-            Iterator<ResultEntry> sourceIter = sourceQueryResult.getIterator();
+            ReconQueryResult sourceQueryResult = runSourcePhase
+                    ? reconContext.querySourceIter(reconSourceQueryPageSize, firstSourcePagingCookie)
+                    : null;
+            Iterator<ResultEntry> sourceIter = sourceQueryResult != null
+                    ? sourceQueryResult.getIterator()
+                    : Collections.<ResultEntry>emptyIterator();
 
             stats.addDuration(DurationMetric.sourceQuery, firstSourceQueryStart);
             stats.sourceQueryEnd();
-            if (!sourceIter.hasNext()) {
+            if (!sourceIter.hasNext() && resumedCheckpoint == null) {
                 if (!reconContext.getReconHandler().allowEmptySourceSet()) {
                     LOGGER.warn("Cannot reconcile from an empty data source, unless allowEmptySourceSet is true.");
                     reconContext.setStage(ReconStage.COMPLETED_FAILED);
@@ -733,34 +827,26 @@ class ObjectMapping {
             Set<String> remainingTargetIds = new LinkedHashSet<>();
             ResultIterable targetIterable =
                     new ResultIterable(Collections.<String>emptyList(), Collections.<JsonValue>emptyList());
-            if (reconContext.getReconHandler().isRunTargetPhase()) {
+            HandledTargetIds handledTargetIds = HandledTargetIds.removingFrom(remainingTargetIds);
+            if (reconContext.getReconHandler().isRunTargetPhase() && streamTargetPhase) {
+                // Only keep track of the targets handled in the source phase, the target set is paged later
+                handledTargetIds = new TargetIdFingerprints();
+            } else if (reconContext.getReconHandler().isRunTargetPhase()) {
                 stats.targetQueryStart();
                 final long targetQueryStart = startNanoTime(reconContext);
 
                 targetIterable = reconContext.queryTarget();
-                remainingTargetIds.addAll(targetIterable.getAllIds());
-                remainingTargetIds = Collections.synchronizedSet(remainingTargetIds);
+                remainingTargetIds = Collections.synchronizedSet(new LinkedHashSet<>(targetIterable.getAllIds()));
+                handledTargetIds = HandledTargetIds.removingFrom(remainingTargetIds);
 
                 stats.addDuration(DurationMetric.targetQuery, targetQueryStart);
                 stats.targetQueryEnd();
             }
 
-            // Optionally get all links up front as well
+            // Optionally get all links up front as well; partitioned recons get them once the partitions completed
             Map<String, Map<String, Link>> allLinks = null;
-            if (prefetchLinks) {
-                allLinks = new HashMap<>();
-                int totalLinkEntries = 0;
-                stats.linkQueryStart();
-                for (String linkQualifier : getAllLinkQualifiers(context, reconContext)) {
-                    final long linkQueryStart = startNanoTime(reconContext);
-                    Map<String, Link> linksByQualifier = Link.getLinksForMapping(ObjectMapping.this, linkQualifier);
-                    stats.addDuration(DurationMetric.linkQuery, linkQueryStart);
-
-                    allLinks.put(linkQualifier, linksByQualifier);
-                    totalLinkEntries += linksByQualifier.size();
-                }
-                reconContext.setTotalLinkEntries(totalLinkEntries);
-                stats.linkQueryEnd();
+            if (prefetchLinks && reconContext.getPartitionCount() == 0) {
+                allLinks = queryAllLinks(context, reconContext);
             }
 
             measureIdQueries.end();
@@ -773,41 +859,75 @@ class ObjectMapping {
 
             boolean queryNextPage = false;
 
-            LOGGER.info("Performing source sync for recon {} on mapping {}", reconId, name);
-            do {
-                // Query next page of results if paging
-                if (queryNextPage) {
-                    LOGGER.debug("Querying next page of source ids");
-                    final long pagedSourceQueryStart = startNanoTime(reconContext);
-                    sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize,
-                            sourceQueryResult.getPagingCookie());
-                    sourceIter = sourceQueryResult.getIterator();
-                    stats.addDuration(DurationMetric.sourceQuery, pagedSourceQueryStart);
+            if (!runSourcePhase) {
+                LOGGER.info("Source sync for recon {} on mapping {} completed before its checkpoint", reconId, name);
+            } else if (reconContext.getPartitionCount() > 0) {
+                LOGGER.info("Performing source sync for recon {} on mapping {}", reconId, name);
+                checkpoint(reconContext, ReconStage.ACTIVE_RECONCILING_SOURCE, null, false);
+                Map<String, Map<String, Link>> currentLinks =
+                        doPartitionedSourcePhase(reconContext, context, sourceQueryResult, handledTargetIds);
+                if (prefetchLinks) {
+                    allLinks = currentLinks;
                 }
-                // Perform source recon phase on current set of source ids
-                ReconPhase sourcePhase =
-                        new ReconPhase(sourceIter, reconContext, context, allLinks, remainingTargetIds, sourceRecon);
-                sourcePhase.setFeedSize(feedSize);
-                sourcePhase.execute();
-                queryNextPage = true;
-            } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null); // If paging, loop through next pages
+            } else {
+                LOGGER.info("Performing source sync for recon {} on mapping {}", reconId, name);
+                checkpoint(reconContext, ReconStage.ACTIVE_RECONCILING_SOURCE, firstSourcePagingCookie, false);
+                do {
+                    // Query next page of results if paging
+                    if (queryNextPage) {
+                        LOGGER.debug("Querying next page of source ids");
+                        final long pagedSourceQueryStart = startNanoTime(reconContext);
+                        sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize,
+                                sourceQueryResult.getPagingCookie());
+                        sourceIter = sourceQueryResult.getIterator();
+                        stats.addDuration(DurationMetric.sourceQuery, pagedSourceQueryStart);
+                    }
+                    // Perform source recon phase on current set of source ids
+                    ReconPhase sourcePhase = new ReconPhase(
+                            readTargetsAhead(sourceIter, reconContext, context, allLinks),
+                            reconContext, context, allLinks, handledTargetIds, sourceRecon);
+                    sourcePhase.setFeedSize(feedSize);
+                    sourcePhase.execute();
+                    queryNextPage = true;
+                    if (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null) {
+                        checkpoint(reconContext, ReconStage.ACTIVE_RECONCILING_SOURCE,
+                                sourceQueryResult.getPagingCookie(), true);
+                    }
+                } while (reconSourceQueryPaging && sourceQueryResult.getPagingCookie() != null); // If paging, loop through next pages
+            }
 
             stats.addDuration(DurationMetric.sourcePhase, sourcePhaseStart);
             stats.sourcePhaseEnd();
             measureSource.end();
 
-            LOGGER.debug("Remaining targets after source phase : {}", remainingTargetIds);
+            LOGGER.debug("Remaining targets after source phase : {}", handledTargetIds);
 
             if (reconContext.getReconHandler().isRunTargetPhase()) {
                 EventEntry measureTarget = Publisher.start(EVENT_RECON_TARGET, reconId, null);
                 final long targetPhaseStart = startNanoTime(reconContext);
                 reconContext.setStage(ReconStage.ACTIVE_RECONCILING_TARGET);
-                targetIterable = targetIterable.removeNotMatchingEntries(remainingTargetIds);
-                stats.targetPhaseStart();
-                ReconPhase targetPhase = new ReconPhase(targetIterable.iterator(), reconContext, context,
-                        allLinks, null, targetRecon);
-                targetPhase.setFeedSize(feedSize);
-                targetPhase.execute();
+                if (resumedCheckpoint != null && (firstSourcePagingCookie != null || !runSourcePhase)) {
+                    // The targets handled before the checkpoint are not known, so the targets linked to a
+                    // source object are taken as handled, as after a partitioned source phase
+                    Map<String, Map<String, Link>> links =
+                            allLinks != null ? allLinks : queryAllLinks(context, reconContext);
+                    if (prefetchLinks) {
+                        allLinks = links;
+                    }
+                    recordLinkedTargets(links, querySourceIds(reconContext, null), handledTargetIds);
+                }
+                checkpoint(reconContext, ReconStage.ACTIVE_RECONCILING_TARGET, null, false);
+                if (streamTargetPhase) {
+                    stats.targetPhaseStart();
+                    doStreamedTargetPhase(reconContext, context, allLinks, handledTargetIds);
+                } else {
+                    targetIterable = targetIterable.removeNotMatchingEntries(remainingTargetIds);
+                    stats.targetPhaseStart();
+                    ReconPhase targetPhase = new ReconPhase(targetIterable.iterator(), reconContext, context,
+                            allLinks, null, targetRecon);
+                    targetPhase.setFeedSize(feedSize);
+                    targetPhase.execute();
+                }
                 stats.addDuration(DurationMetric.targetPhase, targetPhaseStart);
                 stats.targetPhaseEnd();
                 measureTarget.end();
@@ -816,6 +936,8 @@ class ObjectMapping {
             stats.reconEnd();
             reconContext.setStage(ReconStage.ACTIVE_PROCESSING_RESULTS);
             doResults(reconContext, context);
+            reconContext.getReconHandler().reconCompleted();
+            removeCheckpoint(reconContext);
             reconContext.setStage(ReconStage.COMPLETED_SUCCESS);
             logReconEndSuccess(reconContext, context);
         } catch (InterruptedException ex) {
@@ -856,6 +978,280 @@ class ObjectMapping {
 // TODO: cleanup orphan link objects (no matching source or target) here
     }
 
+    /**
+     * Wraps the source entries of a source phase to read their linked targets ahead in bulk, if configured, the
+     * links are prefetched and the target values are not preloaded.
+     *
+     * @param sourceEntries the source entries of the phase
+     * @param reconContext the context specific to the reconciliation run
+     * @param context the parent context
+     * @param allLinks the prefetched links, or null if the links are not prefetched
+     * @return the source entries to reconcile
+     */
+    private Iterator<ResultEntry> readTargetsAhead(Iterator<ResultEntry> sourceEntries,
+            ReconciliationContext reconContext, Context context, Map<String, Map<String, Link>> allLinks) {
+        if (targetReadAheadSize <= 0 || allLinks == null || reconContext.hasTargetsValues()) {
+            return sourceEntries;
+        }
+        TargetReadAhead targetReadAhead =
+                new TargetReadAhead(sourceEntries, reconContext, context, allLinks, targetReadAheadSize);
+        reconContext.setTargetReadAhead(targetReadAhead);
+        return targetReadAhead;
+    }
+
+    /**
+     * Queries all links of the mapping, for each link qualifier.
+     *
+     * @param context the parent context
+     * @param reconContext the context specific to the reconciliation run
+     * @return the links by link qualifier, and source identifier
+     * @throws SynchronizationException if querying the links failed
+     */
+    private Map<String, Map<String, Link>> queryAllLinks(Context context, ReconciliationContext reconContext)
+            throws SynchronizationException {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        Map<String, Map<String, Link>> allLinks = new HashMap<>();
+        int totalLinkEntries = 0;
+        stats.linkQueryStart();
+        for (String linkQualifier : getAllLinkQualifiers(context, reconContext)) {
+            final long linkQueryStart = startNanoTime(reconContext);
+            Map<String, Link> linksByQualifier = compactLinkIndex
+                    ? Link.getCompactLinksForMapping(ObjectMapping.this, linkQualifier)
+                    : Link.getLinksForMapping(ObjectMapping.this, linkQualifier);
+            stats.addDuration(DurationMetric.linkQuery, linkQueryStart);
+
+            allLinks.put(linkQualifier, linksByQualifier);
+            totalLinkEntries += linksByQualifier.size();
+        }
+        reconContext.setTotalLinkEntries(totalLinkEntries);
+        stats.linkQueryEnd();
+        return allLinks;
+    }
+
+    /**
+     * Performs the source phase across the cluster, and merges the statistics of the partitions.
+     * <p>
+     * Each partition queries the complete source set and reconciles its share of it, so the
+     * targets handled by the partitions are not known here. Instead, once all partitions completed,
+     * the targets linked to a source object in the source set are taken as handled, which leaves
+     * the unassigned targets and the targets of missing sources to the target phase.
+     *
+     * @param reconContext the context specific to the reconciliation run
+     * @param context the parent context
+     * @param sourceQueryResult the first page of the source query
+     * @param handledTargetIds the targets handled in the source phase, to record the handled targets in
+     * @return the links of the mapping after the source phase, by link qualifier
+     * @throws SynchronizationException if a partition failed, or the reconciliation was canceled
+     */
+    private Map<String, Map<String, Link>> doPartitionedSourcePhase(ReconciliationContext reconContext,
+            Context context, ReconQueryResult sourceQueryResult, HandledTargetIds handledTargetIds)
+            throws SynchronizationException {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        Set<String> sourceIds = querySourceIds(reconContext, sourceQueryResult);
+
+        for (ReconPartition partition : reconContext.getService().getPartitionedRecon().execute(reconContext)) {
+            stats.mergePartitionResult(partition.getResult());
+        }
+
+        if (!reconContext.getReconHandler().isRunTargetPhase() && !prefetchLinks) {
+            return null;
+        }
+        Map<String, Map<String, Link>> allLinks = queryAllLinks(context, reconContext);
+        recordLinkedTargets(allLinks, sourceIds, handledTargetIds);
+        return allLinks;
+    }
+
+    /**
+     * Queries the normalized identifiers of the complete source set, without reconciling the sources.
+     *
+     * @param reconContext the context specific to the reconciliation run
+     * @param firstPage the first page of the source query, or null to query it
+     * @return the normalized source identifiers
+     * @throws SynchronizationException if querying the source set failed
+     */
+    private Set<String> querySourceIds(ReconciliationContext reconContext, ReconQueryResult firstPage)
+            throws SynchronizationException {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        Set<String> sourceIds = new HashSet<>();
+        ReconQueryResult result = firstPage;
+        String pagingCookie = null;
+        while (true) {
+            if (result == null) {
+                final long sourceQueryStart = startNanoTime(reconContext);
+                result = reconContext.querySourceIter(reconSourceQueryPageSize, pagingCookie);
+                stats.addDuration(DurationMetric.sourceQuery, sourceQueryStart);
+            }
+            for (String sourceId : result.getAllIds()) {
+                sourceIds.add(getLinkType().normalizeSourceId(sourceId));
+            }
+            pagingCookie = result.getPagingCookie();
+            if (!reconSourceQueryPaging || pagingCookie == null) {
+                return sourceIds;
+            }
+            result = null;
+        }
+    }
+
+    /**
+     * Records the targets linked to a source object in the source set as handled, so that the target phase
+     * does not reconcile them, for source phases that do not keep track of the targets they handled.
+     *
+     * @param allLinks the links of the mapping, by link qualifier
+     * @param sourceIds the normalized identifiers of the source set
+     * @param handledTargetIds the targets handled in the source phase
+     */
+    private void recordLinkedTargets(Map<String, Map<String, Link>> allLinks, Set<String> sourceIds,
+            HandledTargetIds handledTargetIds) {
+        for (Map<String, Link> linksByQualifier : allLinks.values()) {
+            for (Link link : linksByQualifier.values()) {
+                if (sourceIds.contains(getLinkType().normalizeSourceId(link.sourceId))) {
+                    handledTargetIds.add(getLinkType().normalizeTargetId(link.targetId));
+                }
+            }
+        }
+    }
+
+    /**
+     * Stores a checkpoint of a recon to resume it from, if the mapping checkpoints recons. Only full recons
+     * are checkpointed, as the source set of the other recon types depends on when they are started.
+     * Failing to store a checkpoint does not fail the recon, unless another run resumed it meanwhile.
+     *
+     * @param reconContext the context specific to the reconciliation run
+     * @param stage the stage to resume the recon in
+     * @param sourcePagingCookie the paging cookie of the first source page not reconciled yet, or null
+     * @param periodic whether to skip the checkpoint if the checkpoint interval did not elapse since the last one
+     * @throws SynchronizationException if another run resumed the recon
+     */
+    private void checkpoint(ReconciliationContext reconContext, ReconStage stage, String sourcePagingCookie,
+            boolean periodic) throws SynchronizationException {
+        if (reconCheckpointInterval <= 0
+                || reconContext.getReconAction() != ReconciliationService.ReconAction.recon
+                || reconContext.getPartition() != null
+                || (periodic && System.currentTimeMillis() - reconContext.getCheckpointTime()
+                        < reconCheckpointInterval)) {
+            return;
+        }
+        try {
+            reconContext.storeCheckpoint(stage, sourcePagingCookie);
+            LOGGER.debug("Stored the checkpoint of recon {} in stage {}", reconContext.getReconId(), stage);
+        } catch (PreconditionFailedException | NotFoundException e) {
+            throw new SynchronizationException("Recon " + reconContext.getReconId() + " was resumed by another run",
+                    e);
+        } catch (ResourceException e) {
+            LOGGER.warn("Failed to store the checkpoint of recon {}", reconContext.getReconId(), e);
+        }
+    }
+
+    /**
+     * Removes the checkpoint of a completed recon, if any.
+     *
+     * @param reconContext the context specific to the reconciliation run
+     */
+    private void removeCheckpoint(ReconciliationContext reconContext) {
+        try {
+            reconContext.removeCheckpoint();
+        } catch (ResourceException e) {
+            LOGGER.warn("Failed to remove the checkpoint of recon {}", reconContext.getReconId(), e);
+        }
+    }
+
+    /**
+     * Reconciles a partition of a partitioned reconciliation: the source objects of the partition,
+     * without a target phase. The coordinating node reports the reconciliation, and runs its target
+     * phase once all partitions are reconciled.
+     *
+     * @param reconContext the context of the partition run
+     * @throws SynchronizationException if reconciling the partition failed
+     */
+    void reconPartition(ReconciliationContext reconContext) throws SynchronizationException {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        stats.reconStart();
+        reconContext.setStage(ReconStage.ACTIVE_QUERY_ENTRIES);
+        Context context = new TriggerContext(ObjectSetContext.get(), "recon");
+        ObjectSetContext.push(context);
+        try {
+            Map<String, Map<String, Link>> allLinks = prefetchLinks ? queryAllLinks(context, reconContext) : null;
+
+            reconContext.setStage(ReconStage.ACTIVE_RECONCILING_SOURCE);
+            stats.sourcePhaseStart();
+            final long sourcePhaseStart = startNanoTime(reconContext);
+            // The target phase is run by the coordinating node, which does not learn the targets handled here
+            HandledTargetIds handledTargetIds = HandledTargetIds.removingFrom(Collections.<String>emptySet());
+            String pagingCookie = null;
+            do {
+                final long sourceQueryStart = startNanoTime(reconContext);
+                ReconQueryResult sourceQueryResult = reconContext.querySourceIter(reconSourceQueryPageSize,
+                        pagingCookie);
+                stats.addDuration(DurationMetric.sourceQuery, sourceQueryStart);
+
+                ReconPhase sourcePhase = new ReconPhase(
+                        readTargetsAhead(sourceQueryResult.getIterator(), reconContext, context, allLinks),
+                        reconContext, context, allLinks, handledTargetIds, sourceRecon);
+                sourcePhase.setFeedSize(feedSize);
+                sourcePhase.execute();
+                pagingCookie = sourceQueryResult.getPagingCookie();
+            } while (reconSourceQueryPaging && pagingCookie != null);
+            stats.addDuration(DurationMetric.sourcePhase, sourcePhaseStart);
+            stats.sourcePhaseEnd();
+
+            stats.reconEnd();
+            reconContext.setStage(ReconStage.COMPLETED_SUCCESS);
+        } catch (InterruptedException ex) {
+            reconContext.setStage(reconContext.isCanceled() ? ReconStage.COMPLETED_CANCELED : ReconStage.COMPLETED_FAILED);
+            throw new SynchronizationException("Interrupted execution of reconciliation", ex);
+        } catch (SynchronizationException | RuntimeException e) {
+            reconContext.setStage(ReconStage.COMPLETED_FAILED);
+            throw e;
+        } finally {
+            ObjectSetContext.pop(); // pop the TriggerContext
+            if (!stats.hasEnded()) {
+                stats.reconEnd();
+            }
+        }
+    }
+
+    /**
+     * Performs the target phase without a preloaded target set. The target object set is paged through
+     * in id order, and the ids not handled in the source phase are spooled to disk before being
+     * reconciled, so that the memory used does not depend on the size of the target object set.
+     *
+     * @param reconContext the context specific to the reconciliation run
+     * @param context the parent context
+     * @param allLinks all links if pre-queried, or null for on-demand link querying
+     * @param handledTargetIds the targets handled in the source phase
+     * @throws SynchronizationException if querying or reconciling the targets failed
+     * @throws InterruptedException if the reconciliation was interrupted
+     */
+    private void doStreamedTargetPhase(ReconciliationContext reconContext, Context context,
+            Map<String, Map<String, Link>> allLinks, HandledTargetIds handledTargetIds)
+            throws SynchronizationException, InterruptedException {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        try (TargetIdSpool remainingTargetIds = new TargetIdSpool(reconContext.getReconId())) {
+            stats.targetQueryStart();
+            String pagingCookie = null;
+            do {
+                final long targetQueryStart = startNanoTime(reconContext);
+                ReconQueryResult targetQueryResult =
+                        reconContext.queryTargetIter(reconTargetQueryPageSize, pagingCookie);
+                stats.addDuration(DurationMetric.targetQuery, targetQueryStart);
+                for (String targetId : targetQueryResult.getAllIds()) {
+                    if (!handledTargetIds.contains(targetId)) {
+                        remainingTargetIds.add(targetId);
+                    }
+                }
+                pagingCookie = targetQueryResult.getPagingCookie();
+                reconContext.checkCanceled();
+            } while (pagingCookie != null);
+            stats.targetQueryEnd();
+
+            LOGGER.debug("Remaining targets after source phase : {}", remainingTargetIds.size());
+            ReconPhase targetPhase = new ReconPhase(remainingTargetIds.iterator(), reconContext, context,
+                    allLinks, null, targetRecon);
+            targetPhase.setFeedSize(feedSize);
+            targetPhase.execute();
+        }
+    }
+
     private void executeOnRecon(Context context, final ReconciliationContext reconContext) throws SynchronizationException {
         if (onReconScript != null) {
             Map<String, Object> scope = new HashMap<>();
@@ -915,6 +1311,34 @@ class ObjectMapping {
         return taskThreads;
     }
 
+    /**
+     * @return the configuration of the staged recon pipeline, or null if not enabled
+     */
+    JsonValue getReconPipelineConfig() {
+        return reconPipelineConfig;
+    }
+
+    /**
+     * @return the number of link writes a recon writes in bulk, or 0 to write each link directly
+     */
+    int getLinkWriteBatchSize() {
+        return linkWriteBatchSize;
+    }
+
+    /**
+     * @return the maximum time, in milliseconds, a recon buffers a link write
+     */
+    long getLinkWriteFlushInterval() {
+        return linkWriteFlushInterval;
+    }
+
+    /**
+     * @return the number of partitions a recon splits the source set in across the cluster, or 0 to recon locally
+     */
+    int getReconPartitions() {
+        return reconPartitions;
+    }
+
     /**
      * Creates an entry in the audit log.
      *
@@ -935,6 +1359,35 @@ class ObjectMapping {
         }
     }
 
+    /**
+     * Creates the audit log entry for a reconciled object. If the recon is executed by the staged
+     * pipeline the entry is handed to its write stage, otherwise it is created directly. The entry of
+     * an object whose link is buffered by the {@link LinkWriteBuffer} is created once the link is written.
+     *
+     * @param entry the entry to create
+     * @param reconContext the recon context
+     * @throws SynchronizationException if creating the entry failed
+     */
+    void logReconEntry(final ReconAuditEventLogger entry, final ReconciliationContext reconContext)
+            throws SynchronizationException {
+        LinkWriteBuffer linkWriteBuffer = reconContext.getLinkWriteBuffer();
+        if (linkWriteBuffer != null && linkWriteBuffer.deferEntry(entry)) {
+            // Reported once the link of the entry is written
+            return;
+        }
+        ReconPipeline pipeline = reconContext.getPipeline();
+        if (pipeline == null) {
+            logEntry(entry, reconContext);
+            return;
+        }
+        pipeline.write(new ReconPipeline.Write() {
+            @Override
+            public void execute() throws SynchronizationException {
+                logEntry(entry, reconContext);
+            }
+        });
+    }
+
     /**
      * Record the start of a new reconciliation.
      *
@@ -0,0 +1,338 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newDeleteRequest;
+import static org.forgerock.json.resource.Requests.newQueryRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.forgerock.util.query.QueryFilter.equalTo;
+import static org.forgerock.util.query.QueryFilter.or;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.cluster.ClusterEvent;
+import org.forgerock.openidm.cluster.ClusterEventListener;
+import org.forgerock.openidm.cluster.ClusterEventType;
+import org.forgerock.openidm.cluster.ClusterManagementService;
+import org.forgerock.openidm.sync.ReconContext;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reconciles the source phase of a reconciliation across the nodes of a cluster.
+ * <p>
+ * The node a partitioned reconciliation is requested on coordinates it: it persists a
+ * {@link ReconPartition} per partition of the source identifier space, notifies the other nodes
+ * through the cluster management service, and then claims and reconciles pending partitions
+ * itself until none are left. Partitions are claimed by updating them with the revision they were
+ * read with, so each partition is claimed by exactly one node. Once all partitions completed, the
+ * coordinating node merges their statistics and continues with the target phase.
+ * <p>
+ * When a node fails, the node recovering it returns the partitions the failed node was reconciling
+ * to the pending state and reconciles them, the same way the scheduler recovers the triggers of a
+ * failed node. The partitions of a failed coordinating node are removed, as there is no node left
+ * to merge and report them.
+ */
+class PartitionedRecon implements ClusterEventListener {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PartitionedRecon.class);
+
+    /** The id the reconciliation service registers with the cluster management service */
+    static final String LISTENER_ID = "reconciliation";
+
+    /** The repository container of the partitions */
+    static final String PARTITION_CONTAINER = "repo/synchronisation/reconPartition";
+
+    /**
+     * Interval, in milliseconds, the coordinating node checks the state of the partitions once it has no pending
+     * partition left to claim; each check is one query of the partitions of the recon, not of the source set
+     */
+    private static final long POLL_INTERVAL = 1000;
+
+    private final ReconciliationService service;
+    private final ClusterManagementService cluster;
+
+    /**
+     * Creates the partitioned recon support of a node.
+     *
+     * @param service the reconciliation service
+     * @param cluster the cluster management service
+     */
+    PartitionedRecon(ReconciliationService service, ClusterManagementService cluster) {
+        this.service = service;
+        this.cluster = cluster;
+    }
+
+    /**
+     * Reconciles the source phase of a reconciliation across the cluster.
+     *
+     * @param reconContext the coordinating reconciliation
+     * @return the completed partitions, holding their statistics
+     * @throws SynchronizationException if a partition failed, or the reconciliation was canceled
+     */
+    List<ReconPartition> execute(ReconciliationContext reconContext) throws SynchronizationException {
+        final String reconId = reconContext.getReconId();
+        final int count = reconContext.getPartitionCount();
+        try {
+            for (int i = 0; i < count; i++) {
+                ReconPartition partition = new ReconPartition(reconContext, cluster.getInstanceId(), i, count);
+                getConnection().create(ContextUtil.createInternalContext(),
+                        newCreateRequest(PARTITION_CONTAINER, partition.getId(), partition.getContent()));
+            }
+        } catch (ResourceException e) {
+            deletePartitions(reconId);
+            throw new SynchronizationException("Failed to create the partitions of recon " + reconId, e);
+        }
+        cluster.sendEvent(new ClusterEvent(ClusterEventType.CUSTOM, cluster.getInstanceId(), LISTENER_ID,
+                json(object(field("reconId", reconId)))));
+        LOGGER.info("Reconciling {} partitions of recon {} across the cluster", count, reconId);
+
+        try {
+            while (true) {
+                reconContext.checkCanceled();
+                List<ReconPartition> partitions = queryPartitions(equalTo(new JsonPointer("reconId"), reconId));
+                ReconPartition claimed = claimPending(partitions);
+                if (claimed != null) {
+                    runPartition(claimed, ObjectSetContext.get(), reconContext);
+                    continue;
+                }
+                boolean completed = partitions.size() == count;
+                for (ReconPartition partition : partitions) {
+                    if (partition.getState() == ReconPartition.State.FAILED) {
+                        throw new SynchronizationException("Failed to reconcile " + partition + " on "
+                                + partition.getInstanceId() + ": " + partition.getError());
+                    }
+                    completed &= partition.getState() == ReconPartition.State.COMPLETED;
+                }
+                if (completed) {
+                    return partitions;
+                } else if (partitions.size() != count) {
+                    throw new SynchronizationException("Partitions of recon " + reconId + " were removed");
+                }
+                Thread.sleep(POLL_INTERVAL);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SynchronizationException("Interrupted waiting for the partitions of recon " + reconId, e);
+        } catch (ResourceException e) {
+            throw new SynchronizationException("Failed to query the partitions of recon " + reconId, e);
+        } finally {
+            // Partitions still pending can no longer be claimed
+            deletePartitions(reconId);
+        }
+    }
+
+    /**
+     * Handles the notification of a new partitioned reconciliation, and the recovery of a failed
+     * node.
+     *
+     * @param event the cluster event
+     * @return true if the event was handled
+     */
+    @Override
+    public boolean handleEvent(ClusterEvent event) {
+        switch (event.getType()) {
+        case CUSTOM:
+            reconcilePendingAsync(event.getDetails().get("reconId").asString());
+            return true;
+        case RECOVERY_INITIATED:
+            return recoverPartitions(event.getInstanceId());
+        default:
+            return true;
+        }
+    }
+
+    /**
+     * Returns the partitions a failed node was reconciling to the pending state, and removes the
+     * partitions of the reconciliations it coordinated.
+     *
+     * @param failedInstanceId the instance id of the failed node
+     * @return true if the partitions were recovered
+     */
+    private boolean recoverPartitions(String failedInstanceId) {
+        try {
+            Set<String> reconIds = new LinkedHashSet<>();
+            for (ReconPartition partition : queryPartitions(or(
+                    equalTo(new JsonPointer("coordinator"), failedInstanceId),
+                    equalTo(new JsonPointer("instanceId"), failedInstanceId)))) {
+                try {
+                    if (failedInstanceId.equals(partition.getCoordinator())) {
+                        getConnection().delete(ContextUtil.createInternalContext(),
+                                newDeleteRequest(PARTITION_CONTAINER, partition.getId())
+                                        .setRevision(partition.getRevision()));
+                    } else if (partition.getState() == ReconPartition.State.ACTIVE) {
+                        LOGGER.info("Recovering {} of failed instance {}", partition, failedInstanceId);
+                        update(partition, partition.withState(ReconPartition.State.PENDING, null));
+                        reconIds.add(partition.getReconId());
+                    }
+                } catch (PreconditionFailedException | NotFoundException e) {
+                    LOGGER.debug("{} changed while recovering it", partition, e);
+                }
+            }
+            for (String reconId : reconIds) {
+                reconcilePendingAsync(reconId);
+            }
+            return true;
+        } catch (ResourceException e) {
+            LOGGER.warn("Failed to recover the recon partitions of instance {}", failedInstanceId, e);
+            return false;
+        }
+    }
+
+    /**
+     * Claims and reconciles the pending partitions of a reconciliation on a pooled thread.
+     *
+     * @param reconId the id of the reconciliation
+     */
+    private void reconcilePendingAsync(final String reconId) {
+        service.getThreadPool().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    ReconPartition claimed;
+                    do {
+                        claimed = claimPending(queryPartitions(equalTo(new JsonPointer("reconId"), reconId)));
+                        if (claimed != null) {
+                            runPartition(claimed, ContextUtil.createInternalContext(), null);
+                        }
+                    } while (claimed != null);
+                } catch (ResourceException e) {
+                    LOGGER.warn("Failed to claim the partitions of recon {}", reconId, e);
+                } catch (RuntimeException e) {
+                    LOGGER.warn("Failed to reconcile the partitions of recon {}", reconId, e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Claims the first pending partition not claimed by another node in the meantime.
+     *
+     * @param partitions the partitions of a reconciliation
+     * @return the claimed partition, or null if there are no pending partitions
+     * @throws ResourceException if updating a partition failed
+     */
+    private ReconPartition claimPending(List<ReconPartition> partitions) throws ResourceException {
+        for (ReconPartition partition : partitions) {
+            if (partition.getState() == ReconPartition.State.PENDING) {
+                try {
+                    return update(partition,
+                            partition.withState(ReconPartition.State.ACTIVE, cluster.getInstanceId()));
+                } catch (PreconditionFailedException | NotFoundException e) {
+                    LOGGER.debug("{} was claimed by another instance", partition);
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reconciles a claimed partition, and stores its statistics or error with it.
+     *
+     * @param partition the claimed partition
+     * @param parentContext the context to reconcile the partition in
+     * @param coordinator the coordinating reconciliation if it runs on this node, or null
+     */
+    private void runPartition(ReconPartition partition, Context parentContext, ReconciliationContext coordinator) {
+        LOGGER.info("Reconciling {}", partition);
+        ReconciliationContext partitionRun = null;
+        JsonValue content;
+        ObjectSetContext.push(new ReconContext(parentContext, partition.getMapping()));
+        try {
+            ObjectMapping mapping = service.getMappings().getMapping(partition.getMapping());
+            partitionRun = new ReconciliationContext(partition.getReconAction(), mapping, ObjectSetContext.get(),
+                    partition.getReconParams(), partition.getOverridingConfig(), service, partition);
+            if (coordinator != null) {
+                coordinator.addPartitionRun(partitionRun);
+            }
+            mapping.reconPartition(partitionRun);
+            content = partition.withState(ReconPartition.State.COMPLETED, cluster.getInstanceId());
+            content.put("result", partitionRun.getStatistics().partitionResult().getObject());
+            LOGGER.info("Reconciled {}: {}", partition, partitionRun.getStatistics().simpleSummary());
+        } catch (ResourceException | SynchronizationException | RuntimeException e) {
+            LOGGER.warn("Failed to reconcile {}", partition, e);
+            content = partition.withState(ReconPartition.State.FAILED, cluster.getInstanceId());
+            content.put("error", e.getMessage());
+        } finally {
+            ObjectSetContext.pop();
+            if (coordinator != null && partitionRun != null) {
+                coordinator.removePartitionRun(partitionRun);
+            }
+        }
+        try {
+            update(partition, content);
+        } catch (ResourceException e) {
+            // The coordinating node gave up on the reconciliation
+            LOGGER.warn("Failed to store the outcome of {}", partition, e);
+        }
+    }
+
+    private ReconPartition update(ReconPartition partition, JsonValue content) throws ResourceException {
+        UpdateRequest request = newUpdateRequest(PARTITION_CONTAINER, partition.getId(), content)
+                .setRevision(partition.getRevision());
+        return new ReconPartition(getConnection().update(ContextUtil.createInternalContext(), request));
+    }
+
+    private List<ReconPartition> queryPartitions(QueryFilter<JsonPointer> filter) throws ResourceException {
+        QueryRequest request = newQueryRequest(PARTITION_CONTAINER).setQueryFilter(filter);
+        List<ResourceResponse> resources = new ArrayList<>();
+        getConnection().query(ContextUtil.createInternalContext(), request, resources);
+        List<ReconPartition> partitions = new ArrayList<>();
+        for (ResourceResponse resource : resources) {
+            partitions.add(new ReconPartition(resource));
+        }
+        return partitions;
+    }
+
+    private void deletePartitions(String reconId) {
+        try {
+            for (ReconPartition partition : queryPartitions(equalTo(new JsonPointer("reconId"), reconId))) {
+                try {
+                    getConnection().delete(ContextUtil.createInternalContext(),
+                            newDeleteRequest(PARTITION_CONTAINER, partition.getId()));
+                } catch (NotFoundException e) {
+                    // already removed
+                }
+            }
+        } catch (ResourceException e) {
+            LOGGER.warn("Failed to remove the partitions of recon {}", reconId, e);
+        }
+    }
+
+    private Connection getConnection() throws ResourceException {
+        return service.getConnectionFactory().getConnection();
+    }
+}
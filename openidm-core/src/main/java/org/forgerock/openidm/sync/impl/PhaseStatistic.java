@@ -15,6 +15,10 @@
  */
 package org.forgerock.openidm.sync.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
 //import java.text.SimpleDateFormat;
 import org.forgerock.openidm.sync.ReconAction;
 
@@ -27,6 +31,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.util.DateUtil;
 
@@ -140,6 +145,45 @@ public class PhaseStatistic {
         return results;
     }
 
+    /**
+     * @return the processed count, and the ids per situation and not valid, of this phase
+     */
+    JsonValue partitionResult() {
+        Map<String, Object> situations = new HashMap<String, Object>();
+        for (Entry<Situation, List<String>> e : ids.entrySet()) {
+            synchronized (e.getValue()) {
+                situations.put(e.getKey().name(), new ArrayList<String>(e.getValue()));
+            }
+        }
+        List<String> notValidIds;
+        synchronized (notValid) {
+            notValidIds = new ArrayList<String>(notValid);
+        }
+        return json(object(
+                field("processed", getProcessed()),
+                field("situations", situations),
+                field("notValid", notValidIds)));
+    }
+
+    /**
+     * Adds the processed count, and the ids per situation and not valid, of the same phase
+     * of a reconciliation partition.
+     *
+     * @param result the phase statistics of the partition, as returned by {@link #partitionResult()}
+     */
+    void mergePartitionResult(JsonValue result) {
+        processedEntries.addAndGet(result.get("processed").defaultTo(0L).asLong());
+        for (Entry<Situation, List<String>> e : ids.entrySet()) {
+            JsonValue situationIds = result.get("situations").get(e.getKey().name());
+            if (situationIds.isList()) {
+                e.getValue().addAll(situationIds.asList(String.class));
+            }
+        }
+        if (result.get("notValid").isList()) {
+            notValid.addAll(result.get("notValid").asList(String.class));
+        }
+    }
+
     public void updateSummary(Map<String, Integer> simpleSummary) {
         for (Entry<Situation, List<String>> e : ids.entrySet()) {
             String key = e.getKey().name();
@@ -0,0 +1,243 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.JsonValueException;
+import org.forgerock.openidm.sync.PropertyMapping;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.services.context.Context;
+
+/**
+ * The property mappings of an object mapping, compiled once into a plan applied to each synchronized object.
+ * <p>
+ * Consecutive property mappings without condition or transform script are plain copies, compiled into a block that
+ * resolves the parent of their target attributes once for all the copies sharing it, reads their source attributes
+ * without wrapping each level of the source object, and falls back to their default value when the source value is
+ * null. Property mappings with a condition or a transform script are applied as configured, in their configured
+ * order relative to the copies. Copies to the same target attribute, or to attributes nested in one another, are
+ * kept in separate blocks so that the last configured copy still wins.
+ */
+class PropertyMappingPlan {
+
+    /** A step of the plan */
+    private interface Step {
+        void apply(JsonValue sourceObject, JsonValue oldSource, JsonValue targetObject, JsonValue oldTarget,
+                String linkQualifier, Context context, ReconciliationContext reconContext)
+                throws SynchronizationException;
+    }
+
+    /** A plain copy of a source attribute, or of the default value, to a target attribute */
+    private static final class Copy {
+        private final JsonPointer sourcePointer;
+        private final String[] sourceTokens;
+        private final String targetLeaf;
+        private final Object defaultValue;
+
+        private Copy(PropertyMapping property) {
+            this.sourcePointer = property.getSourcePointer();
+            this.sourceTokens = sourcePointer != null ? sourcePointer.toArray() : null;
+            final String[] targetTokens = property.getTargetPointer().toArray();
+            this.targetLeaf = targetTokens[targetTokens.length - 1];
+            this.defaultValue = property.getDefaultValue();
+        }
+
+        private Object getValue(JsonValue sourceObject) {
+            Object value = null;
+            if (sourceTokens != null) {
+                value = sourceObject.getObject();
+                for (int i = 0; i < sourceTokens.length && value != null; i++) {
+                    if (!(value instanceof Map)) {
+                        // lists and wrapped values are resolved as JsonValue does
+                        return resolve(sourceObject);
+                    }
+                    value = ((Map<?, ?>) value).get(sourceTokens[i]);
+                }
+                if (value instanceof JsonValue) {
+                    return resolve(sourceObject);
+                }
+            }
+            return value != null ? value : defaultValue;
+        }
+
+        private Object resolve(JsonValue sourceObject) {
+            final JsonValue value = sourceObject.get(sourcePointer);
+            return value != null && value.getObject() != null ? value.getObject() : defaultValue;
+        }
+    }
+
+    /** Plain copies, grouped by the parent of their target attributes */
+    private static final class CopyBlock implements Step {
+        private final Map<List<String>, List<Copy>> copiesByParent = new LinkedHashMap<>();
+        private final List<String[]> targets = new ArrayList<>();
+
+        /**
+         * Adds a copy to this block, unless its target attribute is one of, or nested in one of, the target
+         * attributes of this block.
+         */
+        private boolean add(PropertyMapping property) {
+            final String[] target = property.getTargetPointer().toArray();
+            for (String[] other : targets) {
+                if (isPrefix(other, target) || isPrefix(target, other)) {
+                    return false;
+                }
+            }
+            targets.add(target);
+            copiesByParent.computeIfAbsent(Arrays.asList(Arrays.copyOf(target, target.length - 1)),
+                    parent -> new ArrayList<>()).add(new Copy(property));
+            return true;
+        }
+
+        private static boolean isPrefix(String[] prefix, String[] tokens) {
+            if (prefix.length > tokens.length) {
+                return false;
+            }
+            for (int i = 0; i < prefix.length; i++) {
+                if (!prefix[i].equals(tokens[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        @Override
+        public void apply(JsonValue sourceObject, JsonValue oldSource, JsonValue targetObject, JsonValue oldTarget,
+                String linkQualifier, Context context, ReconciliationContext reconContext)
+                throws SynchronizationException {
+            for (Map.Entry<List<String>, List<Copy>> group : copiesByParent.entrySet()) {
+                final JsonValue parent = getParent(targetObject, group.getKey());
+                try {
+                    for (Copy copy : group.getValue()) {
+                        parent.put(copy.targetLeaf, copy.getValue(sourceObject));
+                    }
+                } catch (JsonValueException jve) {
+                    throw new SynchronizationException(jve);
+                }
+            }
+        }
+
+        /**
+         * Returns the parent of target attributes, created as {@link PropertyMapping} does if missing.
+         */
+        private static JsonValue getParent(JsonValue targetObject, List<String> tokens)
+                throws SynchronizationException {
+            JsonValue jv = targetObject;
+            for (String token : tokens) {
+                JsonValue child = jv.get(token);
+                if (child.isNull() && !jv.isDefined(token)) {
+                    try {
+                        jv.put(token, new LinkedHashMap<String, Object>());
+                    } catch (JsonValueException jve) {
+                        throw new SynchronizationException(jve);
+                    }
+                    child = jv.get(token);
+                }
+                jv = child;
+            }
+            return jv;
+        }
+    }
+
+    /** A property mapping with a condition or a transform script, applied as configured */
+    private static final class PropertyStep implements Step {
+        private final PropertyMapping property;
+
+        private PropertyStep(PropertyMapping property) {
+            this.property = property;
+        }
+
+        @Override
+        public void apply(JsonValue sourceObject, JsonValue oldSource, JsonValue targetObject, JsonValue oldTarget,
+                String linkQualifier, Context context, ReconciliationContext reconContext)
+                throws SynchronizationException {
+            final long startNanoTime = ObjectMapping.startNanoTime(reconContext, property.hasTransformScript());
+            property.apply(sourceObject, oldSource, targetObject, oldTarget, linkQualifier, context);
+            ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.propertyMappingScript,
+                    startNanoTime);
+        }
+    }
+
+    private final List<Step> steps = new ArrayList<>();
+
+    /**
+     * Compiles the property mappings configured by an object mapping.
+     *
+     * @param propertiesConfig the list of property mapping configurations
+     * @throws JsonValueException if a property mapping configuration is invalid
+     */
+    PropertyMappingPlan(JsonValue propertiesConfig) throws JsonValueException {
+        this(parse(propertiesConfig));
+    }
+
+    /**
+     * Compiles property mappings.
+     *
+     * @param properties the property mappings, in the order they are applied
+     */
+    PropertyMappingPlan(List<PropertyMapping> properties) {
+        CopyBlock block = null;
+        for (PropertyMapping property : properties) {
+            if (property.hasCondition() || property.hasTransformScript()
+                    || property.getTargetPointer().isEmpty()) {
+                // the root object can not be replaced, which the property mapping reports
+                steps.add(new PropertyStep(property));
+                block = null;
+                continue;
+            }
+            if (block == null || !block.add(property)) {
+                block = new CopyBlock();
+                block.add(property);
+                steps.add(block);
+            }
+        }
+    }
+
+    private static List<PropertyMapping> parse(JsonValue propertiesConfig) throws JsonValueException {
+        final List<PropertyMapping> properties = new ArrayList<>();
+        for (JsonValue config : propertiesConfig.expect(List.class)) {
+            properties.add(new PropertyMapping(config));
+        }
+        return properties;
+    }
+
+    /**
+     * Applies the property mappings on the supplied source and target objects.
+     *
+     * @param sourceObject the source object to map from
+     * @param oldSource an optional previous source object before the change(s) that triggered the sync, null if not
+     * provided
+     * @param targetObject the target object to modify
+     * @param oldTarget the existing, unmodified, target object
+     * @param linkQualifier the link qualifier associated with the current sync
+     * @param context the context of the current sync
+     * @param reconContext Recon context or {@code null}
+     * @throws SynchronizationException if a property mapping failed
+     */
+    void apply(JsonValue sourceObject, JsonValue oldSource, JsonValue targetObject, JsonValue oldTarget,
+            String linkQualifier, Context context, ReconciliationContext reconContext)
+            throws SynchronizationException {
+        for (Step step : steps) {
+            step.apply(sourceObject, oldSource, targetObject, oldTarget, linkQualifier, context, reconContext);
+        }
+    }
+}
@@ -16,7 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
 import java.util.Map;
 
 import org.forgerock.json.JsonValue;
@@ -36,9 +35,15 @@ interface Recon {
      * @param reconContext reconciliation context
      * @param rootContext json resource root ctx
      * @param allLinks all links if pre-queried, or null for on-demand link querying
-     * @param remainingIds The set to update/remove any targets that were matched
+     * @param handledIds the targets handled, to record any targets that were matched in
      * @throws SynchronizationException if there is a failure reported in reconciling this id
      */
     void recon(String id, JsonValue entry, ReconciliationContext reconContext, Context rootContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds) throws SynchronizationException;
+            Map<String, Map<String, Link>> allLinks, HandledTargetIds handledIds) throws SynchronizationException;
+
+    /**
+     * @return the object set from which entries without a pre-loaded value may be read ahead of
+     * reconciling them, or null if the reconciliation does not use the entry value
+     */
+    String getPrefetchObjectSet();
 }
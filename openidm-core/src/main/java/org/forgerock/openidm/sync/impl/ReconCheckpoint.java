@@ -0,0 +1,131 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceResponse;
+
+/**
+ * The last checkpoint of a reconciliation, as persisted in {@code repo/synchronisation/reconCheckpoint}, to resume
+ * the reconciliation from should it not complete.
+ * <p>
+ * A checkpoint is taken as the source phase starts, once the source entries of a source query page are reconciled,
+ * and as the target phase starts. It holds the paging cookie of the first source page not reconciled yet, and the
+ * statistics of the entries reconciled so far. A reconciliation resumed in its target phase rebuilds the targets
+ * left to reconcile from the links, so the targets the interrupted target phase linked are not reconciled again.
+ */
+class ReconCheckpoint {
+
+    /** The repository container of the checkpoints */
+    static final String CHECKPOINT_CONTAINER = "repo/synchronisation/reconCheckpoint";
+
+    private final String revision;
+    private final JsonValue content;
+
+    /**
+     * Creates the content of a new checkpoint of a reconciliation.
+     *
+     * @param reconContext the reconciliation
+     * @param stage the stage to resume the reconciliation in
+     * @param sourcePagingCookie the paging cookie of the first source page not reconciled yet, or null to resume
+     *        from the first page
+     * @return the content to persist the checkpoint with
+     */
+    static JsonValue content(ReconciliationContext reconContext, ReconStage stage, String sourcePagingCookie) {
+        return json(object(
+                field("reconId", reconContext.getReconId()),
+                field("mapping", reconContext.getMapping()),
+                field("action", reconContext.getReconAction().name()),
+                field("stage", stage.name()),
+                field("sourcePagingCookie", sourcePagingCookie),
+                field("processed", reconContext.getStatistics().getSourceProcessed()),
+                field("reconParams", reconContext.getReconParams() != null
+                        ? reconContext.getReconParams().getObject() : null),
+                field("overridingConfig", reconContext.getOverridingConfig() != null
+                        ? reconContext.getOverridingConfig().getObject() : null),
+                field("result", reconContext.getStatistics().partitionResult().getObject())));
+    }
+
+    /**
+     * Creates a checkpoint from its persisted state.
+     *
+     * @param resource the checkpoint as read from the repository
+     */
+    ReconCheckpoint(ResourceResponse resource) {
+        this.revision = resource.getRevision();
+        this.content = resource.getContent();
+    }
+
+    String getRevision() {
+        return revision;
+    }
+
+    String getReconId() {
+        return content.get("reconId").asString();
+    }
+
+    String getMapping() {
+        return content.get("mapping").asString();
+    }
+
+    ReconciliationService.ReconAction getReconAction() {
+        return content.get("action").asEnum(ReconciliationService.ReconAction.class);
+    }
+
+    ReconStage getStage() {
+        return content.get("stage").asEnum(ReconStage.class);
+    }
+
+    /**
+     * @return whether the source phase completed, so that the reconciliation resumes in its target phase
+     */
+    boolean isSourcePhaseCompleted() {
+        return getStage() == ReconStage.ACTIVE_RECONCILING_TARGET;
+    }
+
+    /**
+     * @return the paging cookie of the first source page not reconciled yet, or null to resume from the first page
+     */
+    String getSourcePagingCookie() {
+        return content.get("sourcePagingCookie").asString();
+    }
+
+    JsonValue getReconParams() {
+        return content.get("reconParams").copy();
+    }
+
+    JsonValue getOverridingConfig() {
+        JsonValue overridingConfig = content.get("overridingConfig");
+        return overridingConfig.isNull() ? null : overridingConfig.copy();
+    }
+
+    /**
+     * @return the statistics of the entries reconciled before the checkpoint, as returned by
+     * {@link ReconciliationStatistic#partitionResult()}
+     */
+    JsonValue getResult() {
+        return content.get("result");
+    }
+
+    @Override
+    public String toString() {
+        return "checkpoint of recon " + getReconId() + " in stage " + getStage();
+    }
+}
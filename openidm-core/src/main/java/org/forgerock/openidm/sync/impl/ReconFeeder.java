@@ -27,6 +27,7 @@ package org.forgerock.openidm.sync.impl;
 import org.forgerock.openidm.sync.SynchronizationException;
 
 import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.CompletionService;
 import java.util.concurrent.ExecutionException;
@@ -66,8 +67,21 @@ public abstract class ReconFeeder {
     }
 
     void execute() throws SynchronizationException, InterruptedException {
+        try {
+            executeEntries();
+        } finally {
+            // Links written behind are persisted by the end of each phase, also if the phase failed
+            reconContext.flushLinkWrites();
+        }
+    }
+
+    private void executeEntries() throws SynchronizationException, InterruptedException {
         Executor executor = reconContext.getExcecutor();
-        if (executor == null) {
+        ReconPipeline pipeline = reconContext.getPipeline();
+        if (executor != null && pipeline != null) {
+            // Execute in read, process and write stages
+            pipeline.execute(this, executor, reconContext.mapping.getTaskThreads());
+        } else if (executor == null) {
             // Execute single threaded
             while (entriesIter.hasNext()) {
                 ResultEntry entry = entriesIter.next();
@@ -123,6 +137,17 @@ public abstract class ReconFeeder {
         }
     }
 
+    /**
+     * Read ahead the values of the given entries, if the phase makes use of them and they were not pre-loaded.
+     * Called by the read stage of the {@link ReconPipeline} with the entries it reads at once.
+     * @param entries source or target entries
+     * @return the entries in the same order, with their values where read ahead
+     * @throws SynchronizationException if reading the values failed
+     */
+    List<ResultEntry> prefetch(List<ResultEntry> entries) throws SynchronizationException {
+        return entries;
+    }
+
     /**
      * Create the callable task for the given id
      * @param id source or target id
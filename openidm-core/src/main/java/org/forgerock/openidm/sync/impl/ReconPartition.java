@@ -0,0 +1,200 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ResourceResponse;
+
+/**
+ * A partition of the source identifier space of a partitioned reconciliation, as persisted in
+ * {@code repo/synchronisation/reconPartition}.
+ * <p>
+ * A source object belongs to partition {@code n} of {@code count} when the hash code of its
+ * normalized identifier modulo {@code count} is {@code n}. The assignment only depends on the
+ * identifier, so each cluster node can query the complete source set and reconcile its share.
+ * Source queries cannot filter on the hash, so the complete source set is queried once per
+ * partition.
+ */
+class ReconPartition {
+
+    /**
+     * The state of a partition.
+     */
+    enum State {
+        /** Waiting to be claimed by a cluster node */
+        PENDING,
+        /** Claimed and being reconciled by a cluster node */
+        ACTIVE,
+        /** Reconciled; the partition holds its statistics */
+        COMPLETED,
+        /** Failed to reconcile; the partition holds the error */
+        FAILED
+    }
+
+    private final String id;
+    private final String revision;
+    private final JsonValue content;
+
+    /**
+     * Creates a new pending partition of a reconciliation.
+     *
+     * @param reconContext the coordinating reconciliation
+     * @param coordinator the instance id of the cluster node coordinating the reconciliation
+     * @param index the index of the partition
+     * @param count the number of partitions
+     */
+    ReconPartition(ReconciliationContext reconContext, String coordinator, int index, int count) {
+        this.id = partitionId(reconContext.getReconId(), index);
+        this.revision = null;
+        this.content = json(object(
+                field("reconId", reconContext.getReconId()),
+                field("coordinator", coordinator),
+                field("mapping", reconContext.getMapping()),
+                field("action", reconContext.getReconAction().name()),
+                field("partition", index),
+                field("partitions", count),
+                field("state", State.PENDING.name()),
+                field("instanceId", null),
+                field("reconParams", reconContext.getReconParams() != null
+                        ? reconContext.getReconParams().getObject() : null),
+                field("overridingConfig", reconContext.getOverridingConfig() != null
+                        ? reconContext.getOverridingConfig().getObject() : null),
+                field("result", null),
+                field("error", null)));
+    }
+
+    /**
+     * Creates a partition from its persisted state.
+     *
+     * @param resource the partition as read from the repository
+     */
+    ReconPartition(ResourceResponse resource) {
+        this.id = resource.getId();
+        this.revision = resource.getRevision();
+        this.content = resource.getContent();
+    }
+
+    /**
+     * @param reconId the id of the reconciliation
+     * @param index the index of the partition
+     * @return the repository id of the partition
+     */
+    static String partitionId(String reconId, int index) {
+        return reconId + "-" + index;
+    }
+
+    /**
+     * Returns whether a source object belongs to this partition.
+     *
+     * @param sourceId the source identifier
+     * @param linkType the link type of the mapping, to normalize the identifier
+     * @return true if the source object belongs to this partition
+     */
+    boolean contains(String sourceId, LinkType linkType) {
+        String normalizedId = linkType.normalizeSourceId(sourceId);
+        return normalizedId != null && Math.floorMod(normalizedId.hashCode(), getCount()) == getIndex();
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getRevision() {
+        return revision;
+    }
+
+    String getReconId() {
+        return content.get("reconId").asString();
+    }
+
+    String getCoordinator() {
+        return content.get("coordinator").asString();
+    }
+
+    String getMapping() {
+        return content.get("mapping").asString();
+    }
+
+    ReconciliationService.ReconAction getReconAction() {
+        return content.get("action").asEnum(ReconciliationService.ReconAction.class);
+    }
+
+    int getIndex() {
+        return content.get("partition").asInteger();
+    }
+
+    int getCount() {
+        return content.get("partitions").asInteger();
+    }
+
+    State getState() {
+        return content.get("state").asEnum(State.class);
+    }
+
+    String getInstanceId() {
+        return content.get("instanceId").asString();
+    }
+
+    JsonValue getReconParams() {
+        return content.get("reconParams").copy();
+    }
+
+    JsonValue getOverridingConfig() {
+        JsonValue overridingConfig = content.get("overridingConfig");
+        return overridingConfig.isNull() ? null : overridingConfig.copy();
+    }
+
+    /**
+     * @return the statistics of a completed partition
+     */
+    JsonValue getResult() {
+        return content.get("result");
+    }
+
+    String getError() {
+        return content.get("error").asString();
+    }
+
+    /**
+     * Returns the content of this partition in a new state.
+     *
+     * @param state the new state
+     * @param instanceId the instance id of the cluster node reconciling the partition
+     * @return the content to update the partition with
+     */
+    JsonValue withState(State state, String instanceId) {
+        JsonValue updated = content.copy();
+        updated.put("state", state.name());
+        updated.put("instanceId", instanceId);
+        return updated;
+    }
+
+    /**
+     * @return the content to persist the partition with
+     */
+    JsonValue getContent() {
+        return content;
+    }
+
+    @Override
+    public String toString() {
+        return "partition " + getIndex() + "/" + getCount() + " of recon " + getReconId();
+    }
+}
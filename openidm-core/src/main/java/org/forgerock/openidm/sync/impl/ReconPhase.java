@@ -16,34 +16,115 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 /**
  * Reconcile the source/target phase, multi threaded or single threaded.
  */
 class ReconPhase extends ReconFeeder {
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconPhase.class);
+
+    private static final JsonPointer ID = new JsonPointer(ResourceResponse.FIELD_CONTENT_ID);
+
     private final Context parentContext;
     private final Map<String, Map<String, Link>> allLinks;
-    private final Collection<String> remainingIds;
+    private final HandledTargetIds handledIds;
     private final Recon reconById;
 
+    /** Whether the entries are read ahead with one query per batch, until the object set fails such a query */
+    private volatile boolean bulkRead = true;
+
     ReconPhase(Iterator<ResultEntry> resultIter, ReconciliationContext reconContext, Context parentContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds, Recon reconById) {
+            Map<String, Map<String, Link>> allLinks, HandledTargetIds handledIds, Recon reconById) {
         super(resultIter, reconContext);
         this.parentContext = parentContext;
         this.allLinks = allLinks;
-        this.remainingIds = remainingIds;
+        this.handledIds = handledIds;
         this.reconById = reconById;
     }
+
+    /**
+     * Reads the objects of the entries which were not pre-queried with a single {@code _id} disjunction query. The
+     * objects are read one by one should the object set fail the query, for example as it does not support query
+     * filters. An object not found is left to the recon of its entry to handle.
+     */
+    @Override
+    List<ResultEntry> prefetch(List<ResultEntry> entries) throws SynchronizationException {
+        String objectSet = reconById.getPrefetchObjectSet();
+        if (objectSet == null) {
+            return entries;
+        }
+        List<String> ids = new ArrayList<>(entries.size());
+        for (ResultEntry entry : entries) {
+            if (entry.getValue() == null) {
+                ids.add(entry.getId());
+            }
+        }
+        if (ids.isEmpty()) {
+            return entries;
+        }
+        Map<String, JsonValue> values = bulkRead ? queryObjects(objectSet, ids) : null;
+        List<ResultEntry> prefetched = new ArrayList<>(entries.size());
+        for (ResultEntry entry : entries) {
+            JsonValue value = null;
+            if (entry.getValue() == null) {
+                value = values != null
+                        ? values.get(entry.getId())
+                        : LazyObjectAccessor.rawReadObject(reconContext.mapping.getConnectionFactory(),
+                                parentContext, objectSet, entry.getId());
+            }
+            prefetched.add(value != null ? new ResultEntry(entry.getId(), value) : entry);
+        }
+        return prefetched;
+    }
+
+    private Map<String, JsonValue> queryObjects(String objectSet, List<String> ids) {
+        List<QueryFilter<JsonPointer>> filters = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            filters.add(QueryFilter.equalTo(ID, id));
+        }
+        QueryRequest request = Requests.newQueryRequest(objectSet).setQueryFilter(QueryFilter.or(filters));
+        final Map<String, JsonValue> values = new HashMap<>(ids.size() * 2);
+        try {
+            reconContext.mapping.getConnectionFactory().getConnection().query(parentContext, request,
+                    resource -> {
+                        String id = resource.getId() != null
+                                ? resource.getId()
+                                : resource.getContent().get(ResourceResponse.FIELD_CONTENT_ID).asString();
+                        if (id != null) {
+                            values.put(id, resource.getContent());
+                        }
+                        return true;
+                    });
+            return values;
+        } catch (ResourceException e) {
+            LOGGER.debug("Bulk read of {} failed for recon {}, reading objects one by one", objectSet,
+                    reconContext.getReconId(), e);
+            bulkRead = false;
+            return null;
+        }
+    }
+
     @Override
     Callable<Void> createTask(ResultEntry objectEntry) throws SynchronizationException {
         return new ReconTask(objectEntry, reconContext, parentContext,
-                allLinks, remainingIds, reconById);
+                allLinks, handledIds, reconById);
     }
 }
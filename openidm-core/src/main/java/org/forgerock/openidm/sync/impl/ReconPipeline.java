@@ -0,0 +1,366 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.DurationStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Staged execution of a reconciliation phase.
+ * <p>
+ * Instead of reading, assessing and writing each entry in sequence on one task thread, the
+ * entries flow through three stages, each with its own threads and bounded queue:
+ * <ul>
+ *     <li>read - reads the objects of entries which were not pre-queried, with one query for each batch of
+ *     {@code readBatchSize} entries</li>
+ *     <li>process - situation assessment, correlation, mapping and the resulting action,
+ *     executed by the task threads of the reconciliation</li>
+ *     <li>write - repository writes that do not influence the processing of further entries,
+ *     such as the recon audit entries and the bulk link writes of the {@link LinkWriteBuffer}</li>
+ * </ul>
+ * A full queue blocks the stage feeding it, so a slow stage throttles the stages before it.
+ * The time spent in and waiting for each stage is recorded in the {@link ReconciliationStatistic}
+ * duration summary, showing whether a recon is bound by the source reads, the processing or the writes.
+ * <p>
+ * Configured with the {@code reconPipeline} property of the mapping:
+ * <pre>
+ *     "reconPipeline" : {
+ *         "enabled" : true,
+ *         "readThreads" : 2,
+ *         "readBatchSize" : 100,
+ *         "readQueueSize" : 1000,
+ *         "writeThreads" : 2,
+ *         "writeQueueSize" : 1000
+ *     }
+ * </pre>
+ */
+class ReconPipeline {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ReconPipeline.class);
+
+    static final int DEFAULT_READ_THREADS = 2;
+    static final int DEFAULT_READ_BATCH_SIZE = 100;
+    static final int DEFAULT_WRITE_THREADS = 2;
+    static final int DEFAULT_QUEUE_SIZE = 1000;
+
+    /** Interval at which waiting stage threads check for completion, failure or cancellation */
+    private static final long POLL_INTERVAL_MILLIS = 100;
+
+    /**
+     * A write handed to the write stage.
+     */
+    interface Write {
+        /**
+         * Executes the write.
+         *
+         * @throws SynchronizationException if the write failed
+         */
+        void execute() throws SynchronizationException;
+    }
+
+    private final ReconciliationContext reconContext;
+    private final int readThreads;
+    private final int readBatchSize;
+    private final int readQueueSize;
+    private final int writeThreads;
+    private final int writeQueueSize;
+    private final ExecutorService readExecutor;
+    private final ExecutorService writeExecutor;
+
+    /** The write stage queue, only set while a phase is executed */
+    private volatile BlockingQueue<Write> writeQueue;
+
+    /** The first failure of any stage of the current phase */
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+
+    /**
+     * Creates the pipeline for a reconciliation run.
+     *
+     * @param reconContext the reconciliation context
+     * @param config the {@code reconPipeline} configuration of the mapping
+     */
+    ReconPipeline(ReconciliationContext reconContext, JsonValue config) {
+        this.reconContext = reconContext;
+        readThreads = config.get("readThreads").defaultTo(DEFAULT_READ_THREADS).asInteger();
+        readBatchSize = Math.max(1, config.get("readBatchSize").defaultTo(DEFAULT_READ_BATCH_SIZE).asInteger());
+        readQueueSize = config.get("readQueueSize").defaultTo(DEFAULT_QUEUE_SIZE).asInteger();
+        writeThreads = config.get("writeThreads").defaultTo(DEFAULT_WRITE_THREADS).asInteger();
+        writeQueueSize = config.get("writeQueueSize").defaultTo(DEFAULT_QUEUE_SIZE).asInteger();
+        readExecutor = Executors.newFixedThreadPool(readThreads);
+        writeExecutor = Executors.newFixedThreadPool(writeThreads);
+    }
+
+    /**
+     * @param config the mapping configuration
+     * @return whether the mapping enables the recon pipeline
+     */
+    static boolean isEnabled(JsonValue config) {
+        JsonValue pipelineConfig = config.get("reconPipeline");
+        return pipelineConfig.isMap() && pipelineConfig.get("enabled").defaultTo(true).asBoolean();
+    }
+
+    /**
+     * Executes the entries of a recon phase through the pipeline stages. Returns once all entries
+     * have been processed and all their writes are complete.
+     *
+     * @param feeder the recon phase providing the entries and their tasks
+     * @param processExecutor the executor of the task threads, used for the process stage
+     * @param processThreads the number of task threads
+     * @throws SynchronizationException if processing any of the entries failed
+     * @throws InterruptedException if interrupted while waiting for the stages to complete
+     */
+    void execute(final ReconFeeder feeder, Executor processExecutor, int processThreads)
+            throws SynchronizationException, InterruptedException {
+        final Iterator<ResultEntry> entries = feeder.entriesIter;
+        final BlockingQueue<ResultEntry> processQueue = new ArrayBlockingQueue<>(readQueueSize);
+        final BlockingQueue<Write> phaseWriteQueue = new ArrayBlockingQueue<>(writeQueueSize);
+        final StageCompletion readsDone = new StageCompletion();
+        final StageCompletion processingDone = new StageCompletion();
+        failure.set(null);
+        writeQueue = phaseWriteQueue;
+
+        List<Future<?>> readers = new ArrayList<>(readThreads);
+        List<Future<?>> processors = new ArrayList<>(processThreads);
+        List<Future<?>> writers = new ArrayList<>(writeThreads);
+        try {
+            for (int i = 0; i < readThreads; i++) {
+                readers.add(readExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        read(feeder, entries, processQueue);
+                    }
+                }));
+            }
+            for (int i = 0; i < processThreads; i++) {
+                FutureTask<Void> processor = new FutureTask<>(new Runnable() {
+                    @Override
+                    public void run() {
+                        process(feeder, processQueue, readsDone);
+                    }
+                }, null);
+                processExecutor.execute(processor);
+                processors.add(processor);
+            }
+            for (int i = 0; i < writeThreads; i++) {
+                writers.add(writeExecutor.submit(new Runnable() {
+                    @Override
+                    public void run() {
+                        write(phaseWriteQueue, processingDone);
+                    }
+                }));
+            }
+            awaitStage(readers);
+            readsDone.complete();
+            awaitStage(processors);
+            processingDone.complete();
+            awaitStage(writers);
+        } finally {
+            writeQueue = null;
+            readsDone.complete();
+            processingDone.complete();
+            // Writes left by stopped or interrupted write threads must not be lost
+            for (Write write = phaseWriteQueue.poll(); write != null; write = phaseWriteQueue.poll()) {
+                executeWrite(write);
+            }
+        }
+
+        Throwable throwable = failure.get();
+        if (throwable instanceof SynchronizationException) {
+            throw (SynchronizationException) throwable;
+        } else if (throwable instanceof InterruptedException) {
+            throw (InterruptedException) throwable;
+        } else if (throwable != null) {
+            feeder.translateTaskThrowable(new ExecutionException(throwable));
+        }
+        reconContext.checkCanceled();
+    }
+
+    /**
+     * Hands a write to the write stage of the phase currently executed, or executes it directly
+     * if no phase is executed by the pipeline or the phase failed. A write handed to the write
+     * stage is executed even if the phase fails, so a failing phase does not lose link writes.
+     *
+     * @param write the write
+     * @throws SynchronizationException if the write was executed directly and failed
+     */
+    void write(Write write) throws SynchronizationException {
+        BlockingQueue<Write> queue = writeQueue;
+        if (queue == null || failure.get() != null) {
+            write.execute();
+            return;
+        }
+        final long blockedStart = DurationStatistics.startNanoTime();
+        try {
+            while (!queue.offer(write, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (failure.get() != null || writeQueue != queue) {
+                    // The write stage may no longer drain the queue
+                    write.execute();
+                    return;
+                }
+            }
+            if (writeQueue != queue && queue.remove(write)) {
+                // Queued as the phase ended, after its remaining writes were drained
+                write.execute();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SynchronizationException("Interrupted handing write to recon write stage", e);
+        } finally {
+            reconContext.getStatistics().addDuration(DurationMetric.writeStageBlocked, blockedStart);
+        }
+    }
+
+    /**
+     * Shuts down the stage threads.
+     */
+    void shutdown() {
+        readExecutor.shutdown();
+        writeExecutor.shutdown();
+    }
+
+    private void read(ReconFeeder feeder, Iterator<ResultEntry> entries, BlockingQueue<ResultEntry> processQueue) {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        try {
+            while (failure.get() == null && !reconContext.isCanceled()) {
+                List<ResultEntry> batch = new ArrayList<>(readBatchSize);
+                synchronized (entries) {
+                    while (batch.size() < readBatchSize && entries.hasNext()) {
+                        batch.add(entries.next());
+                    }
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                final long readStart = DurationStatistics.startNanoTime();
+                batch = feeder.prefetch(batch);
+                stats.addDuration(DurationMetric.readStage, readStart);
+
+                final long blockedStart = DurationStatistics.startNanoTime();
+                for (ResultEntry entry : batch) {
+                    while (!processQueue.offer(entry, POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS)) {
+                        if (failure.get() != null || reconContext.isCanceled()) {
+                            return;
+                        }
+                    }
+                }
+                stats.addDuration(DurationMetric.readStageBlocked, blockedStart);
+            }
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void process(ReconFeeder feeder, BlockingQueue<ResultEntry> processQueue, StageCompletion readsDone) {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        try {
+            while (failure.get() == null) {
+                final long starvedStart = DurationStatistics.startNanoTime();
+                ResultEntry entry = processQueue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                stats.addDuration(DurationMetric.processStageStarved, starvedStart);
+                if (entry == null) {
+                    if (readsDone.isComplete() && processQueue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                final long processStart = DurationStatistics.startNanoTime();
+                feeder.createTask(entry).call();
+                stats.addDuration(DurationMetric.processStage, processStart);
+            }
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void write(BlockingQueue<Write> queue, StageCompletion processingDone) {
+        final ReconciliationStatistic stats = reconContext.getStatistics();
+        try {
+            // Keeps draining once the phase failed, the queued writes belong to processed entries
+            while (true) {
+                Write write = queue.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                if (write == null) {
+                    if (processingDone.isComplete() && queue.isEmpty()) {
+                        return;
+                    }
+                    continue;
+                }
+                final long writeStart = DurationStatistics.startNanoTime();
+                executeWrite(write);
+                stats.addDuration(DurationMetric.writeStage, writeStart);
+            }
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void executeWrite(Write write) {
+        try {
+            write.execute();
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    private void fail(Throwable t) {
+        if (failure.compareAndSet(null, t)) {
+            LOGGER.debug("Recon pipeline stage of {} failed", reconContext.getReconId(), t);
+        }
+    }
+
+    private void awaitStage(List<Future<?>> stageThreads) throws InterruptedException {
+        for (Future<?> stageThread : stageThreads) {
+            try {
+                stageThread.get();
+            } catch (ExecutionException e) {
+                fail(e.getCause());
+            }
+        }
+    }
+
+    /**
+     * Signals that all threads of a stage have finished.
+     */
+    private static final class StageCompletion {
+        private volatile boolean complete;
+
+        void complete() {
+            complete = true;
+        }
+
+        boolean isComplete() {
+            return complete;
+        }
+    }
+}
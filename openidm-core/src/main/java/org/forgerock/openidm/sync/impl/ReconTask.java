@@ -16,7 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.Callable;
 
@@ -38,11 +37,11 @@ class ReconTask implements Callable<Void> {
     private final ReconciliationContext reconContext;
     private final Context parentContext;
     private final Map<String, Map<String, Link>> allLinks;
-    private final Collection<String> remainingIds;
+    private final HandledTargetIds handledIds;
     private final Recon reconById;
 
     ReconTask(ResultEntry resultEntry, ReconciliationContext reconContext, Context parentContext,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds, Recon reconById) {
+            Map<String, Map<String, Link>> allLinks, HandledTargetIds handledIds, Recon reconById) {
         this.id = resultEntry.getId();
         // This value is null if it wasn't pre-queried
         this.objectEntry = resultEntry.getValue();
@@ -51,7 +50,7 @@ class ReconTask implements Callable<Void> {
         this.reconContext = reconContext;
         this.parentContext = parentContext;
         this.allLinks = allLinks;
-        this.remainingIds = remainingIds;
+        this.handledIds = handledIds;
         this.reconById = reconById;
     }
 
@@ -59,7 +58,7 @@ class ReconTask implements Callable<Void> {
         //TODO I miss the Request Context
         ObjectSetContext.push(parentContext);
         try {
-            reconById.recon(id, objectEntry, reconContext, parentContext, allLinks, remainingIds);
+            reconById.recon(id, objectEntry, reconContext, parentContext, allLinks, handledIds);
         } finally {
             ObjectSetContext.pop();
         }
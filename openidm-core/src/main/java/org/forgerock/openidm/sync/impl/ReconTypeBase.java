@@ -14,7 +14,7 @@
  * "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
- * Portions Copyright 2018 Wren Security.
+ * Portions Copyright 2018-2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -34,6 +34,7 @@ import org.forgerock.json.resource.QueryResourceHandler;
 import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.sync.SynchronizationException;
 import org.forgerock.openidm.util.RequestUtil;
@@ -85,6 +86,14 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
      */
     final Boolean targetQueryFullEntry;
 
+    /**
+     * A boolean indicating if correlation queries may be answered from the target values preloaded by the target
+     * query, false by default. The index compares values with the case handling of the target ids, which need not
+     * be that of the correlated attributes; correlation queries it finds no target for still query the target
+     * object set, so the index saves the queries of the source objects that correlate to a target.
+     */
+    final boolean correlationIndex;
+
     /**
      * A constructor.
      * 
@@ -101,6 +110,8 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
         logger.debug("sourceQueryFullEntry: {}", sourceQueryFullEntry);
         this.targetQueryFullEntry = calcEffectiveConfig("targetQueryFullEntry").asBoolean();
         logger.debug("targetQueryFullEntry: {}", targetQueryFullEntry);
+        this.correlationIndex = calcEffectiveConfig("correlationIndex").defaultTo(false).asBoolean();
+        logger.debug("correlationIndex: {}", correlationIndex);
         
     }
 
@@ -120,6 +131,14 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
         return allowEmptySourceSet;
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isCorrelationIndexEnabled() {
+        return correlationIndex;
+    }
+
     /**
      * Calculate the effective configuration for the given configuration property
      * Properties passed with the request body are given precedence, they override the default configuration
@@ -235,6 +254,10 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
             QueryRequest request = RequestUtil.buildQueryRequestFromParameterMap(objectSet, query.asMap());
             request.setPageSize(pageSize);
             request.setPagedResultsCookie(pagingCookie);
+            if (pageSize > 0 && querySide == QuerySide.TARGET && request.getSortKeys().isEmpty()) {
+                // Paged target queries must return a stable, id ordered sequence across pages
+                request.addSortKey(SortKey.ascendingOrder(ResourceResponse.FIELD_CONTENT_ID));
+            }
             QueryResponse queryResponse = reconContext.getService().getConnectionFactory().getConnection().query(
             		reconContext.getService().getContext(), request,
             		new QueryResourceHandler() {
@@ -254,6 +277,7 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
             					String id = caseSensitive
             							? resource.getId()
             						    : reconContext.getObjectMapping().getLinkType().normalizeId(resource.getId());
+            					handleQueryResult(resource, querySide);
             					if (ids.add(id) == false) {
             						logger.warn("Detected duplicate entry id {} in query result; skipping entry. Query: {}", id, query);
             					} else if (fullEntriesDetected) {
@@ -276,6 +300,24 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
         return reconQueryResult;
     }
     
+    /**
+     * Called for each query result with an identifier, before it is collected.
+     * Does nothing by default.
+     *
+     * @param resource the query result
+     * @param querySide whether the query is on the source or target side
+     * of the reconciliation
+     */
+    protected void handleQueryResult(ResourceResponse resource, QuerySide querySide) {
+    }
+
+    /**
+     * Does nothing by default.
+     */
+    @Override
+    public void reconCompleted() throws SynchronizationException {
+    }
+
     /**
      * Whether the query (source or target side query of a reconciliation)
      * returns full entry data, or just ids
@@ -332,6 +374,9 @@ public abstract class ReconTypeBase implements ReconTypeHandler {
     @Override
     public abstract ResultIterable queryTarget() throws SynchronizationException;
 
+    @Override
+    public abstract ReconQueryResult queryTarget(int pageSize, String pagingCookie) throws SynchronizationException;
+
     @Override
     public abstract JsonValue getReconParameters();
 }
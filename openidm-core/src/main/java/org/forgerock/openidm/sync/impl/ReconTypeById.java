@@ -93,6 +93,21 @@ public class ReconTypeById extends ReconTypeBase {
                 null).getResultIterable();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReconQueryResult queryTarget(int pageSize, String pagingCookie) throws SynchronizationException {
+        return query(targetQuery.get("resourceName").asString(),
+                targetQuery,
+                reconContext,
+                Collections.synchronizedList(new ArrayList<String>()),
+                reconContext.getObjectMapping().getLinkType().isTargetCaseSensitive(),
+                QuerySide.TARGET,
+                pageSize,
+                pagingCookie);
+    }
+
     /**
      * {@inheritDoc}
      */
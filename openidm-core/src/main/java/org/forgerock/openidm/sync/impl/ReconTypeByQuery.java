@@ -86,6 +86,17 @@ public class ReconTypeByQuery extends ReconTypeBase {
         ).getResultIterable();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReconQueryResult queryTarget(int pageSize, String pagingCookie) throws SynchronizationException {
+        return query(targetQuery.get("resourceName").asString(), targetQuery, reconContext,
+                Collections.synchronizedSet(new LinkedHashSet<String>()),
+                reconContext.getObjectMapping().getLinkType().isTargetCaseSensitive(), QuerySide.TARGET,
+                pageSize, pagingCookie);
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -0,0 +1,406 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.QueryRequest.FIELD_QUERY_FILTER;
+import static org.forgerock.json.resource.QueryRequest.FIELD_QUERY_ID;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_FIELDS;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_QUERY_FILTER;
+import static org.forgerock.json.resource.http.HttpUtils.PARAM_QUERY_ID;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.core.ServerConstants;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Represents an incremental (delta) reconciliation, which only reconciles the source objects
+ * changed since the previous successful delta reconciliation of the mapping.
+ * <p>
+ * The changes are detected through a source property holding a modification timestamp or a
+ * sync token, configured as {@code deltaRecon/changeProperty}. The greatest value seen is kept
+ * per mapping as a high-water mark in {@code repo/synchronisation/reconDelta}, and is only
+ * advanced once a reconciliation completed without failed entries. The first run, and any run
+ * after the change property was reconfigured, reconciles the complete source set.
+ * <p>
+ * Objects may change while the source is being queried, after the pages holding them were read, and
+ * still carry an older timestamp than objects read later. Timestamp marks are therefore capped at
+ * the time the source query started, less {@code deltaRecon/overlap} milliseconds (0 by default) to
+ * allow for clock skew between the source and this node, so that the next run reconciles them. Sync
+ * token marks are not capped.
+ * <p>
+ * The target phase does not run by default, as it would visit the complete target set. It runs
+ * when {@code runTargetPhase} is requested in the request body or recon parameters (for example
+ * by a slower scheduled pass to catch orphaned targets), or when configured as
+ * {@code deltaRecon/runTargetPhase}.
+ */
+public class ReconTypeDelta extends ReconTypeByQuery {
+
+    /**
+     * Logger.
+     */
+    private static final Logger logger = LoggerFactory.getLogger(ReconTypeDelta.class);
+
+    /**
+     * The repository container of the high-water marks.
+     */
+    static final String HIGH_WATER_MARK_CONTAINER = "repo/synchronisation/reconDelta";
+
+    /**
+     * The query parameter passed to custom source queries, holding the high-water mark.
+     */
+    static final String PARAM_HIGH_WATER_MARK = "highWaterMark";
+
+    /**
+     * The format of capped timestamp marks.
+     */
+    private static final DateTimeFormatter MARK_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSSXXX");
+
+    /**
+     * The source property holding the modification timestamp or sync token.
+     */
+    private final String changeProperty;
+
+    /**
+     * Whether the target phase should be run.
+     */
+    private final boolean runDeltaTargetPhase;
+
+    /**
+     * The number of milliseconds timestamp marks are kept before the start of the source query.
+     */
+    private final long overlap;
+
+    /**
+     * The time the source query started, {@code null} for a run resumed past its first page.
+     */
+    private Instant queryStart;
+
+    /**
+     * The stored high-water mark; only read once the source is first queried.
+     */
+    private ResourceResponse storedMark;
+
+    /**
+     * The high-water mark the source query starts from, {@code null} for a full pass.
+     */
+    private Object startMark;
+
+    /**
+     * The greatest change property value seen in the source query results.
+     */
+    private Object highWaterMark;
+
+    /**
+     * Whether a source object without a change property value was reported in this run.
+     */
+    private final AtomicBoolean missingChangePropertyReported = new AtomicBoolean();
+
+    /**
+     * A constructor.
+     *
+     * @param reconContext a {@link ReconciliationContext} object.
+     * @throws BadRequestException if no change property is configured
+     */
+    public ReconTypeDelta(ReconciliationContext reconContext) throws BadRequestException {
+        super(reconContext);
+
+        JsonValue deltaConfig = calcEffectiveConfig("deltaRecon");
+        changeProperty = deltaConfig.get("changeProperty").asString();
+        if (changeProperty == null) {
+            throw new BadRequestException(
+                    "Action reconDelta requires the mapping to configure deltaRecon/changeProperty");
+        }
+
+        JsonValue runTargetPhaseValue = reconContext.getOverridingConfig() == null
+                ? json(null)
+                : reconContext.getOverridingConfig().get("runTargetPhase");
+        if (runTargetPhaseValue.isNull() && reconContext.getReconParams() != null) {
+            runTargetPhaseValue = reconContext.getReconParams().get("runTargetPhase");
+        }
+        if (runTargetPhaseValue.isNull()) {
+            runTargetPhaseValue = deltaConfig.get("runTargetPhase");
+        }
+        runDeltaTargetPhase = runTargetPhaseValue.isString()
+                ? Boolean.parseBoolean(runTargetPhaseValue.asString())
+                : runTargetPhaseValue.defaultTo(false).asBoolean();
+        overlap = deltaConfig.get("overlap").defaultTo(0).asLong();
+        logger.debug("Delta recon on {} since last change, runTargetPhase: {}", changeProperty, runDeltaTargetPhase);
+
+        sourceQuery = sourceQuery.copy();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isRunTargetPhase() {
+        return runDeltaTargetPhase;
+    }
+
+    /**
+     * No changes since the previous run is an expected outcome, unless the complete source set
+     * is reconciled.
+     *
+     * @return true if the recon should allow an empty source set, false otherwise.
+     */
+    @Override
+    public boolean allowEmptySourceSet() {
+        return startMark != null || super.allowEmptySourceSet();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ReconQueryResult querySource(int pageSize, String pagingCookie) throws SynchronizationException {
+        if (pagingCookie == null) {
+            queryStart = Instant.now();
+            startMark = readHighWaterMark();
+            restrictSourceQuery();
+            logger.info("Delta recon {} of changes on {} since {}", reconContext.getReconId(), changeProperty,
+                    startMark != null ? startMark : "the start (full pass)");
+        }
+        return super.querySource(pageSize, pagingCookie);
+    }
+
+    /**
+     * Keeps track of the greatest change property value in the source query results.
+     */
+    @Override
+    protected void handleQueryResult(ResourceResponse resource, QuerySide querySide) {
+        if (querySide != QuerySide.SOURCE) {
+            return;
+        }
+        Object value = resource.getContent().get(new JsonPointer(changeProperty)).getObject();
+        if (value == null) {
+            if (missingChangePropertyReported.compareAndSet(false, true)) {
+                logger.warn("Source object {} of delta recon {} has no {} to track changes by; such objects do not "
+                        + "advance the high-water mark, check that the source query returns {}", resource.getId(),
+                        reconContext.getReconId(), changeProperty, changeProperty);
+            } else {
+                logger.debug("Source object {} has no {} to track changes by", resource.getId(), changeProperty);
+            }
+            return;
+        }
+        synchronized (this) {
+            if (highWaterMark == null || compareMarks(value, highWaterMark) > 0) {
+                highWaterMark = value;
+            }
+        }
+    }
+
+    /**
+     * Advances the stored high-water mark, unless entries failed to reconcile, which are then
+     * picked up again by the next run.
+     */
+    @Override
+    public void reconCompleted() throws SynchronizationException {
+        Integer failures = reconContext.getStatistics().getStatusSummary().get(Status.FAILURE.toString());
+        if (failures != null && failures > 0) {
+            logger.warn("Not advancing the delta recon high-water mark of {} past {}, {} entries failed",
+                    reconContext.getMapping(), startMark, failures);
+            return;
+        }
+        Object mark;
+        synchronized (this) {
+            mark = highWaterMark;
+        }
+        if (mark != null && queryStart != null) {
+            mark = capMark(mark, queryStart.minusMillis(overlap));
+        }
+        if (mark == null || (startMark != null && compareMarks(mark, startMark) <= 0)) {
+            logger.debug("No changes on {} since {}, keeping the high-water mark", changeProperty, startMark);
+            return;
+        }
+
+        JsonValue content = json(object(
+                field("mapping", reconContext.getMapping()),
+                field("changeProperty", changeProperty),
+                field(PARAM_HIGH_WATER_MARK, mark),
+                field("reconId", reconContext.getReconId())));
+        try {
+            if (storedMark != null) {
+                UpdateRequest updateRequest = Requests.newUpdateRequest(HIGH_WATER_MARK_CONTAINER,
+                        storedMark.getId(), content);
+                updateRequest.setRevision(storedMark.getRevision());
+                getConnection().update(reconContext.getService().getContext(), updateRequest);
+            } else {
+                getConnection().create(reconContext.getService().getContext(),
+                        Requests.newCreateRequest(HIGH_WATER_MARK_CONTAINER, markId(), content));
+            }
+            logger.debug("Advanced the delta recon high-water mark of {} to {}", reconContext.getMapping(), mark);
+        } catch (ResourceException e) {
+            throw new SynchronizationException(
+                    "Failed to store the delta recon high-water mark of " + reconContext.getMapping(), e);
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public JsonValue getReconParameters() {
+        JsonValue parameters = super.getReconParameters();
+        Object mark;
+        synchronized (this) {
+            mark = highWaterMark;
+        }
+        parameters.put("deltaRecon", object(
+                field("changeProperty", changeProperty),
+                field("since", startMark),
+                field(PARAM_HIGH_WATER_MARK, mark),
+                field("runTargetPhase", runDeltaTargetPhase)));
+        return parameters;
+    }
+
+    /**
+     * Reads the stored high-water mark of the mapping.
+     *
+     * @return the high-water mark, or {@code null} if the complete source set should be reconciled
+     * @throws SynchronizationException if reading the high-water mark failed
+     */
+    private Object readHighWaterMark() throws SynchronizationException {
+        try {
+            storedMark = getConnection().read(reconContext.getService().getContext(),
+                    Requests.newReadRequest(HIGH_WATER_MARK_CONTAINER, markId()));
+        } catch (NotFoundException e) {
+            logger.debug("No delta recon high-water mark for {}", reconContext.getMapping());
+            return null;
+        } catch (ResourceException e) {
+            throw new SynchronizationException(
+                    "Failed to read the delta recon high-water mark of " + reconContext.getMapping(), e);
+        }
+        JsonValue content = storedMark.getContent();
+        if (!changeProperty.equals(content.get("changeProperty").asString())) {
+            logger.info("Delta recon change property of {} changed from {} to {}, reconciling all source objects",
+                    reconContext.getMapping(), content.get("changeProperty").asString(), changeProperty);
+            return null;
+        }
+        return content.get(PARAM_HIGH_WATER_MARK).getObject();
+    }
+
+    /**
+     * Restricts the source query to the objects changed since the start mark.
+     * <p>
+     * The default query, and query filters, are combined with a filter on the change property.
+     * Objects changed at the mark itself are reconciled again, as changes sharing the timestamp
+     * of the mark may not have been visible to the previous run. Custom query ids and query
+     * expressions receive the mark as the {@code highWaterMark} parameter instead.
+     */
+    private void restrictSourceQuery() {
+        if (!sourceQuery.get(PARAM_FIELDS).isNull()) {
+            String fields = sourceQuery.get(PARAM_FIELDS).asString();
+            if (!Arrays.asList(fields.split(",")).contains(changeProperty)) {
+                sourceQuery.put(PARAM_FIELDS, fields + "," + changeProperty);
+            }
+        }
+
+        String queryId = sourceQuery.get(FIELD_QUERY_ID).defaultTo(sourceQuery.get(PARAM_QUERY_ID)).asString();
+        String filterKey = sourceQuery.isDefined(PARAM_QUERY_FILTER) ? PARAM_QUERY_FILTER : FIELD_QUERY_FILTER;
+        if (ServerConstants.QUERY_ALL_IDS.equals(queryId)) {
+            sourceQuery.remove(FIELD_QUERY_ID);
+            sourceQuery.remove(PARAM_QUERY_ID);
+            sourceQuery.put(FIELD_QUERY_FILTER, startMark != null
+                    ? changedSince().toString()
+                    : QueryFilter.<JsonPointer>alwaysTrue().toString());
+        } else if (sourceQuery.isDefined(filterKey)) {
+            if (startMark != null) {
+                QueryFilter<JsonPointer> filter = QueryFilters.parse(sourceQuery.get(filterKey).asString());
+                sourceQuery.put(filterKey, QueryFilter.and(filter, changedSince()).toString());
+            }
+        } else if (startMark != null) {
+            sourceQuery.put(PARAM_HIGH_WATER_MARK, startMark);
+        }
+        logger.debug("Delta recon source query: {}", sourceQuery);
+    }
+
+    /**
+     * Caps a timestamp mark at the given time, so that objects changed after it are reconciled again by the
+     * next run, even if objects changed later were already seen by this one.
+     *
+     * @param mark the greatest change property value seen
+     * @param cap the latest time the mark may hold
+     * @return the mark, or the cap in the time zone offset of the mark if the mark is a later timestamp
+     */
+    static Object capMark(Object mark, Instant cap) {
+        if (!(mark instanceof String)) {
+            return mark;
+        }
+        final OffsetDateTime timestamp;
+        try {
+            timestamp = OffsetDateTime.parse((String) mark);
+        } catch (DateTimeParseException e) {
+            return mark;
+        }
+        if (!timestamp.toInstant().isAfter(cap)) {
+            return mark;
+        }
+        logger.debug("Capping the delta recon high-water mark {} at the source query start {}", mark, cap);
+        return MARK_FORMAT.format(cap.atOffset(timestamp.getOffset()));
+    }
+
+    private QueryFilter<JsonPointer> changedSince() {
+        return QueryFilter.greaterThanOrEqualTo(new JsonPointer(changeProperty), startMark);
+    }
+
+    private String markId() {
+        return reconContext.getMapping();
+    }
+
+    private Connection getConnection() throws ResourceException {
+        return reconContext.getService().getConnectionFactory().getConnection();
+    }
+
+    /**
+     * Compares two change property values; numerically if both are numbers, otherwise by their
+     * string representation, which orders ISO-8601 timestamps of the same format chronologically.
+     *
+     * @param a a change property value
+     * @param b another change property value
+     * @return a negative integer, zero, or a positive integer as a is less than, equal to, or
+     *         greater than b
+     */
+    static int compareMarks(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            return new BigDecimal(a.toString()).compareTo(new BigDecimal(b.toString()));
+        }
+        return a.toString().compareTo(b.toString());
+    }
+}
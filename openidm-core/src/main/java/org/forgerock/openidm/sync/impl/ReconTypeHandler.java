@@ -40,6 +40,17 @@ public interface ReconTypeHandler {
      * @throws SynchronizationException
      */
     ResultIterable queryTarget() throws SynchronizationException;
+
+    /**
+     * Performs a paged target query returning a {@link ReconQueryResult} object containing one page of the
+     * query results, in ascending identifier order.
+     *
+     * @param pageSize a page size for the query.
+     * @param pagingCookie an optional pagingCookie. The value should be null for the first page.
+     * @return a {@link ReconQueryResult} object containing the query results and the cookie for the next page.
+     * @throws SynchronizationException
+     */
+    ReconQueryResult queryTarget(int pageSize, String pagingCookie) throws SynchronizationException;
     
     /**
      * Returns a boolean indicating if the target phase should be executed for this recon.
@@ -55,6 +66,21 @@ public interface ReconTypeHandler {
      */
     boolean allowEmptySourceSet();
 
+    /**
+     * Returns a boolean indicating if the correlation queries of the recon may be answered from the target values
+     * preloaded by the target query, which then must return the complete target object set.
+     *
+     * @return true if correlation queries may be answered from the preloaded target values, false otherwise.
+     */
+    boolean isCorrelationIndexEnabled();
+
+    /**
+     * Called once the recon completed successfully, before it reports its success.
+     *
+     * @throws SynchronizationException if completing the recon type specific state failed
+     */
+    void reconCompleted() throws SynchronizationException;
+
     /**
      * Returns a {@link JsonValue} object containing parameters concerning source and target selection.
      * 
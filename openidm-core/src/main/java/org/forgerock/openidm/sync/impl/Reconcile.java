@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -42,4 +43,14 @@ public interface Reconcile {
             JsonValue reconParams,
             JsonValue config)
             throws ResourceException;
+
+    /**
+     * Resume a reconciliation that did not complete from its last checkpoint
+     * @param reconId the id of the reconciliation to resume
+     * @param synchronous whether to synchronously (TRUE) wait for the resumed reconciliation run, or
+     *  to return immediately (FALSE), with the run to be queried / acted on by the same recon id.
+     * @throws ResourceException if there is no checkpoint to resume the reconciliation from, or the
+     *  reconciliation is still running
+     */
+    public void resume(String reconId, Boolean synchronous) throws ResourceException;
 }
@@ -15,20 +15,32 @@
  */
 package org.forgerock.openidm.sync.impl;
 
+import static org.forgerock.json.resource.Requests.newCreateRequest;
+import static org.forgerock.json.resource.Requests.newDeleteRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+
 import java.util.Collection;
 import java.util.Collections;
 import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
 import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.services.context.Context;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
 
 
 /**
@@ -55,6 +67,22 @@ public class ReconciliationContext {
     private ReconTypeHandler reconTypeHandler;
     private final ReconciliationStatistic reconStat;
     private ExecutorService executor;
+    private ReconPipeline pipeline;
+    private LinkWriteBuffer linkWriteBuffer;
+
+    // If set, the partition of a partitioned reconciliation this run reconciles
+    private final ReconPartition partition;
+    // The number of partitions to reconcile across the cluster, or 0 to reconcile locally
+    private final int partitionCount;
+    // The partitions of this reconciliation being reconciled by this node
+    private final List<ReconciliationContext> partitionRuns = new CopyOnWriteArrayList<>();
+
+    // If set, the checkpoint of an earlier run of this reconciliation this run resumes from
+    private final ReconCheckpoint resumedCheckpoint;
+    // If set, the last checkpoint of this reconciliation, as stored in the repository
+    private volatile ReconCheckpoint checkpoint;
+    // The time, in milliseconds, the last checkpoint was stored by this run, or 0
+    private volatile long checkpointTime;
 
     // If set, the list of all queried source Ids
     private Set<String> sourceIds;
@@ -63,6 +91,10 @@ public class ReconciliationContext {
     private Map<String, JsonValue> targets;
     // Whether the targets map contains preloaded values
     private boolean hasTargetsValues;
+    // If set, the index answering correlation queries from the preloaded target values
+    private volatile CorrelationIndex correlationIndex;
+    // If set, the read ahead of the linked targets of the current source phase
+    private volatile TargetReadAhead targetReadAhead;
     
     private Integer totalSourceEntries;
     private Integer totalTargetEntries;
@@ -86,16 +118,80 @@ public class ReconciliationContext {
             JsonValue overridingConfig,
             ReconciliationService service)
         throws BadRequestException {
+        this(reconAction, mapping, callingContext, reconParams, overridingConfig, service, null);
+    }
+
+    /**
+     * Creates the instance reconciling a partition of a partitioned reconciliation, which is
+     * identified by the id of the partitioned reconciliation.
+     * @param reconAction the recon action
+     * @param mapping the mapping configuration
+     * @param callingContext The resource call context
+     * @param reconParams configuration options for the recon
+     * @param overridingConfig the overriding configuration
+     * @param service the reconciliation service
+     * @param partition the partition to reconcile, or null to reconcile the complete source set
+     */
+    ReconciliationContext(
+            ReconciliationService.ReconAction reconAction,
+            ObjectMapping mapping,
+            Context callingContext,
+            JsonValue reconParams,
+            JsonValue overridingConfig,
+            ReconciliationService service,
+            ReconPartition partition)
+        throws BadRequestException {
+        this(reconAction, mapping, callingContext, reconParams, overridingConfig, service, partition, null);
+    }
+
+    /**
+     * Creates the instance resuming a reconciliation from its last checkpoint, which is identified
+     * by the id of the resumed reconciliation.
+     * @param mapping the mapping configuration
+     * @param callingContext The resource call context
+     * @param service the reconciliation service
+     * @param checkpoint the last checkpoint of the reconciliation to resume
+     */
+    ReconciliationContext(
+            ObjectMapping mapping,
+            Context callingContext,
+            ReconciliationService service,
+            ReconCheckpoint checkpoint)
+        throws BadRequestException {
+        this(checkpoint.getReconAction(), mapping, callingContext, checkpoint.getReconParams(),
+                checkpoint.getOverridingConfig(), service, null, checkpoint);
+    }
+
+    private ReconciliationContext(
+            ReconciliationService.ReconAction reconAction,
+            ObjectMapping mapping,
+            Context callingContext,
+            JsonValue reconParams,
+            JsonValue overridingConfig,
+            ReconciliationService service,
+            ReconPartition partition,
+            ReconCheckpoint resumedCheckpoint)
+        throws BadRequestException {
 
         this.reconAction = reconAction;
         this.mapping = mapping;
-        this.reconId = callingContext.getId();
+        this.partition = partition;
+        this.resumedCheckpoint = resumedCheckpoint;
+        this.checkpoint = resumedCheckpoint;
+        if (partition != null) {
+            this.reconId = partition.getReconId();
+        } else if (resumedCheckpoint != null) {
+            this.reconId = resumedCheckpoint.getReconId();
+        } else {
+            this.reconId = callingContext.getId();
+        }
         this.reconStat = new ReconciliationStatistic(this);
         this.reconParams = reconParams;
         this.overridingConfig = overridingConfig;
         this.service = service;
         
         reconTypeHandler = createReconTypeHandler(reconAction);
+        partitionCount = calcPartitionCount();
 
         // Initialize the executor for this recon, or null if no executor should be used
         int noOfThreads = mapping.getTaskThreads();
@@ -104,6 +200,52 @@ public class ReconciliationContext {
         } else {
             executor = null;
         }
+
+        // The staged pipeline builds on the task threads of the executor
+        if (executor != null && mapping.getReconPipelineConfig() != null) {
+            pipeline = new ReconPipeline(this, mapping.getReconPipelineConfig());
+        }
+        if (mapping.isLinkingEnabled() && mapping.getLinkWriteBatchSize() > 0) {
+            linkWriteBuffer = new LinkWriteBuffer(this, mapping.getLinkWriteBatchSize(),
+                    mapping.getLinkWriteFlushInterval());
+        }
+    }
+
+    /**
+     * Determines the number of partitions to reconcile across the cluster, from the
+     * {@code partitions} recon parameter or the {@code reconPartitions} mapping configuration.
+     * @return the number of partitions, or 0 to reconcile locally
+     * @throws BadRequestException if the number of partitions is not a number
+     */
+    private int calcPartitionCount() throws BadRequestException {
+        if (partition != null
+                || reconAction == ReconciliationService.ReconAction.reconById
+                || service.getPartitionedRecon() == null
+                || !isConfiguredMapping()) {
+            return 0;
+        }
+        JsonValue partitionsValue = reconParams != null ? reconParams.get("partitions") : new JsonValue(null);
+        int count;
+        try {
+            count = partitionsValue.isNull()
+                    ? mapping.getReconPartitions()
+                    : Integer.parseInt(String.valueOf(partitionsValue.getObject()).trim());
+        } catch (NumberFormatException e) {
+            throw new BadRequestException("Parameter partitions must be a number: " + partitionsValue);
+        }
+        return count > 1 ? count : 0;
+    }
+
+    /**
+     * @return whether the mapping is configured, rather than defined by the recon request, so
+     * that the other cluster nodes can reconcile partitions of it
+     */
+    private boolean isConfiguredMapping() {
+        try {
+            return service.getMappings().getMapping(mapping.getName()) == mapping;
+        } catch (SynchronizationException e) {
+            return false;
+        }
     }
 
     /**
@@ -117,6 +259,8 @@ public class ReconciliationContext {
             return new ReconTypeByQuery(this);
         case reconById :
             return new ReconTypeById(this);
+        case reconDelta :
+            return new ReconTypeDelta(this);
         default:
             throw new BadRequestException("Unknown action " + reconAction.toString());
         }
@@ -164,6 +308,93 @@ public class ReconciliationContext {
     public void cancel() {
         setStage(ReconStage.ACTIVE_CANCELING);
         canceled = true;
+        for (ReconciliationContext partitionRun : partitionRuns) {
+            partitionRun.cancel();
+        }
+    }
+
+    /**
+     * @return the partition of a partitioned reconciliation this run reconciles, or null
+     */
+    ReconPartition getPartition() {
+        return partition;
+    }
+
+    /**
+     * @return the number of partitions to reconcile across the cluster, or 0 to reconcile locally
+     */
+    int getPartitionCount() {
+        return partitionCount;
+    }
+
+    /**
+     * Registers a partition of this reconciliation being reconciled by this node, to be canceled
+     * along with it.
+     * @param partitionRun the run reconciling the partition
+     */
+    void addPartitionRun(ReconciliationContext partitionRun) {
+        partitionRuns.add(partitionRun);
+    }
+
+    /**
+     * @param partitionRun a partition run that completed
+     */
+    void removePartitionRun(ReconciliationContext partitionRun) {
+        partitionRuns.remove(partitionRun);
+    }
+
+    /**
+     * @return the checkpoint of an earlier run of this reconciliation this run resumes from, or null
+     * if this run started the reconciliation
+     */
+    ReconCheckpoint getResumedCheckpoint() {
+        return resumedCheckpoint;
+    }
+
+    /**
+     * @return the time, in milliseconds, this run last stored a checkpoint, or 0 if it stored none yet
+     */
+    long getCheckpointTime() {
+        return checkpointTime;
+    }
+
+    /**
+     * Stores a checkpoint of this reconciliation to resume it from, replacing its previous checkpoint.
+     * The previous checkpoint is replaced with the revision it was read or stored with, so that of
+     * concurrent runs resuming the same checkpoint, only one continues to store checkpoints.
+     * @param stage the stage to resume the reconciliation in
+     * @param sourcePagingCookie the paging cookie of the first source page not reconciled yet, or null
+     * @throws ResourceException if storing the checkpoint failed, or another run replaced or removed
+     * the previous checkpoint
+     */
+    void storeCheckpoint(ReconStage stage, String sourcePagingCookie) throws ResourceException {
+        JsonValue content = ReconCheckpoint.content(this, stage, sourcePagingCookie);
+        Connection connection = service.getConnectionFactory().getConnection();
+        ResourceResponse stored = checkpoint != null
+                ? connection.update(ContextUtil.createInternalContext(),
+                        newUpdateRequest(ReconCheckpoint.CHECKPOINT_CONTAINER, reconId, content)
+                                .setRevision(checkpoint.getRevision()))
+                : connection.create(ContextUtil.createInternalContext(),
+                        newCreateRequest(ReconCheckpoint.CHECKPOINT_CONTAINER, reconId, content));
+        checkpoint = new ReconCheckpoint(stored);
+        checkpointTime = System.currentTimeMillis();
+    }
+
+    /**
+     * Removes the checkpoint of this reconciliation, once it completed.
+     * @throws ResourceException if removing the checkpoint failed
+     */
+    void removeCheckpoint() throws ResourceException {
+        if (checkpoint == null) {
+            return;
+        }
+        try {
+            service.getConnectionFactory().getConnection().delete(ContextUtil.createInternalContext(),
+                    newDeleteRequest(ReconCheckpoint.CHECKPOINT_CONTAINER, reconId));
+        } catch (NotFoundException e) {
+            // already removed
+        }
+        checkpoint = null;
     }
 
     /**
@@ -266,6 +497,30 @@ public class ReconciliationContext {
         return executor;
     }
 
+    /**
+     * @return the staged pipeline executing the recon phases, or null if the phases are executed
+     * by feeding the executor directly
+     */
+    ReconPipeline getPipeline() {
+        return pipeline;
+    }
+
+    /**
+     * @return the buffer of the links written behind, or null if links are written directly
+     */
+    LinkWriteBuffer getLinkWriteBuffer() {
+        return linkWriteBuffer;
+    }
+
+    /**
+     * Writes the links buffered by this recon, if any.
+     */
+    void flushLinkWrites() {
+        if (linkWriteBuffer != null) {
+            linkWriteBuffer.flush();
+        }
+    }
+
     /**
      * Query (and cache if necessary) sources to reconcile
      * @return the source ids to reconcile in this recon scope
@@ -273,6 +528,16 @@ public class ReconciliationContext {
      */
     ReconQueryResult querySourceIter(int pageSize, String pagingCookie) throws SynchronizationException {
         ReconQueryResult result = getReconHandler().querySource(pageSize, pagingCookie);
+        if (partition != null) {
+            // Only reconcile the share of this partition
+            Set<String> partitionIds = new LinkedHashSet<>();
+            for (String id : result.getAllIds()) {
+                if (partition.contains(id, mapping.getLinkType())) {
+                    partitionIds.add(id);
+                }
+            }
+            result.setResultIterable(result.getResultIterable().removeNotMatchingEntries(partitionIds));
+        }
         setSourceIds(result.getAllIds());
         return result;
     }
@@ -288,6 +553,21 @@ public class ReconciliationContext {
         return result;
     }
 
+    /**
+     * Query one page of targets to reconcile, without caching the results.
+     * Used by the streaming target phase, which never holds the complete target set in memory.
+     * @param pageSize the page size
+     * @param pagingCookie the paging cookie of the page to query, null for the first page
+     * @return the target results of the page and the cookie for the next page
+     * @throws SynchronizationException if getting the entries to reconcile failed
+     */
+    ReconQueryResult queryTargetIter(int pageSize, String pagingCookie) throws SynchronizationException {
+        ReconQueryResult result = getReconHandler().queryTarget(pageSize, pagingCookie);
+        int pageEntries = result.getAllIds().size();
+        totalTargetEntries = Integer.valueOf(totalTargetEntries == null ? pageEntries : totalTargetEntries + pageEntries);
+        return result;
+    }
+
     /**
      * @param sourceIds the list of all source object ids in the reconciliation scope
      */
@@ -315,6 +595,9 @@ public class ReconciliationContext {
             }
         }
         this.totalTargetEntries = Integer.valueOf(targets.size());
+        if (hasTargetsValues && !targets.isEmpty() && getReconHandler().isCorrelationIndexEnabled()) {
+            correlationIndex = new CorrelationIndex(targets, mapping.getLinkType().isTargetCaseSensitive());
+        }
     }
     
     /**
@@ -355,6 +638,29 @@ public class ReconciliationContext {
         return hasTargetsValues;
     }
 
+    /**
+     * @return the index answering correlation queries from the preloaded target values,
+     * null if the target values were not preloaded
+     */
+    CorrelationIndex getCorrelationIndex() {
+        return correlationIndex;
+    }
+
+    /**
+     * @return the read ahead of the linked targets of the current source phase,
+     * null if the targets are not read ahead
+     */
+    TargetReadAhead getTargetReadAhead() {
+        return targetReadAhead;
+    }
+
+    /**
+     * @param targetReadAhead the read ahead of the linked targets of the current source phase, or null
+     */
+    void setTargetReadAhead(TargetReadAhead targetReadAhead) {
+        this.targetReadAhead = targetReadAhead;
+    }
+
     /**
      * @param newStage Sets the current state and stage in the reconciliation process
      */
@@ -390,10 +696,16 @@ public class ReconciliationContext {
     private synchronized void cleanupState() {
         sourceIds = null;
         targets = null;
+        correlationIndex = null;
+        targetReadAhead = null;
         if (executor != null) {
             executor.shutdown();
             executor = null;
         }
+        if (pipeline != null) {
+            pipeline.shutdown();
+            pipeline = null;
+        }
     }
 
     /**
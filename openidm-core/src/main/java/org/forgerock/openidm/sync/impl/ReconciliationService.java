@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2015 ForgeRock AS.
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.sync.impl;
 
@@ -59,11 +59,13 @@ import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
 import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.router.IDMConnectionFactory;
 import org.forgerock.openidm.sync.ReconContext;
 import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.ContextUtil;
 import org.forgerock.services.context.Context;
 import org.forgerock.util.promise.Promise;
 import org.osgi.service.component.ComponentContext;
@@ -97,9 +99,10 @@ public class ReconciliationService
     private static final String MBEAN_NAME = "org.forgerock.openidm.recon:type=Reconciliation";
     private static final String AUDIT_RECON = "audit/recon";
     private static final String SUMMARY = "summary";
+    private static final String ACTION_RESUME = "resume";
 
     public enum ReconAction {
-        recon, reconByQuery, reconById;
+        recon, reconByQuery, reconById, reconDelta;
 
         /**
          * Convenience helper that checks if a given string
@@ -137,6 +140,48 @@ public class ReconciliationService
     )
     volatile Mappings mappings;
 
+    /**
+     * The partitioned recon support, while cluster management is available and enabled
+     */
+    private volatile PartitionedRecon partitionedRecon;
+
+    @Reference(
+            service = ClusterManagementService.class,
+            policy = ReferencePolicy.DYNAMIC,
+            unbind = "unbindClusterManagementService",
+            cardinality = ReferenceCardinality.OPTIONAL)
+    void bindClusterManagementService(final ClusterManagementService clusterManagementService) {
+        if (clusterManagementService.isEnabled()) {
+            PartitionedRecon recon = new PartitionedRecon(this, clusterManagementService);
+            clusterManagementService.register(PartitionedRecon.LISTENER_ID, recon);
+            partitionedRecon = recon;
+        }
+    }
+
+    void unbindClusterManagementService(final ClusterManagementService clusterManagementService) {
+        clusterManagementService.unregister(PartitionedRecon.LISTENER_ID);
+        partitionedRecon = null;
+    }
+
+    /**
+     * @return the mappings
+     * @throws SynchronizationException if no mappings are available
+     */
+    Mappings getMappings() throws SynchronizationException {
+        Mappings currentMappings = mappings;
+        if (currentMappings == null) {
+            throw new SynchronizationException("No mappings configured");
+        }
+        return currentMappings;
+    }
+
+    /**
+     * @return the partitioned recon support, or null if cluster management is not enabled
+     */
+    PartitionedRecon getPartitionedRecon() {
+        return partitionedRecon;
+    }
+
     /**
      * The thread pool for executing full reconciliation runs.
      */
@@ -270,15 +315,18 @@ public class ReconciliationService
                     try {
                         JsonValue mapping = paramsVal.get("mapping").required();
                         logger.debug("Reconciliation action of mapping {}", mapping);
-                        Boolean waitForCompletion = Boolean.FALSE;
-                        JsonValue waitParam = paramsVal.get("waitForCompletion").defaultTo(Boolean.FALSE);
-                        if (waitParam.isBoolean()) {
-                            waitForCompletion = waitParam.asBoolean();
-                        } else {
-                            waitForCompletion = Boolean.parseBoolean(waitParam.asString());
-                        }
-                        reconId = reconcile(ReconAction.valueOf(request.getAction()), mapping, waitForCompletion,
-                                paramsVal, request.getContent());
+                        reconId = reconcile(ReconAction.valueOf(request.getAction()), mapping,
+                                isWaitForCompletion(paramsVal), paramsVal, request.getContent());
+                        result.put("_id",  reconId);
+                        result.put("state", reconRuns.get(reconId).getState());
+                    } catch (SynchronizationException se) {
+                        throw new ConflictException(se);
+                    }
+                } else if (ACTION_RESUME.equalsIgnoreCase(request.getAction())) {
+                    String reconId = paramsVal.get("reconId").required().asString();
+                    logger.debug("Resuming reconciliation {}", reconId);
+                    try {
+                        resume(reconId, isWaitForCompletion(paramsVal));
                         result.put("_id",  reconId);
                         result.put("state", reconRuns.get(reconId).getState());
                     } catch (SynchronizationException se) {
@@ -318,6 +366,19 @@ public class ReconciliationService
         }
     }
 
+    /**
+     * @param paramsVal the parameters of the action request
+     * @return whether the request waits for the reconciliation to complete
+     */
+    private static Boolean isWaitForCompletion(JsonValue paramsVal) {
+        JsonValue waitParam = paramsVal.get("waitForCompletion").defaultTo(Boolean.FALSE);
+        if (waitParam.isBoolean()) {
+            return waitParam.asBoolean();
+        } else {
+            return Boolean.parseBoolean(waitParam.asString());
+        }
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -344,6 +405,52 @@ public class ReconciliationService
 
 
         addReconRun(reconciliationContext);
+        execute(reconciliationContext, synchronous);
+        return reconciliationContext.getReconId();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void resume(String reconId, Boolean synchronous) throws ResourceException {
+        ReconciliationContext run = reconRuns.get(reconId);
+        if (run != null && !run.getStage().isComplete()) {
+            throw new ConflictException("Reconciliation " + reconId + " is still running");
+        }
+        ReconCheckpoint checkpoint;
+        try {
+            checkpoint = new ReconCheckpoint(getConnectionFactory().getConnection().read(
+                    ContextUtil.createInternalContext(),
+                    Requests.newReadRequest(ReconCheckpoint.CHECKPOINT_CONTAINER, reconId)));
+        } catch (NotFoundException e) {
+            throw new NotFoundException("No checkpoint of reconciliation " + reconId + " to resume from", e);
+        }
+        ObjectMapping objMapping = getMappings().getMapping(checkpoint.getMapping());
+
+        // Set the ReconContext on the request context chain.
+        Context currentContext = ObjectSetContext.pop();
+        ObjectSetContext.push(new ReconContext(currentContext, objMapping.getName()));
+
+        final ReconciliationContext reconciliationContext =
+                new ReconciliationContext(objMapping, ObjectSetContext.get(), this, checkpoint);
+
+        // The resumed run replaces the run it resumes
+        reconRuns.remove(reconId);
+        addReconRun(reconciliationContext);
+        execute(reconciliationContext, synchronous);
+    }
+
+    /**
+     * Executes a reconciliation run, on the calling thread or on the thread pool of the full
+     * reconciliation runs.
+     *
+     * @param reconciliationContext the reconciliation run to execute
+     * @param synchronous whether to wait for the reconciliation run to complete
+     * @throws SynchronizationException if the synchronous reconciliation run failed
+     */
+    private void execute(final ReconciliationContext reconciliationContext, Boolean synchronous)
+            throws SynchronizationException {
         if (Boolean.TRUE.equals(synchronous)) {
             reconcile(reconciliationContext);
         } else {
@@ -366,7 +473,6 @@ public class ReconciliationService
             };
             fullReconExecutor.execute(command);
         }
-        return reconciliationContext.getReconId();
     }
 
     /**
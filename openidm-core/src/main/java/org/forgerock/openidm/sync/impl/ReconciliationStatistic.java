@@ -12,9 +12,13 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.sync.impl;
 
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.openidm.util.DurationStatistics.nanoToMillis;
 import static org.forgerock.util.Reject.checkNotNull;
 
@@ -25,6 +29,7 @@ import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.audit.util.Status;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.sync.ReconAction;
@@ -57,7 +62,11 @@ public class ReconciliationStatistic {
         onUnlinkScript,
         onUpdateScript,
         postMappingScript,
+        processStage,
+        processStageStarved,
         propertyMappingScript,
+        readStage,
+        readStageBlocked,
         resultScript,
         sourceLinkQuery,
         sourceObjectQuery,
@@ -67,9 +76,12 @@ public class ReconciliationStatistic {
         targetObjectQuery,
         targetPhase,
         targetQuery,
+        targetReadAhead,
         updateTargetObject,
         validSourceScript,
-        validTargetScript
+        validTargetScript,
+        writeStage,
+        writeStageBlocked
     }
     
     private ReconciliationContext reconContext;    
@@ -226,6 +238,18 @@ public class ReconciliationStatistic {
         statusProcessed.get(status).incrementAndGet();
     }
 
+    /**
+     * Handle the notification that the status of an entry processed before changed, as when the link
+     * it buffered failed to be written.
+     *
+     * @param previous the status the entry was processed with
+     * @param status the new status of the entry
+     */
+    public void statusChanged(Status previous, Status status) {
+        statusProcessed.get(previous).decrementAndGet();
+        statusProcessed.get(status).incrementAndGet();
+    }
+
     /**
      * @return The number of existing source objects processed
      */
@@ -314,6 +338,46 @@ public class ReconciliationStatistic {
         return results;
     }
     
+    /**
+     * Returns the counters and source phase situations of a partition of a partitioned
+     * reconciliation, to be merged into the statistic of the coordinating reconciliation.
+     *
+     * @return the partition statistics
+     * @see #mergePartitionResult(JsonValue)
+     */
+    public JsonValue partitionResult() {
+        Map<String, Object> status = new HashMap<>();
+        for (Map.Entry<Status, AtomicInteger> entry : statusProcessed.entrySet()) {
+            status.put(entry.getKey().name(), entry.getValue().intValue());
+        }
+        return json(object(
+                field("sourceProcessed", sourceProcessed.get()),
+                field("linkProcessed", linkProcessed.get()),
+                field("linkCreated", linkCreated.get()),
+                field("targetProcessed", targetProcessed.get()),
+                field("targetCreated", targetCreated.get()),
+                field("status", status),
+                field("source", sourceStat.partitionResult().getObject())));
+    }
+
+    /**
+     * Adds the statistics of a partition of a partitioned reconciliation to this statistic, or the
+     * statistics of the entries a resumed reconciliation reconciled before its checkpoint.
+     *
+     * @param result the partition statistics, as returned by {@link #partitionResult()}
+     */
+    public void mergePartitionResult(JsonValue result) {
+        sourceProcessed.addAndGet(result.get("sourceProcessed").defaultTo(0).asInteger());
+        linkProcessed.addAndGet(result.get("linkProcessed").defaultTo(0).asInteger());
+        linkCreated.addAndGet(result.get("linkCreated").defaultTo(0).asInteger());
+        targetProcessed.addAndGet(result.get("targetProcessed").defaultTo(0).asInteger());
+        targetCreated.addAndGet(result.get("targetCreated").defaultTo(0).asInteger());
+        for (Map.Entry<Status, AtomicInteger> entry : statusProcessed.entrySet()) {
+            entry.getValue().addAndGet(result.get("status").get(entry.getKey().name()).defaultTo(0).asInteger());
+        }
+        sourceStat.mergePartitionResult(result.get("source"));
+    }
+
     public String simpleSummary() {
         Map<String, Integer> simpleSummary = new HashMap<>();
         getSourceStat().updateSummary(simpleSummary);
@@ -16,7 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
 import java.util.Map;
 
 import org.forgerock.json.JsonValue;
@@ -43,7 +42,7 @@ class SourceRecon implements Recon {
      */
     @Override
     public void recon(String id, JsonValue objectEntry, ReconciliationContext reconContext, Context context,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds)
+            Map<String, Map<String, Link>> allLinks, HandledTargetIds handledIds)
             throws SynchronizationException {
         reconContext.checkCanceled();
         LazyObjectAccessor sourceObjectAccessor = objectEntry == null
@@ -87,10 +86,10 @@ class SourceRecon implements Recon {
 
             String[] targetIds = op.getTargetIds();
             for (String handledId : targetIds) {
-                // If target system has case insensitive IDs, remove without regard to case
+                // If target system has case insensitive IDs, record without regard to case
                 String normalizedHandledId = objectMapping.getLinkType().normalizeTargetId(handledId);
-                remainingIds.remove(normalizedHandledId);
-                LOGGER.trace("Removed target from remaining targets: {}", normalizedHandledId);
+                handledIds.add(normalizedHandledId);
+                LOGGER.trace("Recorded target as handled: {}", normalizedHandledId);
             }
             if (!ReconAction.NOREPORT.equals(op.action) && (status == Status.FAILURE || op.action != null)) {
                 auditEvent.setReconciling("source");
@@ -108,8 +107,16 @@ class SourceRecon implements Recon {
                 auditEvent.setStatus(status);
                 auditEvent.setAmbiguousTargetIds(op.getAmbiguousTargetIds());
                 auditEvent.setReconId(reconContext.getReconId());
-                objectMapping.logEntry(auditEvent, reconContext);
+                objectMapping.logReconEntry(auditEvent, reconContext);
             }
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPrefetchObjectSet() {
+        return objectMapping.getSourceObjectSet();
+    }
 }
@@ -173,6 +173,9 @@ class SourceSyncOperation extends SyncOperation {
                 // If there is a pre-loaded target value, use it
                 if (reconContext.hasTargetsValues()) {
                     preloaded = reconContext.getTargets().get(linkObject.targetId);
+                } else if (reconContext.getTargetReadAhead() != null) {
+                    // If the target was read ahead in bulk, use it
+                    preloaded = reconContext.getTargetReadAhead().take(linkObject.targetId);
                 }
             }
             if (preloaded != null) {
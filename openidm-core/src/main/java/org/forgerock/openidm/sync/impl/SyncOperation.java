@@ -39,7 +39,6 @@ import org.forgerock.openidm.condition.Conditions;
 import org.forgerock.openidm.config.enhanced.InternalErrorException;
 import org.forgerock.openidm.smartevent.EventEntry;
 import org.forgerock.openidm.smartevent.Publisher;
-import org.forgerock.openidm.sync.PropertyMapping;
 import org.forgerock.openidm.sync.ReconAction;
 import org.forgerock.openidm.sync.SyncContext;
 import org.forgerock.openidm.sync.SynchronizationException;
@@ -87,9 +86,6 @@ abstract class SyncOperation {
     /** an additional set of key-value conditions to be met for a source object to be valid to be mapped */
     private final Condition sourceCondition;
 
-    /** an array of property-mapping objects */
-    private final List<PropertyMapping> properties = new ArrayList<>();
-
     /** a map of {@link Policy} objects */
     private Map<String, List<Policy>> policies = new HashMap<>();
 
@@ -136,6 +132,11 @@ abstract class SyncOperation {
      */
     boolean linkCreated;
 
+    /**
+     * The link write of this operation buffered by the recon, until the recon entry of this operation is reported.
+     */
+    LinkWriteBuffer.PendingLink pendingLinkWrite;
+
     /**
      * The current sync operation's situation
      */
@@ -177,10 +178,6 @@ abstract class SyncOperation {
                 json(object(field(SourceUnit.ATTR_TYPE, "groovy"),
                         field(SourceUnit.ATTR_NAME, "roles/defaultPostMapping.groovy")))));
 
-        for (JsonValue jv : config.get("properties").expect(List.class)) {
-            properties.add(new PropertyMapping(jv));
-        }
-
         for (JsonValue jv : config.get("policies").expect(List.class)) {
             String situation = jv.get("situation").asString();
             if (policies.containsKey(situation)) {
@@ -459,6 +456,7 @@ abstract class SyncOperation {
                             }
 
                             targetObjectAccessor = createTargetObject(context, createTargetObject);
+                            updateCorrelationIndex(targetObjectAccessor.getLocalId(), targetObjectAccessor.getObject());
 
                             if (!objectMapping.isLinkingEnabled()) {
                                 LOGGER.debug("Linking disabled for {} during {}, skipping additional link processing", sourceId, reconId);
@@ -512,7 +510,7 @@ abstract class SyncOperation {
                             }
                             if (objectMapping.isLinkingEnabled() && linkObject._id != null && !linkObject.targetEquals(targetId)) {
                                 linkObject.targetId = targetId;
-                                linkObject.update(context);
+                                updateLink(context);
                             }
                             // TODO: Detect change of source id, and update link accordingly.
                             if (action == ReconAction.CREATE || action == ReconAction.LINK) {
@@ -526,6 +524,7 @@ abstract class SyncOperation {
                                 // only update if target changes
                                 if (!oldTarget.isEqualTo(getTargetObject())) {
                                     updateTargetObject(context, getTargetObject(), targetId, reconContext);
+                                    updateCorrelationIndex(targetId, getTargetObject());
                                 }
                             }
                             // execute the defaultPostMapping script to add lastSync attribute to managed user
@@ -541,6 +540,7 @@ abstract class SyncOperation {
                             if (getTargetObjectId() != null && getTargetObject() != null) {
                                 execScript("onDelete", onDeleteScript);
                                 deleteTargetObject(context, getTargetObject(), reconContext);
+                                updateCorrelationIndex(getTargetObjectId(), null);
                                 // Represent as not existing anymore so it gets removed from processed targets
                                 targetObjectAccessor = new LazyObjectAccessor(objectMapping.getConnectionFactory(),
                                         objectMapping.getTargetObjectSet(), getTargetObjectId(), null);
@@ -559,6 +559,9 @@ abstract class SyncOperation {
                                 execScript("onUnlink", onUnlinkScript);
 
                                 final long deleteLinkObjectStart = ObjectMapping.startNanoTime(reconContext);
+                                if (reconContext != null && reconContext.getLinkWriteBuffer() != null) {
+                                    reconContext.getLinkWriteBuffer().awaitWritten(linkObject);
+                                }
                                 linkObject.delete(context);
                                 ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.deleteLinkObject, deleteLinkObjectStart);
                             }
@@ -614,11 +617,31 @@ abstract class SyncOperation {
         execScript("onLink", onLinkScript);
         linkObject.sourceId = sourceId;
         linkObject.targetId = targetId;
-        linkObject.create(context);
+        LinkWriteBuffer linkWriteBuffer = reconContext != null ? reconContext.getLinkWriteBuffer() : null;
+        if (linkWriteBuffer != null) {
+            linkWriteBuffer.create(linkObject, context, this);
+        } else {
+            linkObject.create(context);
+        }
         initializeLink(linkObject);
         LOGGER.debug("Established link sourceId: {} targetId: {} in reconId: {}", sourceId, targetId, reconId);
     }
 
+    /**
+     * Updates the link of this operation, directly or through the link write buffer of the recon.
+     *
+     * @param context the request context
+     * @throws SynchronizationException if updating the link failed
+     */
+    private void updateLink(Context context) throws SynchronizationException {
+        LinkWriteBuffer linkWriteBuffer = reconContext != null ? reconContext.getLinkWriteBuffer() : null;
+        if (linkWriteBuffer != null) {
+            linkWriteBuffer.update(linkObject, context, this);
+        } else {
+            linkObject.update(context);
+        }
+    }
+
     /**
      * Evaluates the source condition on the source object
      *
@@ -818,6 +841,20 @@ abstract class SyncOperation {
         return targetObject;
     }
 
+    /**
+     * Keeps the correlation index of the reconciliation, if any, up to date with a target changed by this operation.
+     *
+     * @param targetId the id of the changed target
+     * @param target the new value of the target, or null if it was deleted
+     */
+    private void updateCorrelationIndex(String targetId, JsonValue target) {
+        final CorrelationIndex correlationIndex = reconContext != null ? reconContext.getCorrelationIndex() : null;
+        if (correlationIndex != null) {
+            final String id = target != null && target.get("_id").isString() ? target.get("_id").asString() : targetId;
+            correlationIndex.targetChanged(id, target);
+        }
+    }
+
     /**
      * Issues a request to update an object on the target.
      *
@@ -903,11 +940,8 @@ abstract class SyncOperation {
             JsonValue existingTarget, String linkQualifier, ReconciliationContext reconContext) throws SynchronizationException {
         EventEntry measure = Publisher.start(objectMapping.getObjectMappingEventName(), source, null);
         try {
-            for (PropertyMapping property : properties) {
-                final long startNanoTime = ObjectMapping.startNanoTime(reconContext, property.hasTransformScript());
-                property.apply(source, oldSource, target, existingTarget, linkQualifier, context);
-                ObjectMapping.addDuration(reconContext, ReconciliationStatistic.DurationMetric.propertyMappingScript, startNanoTime);
-            }
+            objectMapping.getPropertyMappingPlan().apply(source, oldSource, target, existingTarget, linkQualifier,
+                    context, reconContext);
             // Apply default mapping, if configured
             applyDefaultMappings(context, source, oldSource, target, existingTarget, linkQualifier, reconContext);
 
@@ -295,7 +295,8 @@ public class SynchronizationService implements SingletonResourceProvider, Schedu
                 }
 
                 try {
-                    reconService.reconcile(ReconciliationService.ReconAction.recon, mapping, Boolean.TRUE, params, null);
+                    reconService.reconcile(ReconciliationService.ReconAction.valueOf(params.get("_action").asString()),
+                            mapping, Boolean.TRUE, params, null);
                 } finally {
                     ObjectSetContext.pop();
                 }
@@ -0,0 +1,147 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+/**
+ * Compact record of the (normalized) target identifiers handled during the source phase of a
+ * streaming reconciliation.
+ * <p>
+ * Instead of keeping every target identifier as a {@link String}, only a 64-bit fingerprint of
+ * each identifier is stored in a primitive open-addressing hash table. The memory needed is
+ * therefore proportional to the number of targets matched in the source phase (8 bytes per entry
+ * plus table slack), and independent of the size of the complete target object set.
+ * <p>
+ * Fingerprints may in theory collide, which would cause an unmatched target to be treated as
+ * matched. With 64-bit fingerprints the probability is negligible for realistic object counts
+ * (about 10<sup>-6</sup> for 5 million matched identifiers).
+ * <p>
+ * This class is thread safe.
+ */
+class TargetIdFingerprints implements HandledTargetIds {
+
+    /** Slot marker for an unused table entry */
+    private static final long EMPTY = 0L;
+
+    /** Initial number of slots, must be a power of two */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] table;
+    private int size;
+
+    TargetIdFingerprints() {
+        table = new long[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Records the given (normalized) identifier as seen.
+     *
+     * @param id the normalized identifier
+     * @return true if the identifier was not yet recorded
+     */
+    @Override
+    public synchronized boolean add(String id) {
+        if (id == null) {
+            return false;
+        }
+        if ((size + 1) * 4 > table.length * 3) {
+            resize();
+        }
+        if (insert(table, fingerprint(id))) {
+            ++size;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * @param id the normalized identifier
+     * @return true if the identifier was recorded as seen
+     */
+    @Override
+    public synchronized boolean contains(String id) {
+        if (id == null) {
+            return false;
+        }
+        long fingerprint = fingerprint(id);
+        int mask = table.length - 1;
+        for (int slot = spread(fingerprint) & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (table[slot] == fingerprint) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the number of identifiers recorded
+     */
+    synchronized int size() {
+        return size;
+    }
+
+    @Override
+    public String toString() {
+        return "[" + size() + " target ids handled]";
+    }
+
+    private void resize() {
+        long[] newTable = new long[table.length * 2];
+        for (long fingerprint : table) {
+            if (fingerprint != EMPTY) {
+                insert(newTable, fingerprint);
+            }
+        }
+        table = newTable;
+    }
+
+    private static boolean insert(long[] slots, long fingerprint) {
+        int mask = slots.length - 1;
+        int slot = spread(fingerprint) & mask;
+        while (slots[slot] != EMPTY) {
+            if (slots[slot] == fingerprint) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = fingerprint;
+        return true;
+    }
+
+    private static int spread(long fingerprint) {
+        return (int) (fingerprint ^ (fingerprint >>> 32));
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash of the identifier, finalized with the MurmurHash3 mixer to
+     * spread the bits. {@link #EMPTY} is never returned.
+     *
+     * @param id the identifier
+     * @return the fingerprint
+     */
+    static long fingerprint(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash ^= id.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb9fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash == EMPTY ? 1L : hash;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Disk spilled, append-only list of target identifiers.
+ * <p>
+ * The streaming target phase pages through the target object set and spools the identifiers
+ * that were not handled in the source phase, so that the target phase can process them without
+ * holding them in memory, and without the paging of the target query being affected by targets
+ * deleted while the target phase runs. Identifiers are read back in the order they were added.
+ * <p>
+ * This class is not thread safe.
+ */
+class TargetIdSpool implements Closeable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TargetIdSpool.class);
+
+    private final Path file;
+    private DataOutputStream out;
+    private DataInputStream in;
+    private int size;
+
+    /**
+     * Creates a new, empty spool backed by a temporary file.
+     *
+     * @param reconId the reconciliation the spool is used by
+     * @throws SynchronizationException if the spool file could not be created
+     */
+    TargetIdSpool(String reconId) throws SynchronizationException {
+        try {
+            file = Files.createTempFile("recon-" + reconId + "-", ".targetids");
+            out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+        } catch (IOException e) {
+            throw new SynchronizationException("Failed to create target id spool for recon " + reconId, e);
+        }
+    }
+
+    /**
+     * Appends an identifier to the spool.
+     *
+     * @param id the (normalized) identifier
+     * @throws SynchronizationException if writing to the spool file failed
+     */
+    void add(String id) throws SynchronizationException {
+        try {
+            byte[] bytes = id.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+            ++size;
+        } catch (IOException e) {
+            throw new SynchronizationException("Failed to write to target id spool " + file, e);
+        }
+    }
+
+    /**
+     * @return the number of identifiers spooled
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Finishes writing and returns an iterator over the spooled identifiers. No values are
+     * associated with the returned entries, the target objects are read on demand.
+     *
+     * @return the iterator over the spooled identifiers
+     * @throws SynchronizationException if the spool file could not be read
+     */
+    Iterator<ResultEntry> iterator() throws SynchronizationException {
+        try {
+            out.close();
+            in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)));
+        } catch (IOException e) {
+            throw new SynchronizationException("Failed to read target id spool " + file, e);
+        }
+        return new Iterator<ResultEntry>() {
+            private int remaining = size;
+
+            @Override
+            public boolean hasNext() {
+                return remaining > 0;
+            }
+
+            @Override
+            public ResultEntry next() {
+                if (remaining <= 0) {
+                    throw new NoSuchElementException();
+                }
+                try {
+                    byte[] bytes = new byte[in.readInt()];
+                    in.readFully(bytes);
+                    if (--remaining == 0) {
+                        in.close();
+                    }
+                    return new ResultEntry(new String(bytes, StandardCharsets.UTF_8), null);
+                } catch (EOFException e) {
+                    throw new IllegalStateException("Target id spool " + file + " is truncated", e);
+                } catch (IOException e) {
+                    throw new IllegalStateException("Failed to read target id spool " + file, e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Releases the spool file.
+     */
+    @Override
+    public void close() {
+        try {
+            out.close();
+            if (in != null) {
+                in.close();
+            }
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            LOGGER.warn("Failed to remove target id spool {}", file, e);
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
+import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Reads the linked targets of the source entries of a reconciliation source phase ahead, in bulk.
+ * <p>
+ * The source entries are iterated in windows. Before the entries of a window are handed to the phase, the targets
+ * their prefetched links point to are queried with a single {@code _id} disjunction on the target object set, and
+ * kept until the sync operation of the source entry takes its target. Targets the query did not return are read on
+ * demand by the sync operation, as without read ahead, so that not finding a target keeps its usual semantics.
+ * Should the target object set fail the query, for example as it does not support query filters, the read ahead
+ * is turned off for the rest of the phase.
+ * <p>
+ * The entries are iterated by a single thread; the targets may be taken concurrently.
+ */
+class TargetReadAhead implements Iterator<ResultEntry> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TargetReadAhead.class);
+
+    private static final JsonPointer ID = new JsonPointer(ResourceResponse.FIELD_CONTENT_ID);
+
+    private final Iterator<ResultEntry> entries;
+    private final ReconciliationContext reconContext;
+    private final Context context;
+    private final Map<String, Map<String, Link>> allLinks;
+    private final int windowSize;
+
+    /** The entries of the current window not yet handed to the phase */
+    private final Deque<ResultEntry> window = new ArrayDeque<>();
+
+    /** The targets read ahead and not yet taken, by their normalized id */
+    private final Map<String, JsonValue> targets = new ConcurrentHashMap<>();
+
+    private boolean enabled = true;
+
+    /**
+     * Creates the read ahead of the linked targets of source entries.
+     *
+     * @param entries the source entries of the phase
+     * @param reconContext the reconciliation context
+     * @param context the context of the reconciliation
+     * @param allLinks the prefetched links, by link qualifier and normalized source id
+     * @param windowSize the number of source entries the targets are read ahead for at once
+     */
+    TargetReadAhead(Iterator<ResultEntry> entries, ReconciliationContext reconContext, Context context,
+            Map<String, Map<String, Link>> allLinks, int windowSize) {
+        this.entries = entries;
+        this.reconContext = reconContext;
+        this.context = context;
+        this.allLinks = allLinks;
+        this.windowSize = windowSize;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !window.isEmpty() || entries.hasNext();
+    }
+
+    @Override
+    public ResultEntry next() {
+        if (window.isEmpty()) {
+            fillWindow();
+        }
+        if (window.isEmpty()) {
+            throw new NoSuchElementException();
+        }
+        return window.removeFirst();
+    }
+
+    /**
+     * Takes the target read ahead for a linked source entry.
+     *
+     * @param targetId the normalized id of the linked target
+     * @return the target, or null if it was not read ahead and is to be read on demand
+     */
+    JsonValue take(String targetId) {
+        return targetId != null ? targets.remove(targetId) : null;
+    }
+
+    private void fillWindow() {
+        final LinkType linkType = reconContext.getObjectMapping().getLinkType();
+        final Set<String> targetIds = new LinkedHashSet<>();
+        while (window.size() < windowSize && entries.hasNext()) {
+            final ResultEntry entry = entries.next();
+            window.addLast(entry);
+            if (!enabled) {
+                continue;
+            }
+            final String sourceId = linkType.normalizeSourceId(entry.getId());
+            for (Map<String, Link> links : allLinks.values()) {
+                final Link link = links.get(sourceId);
+                if (link != null && link.targetId != null) {
+                    targetIds.add(link.targetId);
+                }
+            }
+        }
+        if (!targetIds.isEmpty()) {
+            readTargets(linkType, targetIds);
+        }
+    }
+
+    private void readTargets(final LinkType linkType, Set<String> targetIds) {
+        final long startNanoTime = ObjectMapping.startNanoTime(reconContext);
+        final List<QueryFilter<JsonPointer>> filters = new ArrayList<>(targetIds.size());
+        for (String targetId : targetIds) {
+            filters.add(QueryFilter.equalTo(ID, targetId));
+        }
+        final QueryRequest request = Requests.newQueryRequest(reconContext.getObjectMapping().getTargetObjectSet())
+                .setQueryFilter(QueryFilter.or(filters));
+        try {
+            reconContext.getObjectMapping().getConnectionFactory().getConnection().query(context, request,
+                    resource -> {
+                        final String id = resource.getId() != null
+                                ? resource.getId()
+                                : resource.getContent().get(ResourceResponse.FIELD_CONTENT_ID).asString();
+                        if (id != null) {
+                            targets.put(linkType.normalizeTargetId(id), resource.getContent());
+                        }
+                        return true;
+                    });
+        } catch (ResourceException e) {
+            LOGGER.debug("Reading targets ahead failed for recon {}, reading them on demand",
+                    reconContext.getReconId(), e);
+            enabled = false;
+        } finally {
+            ObjectMapping.addDuration(reconContext, DurationMetric.targetReadAhead, startNanoTime);
+        }
+    }
+}
@@ -16,7 +16,6 @@
 
 package org.forgerock.openidm.sync.impl;
 
-import java.util.Collection;
 import java.util.Map;
 
 import org.forgerock.json.JsonValue;
@@ -43,7 +42,7 @@ class TargetRecon implements Recon {
      */
     @Override
     public void recon(String id, JsonValue objectEntry, ReconciliationContext reconContext, Context context,
-            Map<String, Map<String, Link>> allLinks, Collection<String> remainingIds)  throws SynchronizationException {
+            Map<String, Map<String, Link>> allLinks, HandledTargetIds handledIds)  throws SynchronizationException {
         reconContext.checkCanceled();
         for (String linkQualifier : objectMapping.getAllLinkQualifiers(context, reconContext)) {
             TargetSyncOperation op = new TargetSyncOperation(objectMapping, context);
@@ -84,8 +83,16 @@ class TargetRecon implements Recon {
                 }
                 event.setStatus(status);
                 event.setReconId(reconContext.getReconId());
-                objectMapping.logEntry(event, reconContext);
+                objectMapping.logReconEntry(event, reconContext);
             }
         }
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getPrefetchObjectSet() {
+        return null;
+    }
 }
@@ -21,23 +21,41 @@ import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.testng.Assert.assertTrue;
 import static org.testng.Assert.fail;
 
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Map;
+
+import org.forgerock.http.routing.UriRouterContext;
 import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.QueryResponse;
 import org.forgerock.json.resource.ReadRequest;
 import org.forgerock.json.resource.ResourcePath;
+import org.forgerock.json.resource.ResourceResponse;
 import org.forgerock.openidm.audit.util.ActivityLogger;
 import org.forgerock.openidm.util.RelationshipUtil;
 import org.forgerock.services.context.Context;
 import org.forgerock.services.context.RootContext;
+import org.mockito.ArgumentCaptor;
 import org.mockito.ArgumentMatcher;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeTest;
+import org.testng.annotations.Test;
 
 public class CollectionRelationshipProviderTest {
     private static final ResourcePath REFERRING_OBJECT_ID = new ResourcePath("managed/user/foo");
@@ -152,6 +170,133 @@ public class CollectionRelationshipProviderTest {
         }
     }
 
+    @Test
+    public void testGetRelationshipValuesForResources() throws Exception {
+        Context context = new UriRouterContext(new RootContext(), "", "", Collections.<String, String>emptyMap());
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        // the relationships of all requested users are returned by a single query
+        doAnswer(new Answer<QueryResponse>() {
+            @Override
+            public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+                QueryResourceHandler handler = invocation.getArgument(2);
+                handler.handleResource(relationship("r1", "managed/user/u1", "managed/role/a"));
+                handler.handleResource(relationship("r2", "managed/user/u1", "managed/role/b"));
+                handler.handleResource(relationship("r3", "managed/user/u2", "managed/role/a"));
+                return null;
+            }
+        }).when(connection).query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class));
+
+        SchemaField schemaField = mock(SchemaField.class);
+        when(schemaField.getName()).thenReturn("roles");
+        when(schemaField.isReverseRelationship()).thenReturn(false);
+        CollectionRelationshipProvider provider = new CollectionRelationshipProvider(connectionFactory,
+                ResourcePath.resourcePath("managed/user"), schemaField, activityLogger, managedObjectSyncService);
+
+        Map<String, JsonValue> values =
+                provider.getRelationshipValuesForResources(context, Arrays.asList("u1", "u2", "u3"));
+
+        ArgumentCaptor<QueryRequest> queryRequest = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection, times(1))
+                .query(any(Context.class), queryRequest.capture(), any(QueryResourceHandler.class));
+        assertThat(queryRequest.getValue().getQueryId()).isEqualTo("find-relationships-for-resources");
+        assertThat(queryRequest.getValue().getAdditionalParameter("fullResourceIds"))
+                .isEqualTo("managed/user/u1,managed/user/u2,managed/user/u3");
+        assertThat(queryRequest.getValue().getAdditionalParameter("resourceFieldName")).isEqualTo("roles");
+        assertThat(values).containsOnlyKeys("u1", "u2", "u3");
+        assertThat(values.get("u1").size()).isEqualTo(2);
+        assertThat(values.get("u1").get(0).get("_ref").asString()).isEqualTo("managed/role/a");
+        assertThat(values.get("u1").get(0).get("_refProperties").get("_id").asString()).isEqualTo("r1");
+        assertThat(values.get("u1").get(1).get("_ref").asString()).isEqualTo("managed/role/b");
+        assertThat(values.get("u2").size()).isEqualTo(1);
+        assertThat(values.get("u3").isList()).isTrue();
+        assertThat(values.get("u3").size()).isEqualTo(0);
+    }
+
+    @Test
+    public void testGetRelationshipValuesForResourcesLinkedToEachOther() throws Exception {
+        Context context = new UriRouterContext(new RootContext(), "", "", Collections.<String, String>emptyMap());
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        // a relationship between two requested users on the same field is returned once per end
+        doAnswer(new Answer<QueryResponse>() {
+            @Override
+            public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+                QueryResourceHandler handler = invocation.getArgument(2);
+                handler.handleResource(relationship("r1", "managed/user/u1", "managed/user/u2", "roles"));
+                handler.handleResource(relationship("r1", "managed/user/u1", "managed/user/u2", "roles"));
+                return null;
+            }
+        }).when(connection).query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class));
+
+        SchemaField schemaField = mock(SchemaField.class);
+        when(schemaField.getName()).thenReturn("roles");
+        when(schemaField.isReverseRelationship()).thenReturn(false);
+        CollectionRelationshipProvider provider = new CollectionRelationshipProvider(connectionFactory,
+                ResourcePath.resourcePath("managed/user"), schemaField, activityLogger, managedObjectSyncService);
+
+        Map<String, JsonValue> values = provider.getRelationshipValuesForResources(context, Arrays.asList("u1", "u2"));
+        assertThat(values.get("u1").size()).isEqualTo(1);
+        assertThat(values.get("u1").get(0).get("_refProperties").get("_id").asString()).isEqualTo("r1");
+        assertThat(values.get("u2").size()).isEqualTo(1);
+        assertThat(values.get("u2").get(0).get("_refProperties").get("_id").asString()).isEqualTo("r1");
+    }
+
+    @Test
+    public void testGetRelationshipValuesForResourcesWithoutQueryId() throws Exception {
+        Context context = new UriRouterContext(new RootContext(), "", "", Collections.<String, String>emptyMap());
+        Connection connection = mock(Connection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+
+        // a repo configuration without the query falls back to a query filter
+        doAnswer(new Answer<QueryResponse>() {
+            @Override
+            public QueryResponse answer(InvocationOnMock invocation) throws Throwable {
+                QueryRequest request = invocation.getArgument(1);
+                if (request.getQueryId() != null) {
+                    throw new BadRequestException("The passed query identifier " + request.getQueryId()
+                            + " does not match any configured queries on the JDBC repository service.");
+                }
+                QueryResourceHandler handler = invocation.getArgument(2);
+                handler.handleResource(relationship("r1", "managed/user/u1", "managed/role/a"));
+                return null;
+            }
+        }).when(connection).query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class));
+
+        SchemaField schemaField = mock(SchemaField.class);
+        when(schemaField.getName()).thenReturn("roles");
+        when(schemaField.isReverseRelationship()).thenReturn(false);
+        CollectionRelationshipProvider provider = new CollectionRelationshipProvider(connectionFactory,
+                ResourcePath.resourcePath("managed/user"), schemaField, activityLogger, managedObjectSyncService);
+
+        Map<String, JsonValue> values = provider.getRelationshipValuesForResources(context, Arrays.asList("u1", "u2"));
+        assertThat(values.get("u1").size()).isEqualTo(1);
+        assertThat(values.get("u2").size()).isEqualTo(0);
+
+        // the query is not attempted again
+        provider.getRelationshipValuesForResources(context, Arrays.asList("u1", "u2"));
+        verify(connection, times(3))
+                .query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class));
+    }
+
+    private static ResourceResponse relationship(String id, String firstId, String secondId) {
+        return relationship(id, firstId, secondId, null);
+    }
+
+    private static ResourceResponse relationship(String id, String firstId, String secondId,
+            String secondPropertyName) {
+        return newResourceResponse(id, "0", json(object(
+                field("_id", id),
+                field("_rev", "0"),
+                field("firstId", firstId),
+                field("firstPropertyName", "roles"),
+                field("secondId", secondId),
+                field("secondPropertyName", secondPropertyName),
+                field("properties", object()))));
+    }
+
     private static class IsRouteMatcher implements ArgumentMatcher<ReadRequest> {
 
         private final String route;
@@ -0,0 +1,341 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.managed;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Requests.newReadRequest;
+import static org.forgerock.json.resource.Requests.newUpdateRequest;
+import static org.forgerock.json.resource.Resources.newInternalConnectionFactory;
+import static org.forgerock.json.resource.Router.uriTemplate;
+import static org.forgerock.openidm.sync.impl.SynchronizationService.SyncServiceAction.notifyCreate;
+import static org.forgerock.openidm.sync.impl.SynchronizationService.SyncServiceAction.notifyDelete;
+import static org.forgerock.openidm.sync.impl.SynchronizationService.SyncServiceAction.notifyUpdate;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.Router;
+import org.forgerock.openidm.core.IdentityServerTestUtils;
+import org.forgerock.openidm.crypto.CryptoService;
+import org.forgerock.openidm.router.IDMConnectionFactory;
+import org.forgerock.openidm.router.IDMConnectionFactoryWrapper;
+import org.forgerock.openidm.sync.impl.SynchronizationService.SyncServiceAction;
+import org.forgerock.openidm.util.ContextUtil;
+import org.forgerock.services.TransactionId;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.services.context.SecurityContext;
+import org.forgerock.services.context.TransactionIdContext;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ImplicitSyncQueueTest {
+
+    private static final String USER_ID = "1";
+
+    private IDMConnectionFactory connectionFactory;
+    private Connection connection;
+    private CryptoService cryptoService;
+    private ManagedObjectSet objectSet;
+    private ImplicitSyncQueue queue;
+    private Context context;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        IdentityServerTestUtils.initInstanceForTest();
+        final Router router = new Router();
+        router.addRoute(uriTemplate(ImplicitSyncQueue.QUEUE_CONTAINER), new MemoryBackend());
+        connectionFactory = new IDMConnectionFactoryWrapper(newInternalConnectionFactory(router));
+        connection = connectionFactory.getConnection();
+        // the values of the entries are left as stringified JSON
+        cryptoService = mock(CryptoService.class);
+        when(cryptoService.encrypt(any(JsonValue.class), anyString(), anyString()))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+        when(cryptoService.decrypt(any(JsonValue.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        objectSet = mock(ManagedObjectSet.class);
+        context = requestContext("transaction-1", "bjensen");
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        if (queue != null) {
+            queue.stop();
+            queue = null;
+        }
+    }
+
+    private ImplicitSyncQueue startQueue(JsonValue config) {
+        // entries are drained by the tests rather than by the poller
+        config.put("pollInterval", 3600000);
+        queue = new ImplicitSyncQueue(connectionFactory, cryptoService,
+                Collections.singletonMap("user", objectSet), config);
+        queue.start();
+        return queue;
+    }
+
+    private JsonValue readEntry() throws Exception {
+        try {
+            return connection.read(new RootContext(), newReadRequest(ImplicitSyncQueue.QUEUE_CONTAINER,
+                    ImplicitSyncQueue.entryId("user", USER_ID))).getContent();
+        } catch (NotFoundException e) {
+            return null;
+        }
+    }
+
+    private void updateEntry(JsonValue content) throws Exception {
+        connection.update(new RootContext(), newUpdateRequest(ImplicitSyncQueue.QUEUE_CONTAINER,
+                ImplicitSyncQueue.entryId("user", USER_ID), content));
+    }
+
+    private static Context requestContext(String transactionId, String authenticationId) {
+        return new SecurityContext(new TransactionIdContext(new RootContext(), new TransactionId(transactionId)),
+                authenticationId,
+                Collections.<String, Object>singletonMap(SecurityContext.AUTHZID_ID, authenticationId));
+    }
+
+    private static JsonValue user(String name) {
+        return json(object(field("userName", name)));
+    }
+
+    @Test
+    public void testCoalesce() {
+        assertThat(ImplicitSyncQueue.coalesce(notifyCreate, notifyUpdate)).isEqualTo(notifyCreate);
+        assertThat(ImplicitSyncQueue.coalesce(notifyCreate, notifyDelete)).isNull();
+        assertThat(ImplicitSyncQueue.coalesce(notifyUpdate, notifyUpdate)).isEqualTo(notifyUpdate);
+        assertThat(ImplicitSyncQueue.coalesce(notifyUpdate, notifyDelete)).isEqualTo(notifyDelete);
+        assertThat(ImplicitSyncQueue.coalesce(notifyDelete, notifyCreate)).isEqualTo(notifyUpdate);
+    }
+
+    @Test
+    public void testEntryIdPerObject() {
+        assertThat(ImplicitSyncQueue.entryId("user", "1")).isEqualTo(ImplicitSyncQueue.entryId("user", "1"));
+        assertThat(ImplicitSyncQueue.entryId("user", "1")).isNotEqualTo(ImplicitSyncQueue.entryId("role", "1"));
+    }
+
+    @Test
+    public void testRetryDelayDoubles() {
+        final ImplicitSyncQueue syncQueue = new ImplicitSyncQueue(connectionFactory, cryptoService,
+                Collections.singletonMap("user", objectSet), json(object(field("retryDelay", 1000))));
+        assertThat(syncQueue.retryDelayAfter(1)).isEqualTo(1000);
+        assertThat(syncQueue.retryDelayAfter(2)).isEqualTo(2000);
+        assertThat(syncQueue.retryDelayAfter(3)).isEqualTo(4000);
+        assertThat(syncQueue.retryDelayAfter(40)).isEqualTo(3600000);
+    }
+
+    @Test
+    public void testPendingChangesAreCoalescedAndSynchronizedOnce() throws Exception {
+        startQueue(json(object()));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        queue.enqueue(context, "user", USER_ID, notifyUpdate, user("a"), user("b"));
+
+        assertThat(readEntry().get("state").asString()).isEqualTo("PENDING");
+        queue.drain();
+
+        final ArgumentCaptor<JsonValue> newValue = ArgumentCaptor.forClass(JsonValue.class);
+        verify(objectSet).performQueuedSyncAction(any(Context.class), eq(USER_ID), eq(notifyCreate),
+                any(JsonValue.class), newValue.capture());
+        assertThat(newValue.getValue().get("userName").asString()).isEqualTo("b");
+        assertThat(readEntry()).isNull();
+    }
+
+    @Test
+    public void testChangeIsSynchronizedInTheContextOfItsLatestRequest() throws Exception {
+        startQueue(json(object()));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        queue.enqueue(requestContext("transaction-2", "jdoe"), "user", USER_ID, notifyUpdate, user("a"),
+                user("b"));
+        queue.drain();
+
+        final ArgumentCaptor<Context> syncContext = ArgumentCaptor.forClass(Context.class);
+        verify(objectSet).performQueuedSyncAction(syncContext.capture(), eq(USER_ID), eq(notifyCreate),
+                any(JsonValue.class), any(JsonValue.class));
+        assertThat(syncContext.getValue().asContext(TransactionIdContext.class).getTransactionId().getValue())
+                .isEqualTo("transaction-2");
+        final SecurityContext securityContext = syncContext.getValue().asContext(SecurityContext.class);
+        assertThat(securityContext.getAuthenticationId()).isEqualTo("jdoe");
+        assertThat(securityContext.getAuthorization().get(SecurityContext.AUTHZID_ID)).isEqualTo("jdoe");
+    }
+
+    @Test
+    public void testEntryWithoutContextIsSynchronizedAsInternalUser() {
+        final Context restored = ImplicitSyncQueue.restoreContext(json(null));
+        assertThat(restored.asContext(SecurityContext.class).getAuthenticationId())
+                .isEqualTo(ContextUtil.INTERNAL_AUTHENTICATION_ID);
+        assertThat(restored.containsContext(TransactionIdContext.class)).isTrue();
+    }
+
+    @Test
+    public void testCreateAndDeleteCancelOut() throws Exception {
+        startQueue(json(object()));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        queue.enqueue(context, "user", USER_ID, notifyDelete, user("a"), json(null));
+
+        assertThat(readEntry()).isNull();
+    }
+
+    @Test
+    public void testChangeQueuedWhileSynchronizingIsSynchronizedNext() throws Exception {
+        startQueue(json(object()));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        doAnswer(invocation -> {
+            queue.enqueue(context, "user", USER_ID, notifyUpdate, user("a"), user("b"));
+            assertThat(readEntry().get("state").asString()).isEqualTo("CLAIMED");
+            return null;
+        }).doNothing().when(objectSet).performQueuedSyncAction(any(Context.class), eq(USER_ID),
+                any(SyncServiceAction.class), any(JsonValue.class), any(JsonValue.class));
+
+        queue.drain();
+
+        final ArgumentCaptor<SyncServiceAction> action = ArgumentCaptor.forClass(SyncServiceAction.class);
+        verify(objectSet, times(2)).performQueuedSyncAction(any(Context.class), eq(USER_ID), action.capture(),
+                any(JsonValue.class), any(JsonValue.class));
+        assertThat(action.getAllValues()).containsExactly(notifyCreate, notifyUpdate);
+        assertThat(readEntry()).isNull();
+    }
+
+    @Test
+    public void testFailedSyncIsRetriedAfterDelay() throws Exception {
+        startQueue(json(object(field("retryDelay", 60000))));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        doThrow(new InternalServerErrorException("unavailable")).when(objectSet).performQueuedSyncAction(
+                any(Context.class), eq(USER_ID), any(SyncServiceAction.class), any(JsonValue.class),
+                any(JsonValue.class));
+
+        final long before = System.currentTimeMillis();
+        queue.drain();
+        queue.drain();
+
+        verify(objectSet, times(1)).performQueuedSyncAction(any(Context.class), eq(USER_ID),
+                any(SyncServiceAction.class), any(JsonValue.class), any(JsonValue.class));
+        final JsonValue entry = readEntry();
+        assertThat(entry.get("state").asString()).isEqualTo("PENDING");
+        assertThat(entry.get("attempts").asInteger()).isEqualTo(1);
+        assertThat(entry.get("retryAt").asLong()).isGreaterThanOrEqualTo(before + 60000);
+        assertThat(entry.get("lastError").asString()).isEqualTo("unavailable");
+        assertThat(entry.get("claimId").isNull()).isTrue();
+    }
+
+    @Test
+    public void testFailedSyncIsKeptUntilTheObjectChanges() throws Exception {
+        startQueue(json(object(field("retryDelay", 0), field("maxAttempts", 2))));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        final InternalServerErrorException failure = new InternalServerErrorException("unavailable");
+        doThrow(failure).doThrow(failure).doNothing().when(objectSet).performQueuedSyncAction(any(Context.class),
+                eq(USER_ID), any(SyncServiceAction.class), any(JsonValue.class), any(JsonValue.class));
+
+        queue.drain();
+
+        assertThat(readEntry().get("state").asString()).isEqualTo("FAILED");
+        assertThat(readEntry().get("attempts").asInteger()).isEqualTo(2);
+
+        // a further change retries the failed change before it
+        queue.enqueue(context, "user", USER_ID, notifyUpdate, user("a"), user("b"));
+        final JsonValue entry = readEntry();
+        assertThat(entry.get("state").asString()).isEqualTo("PENDING");
+        assertThat(entry.get("attempts").asInteger()).isEqualTo(0);
+        assertThat(entry.get("action").asString()).isEqualTo("notifyCreate");
+        assertThat(entry.get("next").get("action").asString()).isEqualTo("notifyUpdate");
+
+        queue.drain();
+
+        final ArgumentCaptor<SyncServiceAction> action = ArgumentCaptor.forClass(SyncServiceAction.class);
+        verify(objectSet, times(4)).performQueuedSyncAction(any(Context.class), eq(USER_ID), action.capture(),
+                any(JsonValue.class), any(JsonValue.class));
+        assertThat(action.getAllValues()).containsExactly(notifyCreate, notifyCreate, notifyCreate, notifyUpdate);
+        assertThat(readEntry()).isNull();
+    }
+
+    @Test
+    public void testStaleClaimIsRecovered() throws Exception {
+        startQueue(json(object(field("claimTimeout", 1000))));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        final JsonValue stale = readEntry();
+        stale.put("state", "CLAIMED");
+        stale.put("claimedBy", "failed-node");
+        stale.put("claimedAt", 0L);
+        stale.put("claimId", "failed-claim");
+        updateEntry(stale);
+
+        queue.drain();
+
+        verify(objectSet).performQueuedSyncAction(any(Context.class), eq(USER_ID), eq(notifyCreate),
+                any(JsonValue.class), any(JsonValue.class));
+        assertThat(readEntry()).isNull();
+    }
+
+    @Test
+    public void testRecoveredEntryIsNotCompletedByFormerClaim() throws Exception {
+        startQueue(json(object()));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        doAnswer(invocation -> {
+            // another node recovers the entry while it is being synchronized
+            final JsonValue recovered = readEntry();
+            recovered.put("state", "PENDING");
+            recovered.put("claimedBy", null);
+            recovered.put("claimedAt", null);
+            recovered.put("claimId", null);
+            updateEntry(recovered);
+            return null;
+        }).doNothing().when(objectSet).performQueuedSyncAction(any(Context.class), eq(USER_ID),
+                any(SyncServiceAction.class), any(JsonValue.class), any(JsonValue.class));
+
+        queue.drain();
+
+        // the recovered entry is synchronized again rather than removed by the former claim
+        verify(objectSet, times(2)).performQueuedSyncAction(any(Context.class), eq(USER_ID),
+                any(SyncServiceAction.class), any(JsonValue.class), any(JsonValue.class));
+        assertThat(readEntry()).isNull();
+    }
+
+    @Test
+    public void testClaimIsRenewedWhileSynchronizing() throws Exception {
+        startQueue(json(object(field("claimTimeout", 300))));
+        queue.enqueue(context, "user", USER_ID, notifyCreate, json(null), user("a"));
+        final AtomicLong claimedAt = new AtomicLong();
+        final AtomicLong renewedAt = new AtomicLong();
+        doAnswer(invocation -> {
+            claimedAt.set(readEntry().get("claimedAt").asLong());
+            Thread.sleep(500);
+            renewedAt.set(readEntry().get("claimedAt").asLong());
+            return null;
+        }).when(objectSet).performQueuedSyncAction(any(Context.class), eq(USER_ID), any(SyncServiceAction.class),
+                any(JsonValue.class), any(JsonValue.class));
+
+        queue.drain();
+
+        assertThat(renewedAt.get()).isGreaterThan(claimedAt.get());
+        assertThat(readEntry()).isNull();
+    }
+}
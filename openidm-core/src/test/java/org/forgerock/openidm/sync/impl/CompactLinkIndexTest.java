@@ -0,0 +1,89 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+public class CompactLinkIndexTest {
+
+    private static ObjectMapping mapping(boolean sourceCaseSensitive, boolean targetCaseSensitive) {
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        when(mapping.getLinkType()).thenReturn(new LinkType("systemLdapAccounts_managedUser",
+                "system/ldap/account", "managed/user", sourceCaseSensitive, targetCaseSensitive,
+                LinkType.Match.MATCH_EXACT));
+        return mapping;
+    }
+
+    @Test
+    public void testGetCreatesLink() {
+        ObjectMapping mapping = mapping(true, true);
+        CompactLinkIndex index = new CompactLinkIndex(mapping, "default");
+        // enough entries to force several resizes of the table
+        for (int i = 0; i < 5000; i++) {
+            index.add("link" + i, "0", "source" + i, "target" + i);
+        }
+        assertThat(index.size()).isEqualTo(5000);
+
+        Link link = index.get("source42");
+        assertThat(link._id).isEqualTo("link42");
+        assertThat(link._rev).isEqualTo("0");
+        assertThat(link.sourceId).isEqualTo("source42");
+        assertThat(link.targetId).isEqualTo("target42");
+        assertThat(link.linkQualifier).isEqualTo("default");
+        assertThat(link.initialized).isTrue();
+
+        assertThat(index.get("source5000")).isNull();
+        assertThat(index.get("SOURCE42")).isNull();
+        // each lookup creates a new link, none are retained
+        assertThat(index.get("source42")).isNotSameAs(link);
+    }
+
+    @Test
+    public void testCaseInsensitiveIds() {
+        CompactLinkIndex index = new CompactLinkIndex(mapping(false, false), "default");
+        index.add("link1", null, "Source", "Target");
+
+        Link link = index.get("SOURCE");
+        assertThat(link).isNotNull();
+        assertThat(link.sourceId).isEqualTo("source");
+        assertThat(link.targetId).isEqualTo("target");
+        assertThat(link._rev).isNull();
+        assertThat(index.containsKey("source")).isTrue();
+    }
+
+    @Test
+    public void testReplaceAndIterate() {
+        CompactLinkIndex index = new CompactLinkIndex(mapping(true, true), "default");
+        index.add("link1", "0", "source1", "target1");
+        index.add("link2", "0", "source2", "target2");
+        index.add("link3", "1", "source1", "target3");
+
+        assertThat(index.size()).isEqualTo(2);
+        assertThat(index.get("source1").targetId).isEqualTo("target3");
+        int entries = 0;
+        for (Map.Entry<String, Link> entry : index.entrySet()) {
+            assertThat(entry.getValue().sourceId).isEqualTo(entry.getKey());
+            ++entries;
+        }
+        assertThat(entries).isEqualTo(2);
+    }
+}
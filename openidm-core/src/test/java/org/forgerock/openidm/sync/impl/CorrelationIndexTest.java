@@ -0,0 +1,113 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.JsonValue;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class CorrelationIndexTest {
+
+    private Map<String, JsonValue> targets;
+
+    @BeforeMethod
+    public void setUp() {
+        targets = new LinkedHashMap<>();
+        targets.put("1", json(object(field("_id", "1"), field("uid", "bjensen"),
+                field("mail", array("bjensen@example.com", "babs@example.com")), field("employeeNumber", 1))));
+        targets.put("2", json(object(field("_id", "2"), field("uid", "scarter"), field("mail", "SCarter@example.com"),
+                field("employeeNumber", 2))));
+    }
+
+    private static Map<String, Object> queryFilter(String queryFilter) {
+        return object(field("_queryFilter", queryFilter));
+    }
+
+    private static String id(Object result) {
+        return json(result).get("_id").asString();
+    }
+
+    @Test
+    public void testOnlyEqualityConjunctionsAreIndexable() {
+        assertThat(CorrelationIndex.parseEqualities(queryFilter("uid eq \"bjensen\""))).hasSize(1);
+        assertThat(CorrelationIndex.parseEqualities(
+                object(field("_queryFilter", "uid eq \"bjensen\" and mail eq \"a\""), field("_fields", "uid"))))
+                .hasSize(2);
+        assertThat(CorrelationIndex.parseEqualities(queryFilter("uid eq \"a\" or mail eq \"a\""))).isNull();
+        assertThat(CorrelationIndex.parseEqualities(queryFilter("uid sw \"a\""))).isNull();
+        assertThat(CorrelationIndex.parseEqualities(queryFilter("uid eq \"a\" and uid eq \"b\""))).isNull();
+        assertThat(CorrelationIndex.parseEqualities(queryFilter("true"))).isNull();
+        assertThat(CorrelationIndex.parseEqualities(object(field("_queryId", "for-userName"),
+                field("uid", "bjensen")))).isNull();
+    }
+
+    @Test
+    public void testCorrelate() {
+        CorrelationIndex index = new CorrelationIndex(targets, true);
+
+        List<Object> results = index.correlate(queryFilter("mail eq \"babs@example.com\""));
+        assertThat(results).hasSize(1);
+        assertThat(id(results.get(0))).isEqualTo("1");
+        assertThat(index.correlate(queryFilter("employeeNumber eq 2 and uid eq \"scarter\""))).hasSize(1);
+        assertThat(index.correlate(queryFilter("employeeNumber eq 2 and uid eq \"bjensen\""))).isEmpty();
+        assertThat(index.correlate(queryFilter("mail eq \"scarter@example.com\""))).isEmpty();
+        assertThat(index.correlate(queryFilter("uid pr"))).isNull();
+    }
+
+    @Test
+    public void testCorrelateCaseInsensitive() {
+        CorrelationIndex index = new CorrelationIndex(targets, false);
+        assertThat(index.correlate(queryFilter("mail eq \"scarter@example.com\""))).hasSize(1);
+    }
+
+    @Test
+    public void testCorrelateNumbersByValue() {
+        targets.put("3", json(object(field("_id", "3"), field("uid", "tmorris"), field("employeeNumber", 3.0))));
+        CorrelationIndex index = new CorrelationIndex(targets, true);
+
+        assertThat(index.correlate(queryFilter("employeeNumber eq 1.0"))).extracting(CorrelationIndexTest::id)
+                .containsExactly("1");
+        assertThat(index.correlate(queryFilter("employeeNumber eq 3"))).extracting(CorrelationIndexTest::id)
+                .containsExactly("3");
+        assertThat(index.correlate(queryFilter("employeeNumber eq 30"))).isEmpty();
+    }
+
+    @Test
+    public void testTargetChanges() {
+        CorrelationIndex index = new CorrelationIndex(targets, true);
+        assertThat(index.correlate(queryFilter("uid eq \"bjensen\""))).hasSize(1);
+
+        index.targetChanged("3", json(object(field("_id", "3"), field("uid", "bjensen"))));
+        assertThat(index.correlate(queryFilter("uid eq \"bjensen\""))).hasSize(2);
+
+        index.targetChanged("1", json(object(field("_id", "1"), field("uid", "barbara"))));
+        index.targetChanged("2", null);
+        assertThat(index.correlate(queryFilter("uid eq \"bjensen\""))).extracting(CorrelationIndexTest::id)
+                .containsExactly("3");
+        assertThat(index.correlate(queryFilter("uid eq \"barbara\""))).hasSize(1);
+        assertThat(index.correlate(queryFilter("uid eq \"scarter\""))).isEmpty();
+    }
+}
@@ -0,0 +1,310 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.SecurityContext;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LinkWriteBufferTest {
+
+    private ObjectMapping mapping;
+    private Connection connection;
+    private ReconciliationContext reconContext;
+    private Context context;
+    private SyncOperation operation;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        mapping = mock(ObjectMapping.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        when(mapping.getLinkType()).thenReturn(new LinkType("systemLdapAccounts_managedUser",
+                "system/ldap/account", "managed/user", true, true, LinkType.Match.MATCH_EXACT));
+        when(mapping.getSourceObjectSet()).thenReturn("system/ldap/account");
+        when(mapping.getTargetObjectSet()).thenReturn("managed/user");
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        reconContext = mock(ReconciliationContext.class);
+        reconContext.mapping = mapping;
+        when(reconContext.getReconId()).thenReturn("recon1");
+        context = mock(Context.class);
+        when(context.containsContext(SecurityContext.class)).thenReturn(true);
+        operation = mock(SyncOperation.class);
+        when(operation.getSourceObjectId()).thenReturn("source1");
+        when(reconContext.getStatistics()).thenReturn(mock(ReconciliationStatistic.class));
+    }
+
+    /** Creates the recon entry of a sync operation that completed successfully */
+    private ReconAuditEventLogger entry(SyncOperation op) {
+        ReconAuditEventLogger entry = new ReconAuditEventLogger(op, "systemLdapAccounts_managedUser", context);
+        entry.setStatus(Status.SUCCESS);
+        return entry;
+    }
+
+    private Link link(String sourceId) {
+        Link link = new Link(mapping);
+        link.sourceId = sourceId;
+        link.targetId = "target-" + sourceId;
+        link.setLinkQualifier(Link.DEFAULT_LINK_QUALIFIER);
+        return link;
+    }
+
+    private List<JsonValue> bulkRequests() throws Exception {
+        ArgumentCaptor<ActionRequest> request = ArgumentCaptor.forClass(ActionRequest.class);
+        verify(connection, times(1)).action(any(Context.class), request.capture());
+        List<JsonValue> contents = new ArrayList<>();
+        for (ActionRequest actionRequest : request.getAllValues()) {
+            assertThat(actionRequest.getAction()).isEqualTo("bulk");
+            contents.add(actionRequest.getContent());
+        }
+        return contents;
+    }
+
+    /** Hands the writes of the buffer to a pipeline that holds them without executing them */
+    private List<ReconPipeline.Write> holdWrites() throws Exception {
+        final List<ReconPipeline.Write> writes = new ArrayList<>();
+        ReconPipeline pipeline = mock(ReconPipeline.class);
+        doAnswer(invocation -> writes.add(invocation.getArgument(0)))
+                .when(pipeline).write(any(ReconPipeline.Write.class));
+        when(reconContext.getPipeline()).thenReturn(pipeline);
+        return writes;
+    }
+
+    @Test
+    public void testBuffersUntilBatchSize() throws Exception {
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 3, 60000);
+
+        buffer.create(link("a"), context, operation);
+        buffer.create(link("b"), context, operation);
+        verify(connection, never()).action(any(Context.class), any(ActionRequest.class));
+
+        buffer.create(link("c"), context, operation);
+        JsonValue bulk = bulkRequests().get(0);
+        assertThat(bulk.get("create").asList()).hasSize(3);
+        assertThat(bulk.get("update").asList()).isEmpty();
+    }
+
+    @Test
+    public void testFlushWritesLinksInBufferedOrder() throws Exception {
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 100, 60000);
+        Link first = link("a");
+        Link second = link("b");
+        Link updated = link("c");
+        updated._id = "link-c";
+        updated._rev = "3";
+
+        buffer.create(first, context, operation);
+        buffer.update(updated, context, operation);
+        buffer.create(second, context, operation);
+        buffer.flush();
+
+        JsonValue bulk = bulkRequests().get(0);
+        assertThat(bulk.get("create").get(0).get("_id").asString()).isEqualTo(first._id);
+        assertThat(bulk.get("create").get(0).get("firstId").asString()).isEqualTo("a");
+        assertThat(bulk.get("create").get(1).get("_id").asString()).isEqualTo(second._id);
+        assertThat(bulk.get("update").get(0).get("_id").asString()).isEqualTo("link-c");
+        assertThat(bulk.get("update").get(0).get("_rev").asString()).isEqualTo("3");
+        // The revision of a buffered link is unknown until it is read again
+        assertThat(updated._rev).isNull();
+    }
+
+    @Test
+    public void testFlushOfEmptyBufferWritesNothing() throws Exception {
+        new LinkWriteBuffer(reconContext, 100, 60000).flush();
+
+        verify(connection, never()).action(any(Context.class), any(ActionRequest.class));
+    }
+
+    @Test
+    public void testFailedBulkWriteFallsBackToSingleWrites() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class)))
+                .thenThrow(new InternalServerErrorException("bulk"));
+        when(connection.create(any(Context.class), any(CreateRequest.class)))
+                .thenReturn(newResourceResponse("link-a", "1", json(object())))
+                .thenThrow(new InternalServerErrorException("create"));
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 100, 60000);
+        Link updated = link("c");
+        updated._id = "link-c";
+        updated._rev = "3";
+        SyncOperation failing = mock(SyncOperation.class);
+
+        buffer.create(link("a"), context, operation);
+        assertThat(buffer.deferEntry(entry(operation))).isTrue();
+        buffer.create(link("b"), context, failing);
+        ReconAuditEventLogger failed = entry(failing);
+        assertThat(buffer.deferEntry(failed)).isTrue();
+        buffer.update(updated, context, mock(SyncOperation.class));
+        buffer.flush();
+
+        verify(connection, times(2)).create(any(Context.class), any(CreateRequest.class));
+        ArgumentCaptor<UpdateRequest> update = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(connection).update(any(Context.class), update.capture());
+        assertThat(update.getValue().getRevision()).isEqualTo("3");
+        // Each deferred entry is reported once, the entry of the link that still failed as failed
+        ArgumentCaptor<ReconAuditEventLogger> entries = ArgumentCaptor.forClass(ReconAuditEventLogger.class);
+        verify(mapping, times(2)).logEntry(entries.capture(), eq(reconContext));
+        assertThat(entries.getAllValues().get(0).getStatus()).isEqualTo(Status.SUCCESS);
+        assertThat(entries.getAllValues().get(1)).isSameAs(failed);
+        assertThat(failed.getStatus()).isEqualTo(Status.FAILURE);
+        assertThat(failed.getMessage()).contains("create");
+        verify(reconContext.getStatistics()).statusChanged(Status.SUCCESS, Status.FAILURE);
+    }
+
+    @Test
+    public void testEntryDeferredUntilLinkWritten() throws Exception {
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 100, 60000);
+        ReconAuditEventLogger entry = entry(operation);
+
+        buffer.create(link("a"), context, operation);
+        assertThat(buffer.deferEntry(entry)).isTrue();
+        verify(mapping, never()).logEntry(any(ReconAuditEventLogger.class), eq(reconContext));
+
+        buffer.flush();
+        verify(mapping).logEntry(entry, reconContext);
+        assertThat(entry.getStatus()).isEqualTo(Status.SUCCESS);
+        // Entries of operations without a buffered link are reported directly
+        assertThat(buffer.deferEntry(entry(operation))).isFalse();
+    }
+
+    @Test
+    public void testEntryOfLinkFailedBeforeDeferralReportedAsFailed() throws Exception {
+        when(connection.action(any(Context.class), any(ActionRequest.class)))
+                .thenThrow(new InternalServerErrorException("bulk"));
+        when(connection.create(any(Context.class), any(CreateRequest.class)))
+                .thenThrow(new InternalServerErrorException("create"));
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 1, 60000);
+        ReconAuditEventLogger entry = entry(operation);
+
+        // The link fills the batch, so it is written before the entry of its operation is reported
+        buffer.create(link("a"), context, operation);
+        assertThat(buffer.deferEntry(entry)).isFalse();
+
+        assertThat(entry.getStatus()).isEqualTo(Status.FAILURE);
+        verify(mapping, never()).logEntry(any(ReconAuditEventLogger.class), eq(reconContext));
+    }
+
+    @Test
+    public void testAwaitWrittenWritesBufferedLinkAndReadsItsRevision() throws Exception {
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 100, 60000);
+        final Link link = link("a");
+        buffer.create(link, context, operation);
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(invocation -> {
+                    QueryResourceHandler handler = invocation.getArgument(2);
+                    handler.handleResource(newResourceResponse(link._id, "1", json(object(
+                            field("_id", link._id),
+                            field("_rev", "1"),
+                            field("linkType", "systemLdapAccounts_managedUser"),
+                            field("firstId", "a"),
+                            field("secondId", "target-a")))));
+                    return newQueryResponse();
+                });
+
+        buffer.awaitWritten(link);
+
+        assertThat(bulkRequests().get(0).get("create").asList()).hasSize(1);
+        assertThat(link._rev).isEqualTo("1");
+    }
+
+    @Test
+    public void testAwaitWrittenReturnsOnceFailedWriteCompleted() throws Exception {
+        List<ReconPipeline.Write> writes = holdWrites();
+        when(connection.action(any(Context.class), any(ActionRequest.class)))
+                .thenThrow(new InternalServerErrorException("bulk"));
+        when(connection.create(any(Context.class), any(CreateRequest.class)))
+                .thenThrow(new InternalServerErrorException("create"));
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenReturn(newQueryResponse());
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 1, 60000, 1000);
+        Link link = link("a");
+
+        buffer.create(link, context, operation);
+        ReconAuditEventLogger entry = entry(operation);
+        assertThat(buffer.deferEntry(entry)).isTrue();
+        assertThat(writes).hasSize(1);
+        writes.get(0).execute();
+        buffer.awaitWritten(link);
+
+        // The link was not written, so it is not found
+        assertThat(link._id).isNull();
+        verify(mapping).logEntry(entry, reconContext);
+        assertThat(entry.getStatus()).isEqualTo(Status.FAILURE);
+    }
+
+    @Test
+    public void testAwaitWrittenGivesUpOnCancellation() throws Exception {
+        holdWrites();
+        when(reconContext.isCanceled()).thenReturn(true);
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 1, 60000);
+        Link link = link("a");
+        buffer.create(link, context, operation);
+
+        try {
+            buffer.awaitWritten(link);
+            fail("Waiting for a link of a canceled recon must not block");
+        } catch (SynchronizationException e) {
+            assertThat(e.getMessage()).contains("canceled");
+        }
+    }
+
+    @Test
+    public void testAwaitWrittenTimesOut() throws Exception {
+        holdWrites();
+        LinkWriteBuffer buffer = new LinkWriteBuffer(reconContext, 1, 60000, 200);
+        Link link = link("a");
+        buffer.create(link, context, operation);
+
+        try {
+            buffer.awaitWritten(link);
+            fail("Waiting for a link that is never written must time out");
+        } catch (SynchronizationException e) {
+            assertThat(e.getMessage()).contains("Timed out");
+        }
+    }
+}
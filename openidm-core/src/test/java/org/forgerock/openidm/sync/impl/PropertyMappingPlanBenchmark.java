@@ -0,0 +1,142 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.sync.PropertyMapping;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the user objects mapped per second by the compiled {@link PropertyMappingPlan} and by applying each
+ * {@link PropertyMapping} on its own, as sync operations did before, across the number of property mappings. The
+ * user objects carry about eighty attributes, a fifth of them nested, and one property mapping in ten has a default
+ * value for an attribute missing from the source.
+ * <p>
+ * Not run by the unit tests. Run it from the test classpath with:
+ * <pre>
+ * java -cp ... org.forgerock.openidm.sync.impl.PropertyMappingPlanBenchmark
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PropertyMappingPlanBenchmark {
+
+    private static final int USER_ATTRIBUTES = 80;
+
+    @Param({ "10", "40", "80" })
+    public int mappedAttributes;
+
+    private JsonValue source;
+    private List<PropertyMapping> properties;
+    private PropertyMappingPlan plan;
+
+    @Setup
+    public void setup() {
+        source = json(object(
+                field("_id", "bjensen"),
+                field("userName", "bjensen"),
+                field("givenName", "Barbara"),
+                field("sn", "Jensen"),
+                field("mail", "bjensen@example.com"),
+                field("telephoneNumber", "+1 408 555 1862"),
+                field("accountStatus", "active"),
+                field("roles", array("internal/role/openidm-authorized"))));
+        for (int i = source.size(); i < USER_ATTRIBUTES; i++) {
+            if (i % 5 == 0) {
+                source.putPermissive(new JsonPointer("/address/attribute" + i), "value" + i);
+            } else {
+                source.put("attribute" + i, "value" + i);
+            }
+        }
+
+        List<Object> config = new ArrayList<>();
+        for (int i = 0; i < mappedAttributes; i++) {
+            String attribute = i < 8
+                    ? new String[] { "_id", "userName", "givenName", "sn", "mail", "telephoneNumber",
+                            "accountStatus", "roles" }[i]
+                    : i % 5 == 0 ? "/address/attribute" + i : "attribute" + i;
+            if (i % 10 == 9) {
+                config.add(object(field("source", "missing" + i), field("target", "target" + i),
+                        field("default", "default" + i)));
+            } else if (attribute.startsWith("/address/")) {
+                config.add(object(field("source", attribute), field("target", "/location/target" + i)));
+            } else {
+                config.add(object(field("source", attribute), field("target", "target" + i)));
+            }
+        }
+        properties = new ArrayList<>();
+        for (JsonValue property : json(config)) {
+            properties.add(new PropertyMapping(property));
+        }
+        plan = new PropertyMappingPlan(properties);
+    }
+
+    @Benchmark
+    public JsonValue plan() throws SynchronizationException {
+        JsonValue target = json(object());
+        plan.apply(source, null, target, null, Link.DEFAULT_LINK_QUALIFIER, null, null);
+        return target;
+    }
+
+    @Benchmark
+    public JsonValue propertyMappings() throws SynchronizationException {
+        JsonValue target = json(object());
+        for (PropertyMapping property : properties) {
+            property.apply(source, null, target, null, Link.DEFAULT_LINK_QUALIFIER, null);
+        }
+        return target;
+    }
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args not used
+     */
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .include(PropertyMappingPlanBenchmark.class.getSimpleName())
+                .build();
+        new Runner(options).run();
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.array;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.sync.PropertyMapping;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.testng.annotations.Test;
+
+public class PropertyMappingPlanTest {
+
+    private static final JsonValue SOURCE = json(object(
+            field("_id", "bjensen"),
+            field("type", "employee"),
+            field("givenName", "Barbara"),
+            field("sn", "Jensen"),
+            field("mail", "bjensen@example.com"),
+            field("telephoneNumber", null),
+            field("address", object(field("city", "Prague"), field("postalCode", "11000"))),
+            field("phones", array("555-1111", "555-2222"))));
+
+    private static final JsonValue PROPERTIES = json(array(
+            object(field("source", "_id"), field("target", "userName")),
+            object(field("source", "givenName"), field("target", "/name/given")),
+            object(field("source", "sn"), field("target", "/name/family")),
+            object(field("source", "telephoneNumber"), field("target", "phone"), field("default", "none")),
+            object(field("source", "/address/city"), field("target", "/location/city")),
+            object(field("source", "/phones/1"), field("target", "/location/phone")),
+            object(field("source", "missing"), field("target", "status"), field("default", "active")),
+            object(field("target", "accountType"), field("default", "person")),
+            object(field("source", "mail"), field("target", "mail"),
+                    field("condition", "/object/type eq \"contractor\"")),
+            object(field("source", "mail"), field("target", "email"),
+                    field("condition", "/object/type eq \"employee\"")),
+            object(field("source", "address"), field("target", "location")),
+            object(field("source", "sn"), field("target", "/name/family"))));
+
+    private static JsonValue applyEach(JsonValue properties, JsonValue target) throws SynchronizationException {
+        for (JsonValue property : properties) {
+            new PropertyMapping(property).apply(SOURCE, null, target, null, Link.DEFAULT_LINK_QUALIFIER, null);
+        }
+        return target;
+    }
+
+    private static JsonValue applyPlan(JsonValue properties, JsonValue target) throws SynchronizationException {
+        new PropertyMappingPlan(properties).apply(SOURCE, null, target, null, Link.DEFAULT_LINK_QUALIFIER, null, null);
+        return target;
+    }
+
+    @Test
+    public void testPlanMapsAsEachPropertyMapping() throws SynchronizationException {
+        JsonValue target = applyPlan(PROPERTIES, json(object(field("mail", "old@example.com"))));
+
+        assertThat(target.getObject()).isEqualTo(applyEach(PROPERTIES,
+                json(object(field("mail", "old@example.com")))).getObject());
+        assertThat(target.get("userName").asString()).isEqualTo("bjensen");
+        assertThat(target.get("phone").asString()).isEqualTo("none");
+        assertThat(target.get("status").asString()).isEqualTo("active");
+        assertThat(target.get("accountType").asString()).isEqualTo("person");
+        assertThat(target.get("mail").asString()).isEqualTo("old@example.com");
+        assertThat(target.get("email").asString()).isEqualTo("bjensen@example.com");
+        assertThat(target.get("location").asMap()).containsOnlyKeys("city", "postalCode");
+    }
+
+    @Test
+    public void testLastCopyToTheSameTargetWins() throws SynchronizationException {
+        JsonValue properties = json(array(
+                object(field("source", "givenName"), field("target", "displayName")),
+                object(field("source", "sn"), field("target", "displayName"))));
+
+        assertThat(applyPlan(properties, json(object())).get("displayName").asString()).isEqualTo("Jensen");
+    }
+
+    @Test(expectedExceptions = SynchronizationException.class)
+    public void testRootTargetIsRejected() throws SynchronizationException {
+        applyPlan(json(array(object(field("source", "givenName"), field("target", "")))), json(object()));
+    }
+}
@@ -0,0 +1,295 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.assertj.core.api.Assertions.fail;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import javax.script.Bindings;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.forgerock.openidm.util.Scripts;
+import org.forgerock.script.Script;
+import org.forgerock.script.ScriptEntry;
+import org.forgerock.script.ScriptRegistry;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.forgerock.services.context.SecurityContext;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconCheckpointTest {
+
+    private ReconciliationContext runContext;
+    private ReconciliationStatistic runStats;
+    private Connection connection;
+    private TestObjectMapping mapping;
+    private RecordingRecon sourceRecon;
+    private RecordingRecon targetRecon;
+
+    @BeforeClass
+    public void setUpScripts() throws Exception {
+        // The mapping executes its default onRecon script
+        Script script = mock(Script.class);
+        when(script.eval(any(Bindings.class))).thenReturn(true);
+        when(script.createBindings()).thenReturn(mock(Bindings.class));
+        ScriptEntry scriptEntry = mock(ScriptEntry.class);
+        when(scriptEntry.getScript(any(Context.class))).thenReturn(script);
+        ScriptRegistry scriptRegistry = mock(ScriptRegistry.class);
+        when(scriptRegistry.takeScript(any(JsonValue.class))).thenReturn(scriptEntry);
+        Scripts.init(scriptRegistry);
+    }
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        // sources s1, s2 and s3 are linked to targets t1, t2 and t3
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(invocation -> {
+                    QueryResourceHandler handler = invocation.getArgument(2);
+                    for (int i = 1; i <= 3; i++) {
+                        handler.handleResource(newResourceResponse("link" + i, "1", json(object(
+                                field("_id", "link" + i),
+                                field("firstId", "s" + i),
+                                field("secondId", "t" + i),
+                                field("linkQualifier", Link.DEFAULT_LINK_QUALIFIER)))));
+                    }
+                    return newQueryResponse();
+                });
+
+        mapping = new TestObjectMapping(connectionFactory, json(object(
+                field("name", "systemLdapAccounts_managedUser"),
+                field("source", "system/ldap/account"),
+                field("target", "managed/user"),
+                field("prefetchLinks", false),
+                field("reconSourceQueryPaging", true),
+                field("reconSourceQueryPageSize", 2),
+                field("reconCheckpointInterval", 1))));
+        mapping.linkType = new LinkType("systemLdapAccounts_managedUser", "system/ldap/account", "managed/user",
+                true, true, LinkType.Match.MATCH_EXACT);
+        sourceRecon = new RecordingRecon();
+        targetRecon = new RecordingRecon();
+        mapping.sourceRecon = sourceRecon;
+        mapping.targetRecon = targetRecon;
+
+        ReconTypeHandler reconHandler = mock(ReconTypeHandler.class);
+        when(reconHandler.allowEmptySourceSet()).thenReturn(true);
+        when(reconHandler.isRunTargetPhase()).thenReturn(true);
+        runStats = mock(ReconciliationStatistic.class);
+        runContext = mock(ReconciliationContext.class);
+        runContext.mapping = mapping;
+        when(runContext.getReconId()).thenReturn("recon");
+        when(runContext.getReconAction()).thenReturn(ReconciliationService.ReconAction.recon);
+        when(runContext.getStatistics()).thenReturn(runStats);
+        when(runContext.getReconHandler()).thenReturn(reconHandler);
+        // the source set is s1 to s5, in pages of two
+        when(runContext.querySourceIter(anyInt(), nullable(String.class))).thenAnswer(invocation -> {
+            String pagingCookie = invocation.getArgument(1);
+            if (pagingCookie == null) {
+                return page("page2", "s1", "s2");
+            } else if (pagingCookie.equals("page2")) {
+                return page("page3", "s3", "s4");
+            }
+            return page(null, "s5");
+        });
+        when(runContext.queryTarget()).thenAnswer(invocation ->
+                new ResultIterable(Arrays.asList("t1", "t2", "t3", "t4", "t5", "t6"), null));
+
+        ObjectSetContext.push(new SecurityContext(new RootContext(), "openidm-admin", null));
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        ObjectSetContext.pop();
+    }
+
+    private static ReconQueryResult page(String pagingCookie, String... ids) {
+        return new ReconQueryResult(new ResultIterable(Arrays.asList(ids), null), pagingCookie);
+    }
+
+    private static ReconCheckpoint checkpoint(ReconStage stage, String sourcePagingCookie) {
+        return new ReconCheckpoint(newResourceResponse("recon", "1",
+                ReconCheckpoint.content(reconContext(), stage, sourcePagingCookie)));
+    }
+
+    /**
+     * Records the identifiers it reconciles, without claiming any target.
+     */
+    private static class RecordingRecon implements Recon {
+        final List<String> ids = Collections.synchronizedList(new ArrayList<String>());
+
+        @Override
+        public void recon(String id, JsonValue entry, ReconciliationContext reconContext, Context rootContext,
+                Map<String, Map<String, Link>> allLinks, HandledTargetIds handledIds) {
+            ids.add(id);
+        }
+
+        @Override
+        public String getPrefetchObjectSet() {
+            return null;
+        }
+    }
+
+    private static class TestObjectMapping extends ObjectMapping {
+
+        TestObjectMapping(ConnectionFactory connectionFactory, JsonValue config) {
+            super(connectionFactory, config);
+        }
+
+        @Override
+        <T extends AbstractSyncAuditEventBuilder<T>> void logEntry(AbstractSyncAuditEventLogger<T> entry,
+                ReconciliationContext reconContext) {
+            // the recon is not audited
+        }
+    }
+
+    private static ReconciliationContext reconContext() {
+        ReconciliationStatistic stats = mock(ReconciliationStatistic.class);
+        when(stats.getSourceProcessed()).thenReturn(2000);
+        when(stats.partitionResult()).thenReturn(json(object(field("sourceProcessed", 2000))));
+        ReconciliationContext reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getReconId()).thenReturn("recon");
+        when(reconContext.getMapping()).thenReturn("systemLdapAccounts_managedUser");
+        when(reconContext.getReconAction()).thenReturn(ReconciliationService.ReconAction.recon);
+        when(reconContext.getReconParams()).thenReturn(json(object(field("waitForCompletion", "false"))));
+        when(reconContext.getStatistics()).thenReturn(stats);
+        return reconContext;
+    }
+
+    @Test
+    public void testResumeInSourcePhase() {
+        ReconCheckpoint checkpoint = new ReconCheckpoint(newResourceResponse("recon", "1",
+                ReconCheckpoint.content(reconContext(), ReconStage.ACTIVE_RECONCILING_SOURCE, "cookie")));
+
+        assertThat(checkpoint.getReconId()).isEqualTo("recon");
+        assertThat(checkpoint.getRevision()).isEqualTo("1");
+        assertThat(checkpoint.getMapping()).isEqualTo("systemLdapAccounts_managedUser");
+        assertThat(checkpoint.getReconAction()).isEqualTo(ReconciliationService.ReconAction.recon);
+        assertThat(checkpoint.isSourcePhaseCompleted()).isFalse();
+        assertThat(checkpoint.getSourcePagingCookie()).isEqualTo("cookie");
+        assertThat(checkpoint.getReconParams().get("waitForCompletion").asString()).isEqualTo("false");
+        assertThat(checkpoint.getOverridingConfig()).isNull();
+        assertThat(checkpoint.getResult().get("sourceProcessed").asInteger()).isEqualTo(2000);
+    }
+
+    @Test
+    public void testResumeInTargetPhase() {
+        ReconCheckpoint checkpoint = new ReconCheckpoint(newResourceResponse("recon", "2",
+                ReconCheckpoint.content(reconContext(), ReconStage.ACTIVE_RECONCILING_TARGET, null)));
+
+        assertThat(checkpoint.isSourcePhaseCompleted()).isTrue();
+        assertThat(checkpoint.getSourcePagingCookie()).isNull();
+    }
+
+    @Test
+    public void testResumedReconSkipsSourcePagesBeforeCheckpoint() throws Exception {
+        ReconCheckpoint checkpoint = checkpoint(ReconStage.ACTIVE_RECONCILING_SOURCE, "page2");
+        when(runContext.getResumedCheckpoint()).thenReturn(checkpoint);
+
+        mapping.recon(runContext);
+
+        // the first page was reconciled before the checkpoint
+        assertThat(sourceRecon.ids).containsExactly("s3", "s4", "s5");
+        ArgumentCaptor<JsonValue> result = ArgumentCaptor.forClass(JsonValue.class);
+        verify(runStats).mergePartitionResult(result.capture());
+        assertThat(result.getValue().get("sourceProcessed").asInteger()).isEqualTo(2000);
+        // the targets linked to a source are taken as handled by the source phase
+        assertThat(targetRecon.ids).containsExactly("t4", "t5", "t6");
+        verify(runContext).storeCheckpoint(ReconStage.ACTIVE_RECONCILING_SOURCE, "page2");
+        verify(runContext).storeCheckpoint(ReconStage.ACTIVE_RECONCILING_SOURCE, "page3");
+        verify(runContext).storeCheckpoint(ReconStage.ACTIVE_RECONCILING_TARGET, null);
+        verify(runContext).removeCheckpoint();
+    }
+
+    @Test
+    public void testResumedReconInTargetPhaseRebuildsRemainingTargets() throws Exception {
+        when(runContext.getResumedCheckpoint())
+                .thenReturn(checkpoint(ReconStage.ACTIVE_RECONCILING_TARGET, null));
+
+        mapping.recon(runContext);
+
+        assertThat(sourceRecon.ids).isEmpty();
+        assertThat(targetRecon.ids).containsExactly("t4", "t5", "t6");
+        verify(runContext, never()).storeCheckpoint(eq(ReconStage.ACTIVE_RECONCILING_SOURCE),
+                nullable(String.class));
+        verify(runContext).removeCheckpoint();
+    }
+
+    @Test
+    public void testReconResumedByAnotherRunFails() throws Exception {
+        when(runContext.getResumedCheckpoint())
+                .thenReturn(checkpoint(ReconStage.ACTIVE_RECONCILING_SOURCE, "page2"));
+        doThrow(new PreconditionFailedException("Revision mismatch"))
+                .when(runContext).storeCheckpoint(any(ReconStage.class), nullable(String.class));
+
+        try {
+            mapping.recon(runContext);
+            fail("The recon must fail once another run resumed it");
+        } catch (SynchronizationException e) {
+            assertThat(e.getCause()).isInstanceOf(SynchronizationException.class);
+            assertThat(e.getCause().getMessage()).isEqualTo("Recon recon was resumed by another run");
+        }
+
+        assertThat(sourceRecon.ids).isEmpty();
+        assertThat(targetRecon.ids).isEmpty();
+        verify(runContext, never()).removeCheckpoint();
+    }
+
+    @Test
+    public void testCompletedReconRemovesCheckpoint() throws Exception {
+        mapping.recon(runContext);
+
+        assertThat(sourceRecon.ids).containsExactly("s1", "s2", "s3", "s4", "s5");
+        verify(runContext).storeCheckpoint(ReconStage.ACTIVE_RECONCILING_SOURCE, null);
+        verify(runContext).storeCheckpoint(ReconStage.ACTIVE_RECONCILING_SOURCE, "page2");
+        verify(runContext).storeCheckpoint(ReconStage.ACTIVE_RECONCILING_SOURCE, "page3");
+        verify(runContext).removeCheckpoint();
+        // the links are not queried to resume from
+        verify(connection, never()).query(any(Context.class), any(QueryRequest.class),
+                any(QueryResourceHandler.class));
+        verify(runStats, never()).mergePartitionResult(any(JsonValue.class));
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import org.testng.annotations.Test;
+
+public class ReconPartitionTest {
+
+    private static ReconPartition partition(int index, int count) {
+        return new ReconPartition(newResourceResponse(ReconPartition.partitionId("recon", index), "0",
+                json(object(
+                        field("reconId", "recon"),
+                        field("partition", index),
+                        field("partitions", count),
+                        field("state", ReconPartition.State.PENDING.name())))));
+    }
+
+    @Test
+    public void testEachSourceInOnePartition() {
+        LinkType linkType = new LinkType("systemLdapAccounts_managedUser", "system/ldap/account", "managed/user",
+                false, true, LinkType.Match.MATCH_EXACT);
+        ReconPartition[] partitions = new ReconPartition[4];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = partition(i, partitions.length);
+        }
+        for (int id = 0; id < 1000; id++) {
+            int owners = 0;
+            for (ReconPartition partition : partitions) {
+                if (partition.contains("Source" + id, linkType)) {
+                    ++owners;
+                    // case insensitive source ids are assigned regardless of case
+                    assertThat(partition.contains("SOURCE" + id, linkType)).isTrue();
+                }
+            }
+            assertThat(owners).isEqualTo(1);
+        }
+        assertThat(partitions[0].getState()).isEqualTo(ReconPartition.State.PENDING);
+        assertThat(partitions[3].getId()).isEqualTo("recon-3");
+    }
+}
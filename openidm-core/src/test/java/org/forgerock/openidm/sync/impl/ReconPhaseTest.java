@@ -0,0 +1,121 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.services.context.Context;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconPhaseTest {
+
+    private Connection connection;
+    private ReconPhase phase;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        ReconciliationContext reconContext = mock(ReconciliationContext.class);
+        reconContext.mapping = mapping;
+        Recon recon = mock(Recon.class);
+        when(recon.getPrefetchObjectSet()).thenReturn("system/ldap/account");
+        phase = new ReconPhase(Collections.<ResultEntry>emptyIterator(), reconContext, mock(Context.class),
+                new HashMap<>(), null, recon);
+    }
+
+    private static List<ResultEntry> entries() {
+        return Arrays.asList(new ResultEntry("a", null), new ResultEntry("b", json(object(field("_id", "b")))),
+                new ResultEntry("c", null), new ResultEntry("d", null));
+    }
+
+    @Test
+    public void testPrefetchReadsEntriesWithOneQuery() throws Exception {
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(invocation -> {
+                    QueryResourceHandler handler = invocation.getArgument(2);
+                    handler.handleResource(newResourceResponse("a", "1", json(object(field("_id", "a")))));
+                    handler.handleResource(newResourceResponse("c", "1", json(object(field("_id", "c")))));
+                    return newQueryResponse();
+                });
+
+        List<ResultEntry> prefetched = phase.prefetch(entries());
+
+        ArgumentCaptor<QueryRequest> request = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection).query(any(Context.class), request.capture(), any(QueryResourceHandler.class));
+        assertThat(request.getValue().getQueryFilter().toString())
+                .contains("\"a\"", "\"c\"", "\"d\"").doesNotContain("\"b\"");
+        verify(connection, never()).read(any(Context.class), any(ReadRequest.class));
+        assertThat(prefetched).extracting(ResultEntry::getId).containsExactly("a", "b", "c", "d");
+        assertThat(prefetched.get(0).getValue().get("_id").asString()).isEqualTo("a");
+        assertThat(prefetched.get(2).getValue().get("_id").asString()).isEqualTo("c");
+        // an object not found is left to the recon of the entry
+        assertThat(prefetched.get(3).getValue()).isNull();
+    }
+
+    @Test
+    public void testPrefetchReadsEntriesOneByOneIfQueryFails() throws Exception {
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenThrow(new NotSupportedException("query filters not supported"));
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenAnswer(invocation -> {
+            ReadRequest request = invocation.getArgument(1);
+            String id = request.getResourcePathObject().leaf();
+            if (id.equals("d")) {
+                throw new NotFoundException();
+            }
+            return newResourceResponse(id, "1", json(object(field("_id", id))));
+        });
+
+        List<ResultEntry> prefetched = phase.prefetch(entries());
+        phase.prefetch(entries());
+
+        // the query is not attempted again once it failed
+        verify(connection, times(1)).query(any(Context.class), any(QueryRequest.class),
+                any(QueryResourceHandler.class));
+        verify(connection, times(6)).read(any(Context.class), any(ReadRequest.class));
+        assertThat(prefetched.get(0).getValue().get("_id").asString()).isEqualTo("a");
+        assertThat(prefetched.get(2).getValue().get("_id").asString()).isEqualTo("c");
+        assertThat(prefetched.get(3).getValue()).isNull();
+    }
+}
@@ -0,0 +1,202 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.sync.impl.ReconciliationStatistic.DurationMetric;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.openidm.sync.SynchronizationException;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconPipelineTest {
+
+    private static final int PROCESS_THREADS = 2;
+
+    private ReconciliationContext reconContext;
+    private ReconciliationStatistic stats;
+    private ExecutorService processExecutor;
+    private ReconPipeline pipeline;
+
+    /** The writes handed to the pipeline, and the writes executed */
+    private final AtomicInteger handed = new AtomicInteger();
+    private final AtomicInteger executed = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+
+    @BeforeMethod
+    public void setUp() {
+        reconContext = mock(ReconciliationContext.class);
+        stats = mock(ReconciliationStatistic.class);
+        when(reconContext.getStatistics()).thenReturn(stats);
+        when(reconContext.getReconId()).thenReturn("recon1");
+        processExecutor = Executors.newFixedThreadPool(PROCESS_THREADS);
+        handed.set(0);
+        executed.set(0);
+        maxInFlight.set(0);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        processExecutor.shutdownNow();
+        if (pipeline != null) {
+            pipeline.shutdown();
+        }
+    }
+
+    private ReconPipeline pipeline(JsonValue config) {
+        pipeline = new ReconPipeline(reconContext, config);
+        return pipeline;
+    }
+
+    private static List<ResultEntry> entries(int count) {
+        List<ResultEntry> entries = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            entries.add(new ResultEntry("entry" + i, null));
+        }
+        return entries;
+    }
+
+    /**
+     * A recon phase reading the value of each entry, and handing a write to the pipeline for each processed entry.
+     */
+    private class TestPhase extends ReconFeeder {
+        final List<Integer> readBatches = Collections.synchronizedList(new ArrayList<Integer>());
+        final Set<String> processed = ConcurrentHashMap.newKeySet();
+        final Set<String> written = ConcurrentHashMap.newKeySet();
+        volatile String failingId;
+        volatile long writeMillis;
+
+        TestPhase(List<ResultEntry> entries) {
+            super(entries.iterator(), reconContext);
+        }
+
+        @Override
+        List<ResultEntry> prefetch(List<ResultEntry> entries) {
+            readBatches.add(entries.size());
+            List<ResultEntry> read = new ArrayList<>(entries.size());
+            for (ResultEntry entry : entries) {
+                read.add(new ResultEntry(entry.getId(), json(object(field("_id", entry.getId())))));
+            }
+            return read;
+        }
+
+        @Override
+        Callable<Void> createTask(final ResultEntry entry) {
+            return () -> {
+                assertThat(entry.getValue()).isNotNull();
+                processed.add(entry.getId());
+                if (entry.getId().equals(failingId)) {
+                    throw new SynchronizationException("Failed to reconcile " + entry.getId());
+                }
+                handed.incrementAndGet();
+                pipeline.write(() -> {
+                    maxInFlight.accumulateAndGet(handed.get() - executed.incrementAndGet(), Math::max);
+                    if (writeMillis > 0) {
+                        try {
+                            Thread.sleep(writeMillis);
+                        } catch (InterruptedException e) {
+                            Thread.currentThread().interrupt();
+                        }
+                    }
+                    written.add(entry.getId());
+                });
+                return null;
+            };
+        }
+    }
+
+    @Test
+    public void testEntriesFlowThroughAllStages() throws Exception {
+        pipeline(json(object(field("readBatchSize", 100))));
+        TestPhase phase = new TestPhase(entries(250));
+
+        pipeline.execute(phase, processExecutor, PROCESS_THREADS);
+
+        assertThat(phase.processed).hasSize(250);
+        assertThat(phase.written).isEqualTo(phase.processed);
+        assertThat(phase.readBatches).allMatch(size -> size <= 100).contains(100);
+        assertThat(phase.readBatches.stream().mapToInt(Integer::intValue).sum()).isEqualTo(250);
+        verify(stats, atLeastOnce()).addDuration(eq(DurationMetric.readStage), anyLong());
+        verify(stats, atLeastOnce()).addDuration(eq(DurationMetric.processStage), anyLong());
+        verify(stats, atLeastOnce()).addDuration(eq(DurationMetric.writeStage), anyLong());
+    }
+
+    @Test
+    public void testFullWriteQueueThrottlesProcessing() throws Exception {
+        pipeline(json(object(field("writeThreads", 1), field("writeQueueSize", 1))));
+        TestPhase phase = new TestPhase(entries(50));
+        phase.writeMillis = 2;
+
+        pipeline.execute(phase, processExecutor, PROCESS_THREADS);
+
+        assertThat(phase.written).hasSize(50);
+        // besides the queued write, only the writes of the process threads blocked by the full queue are pending
+        assertThat(maxInFlight.get()).isLessThanOrEqualTo(1 + PROCESS_THREADS);
+        verify(stats, atLeastOnce()).addDuration(eq(DurationMetric.writeStageBlocked), anyLong());
+    }
+
+    @Test
+    public void testFailedEntryFailsPhaseWithoutLosingQueuedWrites() throws Exception {
+        pipeline(json(object(field("writeThreads", 1), field("writeQueueSize", 5))));
+        TestPhase phase = new TestPhase(entries(200));
+        phase.failingId = "entry20";
+        phase.writeMillis = 1;
+
+        try {
+            pipeline.execute(phase, processExecutor, PROCESS_THREADS);
+            fail("The phase must fail with the failure of its entry");
+        } catch (SynchronizationException e) {
+            assertThat(e.getMessage()).isEqualTo("Failed to reconcile entry20");
+        }
+
+        assertThat(phase.processed).contains("entry20");
+        // every write handed to the pipeline is executed
+        assertThat(executed.get()).isEqualTo(handed.get());
+        assertThat(phase.written).hasSize(handed.get());
+    }
+
+    @Test
+    public void testWriteOutsidePhaseIsExecutedDirectly() throws Exception {
+        pipeline(json(object()));
+        final AtomicInteger writes = new AtomicInteger();
+
+        pipeline.write(writes::incrementAndGet);
+
+        assertThat(writes.get()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,225 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.audit.util.Status;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ReconTypeDeltaTest {
+
+    private Connection connection;
+    private ReconciliationContext reconContext;
+    private ReconciliationStatistic stats;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        connection = mock(Connection.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        ReconciliationService service = mock(ReconciliationService.class);
+        when(service.getConnectionFactory()).thenReturn(connectionFactory);
+        when(service.getContext()).thenReturn(new RootContext());
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        when(mapping.getConfig()).thenReturn(json(object(
+                field("deltaRecon", object(field("changeProperty", "lastModified"))))));
+        when(mapping.getSourceObjectSet()).thenReturn("system/ldap/account");
+        when(mapping.getTargetObjectSet()).thenReturn("managed/user");
+        stats = mock(ReconciliationStatistic.class);
+        when(stats.getStatusSummary()).thenReturn(Collections.<String, Integer>emptyMap());
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getObjectMapping()).thenReturn(mapping);
+        when(reconContext.getMapping()).thenReturn("systemLdapAccounts_managedUser");
+        when(reconContext.getReconId()).thenReturn("recon");
+        when(reconContext.getService()).thenReturn(service);
+        when(reconContext.getStatistics()).thenReturn(stats);
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenThrow(new NotFoundException());
+    }
+
+    /**
+     * Answers the source query with objects changed at the given times, or without a change time for null.
+     */
+    private void sourceObjects(final String... changeTimes) throws Exception {
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(invocation -> {
+                    QueryResourceHandler handler = invocation.getArgument(2);
+                    for (int i = 0; i < changeTimes.length; i++) {
+                        JsonValue content = json(object(field("_id", "account" + i)));
+                        if (changeTimes[i] != null) {
+                            content.put("lastModified", changeTimes[i]);
+                        }
+                        handler.handleResource(newResourceResponse("account" + i, "1", content));
+                    }
+                    return newQueryResponse();
+                });
+    }
+
+    private void storedMark(String highWaterMark) throws Exception {
+        doReturn(newResourceResponse("systemLdapAccounts_managedUser", "3", json(object(
+                field("mapping", "systemLdapAccounts_managedUser"),
+                field("changeProperty", "lastModified"),
+                field(ReconTypeDelta.PARAM_HIGH_WATER_MARK, highWaterMark)))))
+                .when(connection).read(any(Context.class), any(ReadRequest.class));
+    }
+
+    @Test
+    public void testFirstRunStoresGreatestChange() throws Exception {
+        sourceObjects("2026-01-01T10:00:00Z", "2026-01-03T10:00:00Z", "2026-01-02T10:00:00Z");
+        ReconTypeDelta delta = new ReconTypeDelta(reconContext);
+
+        delta.querySource(0, null);
+        delta.reconCompleted();
+
+        ArgumentCaptor<CreateRequest> create = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(connection).create(any(Context.class), create.capture());
+        assertThat(create.getValue().getNewResourceId()).isEqualTo("systemLdapAccounts_managedUser");
+        assertThat(create.getValue().getContent().get(ReconTypeDelta.PARAM_HIGH_WATER_MARK).asString())
+                .isEqualTo("2026-01-03T10:00:00Z");
+    }
+
+    @Test
+    public void testMarkAdvancesPastStoredMark() throws Exception {
+        storedMark("2026-01-02T10:00:00Z");
+        sourceObjects("2026-01-02T10:00:00Z", "2026-01-04T10:00:00Z");
+        ReconTypeDelta delta = new ReconTypeDelta(reconContext);
+
+        delta.querySource(0, null);
+        delta.reconCompleted();
+
+        ArgumentCaptor<QueryRequest> query = ArgumentCaptor.forClass(QueryRequest.class);
+        verify(connection).query(any(Context.class), query.capture(), any(QueryResourceHandler.class));
+        assertThat(query.getValue().getQueryFilter().toString())
+                .contains("lastModified ge \"2026-01-02T10:00:00Z\"");
+        ArgumentCaptor<UpdateRequest> update = ArgumentCaptor.forClass(UpdateRequest.class);
+        verify(connection).update(any(Context.class), update.capture());
+        assertThat(update.getValue().getRevision()).isEqualTo("3");
+        assertThat(update.getValue().getContent().get(ReconTypeDelta.PARAM_HIGH_WATER_MARK).asString())
+                .isEqualTo("2026-01-04T10:00:00Z");
+    }
+
+    @Test
+    public void testMarkNotAdvancedPastFailedEntries() throws Exception {
+        storedMark("2026-01-02T10:00:00Z");
+        sourceObjects("2026-01-03T10:00:00Z", "2026-01-04T10:00:00Z");
+        when(stats.getStatusSummary()).thenReturn(Collections.singletonMap(Status.FAILURE.toString(), 1));
+        ReconTypeDelta delta = new ReconTypeDelta(reconContext);
+
+        delta.querySource(0, null);
+        delta.reconCompleted();
+
+        verify(connection, never()).update(any(Context.class), any(UpdateRequest.class));
+        verify(connection, never()).create(any(Context.class), any(CreateRequest.class));
+    }
+
+    @Test
+    public void testObjectsWithoutChangeDoNotAdvanceMark() throws Exception {
+        sourceObjects(null, null);
+        ReconTypeDelta delta = new ReconTypeDelta(reconContext);
+
+        delta.querySource(0, null);
+        delta.reconCompleted();
+
+        verify(connection, never()).create(any(Context.class), any(CreateRequest.class));
+        assertThat(delta.getReconParameters().get("deltaRecon").get(ReconTypeDelta.PARAM_HIGH_WATER_MARK).isNull())
+                .isTrue();
+    }
+
+    @Test
+    public void testMarkCappedAtSourceQueryStart() throws Exception {
+        final AtomicReference<Instant> changedBetweenPages = new AtomicReference<>();
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenAnswer(invocation -> {
+                    QueryRequest request = invocation.getArgument(1);
+                    QueryResourceHandler handler = invocation.getArgument(2);
+                    if (request.getPagedResultsCookie() == null) {
+                        handler.handleResource(newResourceResponse("account0", "1", json(object(
+                                field("_id", "account0"), field("lastModified", "2026-01-01T10:00:00.000Z")))));
+                        return newQueryResponse("page2");
+                    }
+                    // account0 changes once its page was read, before account1 changes
+                    changedBetweenPages.set(Instant.now());
+                    handler.handleResource(newResourceResponse("account1", "1", json(object(
+                            field("_id", "account1"),
+                            field("lastModified", changedBetweenPages.get().plusSeconds(1).toString())))));
+                    return newQueryResponse();
+                });
+        ReconTypeDelta delta = new ReconTypeDelta(reconContext);
+
+        String pagingCookie = delta.querySource(1, null).getPagingCookie();
+        delta.querySource(1, pagingCookie);
+        delta.reconCompleted();
+
+        ArgumentCaptor<CreateRequest> create = ArgumentCaptor.forClass(CreateRequest.class);
+        verify(connection).create(any(Context.class), create.capture());
+        String mark = create.getValue().getContent().get(ReconTypeDelta.PARAM_HIGH_WATER_MARK).asString();
+        assertThat(OffsetDateTime.parse(mark).toInstant()).isBeforeOrEqualTo(changedBetweenPages.get());
+    }
+
+    @Test
+    public void testCapMark() {
+        Instant cap = Instant.parse("2026-01-02T10:00:00Z");
+        assertThat(ReconTypeDelta.capMark("2026-01-02T11:30:00+02:00", cap)).isEqualTo("2026-01-02T11:30:00+02:00");
+        assertThat(ReconTypeDelta.capMark("2026-01-02T13:30:00+02:00", cap))
+                .isEqualTo("2026-01-02T12:00:00.000+02:00");
+        assertThat(ReconTypeDelta.capMark("2026-01-03T10:00:00Z", cap)).isEqualTo("2026-01-02T10:00:00.000Z");
+        assertThat(ReconTypeDelta.capMark("20260103100000Z", cap)).isEqualTo("20260103100000Z");
+        assertThat(ReconTypeDelta.capMark(42L, cap)).isEqualTo(42L);
+    }
+
+    @Test
+    public void testCompareTimestampMarks() {
+        assertThat(ReconTypeDelta.compareMarks("2026-01-02T10:00:00Z", "2026-01-01T23:59:59Z")).isPositive();
+        assertThat(ReconTypeDelta.compareMarks("2026-01-01T10:00:00Z", "2026-01-01T10:00:00Z")).isZero();
+        assertThat(ReconTypeDelta.compareMarks("20251231235959Z", "20260101000000Z")).isNegative();
+    }
+
+    @Test
+    public void testCompareSyncTokenMarks() {
+        assertThat(ReconTypeDelta.compareMarks(10, 9L)).isPositive();
+        assertThat(ReconTypeDelta.compareMarks(9007199254740993L, 9007199254740992.0)).isPositive();
+        assertThat(ReconTypeDelta.compareMarks(2.5, 2.5f)).isZero();
+    }
+}
@@ -22,6 +22,7 @@ import static org.forgerock.json.resource.Responses.newQueryResponse;
 import static org.forgerock.json.resource.Responses.newResourceResponse;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.util.Collection;
@@ -29,6 +30,9 @@ import java.util.Collection;
 import org.assertj.core.data.MapEntry;
 import org.forgerock.json.resource.ResourcePath;
 import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.ActionResponse;
+import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.Connection;
 import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.NotFoundException;
@@ -104,6 +108,38 @@ public class ReconciliationServiceTest {
 
     }
 
+    @Test
+    public void testResumeWithoutCheckpoint() throws Exception {
+        //given
+        final ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        final ReconciliationService reconciliationService = createReconciliationService(connectionFactory);
+
+        final Connection connection = mock(Connection.class);
+        final Context context = mock(Context.class);
+        final ActionRequest actionRequest = Requests.newActionRequest("", "resume")
+                .setAdditionalParameter("reconId", "recon");
+
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        when(connection.read(any(Context.class), any(ReadRequest.class))).thenThrow(new NotFoundException());
+
+        Promise<ActionResponse, ResourceException> actionPromise =
+                reconciliationService.handleAction(context, actionRequest);
+        AssertJPromiseAssert.assertThat(actionPromise)
+                .failedWithException()
+                .isInstanceOf(NotFoundException.class);
+        verify(connection).read(any(Context.class), any(ReadRequest.class));
+    }
+
+    @Test
+    public void testResumeWithoutReconId() throws Exception {
+        final ReconciliationService reconciliationService = createReconciliationService(mock(ConnectionFactory.class));
+
+        AssertJPromiseAssert.assertThat(reconciliationService.handleAction(mock(Context.class),
+                Requests.newActionRequest("", "resume")))
+                .failedWithException()
+                .isInstanceOf(BadRequestException.class);
+    }
+
     private ReconciliationService createReconciliationService(final ConnectionFactory connectionFactory) {
         final ReconciliationService reconciliationService = new ReconciliationService();
         reconciliationService.bindConnectionFactory(new IDMConnectionFactoryWrapper(connectionFactory));
@@ -0,0 +1,83 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+public class TargetIdFingerprintsTest {
+
+    @Test
+    public void testAddAndContains() {
+        TargetIdFingerprints fingerprints = new TargetIdFingerprints();
+        // enough entries to force several resizes of the table
+        for (int i = 0; i < 10000; i++) {
+            assertThat(fingerprints.add("Id" + i)).isTrue();
+        }
+        assertThat(fingerprints.add("Id42")).isFalse();
+        assertThat(fingerprints.size()).isEqualTo(10000);
+
+        for (int i = 0; i < 10000; i++) {
+            assertThat(fingerprints.contains("Id" + i)).isTrue();
+        }
+        assertThat(fingerprints.contains("Id10000")).isFalse();
+        assertThat(fingerprints.contains(null)).isFalse();
+    }
+
+    @Test
+    public void testHandledIdsOfPreloadedTargets() {
+        Set<String> remainingIds = new LinkedHashSet<>(Arrays.asList("target1", "target2"));
+        HandledTargetIds handledIds = HandledTargetIds.removingFrom(remainingIds);
+
+        assertThat(handledIds.contains("target1")).isFalse();
+        assertThat(handledIds.add("target1")).isTrue();
+        assertThat(handledIds.add("target1")).isFalse();
+        assertThat(handledIds.contains("target1")).isTrue();
+        assertThat(remainingIds).containsExactly("target2");
+    }
+
+    @Test
+    public void testSpoolKeepsOrderOfRemainingIds() throws Exception {
+        TargetIdFingerprints handled = new TargetIdFingerprints();
+        handled.add("b");
+        handled.add("d");
+
+        List<String> remaining = new ArrayList<>();
+        try (TargetIdSpool spool = new TargetIdSpool("test")) {
+            for (String id : new String[] { "a", "b", "c", "d", "eé" }) {
+                if (!handled.contains(id)) {
+                    spool.add(id);
+                }
+            }
+            assertThat(spool.size()).isEqualTo(3);
+            Iterator<ResultEntry> iter = spool.iterator();
+            while (iter.hasNext()) {
+                ResultEntry entry = iter.next();
+                assertThat(entry.getValue()).isNull();
+                remaining.add(entry.getId());
+            }
+        }
+        assertThat(remaining).containsExactly("a", "c", "eé");
+    }
+}
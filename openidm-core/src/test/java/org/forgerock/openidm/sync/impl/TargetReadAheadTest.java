@@ -0,0 +1,139 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.sync.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.Responses.newQueryResponse;
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.forgerock.json.resource.Connection;
+import org.forgerock.json.resource.ConnectionFactory;
+import org.forgerock.json.resource.NotSupportedException;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.services.context.Context;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TargetReadAheadTest {
+
+    private Connection connection;
+    private ReconciliationContext reconContext;
+    private Map<String, Map<String, Link>> allLinks;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        ObjectMapping mapping = mock(ObjectMapping.class);
+        ConnectionFactory connectionFactory = mock(ConnectionFactory.class);
+        connection = mock(Connection.class);
+        when(mapping.getLinkType()).thenReturn(new LinkType("systemLdapAccounts_managedUser",
+                "system/ldap/account", "managed/user", true, true, LinkType.Match.MATCH_EXACT));
+        when(mapping.getTargetObjectSet()).thenReturn("managed/user");
+        when(mapping.getConnectionFactory()).thenReturn(connectionFactory);
+        when(connectionFactory.getConnection()).thenReturn(connection);
+        reconContext = mock(ReconciliationContext.class);
+        when(reconContext.getObjectMapping()).thenReturn(mapping);
+        when(reconContext.getStatistics()).thenReturn(mock(ReconciliationStatistic.class));
+
+        Map<String, Link> links = new HashMap<>();
+        for (int i = 0; i < 5; i++) {
+            Link link = new Link(mapping);
+            link.sourceId = "source" + i;
+            link.targetId = "target" + i;
+            links.put(link.sourceId, link);
+        }
+        allLinks = new HashMap<>();
+        allLinks.put(Link.DEFAULT_LINK_QUALIFIER, links);
+    }
+
+    private static List<ResultEntry> entries(String... ids) {
+        List<ResultEntry> entries = new ArrayList<>();
+        for (String id : ids) {
+            entries.add(new ResultEntry(id, null));
+        }
+        return entries;
+    }
+
+    @Test
+    public void testReadsLinkedTargetsAheadPerWindow() throws Exception {
+        ArgumentCaptor<QueryRequest> requests = ArgumentCaptor.forClass(QueryRequest.class);
+        when(connection.query(any(Context.class), requests.capture(), any(QueryResourceHandler.class)))
+                .thenAnswer(invocation -> {
+                    QueryResourceHandler handler = invocation.getArgument(2);
+                    // target3 is not found by the query
+                    for (String id : Arrays.asList("target0", "target1", "target2", "target4")) {
+                        handler.handleResource(newResourceResponse(id, "1", json(object(field("_id", id)))));
+                    }
+                    return newQueryResponse();
+                });
+        TargetReadAhead readAhead = new TargetReadAhead(
+                entries("source0", "source1", "unlinked", "source3", "source4").iterator(),
+                reconContext, mock(Context.class), allLinks, 3);
+
+        List<String> ids = new ArrayList<>();
+        ids.add(readAhead.next().getId());
+        assertThat(readAhead.take("target0").get("_id").asString()).isEqualTo("target0");
+        assertThat(readAhead.take("target0")).isNull();
+        while (readAhead.hasNext()) {
+            ids.add(readAhead.next().getId());
+        }
+
+        assertThat(ids).containsExactly("source0", "source1", "unlinked", "source3", "source4");
+        verify(connection, times(2)).query(any(Context.class), any(QueryRequest.class),
+                any(QueryResourceHandler.class));
+        assertThat(requests.getAllValues().get(0).getResourcePath()).isEqualTo("managed/user");
+        assertThat(requests.getAllValues().get(0).getQueryFilter().toString())
+                .contains("\"target0\"", "\"target1\"").doesNotContain("target3");
+        assertThat(readAhead.take("target1")).isNotNull();
+        assertThat(readAhead.take("target3")).isNull();
+        assertThat(readAhead.take("target4")).isNotNull();
+    }
+
+    @Test
+    public void testFailedQueryTurnsReadAheadOff() throws Exception {
+        when(connection.query(any(Context.class), any(QueryRequest.class), any(QueryResourceHandler.class)))
+                .thenThrow(new NotSupportedException());
+        TargetReadAhead readAhead = new TargetReadAhead(
+                entries("source0", "source1", "source2", "source3").iterator(),
+                reconContext, mock(Context.class), allLinks, 2);
+
+        int entries = 0;
+        while (readAhead.hasNext()) {
+            readAhead.next();
+            ++entries;
+        }
+
+        assertThat(entries).isEqualTo(4);
+        verify(connection, times(1)).query(any(Context.class), any(QueryRequest.class),
+                any(QueryResourceHandler.class));
+        assertThat(readAhead.take("target0")).isNull();
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.crypto.impl;
+
+import java.security.Key;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.forgerock.json.crypto.JsonCryptoException;
+import org.forgerock.json.crypto.simple.SimpleKeySelector;
+
+/**
+ * A {@link SimpleKeySelector} remembering the keys selected by another selector, so that a key is recovered from the
+ * keystore once rather than for each encrypted or decrypted value. Keys not found are not remembered, so a key added
+ * later is found; the remembered keys are forgotten with {@link #clear()} when the keystore changes.
+ */
+class CachingKeySelector implements SimpleKeySelector {
+
+    private final SimpleKeySelector keySelector;
+
+    /** The selected keys, by alias */
+    private final ConcurrentMap<String, Key> keys = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a key selector remembering the keys of another selector.
+     *
+     * @param keySelector the selector recovering the keys.
+     */
+    CachingKeySelector(SimpleKeySelector keySelector) {
+        this.keySelector = keySelector;
+    }
+
+    @Override
+    public Key select(String alias) throws JsonCryptoException {
+        Key key = keys.get(alias);
+        if (key == null) {
+            key = keySelector.select(alias);
+            if (key != null) {
+                keys.put(alias, key);
+            }
+        }
+        return key;
+    }
+
+    /**
+     * Forgets the selected keys.
+     */
+    void clear() {
+        keys.clear();
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS
- * Portions Copyright 2020 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 
 // TODO: Expose as a set of resource actions.
@@ -25,6 +25,10 @@ import static org.forgerock.json.JsonValueFunctions.identity;
 
 import java.io.IOException;
 import java.security.Key;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import org.forgerock.json.JsonException;
 import org.forgerock.json.JsonValue;
@@ -37,15 +41,18 @@ import org.forgerock.json.crypto.simple.SimpleDecryptor;
 import org.forgerock.json.crypto.simple.SimpleEncryptor;
 import org.forgerock.json.crypto.simple.SimpleKeySelector;
 import org.forgerock.json.crypto.simple.SimpleKeyStoreSelector;
+import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.core.ServerConstants;
 import org.forgerock.openidm.crypto.CryptoConstants;
 import org.forgerock.openidm.crypto.CryptoService;
 import org.forgerock.openidm.crypto.FieldStorageScheme;
+import org.forgerock.openidm.crypto.PBKDF2FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedMD5FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedSHA1FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedSHA256FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedSHA384FieldStorageScheme;
 import org.forgerock.openidm.crypto.SaltedSHA512FieldStorageScheme;
+import org.forgerock.openidm.keystore.KeyStoreListener;
 import org.forgerock.openidm.keystore.KeyStoreService;
 import org.forgerock.openidm.util.JsonUtil;
 import org.forgerock.util.Function;
@@ -69,8 +76,28 @@ import org.slf4j.LoggerFactory;
 public class CryptoServiceImpl implements CryptoService {
 
     private final static Logger logger = LoggerFactory.getLogger(CryptoServiceImpl.class);
+
+    /** The property setting the number of iterations of newly hashed PBKDF2 fields */
+    private static final String PBKDF2_ITERATIONS_PROPERTY = "openidm.crypto.pbkdf2.iterations";
+
+    /** Field storage schemes by algorithm; the schemes are thread safe, so a scheme is shared by all requests */
+    private final ConcurrentMap<String, FieldStorageScheme> fieldStorageSchemes = new ConcurrentHashMap<>();
+    /**
+     * Encryptors by cipher and key alias; an encryptor creates its {@code Cipher} for each value, so an encryptor is
+     * shared by all requests
+     */
+    private final ConcurrentMap<String, JsonEncryptor> encryptors = new ConcurrentHashMap<>();
     private Function<JsonValue, JsonValue, JsonValueException> decryptionFunction = identity();
-    private SimpleKeySelector keySelector;
+    private CachingKeySelector keySelector;
+
+    /** Discards the selected keys and the encryptors using them when the keystore changes */
+    private final KeyStoreListener keyStoreListener = new KeyStoreListener() {
+        @Override
+        public void keyStoreChanged(KeyStoreService keyStoreService) {
+            logger.debug("Keystore changed, discarding cached keys and encryptors");
+            clearCaches();
+        }
+    };
 
     @Reference(target="(service.pid=org.forgerock.openidm.keystore)")
     private KeyStoreService keyStoreService;
@@ -90,7 +117,7 @@ public class CryptoServiceImpl implements CryptoService {
      */
     public CryptoServiceImpl(final SimpleKeySelector keySelector,
             final Function<JsonValue, JsonValue, JsonValueException> decryptionFunction) {
-        this.keySelector = keySelector;
+        this.keySelector = new CachingKeySelector(keySelector);
         this.decryptionFunction = decryptionFunction;
     }
 
@@ -103,10 +130,11 @@ public class CryptoServiceImpl implements CryptoService {
         logger.debug("Activating cryptography service");
         try {
             keySelector =
-                    new SimpleKeyStoreSelector(
+                    new CachingKeySelector(new SimpleKeyStoreSelector(
                             keyStoreService.getKeyStore(),
-                            keyStoreService.getKeyStoreDetails().getPassword());
+                            keyStoreService.getKeyStoreDetails().getPassword()));
             decryptionFunction = new JsonDecryptFunction(new SimpleDecryptor(keySelector));
+            keyStoreService.addListener(keyStoreListener);
         } catch (final JsonValueException jve) {
             logger.error("Exception when loading CryptoService configuration", jve);
             throw jve;
@@ -114,20 +142,39 @@ public class CryptoServiceImpl implements CryptoService {
     }
 
     public void deactivate(@SuppressWarnings("unused") BundleContext context) {
+        keyStoreService.removeListener(keyStoreListener);
         decryptionFunction = identity();
         keySelector = null;
+        encryptors.clear();
         logger.info("CryptoService stopped.");
     }
 
+    /**
+     * Discards the selected keys and the encryptors using them, so that they are selected again from the keystore.
+     */
+    void clearCaches() {
+        final CachingKeySelector selector = keySelector;
+        if (selector != null) {
+            selector.clear();
+        }
+        encryptors.clear();
+    }
+
     @Override
     public JsonEncryptor getEncryptor(String cipher, String alias) throws JsonCryptoException {
-        Key key = keySelector.select(alias);
-        if (key == null) {
-            String msg = "Encryption key " + alias + " not found";
-            logger.error(msg);
-            throw new JsonCryptoException(msg);
+        final String encryptorKey = cipher + ":" + alias;
+        JsonEncryptor encryptor = encryptors.get(encryptorKey);
+        if (encryptor == null) {
+            Key key = keySelector.select(alias);
+            if (key == null) {
+                String msg = "Encryption key " + alias + " not found";
+                logger.error(msg);
+                throw new JsonCryptoException(msg);
+            }
+            encryptor = new SimpleEncryptor(cipher, key, alias);
+            encryptors.put(encryptorKey, encryptor);
         }
-        return new SimpleEncryptor(cipher, key, alias);
+        return encryptor;
     }
 
     @Override
@@ -146,6 +193,19 @@ public class CryptoServiceImpl implements CryptoService {
         return result;
     }
 
+    @Override
+    public List<JsonValue> encryptAll(List<JsonValue> values, String cipher, String alias)
+            throws JsonCryptoException, JsonException {
+        final JsonEncryptor encryptor = getEncryptor(cipher, alias);
+        final List<JsonValue> results = new ArrayList<>(values.size());
+        for (JsonValue value : values) {
+            results.add(value != null
+                    ? new JsonCrypto(encryptor.getType(), encryptor.encrypt(value)).toJsonValue()
+                    : null);
+        }
+        return results;
+    }
+
     @Override
     public JsonValue decrypt(JsonValue value) throws JsonValueException {
         return value != null
@@ -153,6 +213,16 @@ public class CryptoServiceImpl implements CryptoService {
                 : null;
     }
 
+    @Override
+    public List<JsonValue> decryptAll(List<JsonValue> values) throws JsonValueException {
+        final Function<JsonValue, JsonValue, JsonValueException> function = decryptionFunction;
+        final List<JsonValue> results = new ArrayList<>(values.size());
+        for (JsonValue value : values) {
+            results.add(value != null ? function.apply(value) : null);
+        }
+        return results;
+    }
+
     @Override
     public JsonValue decrypt(String value) throws JsonException {
         JsonValue jsonValue = JsonUtil.parseStringified(value);
@@ -231,6 +301,18 @@ public class CryptoServiceImpl implements CryptoService {
      * @throws JsonCryptoException
      */
     private FieldStorageScheme getFieldStorageScheme(String algorithm) throws JsonCryptoException {
+        FieldStorageScheme fieldStorageScheme = fieldStorageSchemes.get(algorithm);
+        if (fieldStorageScheme == null) {
+            fieldStorageScheme = newFieldStorageScheme(algorithm);
+            FieldStorageScheme existing = fieldStorageSchemes.putIfAbsent(algorithm, fieldStorageScheme);
+            if (existing != null) {
+                fieldStorageScheme = existing;
+            }
+        }
+        return fieldStorageScheme;
+    }
+
+    private FieldStorageScheme newFieldStorageScheme(String algorithm) throws JsonCryptoException {
         try {
             if (algorithm.equals(CryptoConstants.ALGORITHM_MD5)) {
                 return new SaltedMD5FieldStorageScheme();
@@ -242,6 +324,8 @@ public class CryptoServiceImpl implements CryptoService {
                 return new SaltedSHA384FieldStorageScheme();
             } else if (algorithm.equals(CryptoConstants.ALGORITHM_SHA_512)) {
                 return new SaltedSHA512FieldStorageScheme();
+            } else if (algorithm.equals(CryptoConstants.ALGORITHM_PBKDF2_SHA_256)) {
+                return new PBKDF2FieldStorageScheme(getPBKDF2Iterations());
             } else {
                 throw new JsonCryptoException("Unsupported field storage algorithm " + algorithm);
             }
@@ -252,6 +336,17 @@ public class CryptoServiceImpl implements CryptoService {
         }
     }
 
+    /**
+     * Returns the number of iterations of newly hashed PBKDF2 fields, as set by the
+     * {@value #PBKDF2_ITERATIONS_PROPERTY} property. The shell hashes values without a server, and so uses the default.
+     */
+    private static int getPBKDF2Iterations() {
+        return IdentityServer.isInitialized()
+                ? Integer.parseInt(IdentityServer.getInstance().getProperty(PBKDF2_ITERATIONS_PROPERTY,
+                        String.valueOf(PBKDF2FieldStorageScheme.DEFAULT_ITERATIONS)))
+                : PBKDF2FieldStorageScheme.DEFAULT_ITERATIONS;
+    }
+
     @Override
     public boolean matches(String plainTextValue, JsonValue value) throws JsonCryptoException {
         if (isHashed(value)) {
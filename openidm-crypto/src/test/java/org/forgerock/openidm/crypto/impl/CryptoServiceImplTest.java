@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openidm.crypto.impl;
@@ -20,8 +21,19 @@ import static org.assertj.core.api.Assertions.assertThat;
 import static org.forgerock.json.JsonValue.*;
 import static org.forgerock.openidm.util.JsonUtil.writeValueAsString;
 
+import java.security.Key;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.crypto.KeyGenerator;
+
 import com.fasterxml.jackson.core.JsonProcessingException;
 import org.forgerock.json.JsonValue;
+import org.forgerock.json.crypto.JsonCryptoException;
+import org.forgerock.json.crypto.JsonDecryptFunction;
+import org.forgerock.json.crypto.simple.SimpleDecryptor;
+import org.forgerock.json.crypto.simple.SimpleKeySelector;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -29,6 +41,8 @@ public class CryptoServiceImplTest {
 
     private final static JsonValue JSON_OBJECT = json(object(field("password", "myPassw0rd")));
     private final static JsonValue JSON_ARRAY = json(array("v1", "v2"));
+    private final static String CIPHER = "AES/CBC/PKCS5Padding";
+    private final static String ALIAS = "openidm-sym-default";
 
     @DataProvider
     public Object[][] normalizeValueBeforeHashData() throws JsonProcessingException {
@@ -54,4 +68,66 @@ public class CryptoServiceImplTest {
         assertThat(actualOutput).isEqualTo(expectedOutput);
     }
 
+    @Test
+    public void testEncryptorIsReusedUntilKeyStoreChanges() throws Exception {
+        // given
+        final CountingKeySelector keySelector = new CountingKeySelector();
+        final CryptoServiceImpl cryptoService = new CryptoServiceImpl(keySelector, null);
+
+        // when
+        cryptoService.encrypt(json("v1"), CIPHER, ALIAS);
+        cryptoService.encrypt(json("v2"), CIPHER, ALIAS);
+
+        // then
+        assertThat(cryptoService.getEncryptor(CIPHER, ALIAS)).isSameAs(cryptoService.getEncryptor(CIPHER, ALIAS));
+        assertThat(keySelector.selections.get()).isEqualTo(1);
+
+        // when
+        cryptoService.clearCaches();
+        cryptoService.encrypt(json("v3"), CIPHER, ALIAS);
+
+        // then
+        assertThat(keySelector.selections.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testEncryptAllAndDecryptAll() throws Exception {
+        // given
+        final CountingKeySelector keySelector = new CountingKeySelector();
+        final CryptoServiceImpl cryptoService = new CryptoServiceImpl(keySelector,
+                new JsonDecryptFunction(new SimpleDecryptor(keySelector)));
+        final List<JsonValue> values = Arrays.asList(json("v1"), null, JSON_OBJECT);
+
+        // when
+        final List<JsonValue> encrypted = cryptoService.encryptAll(values, CIPHER, ALIAS);
+        final List<JsonValue> decrypted = cryptoService.decryptAll(encrypted);
+
+        // then
+        assertThat(cryptoService.isEncrypted(encrypted.get(0))).isTrue();
+        assertThat(encrypted.get(1)).isNull();
+        assertThat(cryptoService.isEncrypted(encrypted.get(2))).isTrue();
+        assertThat(decrypted.get(0).asString()).isEqualTo("v1");
+        assertThat(decrypted.get(1)).isNull();
+        assertThat(decrypted.get(2).getObject()).isEqualTo(JSON_OBJECT.getObject());
+    }
+
+    /**
+     * Selects a single AES key, counting the selections.
+     */
+    private static class CountingKeySelector implements SimpleKeySelector {
+        private final AtomicInteger selections = new AtomicInteger();
+        private final Key key;
+
+        CountingKeySelector() throws Exception {
+            KeyGenerator generator = KeyGenerator.getInstance("AES");
+            generator.init(128);
+            key = generator.generateKey();
+        }
+
+        @Override
+        public Key select(String alias) throws JsonCryptoException {
+            selections.incrementAndGet();
+            return ALIAS.equals(alias) ? key : null;
+        }
+    }
 }
@@ -0,0 +1,31 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.keystore;
+
+/**
+ * Listener notified when the entries of a {@link KeyStoreService} {@link java.security.KeyStore} change, so that
+ * anything derived from its keys, such as resolved keys or encryptors, can be discarded.
+ */
+public interface KeyStoreListener {
+
+    /**
+     * Called after the {@link java.security.KeyStore} of the {@link KeyStoreService} was stored, once keys or
+     * certificates were added, replaced or removed.
+     *
+     * @param keyStoreService the {@link KeyStoreService} whose {@link java.security.KeyStore} changed.
+     */
+    void keyStoreChanged(KeyStoreService keyStoreService);
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.keystore;
 
@@ -40,4 +41,16 @@ public interface KeyStoreService {
      * @throws GeneralSecurityException if unable to store the {@link KeyStore}.
      */
     void store() throws GeneralSecurityException;
+
+    /**
+     * Registers a {@link KeyStoreListener} notified each time the {@link KeyStore} is stored.
+     * @param listener the {@link KeyStoreListener}.
+     */
+    void addListener(KeyStoreListener listener);
+
+    /**
+     * Unregisters a {@link KeyStoreListener}.
+     * @param listener the {@link KeyStoreListener}.
+     */
+    void removeListener(KeyStoreListener listener);
 }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.keystore.impl;
 
@@ -28,10 +29,13 @@ import java.security.NoSuchAlgorithmException;
 import java.security.Provider;
 import java.security.Security;
 import java.security.cert.CertificateException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.keystore.KeyStoreDetails;
+import org.forgerock.openidm.keystore.KeyStoreListener;
 import org.forgerock.openidm.keystore.KeyStoreService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -54,6 +58,9 @@ abstract class AbstractKeyStoreService implements KeyStoreService {
      */
     protected final KeyStoreInitializer keyStoreInitializer;
 
+    /** The listeners notified when the {@link KeyStore} is stored. */
+    private final List<KeyStoreListener> listeners = new CopyOnWriteArrayList<>();
+
     /**
      * Constructs an {@link AbstractKeyStoreService} given the Identity Server properties to lookup the
      * {@link KeyStoreDetails}.
@@ -112,6 +119,31 @@ abstract class AbstractKeyStoreService implements KeyStoreService {
                 logger.warn("Unable to store keystore", e);
                 throw new GeneralSecurityException("Unable to store keystore", e);
             }
+            notifyListeners();
+        }
+    }
+
+    @Override
+    public void addListener(final KeyStoreListener listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void removeListener(final KeyStoreListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies the registered {@link KeyStoreListener}s that the {@link KeyStore} changed. A failing listener does not
+     * prevent the others from being notified.
+     */
+    void notifyListeners() {
+        for (final KeyStoreListener listener : listeners) {
+            try {
+                listener.keyStoreChanged(this);
+            } catch (final RuntimeException e) {
+                logger.warn("Unable to notify keystore listener", e);
+            }
         }
     }
 
@@ -0,0 +1,192 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Dispatches the deltas of a live synchronization change set to a fixed number of worker lanes.
+ * <p>
+ * A delta is assigned to a lane by the hash of its UID, and each lane processes its deltas one at a
+ * time in the order they were dispatched, so the changes of an object are applied in order while the
+ * changes of different objects are applied concurrently.
+ * <p>
+ * The token of the dispatcher only advances to the token of the last delta of the longest prefix of
+ * the change set which completed, so a live synchronization resumed from it never skips a delta. Once
+ * a delta fails, no further deltas are accepted and the token does not advance past the failed delta.
+ */
+class SyncDeltaDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyncDeltaDispatcher.class);
+
+    /** Default maximum number of dispatched deltas per lane that have not completed */
+    static final int DEFAULT_MAX_PENDING_PER_LANE = 100;
+
+    /**
+     * Processes a single delta.
+     */
+    interface DeltaProcessor {
+        /**
+         * @param syncDelta the delta to process
+         * @return true if the delta was processed, false if the change set should be retried from it
+         */
+        boolean process(SyncDelta syncDelta);
+    }
+
+    private final ExecutorService[] lanes;
+    private final DeltaProcessor processor;
+    private final Semaphore pending;
+    private final int maxPending;
+
+    /** Tokens of the completed deltas past the last contiguous completed delta, by sequence */
+    private final Map<Long, SyncToken> completed = new HashMap<>();
+    private long nextSequence = 0;
+    private long nextCompleted = 0;
+    private SyncToken lastToken;
+    private volatile boolean failed = false;
+    private volatile RuntimeException error;
+
+    /**
+     * Creates a dispatcher with its worker lanes.
+     *
+     * @param source the name of the source of the change set, to name the lane threads by
+     * @param laneCount the number of worker lanes
+     * @param maxPendingPerLane the maximum number of dispatched deltas per lane that have not completed
+     * @param token the token the change set is read from
+     * @param processor the processor of the deltas
+     */
+    SyncDeltaDispatcher(String source, int laneCount, int maxPendingPerLane, SyncToken token,
+            DeltaProcessor processor) {
+        this.lanes = new ExecutorService[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            final String threadName = "livesync-" + source + "-lane-" + i;
+            lanes[i] = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable runnable) {
+                    Thread thread = new Thread(runnable, threadName);
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+        this.processor = processor;
+        this.maxPending = laneCount * maxPendingPerLane;
+        this.pending = new Semaphore(maxPending);
+        this.lastToken = token;
+    }
+
+    /**
+     * Dispatches a delta to its lane, waiting while too many deltas are pending.
+     *
+     * @param syncDelta the delta
+     * @return true if the delta was dispatched, false if a previous delta failed and the change set
+     *         should not be read any further
+     */
+    boolean dispatch(final SyncDelta syncDelta) {
+        if (failed) {
+            return false;
+        }
+        try {
+            pending.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while dispatching sync delta", e);
+        }
+        final long sequence = nextSequence++;
+        lanes[Math.floorMod(syncDelta.getUid().getUidValue().hashCode(), lanes.length)].execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // deltas after a failure are skipped, the change set is retried from the failed delta
+                    complete(sequence, syncDelta.getToken(), !failed && processor.process(syncDelta));
+                } catch (RuntimeException e) {
+                    logger.debug("Failed to process sync delta {}", syncDelta.getUid(), e);
+                    error = e;
+                    complete(sequence, syncDelta.getToken(), false);
+                } finally {
+                    pending.release();
+                }
+            }
+        });
+        return true;
+    }
+
+    private synchronized void complete(long sequence, SyncToken token, boolean success) {
+        if (!success) {
+            failed = true;
+            return;
+        }
+        completed.put(sequence, token);
+        while (completed.containsKey(nextCompleted)) {
+            lastToken = completed.remove(nextCompleted++);
+        }
+    }
+
+    /**
+     * Waits until all dispatched deltas have completed.
+     *
+     * @throws RuntimeException the exception thrown by the processor of a delta, if any
+     */
+    void awaitCompletion() {
+        try {
+            pending.acquire(maxPending);
+            pending.release(maxPending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for sync deltas", e);
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Stops the worker lanes, once the deltas they have been dispatched have completed.
+     */
+    void close() {
+        for (ExecutorService lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ExecutorService lane : lanes) {
+                while (!lane.awaitTermination(1, TimeUnit.MINUTES)) {
+                    logger.debug("Waiting for sync deltas to complete");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * @return the token of the last delta of the completed prefix of the change set, or the token the
+     *         change set was read from if no delta completed
+     */
+    synchronized SyncToken getLastToken() {
+        return lastToken;
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.provisioner.openicf.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.identityconnectors.framework.common.objects.ObjectClass;
+import org.identityconnectors.framework.common.objects.SyncDelta;
+import org.identityconnectors.framework.common.objects.SyncDeltaBuilder;
+import org.identityconnectors.framework.common.objects.SyncDeltaType;
+import org.identityconnectors.framework.common.objects.SyncToken;
+import org.identityconnectors.framework.common.objects.Uid;
+import org.testng.annotations.Test;
+
+public class SyncDeltaDispatcherTest {
+
+    private static SyncDelta delta(String uid, int token) {
+        return new SyncDeltaBuilder()
+                .setDeltaType(SyncDeltaType.DELETE)
+                .setObjectClass(ObjectClass.ACCOUNT)
+                .setUid(new Uid(uid))
+                .setToken(new SyncToken(token))
+                .build();
+    }
+
+    @Test
+    public void testOrderedPerUid() {
+        final Map<String, List<Integer>> processed = new ConcurrentHashMap<>();
+        final Set<String> threadNames = ConcurrentHashMap.newKeySet();
+        SyncDeltaDispatcher dispatcher = new SyncDeltaDispatcher("ldap-account", 4, 10, new SyncToken(0),
+                new SyncDeltaDispatcher.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        threadNames.add(Thread.currentThread().getName());
+                        processed.computeIfAbsent(syncDelta.getUid().getUidValue(),
+                                k -> Collections.synchronizedList(new ArrayList<Integer>()))
+                                .add((Integer) syncDelta.getToken().getValue());
+                        return true;
+                    }
+                });
+        for (int token = 1; token <= 1000; token++) {
+            assertThat(dispatcher.dispatch(delta("uid" + token % 10, token))).isTrue();
+        }
+        dispatcher.awaitCompletion();
+        dispatcher.close();
+
+        assertThat(processed).hasSize(10);
+        for (List<Integer> tokens : processed.values()) {
+            assertThat(tokens).hasSize(100).isSorted();
+        }
+        assertThat(dispatcher.getLastToken().getValue()).isEqualTo(1000);
+        assertThat(threadNames).isNotEmpty().allMatch(name -> name.startsWith("livesync-ldap-account-lane-"));
+    }
+
+    @Test
+    public void testTokenStopsBeforeFailedDelta() {
+        SyncDeltaDispatcher dispatcher = new SyncDeltaDispatcher("ldap-account", 2,
+                SyncDeltaDispatcher.DEFAULT_MAX_PENDING_PER_LANE, new SyncToken(0),
+                new SyncDeltaDispatcher.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        return !syncDelta.getToken().getValue().equals(3);
+                    }
+                });
+        // the deltas of one object are processed in order, so the failure follows the first two
+        for (int token = 1; token <= 3; token++) {
+            dispatcher.dispatch(delta("uid", token));
+        }
+        dispatcher.awaitCompletion();
+
+        // no further deltas are accepted after a failure
+        assertThat(dispatcher.dispatch(delta("uid4", 4))).isFalse();
+        dispatcher.close();
+        assertThat(dispatcher.getLastToken().getValue()).isEqualTo(2);
+    }
+
+    @Test
+    public void testTokenUnchangedWithoutDeltas() {
+        SyncDeltaDispatcher dispatcher = new SyncDeltaDispatcher("ldap-account", 2,
+                SyncDeltaDispatcher.DEFAULT_MAX_PENDING_PER_LANE, new SyncToken(7),
+                new SyncDeltaDispatcher.DeltaProcessor() {
+                    @Override
+                    public boolean process(SyncDelta syncDelta) {
+                        return true;
+                    }
+                });
+        dispatcher.awaitCompletion();
+        dispatcher.close();
+        assertThat(dispatcher.getLastToken().getValue()).isEqualTo(7);
+    }
+}
@@ -18,26 +18,34 @@ package org.forgerock.openidm.quartz.impl;
 import static org.forgerock.json.JsonValue.*;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.TreeSet;
 import java.util.concurrent.atomic.AtomicLong;
 
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.JsonValueException;
+import org.forgerock.json.resource.ConflictException;
 import org.forgerock.json.resource.ConnectionFactory;
 import org.forgerock.json.resource.CreateRequest;
 import org.forgerock.json.resource.DeleteRequest;
 import org.forgerock.json.resource.NotFoundException;
 import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryFilters;
 import org.forgerock.json.resource.Requests;
 import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
 import org.forgerock.json.resource.UpdateRequest;
 import org.forgerock.openidm.cluster.ClusterEvent;
 import org.forgerock.openidm.cluster.ClusterEventListener;
@@ -45,6 +53,7 @@ import org.forgerock.openidm.cluster.ClusterManagementService;
 import org.forgerock.openidm.core.IdentityServer;
 import org.forgerock.openidm.repo.RepositoryService;
 import org.forgerock.services.context.Context;
+import org.forgerock.util.query.QueryFilter;
 import org.osgi.framework.BundleContext;
 import org.osgi.framework.FrameworkUtil;
 import org.osgi.framework.ServiceReference;
@@ -88,6 +97,15 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     private static final String WAITING_TRIGGERS_RESOURCE_PATH = SCHEDULER_RESOURCE_PATH + "waitingTriggers";
     private static final String ACQUIRED_TRIGGERS_RESOURCE_PATH =
             SCHEDULER_RESOURCE_PATH + "acquiredTriggers";
+    private static final String WAITING_TRIGGER_ROWS_RESOURCE_PATH =
+            SCHEDULER_RESOURCE_PATH + "waitingTriggerRows/";
+    private static final String ACQUIRED_TRIGGER_ROWS_RESOURCE_PATH =
+            SCHEDULER_RESOURCE_PATH + "acquiredTriggerRows/";
+
+    /**
+     * The number of waiting trigger rows fetched per acquisition attempt.
+     */
+    private static final int ACQUIRE_CANDIDATES = 10;
 
     /**
      * An identifier used to create unique keys for Jobs and Triggers.
@@ -134,6 +152,29 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     private int writeRetries = -1;
 
+    /**
+     * Whether waiting and acquired triggers are stored as individual repository objects, instead of in the
+     * shared waiting and acquired trigger lists.
+     */
+    private boolean triggerRows = false;
+
+    /**
+     * The window, in milliseconds, past the requested fire time within which due triggers are acquired in one batch.
+     * Batch acquisition is disabled when 0.
+     */
+    private long acquireWindow = 0;
+
+    /**
+     * The maximum number of triggers acquired in one batch.
+     */
+    private int acquireBatchSize = 50;
+
+    /**
+     * Triggers acquired by this instance in a batch that have not yet been handed to the scheduler,
+     * in the order they are due, with the wrapped triggers as written when they were acquired.
+     */
+    private final TreeMap<Trigger, TriggerWrapper> acquiredBatch = new TreeMap<>(new TriggerComparator());
+
     /**
      * A list of all "blocked" jobs.
      */
@@ -175,6 +216,17 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         this.loadHelper = loadHelper;
         // Set the number of retries for failed writes to the repository
         this.writeRetries = Integer.parseInt(IdentityServer.getInstance().getProperty("openidm.scheduler.repo.retry", "-1"));
+        // Store waiting and acquired triggers as individual objects, so that nodes do not contend on shared lists
+        this.triggerRows = Boolean.parseBoolean(
+                IdentityServer.getInstance().getProperty("openidm.scheduler.repo.triggerRows", "false"));
+        if (triggerRows) {
+            logger.info("Storing waiting and acquired triggers as individual repository objects");
+        }
+        // Acquire the triggers due within a window in one batch, rather than one trigger per repo round-trip
+        this.acquireWindow = Long.parseLong(
+                IdentityServer.getInstance().getProperty("openidm.scheduler.repo.acquireWindow", "0"));
+        this.acquireBatchSize = Integer.parseInt(
+                IdentityServer.getInstance().getProperty("openidm.scheduler.repo.acquireBatchSize", "50"));
     }
 
     public boolean setClusterService() {
@@ -202,6 +254,15 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         return repositoryService;
     }
 
+    /**
+     * Sets the repository service, rather than looking it up from the bundle context.
+     *
+     * @param repositoryService the repository service
+     */
+    void setRepositoryService(RepositoryService repositoryService) {
+        this.repositoryService = repositoryService;
+    }
+
     @Override
     public void schedulerStarted() throws SchedulerException {
         logger.info("Job Scheduler Started");
@@ -309,6 +370,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     @Override
     public void shutdown() {
+        synchronized (acquiredBatch) {
+            // the triggers of the batch are returned to the waiting triggers by cleanUpInstance
+            acquiredBatch.clear();
+        }
         synchronized(lock) {
             cleanUpInstance();
             shutdown = true;
@@ -488,6 +553,12 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
     @Override
     public Trigger acquireNextTrigger(SchedulingContext context, long noLaterThan)
             throws JobPersistenceException {
+        if (acquireWindow > 0) {
+            return acquireNextBatchedTrigger(noLaterThan);
+        }
+        if (triggerRows) {
+            return acquireNextTriggerRow(noLaterThan);
+        }
         synchronized (lock) {
             logger.debug("Attempting to acquire the next trigger");
             Trigger trigger = null;
@@ -566,6 +637,321 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
 
 
 
+    /**
+     * Acquires the next trigger from the individually stored waiting triggers.
+     * <p>
+     * The waiting triggers due first are queried by their next fire time, and a trigger is claimed by deleting
+     * its waiting trigger object at the revision it was read with. Only one node can succeed in deleting it, so
+     * nodes acquire triggers concurrently without a shared list or a JVM-wide lock; a node losing the race for a
+     * trigger moves on to the next candidate.
+     *
+     * @param noLaterThan the latest next fire time of the trigger to acquire, or 0 for any
+     * @return the acquired trigger, or null if there is no trigger to acquire
+     * @throws JobPersistenceException if reading or updating the triggers failed
+     */
+    private Trigger acquireNextTriggerRow(long noLaterThan) throws JobPersistenceException {
+        logger.debug("Attempting to acquire the next trigger");
+        while (!shutdown) {
+            List<ResourceResponse> candidates = queryWaitingTriggerRows(noLaterThan, ACQUIRE_CANDIDATES);
+            if (candidates.isEmpty()) {
+                logger.debug("No waiting triggers to acquire");
+                return null;
+            }
+            for (ResourceResponse candidate : candidates) {
+                if (shutdown) {
+                    break;
+                }
+                if (!claimWaitingTriggerRow(candidate)) {
+                    logger.debug("Waiting trigger {} was claimed concurrently", candidate.getId());
+                    continue;
+                }
+                JsonValue row = candidate.getContent();
+                TriggerWrapper tw = getTriggerWrapper(row.get("group").asString(), row.get("name").asString());
+                if (tw == null) {
+                    logger.debug("Waiting trigger {} no longer exists", candidate.getId());
+                    releaseTriggerRowClaim(candidate);
+                    continue;
+                }
+                Trigger trigger = tw.getTrigger();
+
+                Date nextFireTime = trigger.getNextFireTime();
+                if (nextFireTime == null) {
+                    logger.debug("Trigger next fire time = null, removing");
+                    releaseTriggerRowClaim(candidate);
+                    continue;
+                }
+
+                if (noLaterThan > 0 && nextFireTime.getTime() > noLaterThan) {
+                    // the waiting trigger object was outdated, put the trigger back
+                    logger.debug("Trigger fire time {} is later than {}, not acquiring",
+                            nextFireTime, new Date(noLaterThan));
+                    addWaitingTrigger(trigger);
+                    releaseTriggerRowClaim(candidate);
+                    return null;
+                }
+
+                trigger = acquireTrigger(tw);
+                if (trigger == null) {
+                    releaseTriggerRowClaim(candidate);
+                    continue;
+                }
+
+                logger.debug("Acquired next trigger {} to be fired at {}", trigger.getName(), trigger.getNextFireTime());
+                return (Trigger) trigger.clone();
+            }
+        }
+        logger.debug("No waiting triggers to acquire");
+        return null;
+    }
+
+    /**
+     * Acquires a trigger which this instance has removed from the waiting triggers. A trigger which has misfired is
+     * processed as misfired and returned to the waiting triggers instead.
+     *
+     * @param tw the wrapped trigger to acquire
+     * @return the acquired trigger, or null if the trigger has misfired
+     * @throws JobPersistenceException if updating the trigger failed
+     */
+    private Trigger acquireTrigger(TriggerWrapper tw) throws JobPersistenceException {
+        Trigger trigger = tw.getTrigger();
+        if (hasTriggerMisfired(trigger)) {
+            logger.debug("Attempting to process misfired trigger");
+            processTriggerMisfired(tw);
+            trigger = tw.getTrigger();
+            if (trigger.getNextFireTime() != null) {
+                addWaitingTrigger(trigger);
+            }
+            return null;
+        }
+
+        tw.setAcquired(true);
+        tw.setNodeId(instanceId);
+
+        trigger.setFireInstanceId(getFiredTriggerRecordId());
+        try {
+            tw.updateTrigger(trigger);
+        } catch (Exception e) {
+            logger.warn("Error serializing trigger", e);
+            addWaitingTrigger(trigger);
+            throw new JobPersistenceException("Error serializing trigger", e);
+        }
+
+        updateTriggerInRepo(trigger.getGroup(), trigger.getName(), tw, tw.getRevision());
+        return trigger;
+    }
+
+    /**
+     * Hands out the next trigger acquired in a batch, acquiring a new batch once the previous one is exhausted.
+     * <p>
+     * All triggers due up to {@code acquireWindow} milliseconds past {@code noLaterThan} are acquired together,
+     * so a burst of triggers firing at the same time costs one read and one write of the waiting triggers rather
+     * than one of each per trigger. The batch keeps the triggers as they were written when acquired, so handing
+     * them out does not read them again; a trigger changed or removed in the meantime is caught when it is fired.
+     * A batched trigger which misfires before it is handed out is processed as misfired and returned to the
+     * waiting triggers, releasing it in the same update.
+     *
+     * @param noLaterThan the latest next fire time of the trigger to hand out, or 0 for any
+     * @return the next acquired trigger, or null if there is no trigger due
+     * @throws JobPersistenceException if reading or updating the triggers failed
+     */
+    private Trigger acquireNextBatchedTrigger(long noLaterThan) throws JobPersistenceException {
+        synchronized (acquiredBatch) {
+            if (acquiredBatch.isEmpty() && !shutdown) {
+                long batchNoLaterThan = noLaterThan > 0 ? noLaterThan + acquireWindow : 0;
+                for (TriggerWrapper tw : triggerRows
+                        ? acquireTriggerRowBatch(batchNoLaterThan)
+                        : acquireTriggerBatch(batchNoLaterThan)) {
+                    acquiredBatch.put(tw.getTrigger(), tw);
+                }
+            }
+            while (!acquiredBatch.isEmpty() && !shutdown) {
+                Trigger trigger = acquiredBatch.firstKey();
+                if (noLaterThan > 0 && trigger.getNextFireTime().getTime() > noLaterThan) {
+                    logger.debug("Batched trigger fire time {} is later than {}, not handing out",
+                            trigger.getNextFireTime(), new Date(noLaterThan));
+                    return null;
+                }
+                TriggerWrapper tw = acquiredBatch.pollFirstEntry().getValue();
+                if (hasTriggerMisfired(trigger)) {
+                    logger.debug("Attempting to process misfired batched trigger");
+                    releaseMisfiredBatchedTrigger(tw);
+                    continue;
+                }
+
+                logger.debug("Handing out batched trigger {} to be fired at {}",
+                        trigger.getName(), trigger.getNextFireTime());
+                return (Trigger) trigger.clone();
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Processes a batched trigger which misfired before it was handed out, and returns it to the waiting triggers.
+     * The trigger is released with the update of its misfire, at the revision written when it was acquired.
+     *
+     * @param tw the wrapped trigger, as written when it was acquired
+     * @throws JobPersistenceException if updating the trigger failed
+     */
+    private void releaseMisfiredBatchedTrigger(TriggerWrapper tw) throws JobPersistenceException {
+        Trigger trigger = tw.getTrigger();
+        tw.setAcquired(false);
+        tw.setNodeId(null);
+        try {
+            processTriggerMisfired(tw);
+        } catch (JobPersistenceException e) {
+            if (!(e.getCause() instanceof PreconditionFailedException || e.getCause() instanceof NotFoundException)) {
+                throw e;
+            }
+            // whoever changed or removed the trigger owns its state now
+            logger.debug("Batched trigger {} was changed or removed since the batch was acquired", trigger.getName());
+            removeAcquiredTrigger(trigger, instanceId);
+            return;
+        }
+        trigger = tw.getTrigger();
+        if (trigger.getNextFireTime() != null) {
+            addWaitingTrigger(trigger);
+        }
+        removeAcquiredTrigger(trigger, instanceId);
+    }
+
+    /**
+     * Acquires a batch of the triggers due from the list of waiting triggers.
+     * <p>
+     * The due triggers are claimed by removing them from the waiting triggers list in a single conditional update,
+     * and are then added to the acquired triggers list of this instance in a single update.
+     *
+     * @param noLaterThan the latest next fire time of the triggers to acquire, or 0 for any
+     * @return the wrapped acquired triggers
+     * @throws JobPersistenceException if reading or updating the triggers failed
+     */
+    private List<TriggerWrapper> acquireTriggerBatch(long noLaterThan) throws JobPersistenceException {
+        synchronized (lock) {
+            logger.debug("Attempting to acquire a batch of triggers");
+            List<TriggerWrapper> claimed = new ArrayList<>();
+            try {
+                int retries = 0;
+                while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                    JsonValue map = getOrCreateRepo(WAITING_TRIGGERS_RESOURCE_PATH);
+                    String rev = map.get("_rev").asString();
+                    List<String> names = map.get("names").isNull()
+                            ? new ArrayList<String>()
+                            : map.get("names").asList(String.class);
+
+                    List<String> removed = new ArrayList<>();
+                    TreeSet<Trigger> due = new TreeSet<>(new TriggerComparator());
+                    Map<String, TriggerWrapper> wrappers = new HashMap<>();
+                    for (String id : names) {
+                        TriggerWrapper tw = getTriggerWrapper(getGroupFromId(id), getNameFromId(id));
+                        if (tw == null) {
+                            logger.warn("Could not acquire waiting Trigger {}. Trigger not found in repo", id);
+                            continue;
+                        }
+                        Trigger trigger = tw.getTrigger();
+                        Date nextFireTime = trigger.getNextFireTime();
+                        if (nextFireTime == null) {
+                            logger.debug("Trigger next fire time = null, removing");
+                            removed.add(id);
+                        } else if (noLaterThan <= 0 || nextFireTime.getTime() <= noLaterThan) {
+                            due.add(trigger);
+                            wrappers.put(id, tw);
+                        }
+                    }
+                    List<TriggerWrapper> batch = new ArrayList<>();
+                    for (Trigger trigger : due) {
+                        if (batch.size() >= acquireBatchSize) {
+                            break;
+                        }
+                        String id = getTriggerId(trigger.getGroup(), trigger.getName());
+                        removed.add(id);
+                        batch.add(wrappers.get(id));
+                    }
+                    if (removed.isEmpty()) {
+                        logger.debug("No waiting triggers to acquire");
+                        return new ArrayList<>();
+                    }
+
+                    names.removeAll(removed);
+                    map.put("names", names);
+                    try {
+                        getRepositoryService().update(
+                                Requests.newUpdateRequest(WAITING_TRIGGERS_RESOURCE_PATH, map).setRevision(rev));
+                        claimed = batch;
+                        break;
+                    } catch (PreconditionFailedException e) {
+                        logger.debug("Claiming waiting triggers failed {}, retrying", e);
+                        retries++;
+                    }
+                }
+            } catch (ResourceException e) {
+                throw new JobPersistenceException("Error acquiring waiting triggers", e);
+            }
+
+            List<TriggerWrapper> acquired = new ArrayList<>();
+            List<String> acquiredIds = new ArrayList<>();
+            for (TriggerWrapper tw : claimed) {
+                Trigger trigger = acquireTrigger(tw);
+                if (trigger != null) {
+                    acquired.add(tw);
+                    acquiredIds.add(getTriggerId(trigger.getGroup(), trigger.getName()));
+                }
+            }
+            if (!acquiredIds.isEmpty()) {
+                try {
+                    int retries = 0;
+                    while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                        try {
+                            addRepoListNames(acquiredIds, ACQUIRED_TRIGGERS_RESOURCE_PATH, instanceId);
+                            break;
+                        } catch (PreconditionFailedException e) {
+                            logger.debug("Adding acquired triggers failed {}, retrying", e);
+                            retries++;
+                        }
+                    }
+                } catch (ResourceException e) {
+                    throw new JobPersistenceException("Error adding acquired triggers", e);
+                }
+            }
+            logger.debug("Acquired a batch of {} triggers", acquired.size());
+            return acquired;
+        }
+    }
+
+    /**
+     * Acquires a batch of the triggers due from the individually stored waiting triggers, claiming each trigger by
+     * a conditional delete of its waiting trigger object.
+     *
+     * @param noLaterThan the latest next fire time of the triggers to acquire, or 0 for any
+     * @return the wrapped acquired triggers
+     * @throws JobPersistenceException if reading or updating the triggers failed
+     */
+    private List<TriggerWrapper> acquireTriggerRowBatch(long noLaterThan) throws JobPersistenceException {
+        logger.debug("Attempting to acquire a batch of triggers");
+        List<TriggerWrapper> acquired = new ArrayList<>();
+        for (ResourceResponse candidate : queryWaitingTriggerRows(noLaterThan, acquireBatchSize)) {
+            if (shutdown) {
+                break;
+            }
+            if (!claimWaitingTriggerRow(candidate)) {
+                logger.debug("Waiting trigger {} was claimed concurrently", candidate.getId());
+                continue;
+            }
+            JsonValue row = candidate.getContent();
+            TriggerWrapper tw = getTriggerWrapper(row.get("group").asString(), row.get("name").asString());
+            if (tw == null || tw.getTrigger().getNextFireTime() == null) {
+                releaseTriggerRowClaim(candidate);
+                continue;
+            }
+            if (acquireTrigger(tw) != null) {
+                acquired.add(tw);
+            } else {
+                releaseTriggerRowClaim(candidate);
+            }
+        }
+        logger.debug("Acquired a batch of {} triggers", acquired.size());
+        return acquired;
+    }
+
     @Override
     public void releaseAcquiredTrigger(SchedulingContext arg0, Trigger trigger)
             throws JobPersistenceException {
@@ -1589,6 +1975,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      * @throws ResourceException
      */
     private void addWaitingTrigger(Trigger trigger) throws JobPersistenceException {
+        if (triggerRows) {
+            addWaitingTriggerRow(trigger);
+            return;
+        }
         synchronized (lock) {
             try {
                 int retries = 0;
@@ -1617,6 +2007,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      * @throws ResourceException
      */
     private boolean removeWaitingTrigger(Trigger trigger) throws JobPersistenceException {
+        if (triggerRows) {
+            return removeTriggerRow(WAITING_TRIGGER_ROWS_RESOURCE_PATH
+                    + getTriggerId(trigger.getGroup(), trigger.getName()));
+        }
         synchronized (lock) {
             try {
                 boolean result = false;
@@ -1647,6 +2041,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      * @throws ResourceException
      */
     private void addAcquiredTrigger(Trigger trigger, String instanceId) throws JobPersistenceException {
+        if (triggerRows) {
+            addAcquiredTriggerRow(trigger.getGroup(), trigger.getName(), instanceId);
+            return;
+        }
         synchronized (lock) {
             try {
                 logger.debug("Adding acquired trigger {} for instance {}", trigger.getName(), instanceId);
@@ -1676,6 +2074,11 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      * @throws ResourceException
      */
     private boolean removeAcquiredTrigger(Trigger trigger, String instanceId) throws JobPersistenceException {
+        if (triggerRows) {
+            logger.debug("Removing acquired trigger {} for instance {}", trigger.getName(), instanceId);
+            return removeTriggerRow(ACQUIRED_TRIGGER_ROWS_RESOURCE_PATH
+                    + getAcquiredTriggerRowId(getTriggerId(trigger.getGroup(), trigger.getName()), instanceId));
+        }
         synchronized (lock) {
             try {
                 logger.debug("Removing acquired trigger {} for instance {}", trigger.getName(), instanceId);
@@ -1706,6 +2109,9 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      * @throws JobPersistenceException
      */
     private AcquiredTriggers getAcquiredTriggers(String instanceId) throws JobPersistenceException {
+        if (triggerRows) {
+            return getAcquiredTriggerRows(instanceId);
+        }
         List<Trigger> acquiredTriggers = new ArrayList<Trigger>();
         List<String> acquiredTriggerIds = new ArrayList<String>();
         String repoId = ACQUIRED_TRIGGERS_RESOURCE_PATH;
@@ -1805,6 +2211,251 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
         }
     }
 
+    /**
+     * Stores a Trigger as an individual waiting trigger object, keyed by its next fire time.
+     *
+     * @param trigger   the Trigger to add
+     * @throws JobPersistenceException
+     */
+    private void addWaitingTriggerRow(Trigger trigger) throws JobPersistenceException {
+        String triggerId = getTriggerId(trigger.getGroup(), trigger.getName());
+        String repoId = WAITING_TRIGGER_ROWS_RESOURCE_PATH + triggerId;
+        if (trigger.getNextFireTime() == null) {
+            // a trigger that will not fire again is never acquired
+            removeTriggerRow(repoId);
+            return;
+        }
+        JsonValue row = json(object(
+                field("triggerId", triggerId),
+                field("group", trigger.getGroup()),
+                field("name", trigger.getName()),
+                field("nextFireTime", trigger.getNextFireTime().getTime()),
+                field("priority", trigger.getPriority())));
+        try {
+            int retries = 0;
+            while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                try {
+                    getRepositoryService().create(getCreateRequest(repoId, row.copy()));
+                    return;
+                } catch (PreconditionFailedException | ConflictException e) {
+                    logger.trace("Waiting trigger {} exists, updating it", triggerId);
+                }
+                try {
+                    String rev = getRepositoryService().read(Requests.newReadRequest(repoId)).getRevision();
+                    getRepositoryService().update(Requests.newUpdateRequest(repoId, row.copy()).setRevision(rev));
+                    return;
+                } catch (NotFoundException | PreconditionFailedException e) {
+                    logger.debug("Adding waiting trigger failed {}, retrying", e);
+                    retries++;
+                }
+            }
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error adding waiting trigger", e);
+        }
+    }
+
+    /**
+     * Stores a Trigger as an individual acquired trigger object of an instance.
+     *
+     * @param group      the Trigger group
+     * @param name       the Trigger name
+     * @param instanceId the instance ID
+     * @throws JobPersistenceException
+     */
+    private void addAcquiredTriggerRow(String group, String name, String instanceId)
+            throws JobPersistenceException {
+        logger.debug("Adding acquired trigger {} for instance {}", name, instanceId);
+        String triggerId = getTriggerId(group, name);
+        JsonValue row = json(object(
+                field("triggerId", triggerId),
+                field("group", group),
+                field("name", name),
+                field("instanceId", instanceId)));
+        try {
+            getRepositoryService().create(getCreateRequest(
+                    ACQUIRED_TRIGGER_ROWS_RESOURCE_PATH + getAcquiredTriggerRowId(triggerId, instanceId), row));
+        } catch (PreconditionFailedException | ConflictException e) {
+            logger.debug("Trigger {} is already acquired by instance {}", triggerId, instanceId);
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error adding acquired trigger", e);
+        }
+    }
+
+    /**
+     * Removes an individually stored waiting or acquired trigger object.
+     *
+     * @param repoId    the repository ID of the object
+     * @return  true if the object was removed, false if it did not exist
+     * @throws JobPersistenceException
+     */
+    private boolean removeTriggerRow(String repoId) throws JobPersistenceException {
+        try {
+            int retries = 0;
+            while (writeRetries == -1 || retries <= writeRetries && !shutdown) {
+                try {
+                    String rev = getRepositoryService().read(Requests.newReadRequest(repoId)).getRevision();
+                    getRepositoryService().delete(Requests.newDeleteRequest(repoId).setRevision(rev));
+                    return true;
+                } catch (NotFoundException e) {
+                    return false;
+                } catch (PreconditionFailedException e) {
+                    logger.debug("Removing trigger {} failed {}, retrying", repoId, e);
+                    retries++;
+                }
+            }
+            return false;
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error removing trigger " + repoId, e);
+        }
+    }
+
+    /**
+     * Claims a waiting trigger object by deleting it at the revision it was read with.
+     * <p>
+     * The acquired trigger object of this instance is written before the waiting trigger object is deleted, so the
+     * trigger is never in neither: if this instance fails in between, the trigger is returned to the waiting
+     * triggers with the other acquired triggers of the instance when it is recovered. The acquired trigger object
+     * is removed again if the trigger was claimed or changed concurrently.
+     *
+     * @param row   the waiting trigger object
+     * @return  true if the trigger was claimed, false if it was claimed or changed concurrently
+     * @throws JobPersistenceException
+     */
+    private boolean claimWaitingTriggerRow(ResourceResponse row) throws JobPersistenceException {
+        JsonValue content = row.getContent();
+        addAcquiredTriggerRow(content.get("group").asString(), content.get("name").asString(), instanceId);
+        boolean claimed;
+        try {
+            getRepositoryService().delete(
+                    Requests.newDeleteRequest(WAITING_TRIGGER_ROWS_RESOURCE_PATH + row.getId())
+                            .setRevision(row.getRevision()));
+            claimed = true;
+        } catch (NotFoundException | PreconditionFailedException e) {
+            claimed = false;
+        } catch (ResourceException e) {
+            throw new JobPersistenceException("Error claiming waiting trigger " + row.getId(), e);
+        }
+        if (!claimed) {
+            releaseTriggerRowClaim(row);
+        }
+        return claimed;
+    }
+
+    /**
+     * Removes the acquired trigger object written by {@link #claimWaitingTriggerRow(ResourceResponse)} for a
+     * trigger which is not acquired after all.
+     *
+     * @param row   the waiting trigger object the trigger was claimed with
+     * @throws JobPersistenceException
+     */
+    private void releaseTriggerRowClaim(ResourceResponse row) throws JobPersistenceException {
+        removeTriggerRow(ACQUIRED_TRIGGER_ROWS_RESOURCE_PATH
+                + getAcquiredTriggerRowId(row.getContent().get("triggerId").asString(), instanceId));
+    }
+
+    /**
+     * Queries the waiting trigger objects due first, in the order they should be acquired.
+     *
+     * @param noLaterThan   the latest next fire time, or 0 for any
+     * @param pageSize      the maximum number of waiting trigger objects to return
+     * @return  the waiting trigger objects
+     * @throws JobPersistenceException
+     */
+    private List<ResourceResponse> queryWaitingTriggerRows(long noLaterThan, int pageSize)
+            throws JobPersistenceException {
+        try {
+            List<ResourceResponse> rows = new ArrayList<>(getRepositoryService().query(
+                    Requests.newQueryRequest(WAITING_TRIGGER_ROWS_RESOURCE_PATH)
+                            .setQueryFilter(QueryFilters.parse(noLaterThan > 0
+                                    ? "nextFireTime le " + noLaterThan
+                                    : "nextFireTime pr"))
+                            .addSortKey(SortKey.ascendingOrder("nextFireTime"))
+                            .setPageSize(pageSize)));
+            // break ties by priority and name, as the waiting trigger tree does
+            rows.sort(new Comparator<ResourceResponse>() {
+                @Override
+                public int compare(ResourceResponse r1, ResourceResponse r2) {
+                    int result = Long.compare(r1.getContent().get("nextFireTime").asLong(),
+                            r2.getContent().get("nextFireTime").asLong());
+                    if (result == 0) {
+                        result = r2.getContent().get("priority").asInteger()
+                                - r1.getContent().get("priority").asInteger();
+                    }
+                    if (result == 0) {
+                        result = r1.getId().compareTo(r2.getId());
+                    }
+                    return result;
+                }
+            });
+            return rows;
+        } catch (ResourceException e) {
+            logger.warn("Error querying waiting triggers", e);
+            throw new JobPersistenceException("Error querying waiting triggers", e);
+        }
+    }
+
+    /**
+     * Returns the IDs of all triggers stored as waiting trigger objects.
+     *
+     * @return  the trigger IDs
+     * @throws JobPersistenceException
+     */
+    private Set<String> getWaitingTriggerRowIds() throws JobPersistenceException {
+        try {
+            Set<String> triggerIds = new HashSet<>();
+            for (ResourceResponse row : getRepositoryService().query(
+                    Requests.newQueryRequest(WAITING_TRIGGER_ROWS_RESOURCE_PATH)
+                            .setQueryFilter(QueryFilters.parse("true")))) {
+                triggerIds.add(row.getContent().get("triggerId").asString());
+            }
+            return triggerIds;
+        } catch (ResourceException e) {
+            logger.warn("Error querying waiting triggers", e);
+            throw new JobPersistenceException("Error querying waiting triggers", e);
+        }
+    }
+
+    /**
+     * Returns the triggers stored as acquired trigger objects of an instance.
+     *
+     * @param instanceId    the ID of the instance that acquired the triggers
+     * @return  the AcquiredTriggers object
+     * @throws JobPersistenceException
+     */
+    private AcquiredTriggers getAcquiredTriggerRows(String instanceId) throws JobPersistenceException {
+        List<Trigger> acquiredTriggers = new ArrayList<>();
+        try {
+            for (ResourceResponse row : getRepositoryService().query(
+                    Requests.newQueryRequest(ACQUIRED_TRIGGER_ROWS_RESOURCE_PATH)
+                            .setQueryFilter(QueryFilter.equalTo(new JsonPointer("instanceId"), instanceId)))) {
+                JsonValue content = row.getContent();
+                TriggerWrapper tw = getTriggerWrapper(content.get("group").asString(), content.get("name").asString());
+                if (tw == null) {
+                    logger.warn("Could not add {} to list of acquired Triggers. Trigger not found in repo",
+                            content.get("triggerId").asString());
+                } else {
+                    logger.trace("Found acquired trigger {} in group {}", tw.getName(), tw.getGroup());
+                    acquiredTriggers.add(tw.getTrigger());
+                }
+            }
+            return new AcquiredTriggers(acquiredTriggers, null);
+        } catch (ResourceException e) {
+            logger.warn("Error querying acquired triggers", e);
+            throw new JobPersistenceException("Error querying acquired triggers", e);
+        }
+    }
+
+    /**
+     * Gets the repository ID of the acquired trigger object of a Trigger and instance.
+     *
+     * @param triggerId     the Trigger ID
+     * @param instanceId    the instance ID
+     * @return  the object ID
+     */
+    private static String getAcquiredTriggerRowId(String triggerId, String instanceId) {
+        return new StringBuilder(instanceId).append(UNIQUE_ID_SEPARATOR).append(triggerId).toString();
+    }
+
     /**
      * Adds a Trigger group name to the list of Trigger group names
      *
@@ -1838,8 +2489,21 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
      */
     private void addRepoListName(String name, String id, String list)
             throws JobPersistenceException, ResourceException {
+        addRepoListNames(Collections.singletonList(name), id, list);
+    }
+
+    /**
+     * Adds names to a list of names in the repo in a single update.
+     *
+     * @param namesToAdd    the names to add
+     * @param id    the repo id
+     * @throws JobPersistenceException
+     * @throws ResourceException
+     */
+    private void addRepoListNames(List<String> namesToAdd, String id, String list)
+            throws JobPersistenceException, ResourceException {
         synchronized (lock) {
-            logger.trace("Adding name: {} to {}", name, id);
+            logger.trace("Adding names: {} to {}", namesToAdd, id);
             JsonValue map = getOrCreateRepo(id);
             String rev = map.get("_rev").asString();
 
@@ -1848,8 +2512,10 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 names = new ArrayList<>();
                 map.put(list, names);
             }
-            if (!names.contains(name)) {
-                names.add(name);
+            for (String name : namesToAdd) {
+                if (!names.contains(name)) {
+                    names.add(name);
+                }
             }
             // update repo
             getRepositoryService().update(Requests.newUpdateRequest(id, map)
@@ -1975,7 +2641,8 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 String repoId = getTriggersRepoId(group, name);
                 UpdateRequest r = Requests.newUpdateRequest(repoId, tw.getValue());
                 r.setRevision(rev);
-                getRepositoryService().update(r);
+                // later updates of the same wrapper are made at the revision just written
+                tw.setRevision(getRepositoryService().update(r).getRevision());
             } catch (ResourceException e) {
                 logger.warn("Error updating trigger in repo", e);
                 throw new JobPersistenceException("Error updating trigger in repo", e);
@@ -2082,10 +2749,21 @@ public class RepoJobStore implements JobStore, ClusterEventListener {
                 }
 
                 // Ignore triggers which are already present in the waiting list.
-                WaitingTriggers wt = getWaitingTriggers();
-                TreeSet<Trigger> waitingTriggers = wt.getTriggers();
-                for (Trigger t : waitingTriggers) {
-                    storedTriggers.remove(t);
+                if (triggerRows) {
+                    Set<String> waitingTriggerIds = getWaitingTriggerRowIds();
+                    Iterator<Trigger> iterator = storedTriggers.iterator();
+                    while (iterator.hasNext()) {
+                        Trigger t = iterator.next();
+                        if (waitingTriggerIds.contains(getTriggerId(t.getGroup(), t.getName()))) {
+                            iterator.remove();
+                        }
+                    }
+                } else {
+                    WaitingTriggers wt = getWaitingTriggers();
+                    TreeSet<Trigger> waitingTriggers = wt.getTriggers();
+                    for (Trigger t : waitingTriggers) {
+                        storedTriggers.remove(t);
+                    }
                 }
                 
                 // Process and release any triggers which are acquired
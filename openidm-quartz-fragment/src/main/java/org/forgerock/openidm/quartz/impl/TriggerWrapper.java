@@ -359,6 +359,15 @@ public class TriggerWrapper {
         return revision;
     }
 
+    /**
+     * Sets the revision, as returned by the repo when the Trigger was written.
+     *
+     * @param revision the repo revision
+     */
+    public void setRevision(String revision) {
+        this.revision = revision;
+    }
+
     /**
      * Gets the node id that has acquired this trigger.
      * @return the nodeId.
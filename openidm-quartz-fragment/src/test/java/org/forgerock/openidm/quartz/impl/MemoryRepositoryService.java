@@ -0,0 +1,117 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.forgerock.json.resource.Responses.newResourceResponse;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.CreateRequest;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.MemoryBackend;
+import org.forgerock.json.resource.QueryRequest;
+import org.forgerock.json.resource.QueryResourceHandler;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.repo.RepositoryService;
+import org.forgerock.services.context.Context;
+import org.forgerock.services.context.RootContext;
+
+/**
+ * A {@link RepositoryService} keeping each container of objects in a {@link MemoryBackend}, which enforces
+ * revisions and evaluates query filters as the repository does.
+ */
+class MemoryRepositoryService implements RepositoryService {
+
+    private final Context context = new RootContext();
+    private final Map<String, MemoryBackend> containers = new ConcurrentHashMap<>();
+
+    private MemoryBackend container(String path) {
+        return containers.computeIfAbsent(trim(path), container -> new MemoryBackend());
+    }
+
+    private static String trim(String path) {
+        String trimmed = path;
+        while (trimmed.startsWith("/")) {
+            trimmed = trimmed.substring(1);
+        }
+        while (trimmed.endsWith("/")) {
+            trimmed = trimmed.substring(0, trimmed.length() - 1);
+        }
+        return trimmed;
+    }
+
+    private static String parent(String path) {
+        String trimmed = trim(path);
+        return trimmed.substring(0, trimmed.lastIndexOf('/'));
+    }
+
+    private static String leaf(String path) {
+        String trimmed = trim(path);
+        return trimmed.substring(trimmed.lastIndexOf('/') + 1);
+    }
+
+    /** The repository returns the ID and revision of an object as part of its content */
+    private static ResourceResponse withIdAndRevision(ResourceResponse response) {
+        JsonValue content = response.getContent().copy();
+        content.put("_id", response.getId());
+        content.put("_rev", response.getRevision());
+        return newResourceResponse(response.getId(), response.getRevision(), content);
+    }
+
+    @Override
+    public ResourceResponse create(CreateRequest request) throws ResourceException {
+        return withIdAndRevision(container(request.getResourcePath())
+                .createInstance(context, request).getOrThrowUninterruptibly());
+    }
+
+    @Override
+    public ResourceResponse read(ReadRequest request) throws ResourceException {
+        return withIdAndRevision(container(parent(request.getResourcePath()))
+                .readInstance(context, leaf(request.getResourcePath()), request).getOrThrowUninterruptibly());
+    }
+
+    @Override
+    public ResourceResponse update(UpdateRequest request) throws ResourceException {
+        return withIdAndRevision(container(parent(request.getResourcePath()))
+                .updateInstance(context, leaf(request.getResourcePath()), request).getOrThrowUninterruptibly());
+    }
+
+    @Override
+    public ResourceResponse delete(DeleteRequest request) throws ResourceException {
+        return withIdAndRevision(container(parent(request.getResourcePath()))
+                .deleteInstance(context, leaf(request.getResourcePath()), request).getOrThrowUninterruptibly());
+    }
+
+    @Override
+    public List<ResourceResponse> query(QueryRequest request) throws ResourceException {
+        final List<ResourceResponse> results = new ArrayList<>();
+        container(request.getResourcePath()).queryCollection(context, request, new QueryResourceHandler() {
+            @Override
+            public boolean handleResource(ResourceResponse resource) {
+                results.add(withIdAndRevision(resource));
+                return true;
+            }
+        }).getOrThrowUninterruptibly();
+        return results;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.quartz.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.DeleteRequest;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.ReadRequest;
+import org.forgerock.json.resource.Requests;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.UpdateRequest;
+import org.forgerock.openidm.core.IdentityServerTestUtils;
+import org.quartz.JobDetail;
+import org.quartz.JobPersistenceException;
+import org.quartz.SimpleTrigger;
+import org.quartz.Trigger;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Tests the acquisition of triggers by {@link RepoJobStore}.
+ */
+public class RepoJobStoreAcquireTest {
+
+    private static final String INSTANCE_ID = "node1";
+    private static final String TRIGGERS = "scheduler/triggers";
+    private static final String WAITING_TRIGGERS = "scheduler/waitingTriggers";
+    private static final String WAITING_TRIGGER_ROWS = "scheduler/waitingTriggerRows";
+    private static final String ACQUIRED_TRIGGER_ROWS = "scheduler/acquiredTriggerRows";
+
+    /** Failure of the next delete of a waiting trigger object, if any */
+    private volatile ResourceException waitingRowDeleteFailure;
+    /** Whether the waiting trigger object is deleted before the failure of its delete is reported */
+    private volatile boolean deleteBeforeFailure;
+    /** The trigger objects read and updated */
+    private final List<String> triggerReads = Collections.synchronizedList(new ArrayList<String>());
+    private final List<String> triggerUpdates = Collections.synchronizedList(new ArrayList<String>());
+
+    private MemoryRepositoryService repo;
+    private SimpleSignaler signaler;
+    private RepoJobStore jobStore;
+
+    @BeforeMethod
+    public void setUp() {
+        IdentityServerTestUtils.initInstanceForTest();
+        waitingRowDeleteFailure = null;
+        deleteBeforeFailure = false;
+        triggerReads.clear();
+        triggerUpdates.clear();
+        repo = new MemoryRepositoryService() {
+            @Override
+            public ResourceResponse read(ReadRequest request) throws ResourceException {
+                if (request.getResourcePath().contains(TRIGGERS + "/")) {
+                    triggerReads.add(request.getResourcePath());
+                }
+                return super.read(request);
+            }
+
+            @Override
+            public ResourceResponse update(UpdateRequest request) throws ResourceException {
+                if (request.getResourcePath().contains(TRIGGERS + "/")) {
+                    triggerUpdates.add(request.getResourcePath());
+                }
+                return super.update(request);
+            }
+
+            @Override
+            public ResourceResponse delete(DeleteRequest request) throws ResourceException {
+                ResourceException failure = waitingRowDeleteFailure;
+                if (failure != null && request.getResourcePath().contains(WAITING_TRIGGER_ROWS)) {
+                    waitingRowDeleteFailure = null;
+                    if (deleteBeforeFailure) {
+                        super.delete(Requests.newDeleteRequest(request.getResourcePath()));
+                    }
+                    throw failure;
+                }
+                return super.delete(request);
+            }
+        };
+        signaler = new SimpleSignaler();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        System.clearProperty("openidm.scheduler.repo.triggerRows");
+        System.clearProperty("openidm.scheduler.repo.acquireWindow");
+    }
+
+    private void initJobStore(boolean triggerRows, long acquireWindow) {
+        System.setProperty("openidm.scheduler.repo.triggerRows", String.valueOf(triggerRows));
+        System.setProperty("openidm.scheduler.repo.acquireWindow", String.valueOf(acquireWindow));
+        jobStore = new RepoJobStore();
+        jobStore.setInstanceId(INSTANCE_ID);
+        jobStore.initialize(null, signaler);
+        jobStore.setRepositoryService(repo);
+    }
+
+    private Trigger storeTrigger(String name, long fireTime) throws JobPersistenceException {
+        JobDetail job = new JobDetail("job-" + name, "group1", SimpleJob.class);
+        Trigger trigger = new SimpleTrigger(name, "group1", job.getName(), job.getGroup(), new Date(fireTime), null, 0, 0);
+        trigger.computeFirstFireTime(null);
+        jobStore.storeJobAndTrigger(null, job, trigger);
+        return trigger;
+    }
+
+    private List<String> waitingTriggerNames() throws ResourceException {
+        return repo.read(Requests.newReadRequest(WAITING_TRIGGERS)).getContent().get("names").asList(String.class);
+    }
+
+    private List<ResourceResponse> rows(String container) throws ResourceException {
+        return repo.query(Requests.newQueryRequest(container).setQueryFilter(QueryFilters.parse("true")));
+    }
+
+    private JsonValue storedTrigger(Trigger trigger) throws ResourceException {
+        return repo.read(Requests.newReadRequest(
+                RepoJobStore.getTriggersRepoId(trigger.getGroup(), trigger.getName()))).getContent();
+    }
+
+    @Test
+    public void testAcquireTriggerRowMovesTriggerToAcquiredRow() throws Exception {
+        initJobStore(true, 0);
+        long now = System.currentTimeMillis();
+        Trigger trigger = storeTrigger("trigger1", now);
+        assertThat(rows(WAITING_TRIGGER_ROWS)).hasSize(1);
+
+        Trigger acquired = jobStore.acquireNextTrigger(null, now + 1000);
+
+        assertThat(acquired.getName()).isEqualTo("trigger1");
+        assertThat(rows(WAITING_TRIGGER_ROWS)).isEmpty();
+        List<ResourceResponse> acquiredRows = rows(ACQUIRED_TRIGGER_ROWS);
+        assertThat(acquiredRows).hasSize(1);
+        assertThat(acquiredRows.get(0).getContent().get("instanceId").asString()).isEqualTo(INSTANCE_ID);
+        assertThat(storedTrigger(trigger).get("acquired").asBoolean()).isTrue();
+        assertThat(storedTrigger(trigger).get("nodeId").asString()).isEqualTo(INSTANCE_ID);
+    }
+
+    @Test
+    public void testAcquireTriggerRowLeavesLaterTriggersWaiting() throws Exception {
+        initJobStore(true, 0);
+        long now = System.currentTimeMillis();
+        storeTrigger("trigger1", now + 60000);
+
+        assertThat(jobStore.acquireNextTrigger(null, now + 1000)).isNull();
+
+        assertThat(rows(WAITING_TRIGGER_ROWS)).hasSize(1);
+        assertThat(rows(ACQUIRED_TRIGGER_ROWS)).isEmpty();
+    }
+
+    @Test
+    public void testFailedClaimLeavesTriggerRecoverable() throws Exception {
+        initJobStore(true, 0);
+        long now = System.currentTimeMillis();
+        Trigger trigger = storeTrigger("trigger1", now);
+        // the instance fails while the waiting trigger object is deleted
+        waitingRowDeleteFailure = new InternalServerErrorException("connection lost");
+        deleteBeforeFailure = true;
+
+        try {
+            jobStore.acquireNextTrigger(null, now + 1000);
+            fail("The failed claim must be reported");
+        } catch (JobPersistenceException e) {
+            assertThat(e.getCause()).isInstanceOf(InternalServerErrorException.class);
+        }
+
+        // the trigger is no longer waiting, but is recovered with the acquired triggers of the instance
+        assertThat(rows(WAITING_TRIGGER_ROWS)).isEmpty();
+        List<ResourceResponse> acquiredRows = rows(ACQUIRED_TRIGGER_ROWS);
+        assertThat(acquiredRows).hasSize(1);
+        assertThat(acquiredRows.get(0).getContent().get("triggerId").asString())
+                .isEqualTo(RepoJobStore.getTriggerId(trigger.getGroup(), trigger.getName()));
+        assertThat(acquiredRows.get(0).getContent().get("instanceId").asString()).isEqualTo(INSTANCE_ID);
+    }
+
+    @Test
+    public void testLostClaimRemovesAcquiredRow() throws Exception {
+        initJobStore(true, 0);
+        long now = System.currentTimeMillis();
+        storeTrigger("trigger1", now);
+        // another node claims the trigger first
+        waitingRowDeleteFailure = new PreconditionFailedException("claimed concurrently");
+        deleteBeforeFailure = true;
+
+        assertThat(jobStore.acquireNextTrigger(null, now + 1000)).isNull();
+
+        assertThat(rows(WAITING_TRIGGER_ROWS)).isEmpty();
+        assertThat(rows(ACQUIRED_TRIGGER_ROWS)).isEmpty();
+    }
+
+    @Test
+    public void testReleasedTriggerRowCanBeAcquiredAgain() throws Exception {
+        initJobStore(true, 0);
+        long now = System.currentTimeMillis();
+        storeTrigger("trigger1", now);
+        Trigger acquired = jobStore.acquireNextTrigger(null, now + 1000);
+
+        jobStore.releaseAcquiredTrigger(null, acquired);
+
+        assertThat(rows(WAITING_TRIGGER_ROWS)).hasSize(1);
+        assertThat(rows(ACQUIRED_TRIGGER_ROWS)).isEmpty();
+        assertThat(jobStore.acquireNextTrigger(null, now + 1000).getName()).isEqualTo("trigger1");
+    }
+
+    @Test
+    public void testBatchHandsOutTriggersWithoutReadingThemAgain() throws Exception {
+        initJobStore(false, 1000);
+        long now = System.currentTimeMillis();
+        Trigger trigger1 = storeTrigger("trigger1", now);
+        Trigger trigger2 = storeTrigger("trigger2", now + 500);
+        storeTrigger("trigger3", now + 5000);
+
+        assertThat(jobStore.acquireNextTrigger(null, now).getName()).isEqualTo("trigger1");
+        // the triggers due within the window are acquired with the first
+        assertThat(waitingTriggerNames()).containsExactly(RepoJobStore.getTriggerId("group1", "trigger3"));
+        assertThat(storedTrigger(trigger2).get("acquired").asBoolean()).isTrue();
+        triggerReads.clear();
+        triggerUpdates.clear();
+
+        assertThat(jobStore.acquireNextTrigger(null, now + 1000).getName()).isEqualTo("trigger2");
+
+        assertThat(triggerReads).isEmpty();
+        assertThat(triggerUpdates).isEmpty();
+        assertThat(storedTrigger(trigger1).get("nodeId").asString()).isEqualTo(INSTANCE_ID);
+        // the next batch does not reach the trigger due later
+        assertThat(jobStore.acquireNextTrigger(null, now + 1000)).isNull();
+        assertThat(waitingTriggerNames()).hasSize(1);
+    }
+
+    @Test
+    public void testBatchOfTriggerRowsHandsOutTriggersWithoutReadingThemAgain() throws Exception {
+        initJobStore(true, 1000);
+        long now = System.currentTimeMillis();
+        storeTrigger("trigger1", now);
+        Trigger trigger2 = storeTrigger("trigger2", now + 500);
+
+        assertThat(jobStore.acquireNextTrigger(null, now).getName()).isEqualTo("trigger1");
+        assertThat(rows(WAITING_TRIGGER_ROWS)).isEmpty();
+        assertThat(rows(ACQUIRED_TRIGGER_ROWS)).hasSize(2);
+        triggerReads.clear();
+
+        assertThat(jobStore.acquireNextTrigger(null, now + 1000).getName()).isEqualTo("trigger2");
+
+        assertThat(triggerReads).isEmpty();
+        assertThat(storedTrigger(trigger2).get("acquired").asBoolean()).isTrue();
+    }
+
+    @Test
+    public void testMisfiredBatchedTriggerIsReleasedWithOneUpdate() throws Exception {
+        initJobStore(false, 1000);
+        jobStore.setMisfireThreshold(500);
+        long now = System.currentTimeMillis();
+        storeTrigger("trigger1", now - 20);
+        Trigger trigger2 = storeTrigger("trigger2", now - 10);
+
+        assertThat(jobStore.acquireNextTrigger(null, now).getName()).isEqualTo("trigger1");
+        assertThat(signaler.getMisfiredCount()).isZero();
+        // trigger2 misfires while it waits in the batch
+        Thread.sleep(600);
+        triggerReads.clear();
+        triggerUpdates.clear();
+
+        assertThat(jobStore.acquireNextTrigger(null, now)).isNull();
+
+        assertThat(signaler.getMisfiredCount()).isEqualTo(1);
+        assertThat(triggerReads).isEmpty();
+        assertThat(triggerUpdates).hasSize(1);
+        assertThat(triggerUpdates.get(0)).endsWith(RepoJobStore.getTriggerId("group1", "trigger2"));
+        JsonValue stored = storedTrigger(trigger2);
+        assertThat(stored.get("acquired").asBoolean()).isFalse();
+        assertThat(stored.get("nodeId").isNull()).isTrue();
+        assertThat(waitingTriggerNames()).containsExactly(RepoJobStore.getTriggerId("group1", "trigger2"));
+    }
+
+    @Test
+    public void testMisfiredBatchedTriggerChangedConcurrentlyIsSkipped() throws Exception {
+        initJobStore(true, 1000);
+        jobStore.setMisfireThreshold(500);
+        long now = System.currentTimeMillis();
+        storeTrigger("trigger1", now - 20);
+        Trigger trigger2 = storeTrigger("trigger2", now - 10);
+
+        assertThat(jobStore.acquireNextTrigger(null, now).getName()).isEqualTo("trigger1");
+        Thread.sleep(600);
+        // trigger2 is rescheduled while it waits in the batch
+        Trigger rescheduled = new SimpleTrigger("trigger2", "group1", "job-trigger2", "group1",
+                new Date(now + 60000), null, 0, 0);
+        rescheduled.computeFirstFireTime(null);
+        jobStore.storeTrigger(null, rescheduled, true);
+
+        assertThat(jobStore.acquireNextTrigger(null, now)).isNull();
+
+        assertThat(signaler.getMisfiredCount()).isEqualTo(1);
+        assertThat(storedTrigger(trigger2).get("acquired").asBoolean()).isFalse();
+        assertThat(rows(ACQUIRED_TRIGGER_ROWS)).extracting(row -> row.getContent().get("name").asString())
+                .containsExactly("trigger1");
+        assertThat(rows(WAITING_TRIGGER_ROWS)).extracting(row -> row.getContent().get("nextFireTime").asLong())
+                .containsExactly(now + 60000);
+    }
+}
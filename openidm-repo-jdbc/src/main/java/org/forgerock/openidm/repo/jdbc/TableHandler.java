@@ -94,6 +94,31 @@ public interface TableHandler {
     void create(String fullId, String type, String localId, Map<String, Object> obj, Connection connection)
             throws PreconditionFailedException, InternalServerErrorException, IOException, SQLException;
 
+    /**
+     * Create a batch of new objects of the same type in the object set.
+     *
+     * <p>
+     * Each object must contain its client-generated identifier as the {@code _id} property. The
+     * provided objects are mutated the same way as by {@link #create(String, String, String, Map, Connection)}.
+     * The default implementation creates the objects one by one; implementations can override it to
+     * send the whole batch to the database at once.
+     *
+     * @param type the qualifier of the objects to create
+     * @param objects the contents of the objects to create in the object set
+     * @param connection database connection to use
+     * @throws PreconditionFailedException if an object with the same ID already exists
+     * @throws InternalServerErrorException if the operation failed because of a (possibly transient) failure
+     * @throws IOException in case of JSON processing error
+     * @throws SQLException if a DB failure is reported
+     */
+    default void createBatch(String type, List<Map<String, Object>> objects, Connection connection)
+            throws PreconditionFailedException, InternalServerErrorException, IOException, SQLException {
+        for (Map<String, Object> obj : objects) {
+            String localId = (String) obj.get(Constants.OBJECT_ID);
+            create(type + "/" + localId, type, localId, obj, connection);
+        }
+    }
+
     /**
      * Update the specified object in the object set.
      *
@@ -122,6 +147,56 @@ public interface TableHandler {
             Connection connection) throws NotFoundException, PreconditionFailedException,
             BadRequestException, InternalServerErrorException, IOException, SQLException;
 
+    /**
+     * Update a batch of objects of the same type in the object set.
+     *
+     * <p>
+     * Each object must contain its identifier as the {@code _id} property and the revision it expects to be
+     * updating as the {@code _rev} property. The provided objects are mutated the same way as by
+     * {@link #update(String, String, String, String, Map, Connection)}. The default implementation updates
+     * the objects one by one; implementations can override it to send the whole batch to the database at once.
+     *
+     * @param type the qualifier of the objects to update
+     * @param objects the contents of the objects to put in the object set
+     * @param connection database connection to use
+     * @throws NotFoundException if any of the objects could not be found
+     * @throws PreconditionFailedException if the version of any object did not match the existing object
+     * @throws BadRequestException if any of the passed identifiers is invalid
+     * @throws InternalServerErrorException if the operation failed because of a (possibly transient) failure
+     * @throws IOException in case of JSON processing error
+     * @throws SQLException if a DB failure is reported
+     */
+    default void updateBatch(String type, List<Map<String, Object>> objects, Connection connection)
+            throws NotFoundException, PreconditionFailedException, BadRequestException,
+            InternalServerErrorException, IOException, SQLException {
+        for (Map<String, Object> obj : objects) {
+            String localId = (String) obj.get(Constants.OBJECT_ID);
+            update(type + "/" + localId, type, localId, (String) obj.get(Constants.OBJECT_REV), obj, connection);
+        }
+    }
+
+    /**
+     * Delete a batch of objects of the same type from the object set.
+     *
+     * <p>
+     * The default implementation deletes the objects one by one; implementations can override it to send
+     * the whole batch to the database at once.
+     *
+     * @param type the qualifier of the objects to delete
+     * @param revisions the version of each object to delete, or {@code *} to match any version, by identifier
+     * @param connection database connection to use
+     * @throws NotFoundException if any of the objects could not be found
+     * @throws PreconditionFailedException if the version of any object did not match the existing object
+     * @throws InternalServerErrorException if the operation failed because of a (possibly transient) failure
+     * @throws SQLException if a DB failure is reported
+     */
+    default void deleteBatch(String type, Map<String, String> revisions, Connection connection)
+            throws SQLException, ResourceException {
+        for (Map.Entry<String, String> revision : revisions.entrySet()) {
+            delete(type + "/" + revision.getKey(), type, revision.getKey(), revision.getValue(), connection);
+        }
+    }
+
     /**
      * Delete the specified object from the object set.
      *
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2011-2016 ForgeRock AS.
- * Portions Copyright 2020-2024 Wren Security
+ * Portions Copyright 2020-2026 Wren Security
  */
 package org.forgerock.openidm.repo.jdbc.impl;
 
@@ -39,10 +39,12 @@ import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
+import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
 import org.forgerock.json.resource.ActionResponse;
@@ -74,7 +76,9 @@ import org.forgerock.openidm.repo.jdbc.DatabaseType;
 import org.forgerock.openidm.repo.jdbc.ErrorType;
 import org.forgerock.openidm.repo.jdbc.TableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.handler.GenericTableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.handler.MappedColumnConfig;
 import org.forgerock.openidm.repo.jdbc.impl.handler.MappedTableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.handler.PartitionedTableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.vendor.DB2GenericTableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.vendor.DB2MappedTableHandler;
 import org.forgerock.openidm.repo.jdbc.impl.vendor.DB2SQLExceptionHandler;
@@ -130,6 +134,7 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
 
     public static final String PID = "org.forgerock.openidm.repo.jdbc";
     private static final String ACTION_COMMAND = "command";
+    private static final String ACTION_BULK = "bulk";
 
     // Keys in the JSON configuration
     public static final String CONFIG_USE_DATASOURCE = "useDataSource";
@@ -703,6 +708,8 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         try {
             if (ACTION_COMMAND.equalsIgnoreCase(request.getAction())) {
                 return command(request).asPromise();
+            } else if (ACTION_BULK.equalsIgnoreCase(request.getAction())) {
+                return bulk(request).asPromise();
             } else {
                 throw new NotSupportedException("Action operations are not supported");
             }
@@ -775,6 +782,171 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         return newActionResponse(result);
     }
 
+    /**
+     * Creates, updates and deletes many objects of the type defined by the {@code request} in a single
+     * transaction, using JDBC batches where the table handler supports them.
+     *
+     * <p>
+     * The request content holds the objects to create in the {@code create} list, each with an optional
+     * client-generated identifier, the objects to update in the {@code update} list, each with its identifier and
+     * expected revision, and the objects to delete in the {@code delete} list, each with its identifier and
+     * expected revision (or {@code *}). Either all objects are written, or none of them; a retryable failure
+     * retries the whole batch.
+     *
+     * @param request the request specifying the objects to create, update and delete
+     * @return the identifier and resulting revision of each created, updated and deleted object
+     * @throws ResourceException on failure to write any of the objects
+     */
+    private ActionResponse bulk(ActionRequest request) throws ResourceException {
+        if (request.getResourcePathObject().isEmpty()) {
+            throw new BadRequestException(
+                    "The repository requires clients to supply a type for the objects to write.");
+        }
+        final String type = request.getResourcePath();
+        final JsonValue content = request.getContent();
+        final JsonValue creates = content.get("create").defaultTo(Collections.emptyList()).expect(List.class);
+        final JsonValue updates = content.get("update").defaultTo(Collections.emptyList()).expect(List.class);
+        final JsonValue deletes = content.get("delete").defaultTo(Collections.emptyList()).expect(List.class);
+        for (JsonValue item : updates) {
+            if (item.get(FIELD_CONTENT_ID).isNull() || item.get(FIELD_CONTENT_REVISION).isNull()) {
+                throw new BadRequestException("Objects to update require " + FIELD_CONTENT_ID + " and "
+                        + FIELD_CONTENT_REVISION + " to be set.");
+            }
+        }
+        final Map<String, String> deleteRevisions = new LinkedHashMap<>();
+        for (JsonValue item : deletes) {
+            if (item.get(FIELD_CONTENT_ID).isNull() || item.get(FIELD_CONTENT_REVISION).isNull()) {
+                throw new BadRequestException("Objects to delete require " + FIELD_CONTENT_ID + " and "
+                        + FIELD_CONTENT_REVISION + " to be set.");
+            }
+            deleteRevisions.put(item.get(FIELD_CONTENT_ID).asString(), item.get(FIELD_CONTENT_REVISION).asString());
+        }
+
+        final List<Map<String, Object>> createObjects = new ArrayList<>(creates.size());
+        final List<Map<String, Object>> updateObjects = new ArrayList<>(updates.size());
+
+        Connection connection = null;
+        Integer previousIsolationLevel = null;
+        boolean retry;
+        int tryCount = 0;
+        do {
+            TableHandler handler = getTableHandler(type);
+            if (handler == null) {
+                throw newResourceException(ResourceException.INTERNAL_ERROR,
+                        "No handler configured for resource type " + type);
+            }
+
+            retry = false;
+            ++tryCount;
+            try {
+                connection = getConnection();
+                previousIsolationLevel = connection.getTransactionIsolation();
+                connection.setTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+                connection.setAutoCommit(false);
+
+                // The handlers mutate the objects, so each attempt works on fresh copies
+                createObjects.clear();
+                for (JsonValue create : creates) {
+                    Map<String, Object> obj = create.copy().asMap();
+                    if (obj.get(FIELD_CONTENT_ID) == null) {
+                        obj.put(FIELD_CONTENT_ID, UUID.randomUUID().toString());
+                    }
+                    createObjects.add(obj);
+                }
+                updateObjects.clear();
+                for (JsonValue update : updates) {
+                    updateObjects.add(update.copy().asMap());
+                }
+                if (!deleteRevisions.isEmpty()) {
+                    handler.deleteBatch(type, deleteRevisions, connection);
+                }
+                if (!updateObjects.isEmpty()) {
+                    handler.updateBatch(type, updateObjects, connection);
+                }
+                if (!createObjects.isEmpty()) {
+                    handler.createBatch(type, createObjects, connection);
+                }
+
+                connection.commit();
+                logger.debug("Committed bulk write of {} created, {} updated and {} deleted objects of type {}",
+                        creates.size(), updates.size(), deleteRevisions.size(), type);
+            } catch (SQLException ex) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug("SQL Exception in bulk write of {} with error code {}, sql state {}",
+                            type, ex.getErrorCode(), ex.getSQLState(), ex);
+                }
+                rollback(connection);
+                if (handler.isErrorType(ex, ErrorType.DUPLICATE_KEY)) {
+                    throw new PreconditionFailedException(
+                            "Bulk write rejected as an Object with same ID already exists and was detected. "
+                                    + "(" + ex.getErrorCode() + "-" + ex.getSQLState() + ")"
+                                    + ex.getMessage(), ex);
+                }
+                if (handler.isRetryable(ex, connection)) {
+                    if (tryCount <= maxTxRetry) {
+                        retry = true;
+                        logger.debug("Retryable exception encountered, retry attempt {} of {} : {}", tryCount, maxTxRetry, ex.getMessage());
+                    }
+                }
+                if (!retry) {
+                    throw new InternalServerErrorException("Bulk write failed after " + tryCount + " attempts ("
+                            + ex.getErrorCode() + "-" + ex.getSQLState() + "): " + ex.getMessage(), ex);
+                }
+            } catch (ResourceException ex) {
+                logger.debug("ResourceException in bulk write of {}", type, ex);
+                rollback(connection);
+                throw ex;
+            } catch (IOException ex) {
+                logger.debug("IO Exception in bulk write of {}", type, ex);
+                rollback(connection);
+                throw new InternalServerErrorException("Conversion of objects to write failed", ex);
+            } catch (RuntimeException ex) {
+                logger.debug("Runtime Exception in bulk write of {}", type, ex);
+                rollback(connection);
+                throw new InternalServerErrorException(
+                        "Bulk write failed with unexpected failure: " + ex.getMessage(), ex);
+            } finally {
+                if (connection != null) {
+                    try {
+                        if (previousIsolationLevel != null) {
+                            connection.setTransactionIsolation(previousIsolationLevel);
+                        }
+                    } catch (SQLException ex) {
+                        logger.warn("Failure in resetting connection isolation level ", ex);
+                    }
+                    CleanupHelper.loggedClose(connection);
+                }
+            }
+        } while (retry);
+
+        List<Object> deleted = new ArrayList<>(deleteRevisions.size());
+        for (Map.Entry<String, String> revision : deleteRevisions.entrySet()) {
+            deleted.add(object(
+                    field(FIELD_CONTENT_ID, revision.getKey()),
+                    field(FIELD_CONTENT_REVISION, revision.getValue())));
+        }
+        return newActionResponse(json(object(
+                field("created", bulkResults(createObjects)),
+                field("updated", bulkResults(updateObjects)),
+                field("deleted", deleted))));
+    }
+
+    /**
+     * Returns the identifier and revision of each written object, in the order of the request.
+     *
+     * @param objects the objects as written by the table handler
+     * @return the per-item results of the bulk action
+     */
+    private static List<Object> bulkResults(List<Map<String, Object>> objects) {
+        List<Object> results = new ArrayList<>(objects.size());
+        for (Map<String, Object> obj : objects) {
+            results.add(object(
+                    field(FIELD_CONTENT_ID, obj.get(FIELD_CONTENT_ID)),
+                    field(FIELD_CONTENT_REVISION, obj.get(FIELD_CONTENT_REVISION))));
+        }
+        return results;
+    }
+
     // Utility method to cleanly roll back including logging
     private void rollback(Connection connection) {
         if (connection != null) {
@@ -912,12 +1084,18 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
                         // For matching purposes strip the wildcard at the end
                         key = key.substring(0, key.length() - 1);
                     }
-                    TableHandler handler =
-                            getMappedTableHandler(databaseType, value,
-                                    value.get("table").required().asString(),
-                                    value.get("objectToColumn").required().asMap(),
-                                    dataSourceService.getDatabaseName(), explicitQueries, explicitCommands,
-                                    maxBatchSize);
+                    TableHandler handler;
+                    if (value.get("partitioning").isNotNull()) {
+                        handler = getPartitionedTableHandler(databaseType, value,
+                                dataSourceService.getDatabaseName(), explicitQueries, explicitCommands,
+                                maxBatchSize);
+                    } else {
+                        handler = getMappedTableHandler(databaseType, value,
+                                value.get("table").required().asString(),
+                                value.get("objectToColumn").required().asMap(),
+                                dataSourceService.getDatabaseName(), explicitQueries, explicitCommands,
+                                maxBatchSize);
+                    }
 
                     tableHandlers.put(key, handler);
                     logger.debug("For pattern {} added handler: {}", key, handler);
@@ -997,6 +1175,41 @@ public class JDBCRepoService implements RequestHandler, RepoBootService, Reposit
         }
     }
 
+    TableHandler getPartitionedTableHandler(DatabaseType databaseType, JsonValue tableConfig, String schemaName,
+            JsonValue queries, JsonValue commands, int maxBatchSize) throws InternalServerErrorException {
+        String tableName = tableConfig.get("table").required().asString();
+        Map<String, Object> columnMapping = tableConfig.get("objectToColumn").required().asMap();
+        // Validates the mapping before handlers are created for the partitions
+        MappedTableHandler handler = getMappedTableHandler(databaseType, tableConfig, tableName, columnMapping,
+                schemaName, queries, commands, maxBatchSize);
+        if (databaseType != DatabaseType.H2 && databaseType != DatabaseType.POSTGRESQL) {
+            logger.warn("Table partitioning is not supported on {}, table {} is not partitioned",
+                    databaseType, tableName);
+            return handler;
+        }
+
+        JsonValue partitioning = tableConfig.get("partitioning");
+        String property = partitioning.get("property").defaultTo("timestamp").asString();
+        JsonValue columnConfig = tableConfig.get("objectToColumn").get(property);
+        if (columnConfig.isNull()) {
+            throw new InvalidException("Partitioning property " + property + " is not mapped in table " + tableName);
+        }
+        return new PartitionedTableHandler(databaseType, schemaName, tableName,
+                new JsonPointer(property), MappedColumnConfig.parse(property, columnConfig).columnName,
+                partitioning.get("interval").defaultTo(PartitionedTableHandler.Interval.day.name())
+                        .as(enumConstant(PartitionedTableHandler.Interval.class)),
+                partitioning.get("retention").defaultTo(0).asInteger(),
+                partition -> {
+                    try {
+                        return getMappedTableHandler(databaseType, tableConfig, partition, columnMapping,
+                                schemaName, queries, commands, maxBatchSize);
+                    } catch (InternalServerErrorException ex) {
+                        throw new IllegalStateException("Failed to create handler of partition " + partition, ex);
+                    }
+                },
+                this::getConnection);
+    }
+
     MappedTableHandler getMappedTableHandler(DatabaseType databaseType, JsonValue tableConfig,
             String tableName, Map<String, Object> columnMapping, String schemaName,
             JsonValue queries, JsonValue commands, int maxBatchSize)
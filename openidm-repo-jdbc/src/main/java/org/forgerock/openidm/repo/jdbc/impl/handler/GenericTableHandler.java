@@ -33,6 +33,7 @@ import java.util.EnumMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.StringUtils;
@@ -85,6 +86,9 @@ public class GenericTableHandler extends AbstractTableHandler {
         DELETE,
         PROPCREATE,
         PROPDELETE,
+        PROPREAD,
+        PROPUPDATE,
+        PROPDELETEKEY,
         // XXX this was copied from the legacy code - not sure if it is really necessary when query-all-ids is
         // a required definition in queries/genericTables configuration
         QUERYALLIDS
@@ -237,6 +241,16 @@ public class GenericTableHandler extends AbstractTableHandler {
                 + ")");
         result.put(ImplicitSqlType.PROPDELETE,
                 "DELETE FROM ${_dbSchema}.${_propTable} WHERE ${_mainTable}_id = ?");
+        result.put(ImplicitSqlType.PROPREAD,
+                "SELECT propkey, proptype, propvalue FROM ${_dbSchema}.${_propTable} WHERE ${_mainTable}_id = ?");
+        result.put(ImplicitSqlType.PROPUPDATE,
+                "UPDATE ${_dbSchema}.${_propTable} "
+                + "SET "
+                    + "proptype = ?, "
+                    + "propvalue = ? "
+                + "WHERE ${_mainTable}_id = ? AND propkey = ?");
+        result.put(ImplicitSqlType.PROPDELETEKEY,
+                "DELETE FROM ${_dbSchema}.${_propTable} WHERE ${_mainTable}_id = ? AND propkey = ?");
 
         // default object queries
         result.put(ImplicitSqlType.QUERYALLIDS, "SELECT obj.objectid FROM ${_dbSchema}.${_mainTable} obj "
@@ -298,38 +312,106 @@ public class GenericTableHandler extends AbstractTableHandler {
         logger.debug("Create with fullid {}", fullId);
 
         long typeId = typeResolver.resolveTypeId(type, connection);
-        String revision = "0";
 
         // update object properties
         obj.put(Constants.OBJECT_ID, localId);
-        obj.put(Constants.OBJECT_REV, revision);
 
-        // serialize full object state
-        String fullObject = objectMapper.writeValueAsString(obj);
+        long databaseId;
+        try (var createStatement = resolveImplicitStatement(ImplicitSqlType.CREATE, true, connection)) {
+            databaseId = insertObject(createStatement, fullId, typeId, localId, obj);
+        }
+        writeValueProperties(fullId, databaseId, new JsonValue(obj), connection);
+    }
 
+    @Override
+    public void createBatch(String type, List<Map<String, Object>> objects, Connection connection)
+            throws PreconditionFailedException, InternalServerErrorException, IOException, SQLException {
+        logger.debug("Create batch of {} objects of type {}", objects.size(), type);
+
+        long typeId = typeResolver.resolveTypeId(type, connection);
+
+        // main table rows are inserted one by one to retrieve their generated keys
+        Map<Long, Map<String, IndexedProperty>> properties = new LinkedHashMap<>();
         try (var createStatement = resolveImplicitStatement(ImplicitSqlType.CREATE, true, connection)) {
-            logger.trace("Populating statement {} with params {}, {}, {}, {}",
-                    createStatement, typeId, localId, revision, fullObject);
-            createStatement.setLong(1, typeId);
-            createStatement.setString(2, localId);
-            createStatement.setString(3, revision);
-            createStatement.setString(4, fullObject);
-
-            logger.debug("Executing: {}", createStatement);
-            createStatement.executeUpdate();
-
-            long databaseId;
-            try (var generatedKeys = createStatement.getGeneratedKeys()) {
-                if (!generatedKeys.next()) {
-                    throw new InternalServerErrorException("Object creation for " + fullId
-                            + " failed to retrieve an assigned ID from the DB.");
+            for (Map<String, Object> obj : objects) {
+                // the client-generated identifier is already set
+                String localId = (String) obj.get(Constants.OBJECT_ID);
+                long databaseId = insertObject(createStatement, type + "/" + localId, typeId, localId, obj);
+                if (tableConfig.containsSearchable && isPropertiesTableUsed()) {
+                    properties.put(databaseId, indexValueProperties(new JsonValue(obj)));
+                }
+            }
+        }
+
+        // index properties of all objects are inserted as one batch
+        if (!properties.isEmpty()) {
+            try (var createStatement = resolveImplicitStatement(ImplicitSqlType.PROPCREATE, false, connection)) {
+                int batchingCount = 0;
+                for (var objectProperties : properties.entrySet()) {
+                    batchingCount = insertValueProperties(createStatement, objectProperties.getKey(),
+                            objectProperties.getValue(), batchingCount);
                 }
-                databaseId = generatedKeys.getLong(1);
+                flushBatch(createStatement, batchingCount);
             }
+        }
+        logger.debug("Created {} objects of type {}", objects.size(), type);
+    }
+
+    /**
+     * Insert the main table record of a new object.
+     *
+     * @param createStatement the object insert statement returning generated keys
+     * @param fullId the qualified identifier of the new object
+     * @param typeId the database identifier of the object type
+     * @param localId the identifier without the qualifier
+     * @param obj the contents of the object, its revision is set to the initial one
+     * @return the generated database identifier of the main table record
+     * @throws InternalServerErrorException if the generated identifier could not be retrieved
+     * @throws IOException in case of JSON processing error
+     * @throws SQLException if the insert failed
+     */
+    private long insertObject(PreparedStatement createStatement, String fullId, long typeId, String localId,
+            Map<String, Object> obj) throws InternalServerErrorException, IOException, SQLException {
+        String revision = "0";
+        obj.put(Constants.OBJECT_REV, revision);
 
-            logger.debug("Created object for id {} with rev {}", fullId, revision);
-            writeValueProperties(fullId, databaseId, new JsonValue(obj), connection);
+        // serialize full object state
+        String fullObject = objectMapper.writeValueAsString(obj);
+
+        logger.trace("Populating statement {} with params {}, {}, {}, {}",
+                createStatement, typeId, localId, revision, fullObject);
+        createStatement.setLong(1, typeId);
+        createStatement.setString(2, localId);
+        createStatement.setString(3, revision);
+        createStatement.setString(4, fullObject);
+
+        logger.debug("Executing: {}", createStatement);
+        createStatement.executeUpdate();
+
+        long databaseId;
+        try (var generatedKeys = createStatement.getGeneratedKeys()) {
+            if (!generatedKeys.next()) {
+                throw new InternalServerErrorException("Object creation for " + fullId
+                        + " failed to retrieve an assigned ID from the DB.");
+            }
+            databaseId = generatedKeys.getLong(1);
         }
+
+        logger.debug("Created object for id {} with rev {}", fullId, revision);
+        return databaseId;
+    }
+
+    /**
+     * Whether searchable properties are indexed in the properties table.
+     *
+     * <p>
+     * Vendor specific subclasses that query the JSON object directly override this together with the
+     * property write methods.
+     *
+     * @return true if the properties table is used
+     */
+    protected boolean isPropertiesTableUsed() {
+        return true;
     }
 
     /**
@@ -347,53 +429,214 @@ public class GenericTableHandler extends AbstractTableHandler {
             return; // no searchable properties, no need to index
         }
 
-        Map<JsonPointer, Object> pairs = new LinkedHashMap<JsonPointer, Object>();
-        extractValueProperties(value, pairs::put);
+        insertValueProperties(databaseId, indexValueProperties(value), connection);
+    }
 
+    /**
+     * Insert the given index property rows linked to the main table record.
+     *
+     * @param databaseId the identifier that link the properties table with the main table (foreign key)
+     * @param properties the index property rows by property key
+     * @param connection the DB connection
+     * @throws SQLException if the insert failed
+     */
+    private void insertValueProperties(long databaseId, Map<String, IndexedProperty> properties,
+            Connection connection) throws SQLException {
+        if (properties.isEmpty()) {
+            return;
+        }
         try (var createStatement = resolveImplicitStatement(ImplicitSqlType.PROPCREATE, false, connection)) {
-            int batchingCount = 0;
-
-            for (var pair : pairs.entrySet()) {
-                // prepare index properties
-                var object = pair.getValue();
-                var idxkey = pair.getKey().toString();
-                var idxtype = object != null ? object.getClass().getName() : null;
-                var idxvalue = object != null ? StringUtils.left(object.toString(), getSearchableLength()) : null;
-
-                // set statement parameters
-                if (logger.isTraceEnabled()) {
-                    logger.trace("Populating statement {} with params {}, {}, {}, {}",
-                            createStatement, databaseId, idxkey, idxtype, idxvalue);
+            flushBatch(createStatement, insertValueProperties(createStatement, databaseId, properties, 0));
+        }
+    }
+
+    /**
+     * Execute or batch the inserts of the given index property rows with the given statement.
+     *
+     * @param createStatement the property insert statement
+     * @param databaseId the identifier that link the properties table with the main table (foreign key)
+     * @param properties the index property rows by property key
+     * @param batchingCount number of statements in the current batch
+     * @return the new number of statements in the current batch
+     * @throws SQLException if the insert failed
+     */
+    private int insertValueProperties(PreparedStatement createStatement, long databaseId,
+            Map<String, IndexedProperty> properties, int batchingCount) throws SQLException {
+        for (var property : properties.entrySet()) {
+            var idxkey = property.getKey();
+            var idxtype = property.getValue().type;
+            var idxvalue = property.getValue().value;
+
+            // set statement parameters
+            if (logger.isTraceEnabled()) {
+                logger.trace("Populating statement {} with params {}, {}, {}, {}",
+                        createStatement, databaseId, idxkey, idxtype, idxvalue);
+            }
+            createStatement.setLong(1, databaseId);
+            createStatement.setString(2, idxkey);
+            createStatement.setString(3, idxtype);
+            createStatement.setString(4, idxvalue);
+
+            batchingCount = executeBatched(createStatement, batchingCount);
+        }
+        return batchingCount;
+    }
+
+    /**
+     * Update properties of a given resource in the properties table by writing only the differences to the
+     * currently stored property rows.
+     *
+     * <p>
+     * Unlike clearing and rewriting all properties, this only deletes the rows of the properties that are no
+     * longer present, updates the rows of the properties with a changed value and inserts the rows of new
+     * properties. The resulting rows are the same as after a full rewrite.
+     *
+     * @param fullId the qualified identifier of the owner object
+     * @param databaseId the identifier that link the properties table with the main table (foreign key)
+     * @param value the JSON value with the properties to write
+     * @param connection the DB connection
+     * @throws SQLException if the update failed
+     */
+    protected void updateValueProperties(String fullId, long databaseId, JsonValue value, Connection connection)
+            throws SQLException {
+        if (!tableConfig.containsSearchable) {
+            clearValueProperties(fullId, databaseId, connection);
+            return;
+        }
+
+        Map<String, IndexedProperty> existing = readValueProperties(databaseId, connection);
+        if (existing == null) {
+            // the stored rows are not keyed uniquely, rewrite them all
+            clearValueProperties(fullId, databaseId, connection);
+            writeValueProperties(fullId, databaseId, value, connection);
+            return;
+        }
+
+        Map<String, IndexedProperty> inserted = new LinkedHashMap<>();
+        Map<String, IndexedProperty> updated = new LinkedHashMap<>();
+        for (var property : indexValueProperties(value).entrySet()) {
+            var current = existing.remove(property.getKey());
+            if (current == null) {
+                inserted.put(property.getKey(), property.getValue());
+            } else if (!current.equals(property.getValue())) {
+                updated.put(property.getKey(), property.getValue());
+            }
+        }
+        // whatever is left over is no longer present
+        Collection<String> deleted = existing.keySet();
+        logger.trace("Property changes for {}: {} deleted, {} updated, {} inserted", fullId, deleted.size(),
+                updated.size(), inserted.size());
+
+        if (!deleted.isEmpty()) {
+            try (var deleteStatement = resolveImplicitStatement(ImplicitSqlType.PROPDELETEKEY, false, connection)) {
+                int batchingCount = 0;
+                for (String idxkey : deleted) {
+                    deleteStatement.setLong(1, databaseId);
+                    deleteStatement.setString(2, idxkey);
+                    batchingCount = executeBatched(deleteStatement, batchingCount);
                 }
-                createStatement.setLong(1, databaseId);
-                createStatement.setString(2, idxkey);
-                createStatement.setString(3, idxtype);
-                createStatement.setString(4, idxvalue);
-
-                // handle statement execution
-                if (batchSize > 0) {
-                    createStatement.addBatch();
-                    if (++batchingCount >= batchSize) {
-                        int[] updates = createStatement.executeBatch();
-                        if (logger.isDebugEnabled()) {
-                            logger.debug("Batch limit reached, update of objectproperties updated: {}",
-                                    Arrays.asList(updates));
-                        }
-                        createStatement.clearBatch();
-                        batchingCount = 0;
-                    }
-                } else {
-                    createStatement.executeUpdate();
+                flushBatch(deleteStatement, batchingCount);
+            }
+        }
+
+        if (!updated.isEmpty()) {
+            try (var updateStatement = resolveImplicitStatement(ImplicitSqlType.PROPUPDATE, false, connection)) {
+                int batchingCount = 0;
+                for (var property : updated.entrySet()) {
+                    updateStatement.setString(1, property.getValue().type);
+                    updateStatement.setString(2, property.getValue().value);
+                    updateStatement.setLong(3, databaseId);
+                    updateStatement.setString(4, property.getKey());
+                    batchingCount = executeBatched(updateStatement, batchingCount);
                 }
+                flushBatch(updateStatement, batchingCount);
             }
+        }
 
-            if (batchingCount > 0) {
-                int[] updates = createStatement.executeBatch();
-                if (logger.isDebugEnabled()) {
-                    logger.debug("Writing batch of objectproperties, updated: {}", Arrays.asList(updates));
+        insertValueProperties(databaseId, inserted, connection);
+    }
+
+    /**
+     * Read the index property rows currently stored for the given main table record.
+     *
+     * @param databaseId the identifier that link the properties table with the main table (foreign key)
+     * @param connection the DB connection
+     * @return mutable map of the index property rows by property key, or {@code null} when there are several
+     *         rows for the same property key
+     * @throws SQLException if the select failed
+     */
+    private Map<String, IndexedProperty> readValueProperties(long databaseId, Connection connection)
+            throws SQLException {
+        Map<String, IndexedProperty> result = new LinkedHashMap<>();
+        try (var readStatement = resolveImplicitStatement(ImplicitSqlType.PROPREAD, false, connection)) {
+            readStatement.setLong(1, databaseId);
+            try (var resultSet = readStatement.executeQuery()) {
+                while (resultSet.next()) {
+                    var property = new IndexedProperty(resultSet.getString(2), resultSet.getString(3));
+                    if (result.put(resultSet.getString(1), property) != null) {
+                        return null;
+                    }
                 }
             }
         }
+        return result;
+    }
+
+    /**
+     * Convert searchable property values to the index property rows as stored in the properties table.
+     *
+     * @param value the JSON value with the properties to index
+     * @return map of the index property rows by property key
+     */
+    private Map<String, IndexedProperty> indexValueProperties(JsonValue value) {
+        Map<String, IndexedProperty> result = new LinkedHashMap<>();
+        extractValueProperties(value, (pointer, object) -> {
+            var idxtype = object != null ? object.getClass().getName() : null;
+            var idxvalue = object != null ? StringUtils.left(object.toString(), getSearchableLength()) : null;
+            result.put(pointer.toString(), new IndexedProperty(idxtype, idxvalue));
+        });
+        return result;
+    }
+
+    /**
+     * Execute the populated statement, or add it to the current batch when batching is enabled.
+     *
+     * @param statement the populated statement
+     * @param batchingCount number of statements in the current batch
+     * @return the new number of statements in the current batch
+     * @throws SQLException if the execution failed
+     */
+    private int executeBatched(PreparedStatement statement, int batchingCount) throws SQLException {
+        if (batchSize <= 0) {
+            statement.executeUpdate();
+            return 0;
+        }
+        statement.addBatch();
+        if (batchingCount + 1 < batchSize) {
+            return batchingCount + 1;
+        }
+        int[] updates = statement.executeBatch();
+        if (logger.isDebugEnabled()) {
+            logger.debug("Batch limit reached, update of objectproperties updated: {}", Arrays.toString(updates));
+        }
+        statement.clearBatch();
+        return 0;
+    }
+
+    /**
+     * Execute the remaining statements of the current batch.
+     *
+     * @param statement the batched statement
+     * @param batchingCount number of statements in the current batch
+     * @throws SQLException if the execution failed
+     */
+    private void flushBatch(PreparedStatement statement, int batchingCount) throws SQLException {
+        if (batchingCount > 0) {
+            int[] updates = statement.executeBatch();
+            if (logger.isDebugEnabled()) {
+                logger.debug("Writing batch of objectproperties, updated: {}", Arrays.toString(updates));
+            }
+        }
     }
 
     /**
@@ -514,8 +757,45 @@ public class GenericTableHandler extends AbstractTableHandler {
             }
         }
 
-        clearValueProperties(fullId, databaseId, connection);
-        writeValueProperties(fullId, databaseId, new JsonValue(obj), connection);
+        updateValueProperties(fullId, databaseId, new JsonValue(obj), connection);
+    }
+
+    @Override
+    public void deleteBatch(String type, Map<String, String> revisions, Connection connection)
+            throws SQLException, ResourceException {
+        logger.debug("Delete batch of {} objects of type {}", revisions.size(), type);
+
+        try (var deleteStatement = resolveImplicitStatement(ImplicitSqlType.DELETE, false, connection)) {
+            for (Map.Entry<String, String> revision : revisions.entrySet()) {
+                String localId = revision.getKey();
+                String rev = revision.getValue();
+
+                // lock the existing row and perform optimistic version locking
+                JsonValue existingObj = new JsonValue(readForUpdate(type + "/" + localId, type, localId, connection));
+                String existingRev = existingObj.get(Constants.RAW_OBJECT_REV).asString();
+                if (!"*".equals(rev) && !existingRev.equals(rev)) {
+                    throw new PreconditionFailedException("Delete rejected as current Object revision "
+                            + existingRev + " is different than the expected by caller " + rev
+                            + ", the object has changed since retrieval.");
+                }
+
+                // rely on ON DELETE CASCADE for connected object properties to be deleted
+                deleteStatement.setString(1, type);
+                deleteStatement.setString(2, localId);
+                deleteStatement.setString(3, existingRev);
+                deleteStatement.addBatch();
+            }
+
+            logger.debug("Executing batch: {}", deleteStatement);
+            int[] deleteCounts = deleteStatement.executeBatch();
+            for (int deleteCount : deleteCounts) {
+                if (deleteCount < 1 && deleteCount != Statement.SUCCESS_NO_INFO) {
+                    throw new InternalServerErrorException("Deleting batch of objects of type " + type
+                            + " failed, DB reported " + deleteCount + " rows deleted");
+                }
+            }
+            logger.debug("Deleted {} objects of type {}", revisions.size(), type);
+        }
     }
 
     @Override
@@ -655,4 +935,34 @@ public class GenericTableHandler extends AbstractTableHandler {
         return queryHandler.command(type, params, connection);
     }
 
+    /**
+     * Type and value of an index property row.
+     */
+    private static final class IndexedProperty {
+
+        private final String type;
+
+        private final String value;
+
+        private IndexedProperty(String type, String value) {
+            this.type = type;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof IndexedProperty)) {
+                return false;
+            }
+            var other = (IndexedProperty) obj;
+            return Objects.equals(type, other.type) && Objects.equals(value, other.value);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, value);
+        }
+
+    }
+
 }
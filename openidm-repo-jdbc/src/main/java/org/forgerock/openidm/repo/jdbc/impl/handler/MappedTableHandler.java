@@ -25,6 +25,7 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSetMetaData;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.sql.Types;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -233,6 +234,28 @@ public class MappedTableHandler extends AbstractTableHandler {
         }
     }
 
+    @Override
+    public void createBatch(String type, List<Map<String, Object>> objects, Connection connection)
+            throws PreconditionFailedException, InternalServerErrorException, IOException, SQLException {
+        logger.debug("Create batch of {} objects of type {}", objects.size(), type);
+
+        String revision = "0";
+
+        var createSql = implicitSql.get(ImplicitSqlType.CREATE);
+        try (var createStatement = connection.prepareStatement(createSql)) {
+            for (Map<String, Object> obj : objects) {
+                // update object properties, the client-generated identifier is already set
+                obj.put(Constants.OBJECT_REV, revision);
+                populatePreparedStatement(createStatement, new JsonValue(obj));
+                createStatement.addBatch();
+            }
+
+            logger.debug("Executing batch: {}", createStatement);
+            createStatement.executeBatch();
+            logger.debug("Created {} objects of type {} with rev {}", objects.size(), type, revision);
+        }
+    }
+
     /**
      * Populate prepared statement for positional parameters in the same order as {@link #columnMapping}.
      *
@@ -405,6 +428,85 @@ public class MappedTableHandler extends AbstractTableHandler {
         }
     }
 
+    @Override
+    public void updateBatch(String type, List<Map<String, Object>> objects, Connection connection)
+            throws NotFoundException, PreconditionFailedException, BadRequestException,
+            InternalServerErrorException, IOException, SQLException {
+        logger.debug("Update batch of {} objects of type {}", objects.size(), type);
+
+        var updateSql = implicitSql.get(ImplicitSqlType.UPDATE);
+        try (var updateStatement = connection.prepareStatement(updateSql)) {
+            for (Map<String, Object> obj : objects) {
+                String localId = (String) obj.get(Constants.OBJECT_ID);
+                String rev = (String) obj.get(Constants.OBJECT_REV);
+                String fullId = type + "/" + localId;
+
+                // lock the existing row and perform optimistic version locking
+                JsonValue existingObj = new JsonValue(readForUpdate(fullId, type, localId, connection));
+                String existingRev = existingObj.get(Constants.OBJECT_REV).asString();
+                if (!existingRev.equals(rev)) {
+                    throw new PreconditionFailedException("Update rejected as current Object revision "
+                            + existingRev + " is different than expected by caller (" + rev + "), "
+                            + "the object has changed since retrieval.");
+                }
+
+                // handle revision update, the identifier can not change within a batch
+                obj.put(Constants.OBJECT_REV, Integer.toString(Integer.parseInt(rev) + 1));
+                populatePreparedStatement(updateStatement, new JsonValue(obj));
+                updateStatement.setString(columnMapping.size() + 1, localId);
+                updateStatement.addBatch();
+            }
+
+            logger.debug("Executing batch: {}", updateStatement);
+            int[] updateCounts = updateStatement.executeBatch();
+            for (int i = 0; i < updateCounts.length; i++) {
+                if (updateCounts[i] != 1 && updateCounts[i] != Statement.SUCCESS_NO_INFO) {
+                    throw new InternalServerErrorException("Update execution did not result in updating 1 "
+                            + "row as expected. Updated rows: " + updateCounts[i] + " for "
+                            + objects.get(i).get(Constants.OBJECT_ID));
+                }
+            }
+            logger.debug("Updated {} objects of type {}", objects.size(), type);
+        }
+    }
+
+    @Override
+    public void deleteBatch(String type, Map<String, String> revisions, Connection connection)
+            throws SQLException, ResourceException {
+        logger.debug("Delete batch of {} objects of type {}", revisions.size(), type);
+
+        var deleteSql = implicitSql.get(ImplicitSqlType.DELETE);
+        try (var deleteStatement = connection.prepareStatement(deleteSql)) {
+            for (Map.Entry<String, String> revision : revisions.entrySet()) {
+                String localId = revision.getKey();
+                String rev = revision.getValue();
+
+                // lock the existing row and perform optimistic version locking
+                JsonValue existingObj = new JsonValue(readForUpdate(type + "/" + localId, type, localId, connection));
+                String existingRev = existingObj.get(Constants.OBJECT_REV).asString();
+                if (!"*".equals(rev) && !existingRev.equals(rev)) {
+                    throw new PreconditionFailedException("Delete rejected as current Object revision "
+                            + existingRev + " is different than the expected by caller " + rev
+                            + ", the object has changed since retrieval.");
+                }
+
+                deleteStatement.setString(1, localId);
+                deleteStatement.setString(2, existingRev);
+                deleteStatement.addBatch();
+            }
+
+            logger.debug("Executing batch: {}", deleteStatement);
+            int[] deleteCounts = deleteStatement.executeBatch();
+            for (int deleteCount : deleteCounts) {
+                if (deleteCount < 1 && deleteCount != Statement.SUCCESS_NO_INFO) {
+                    throw new InternalServerErrorException("Deleting batch of objects of type " + type
+                            + " failed, DB reported " + deleteCount + " rows deleted");
+                }
+            }
+            logger.debug("Deleted {} objects of type {}", revisions.size(), type);
+        }
+    }
+
     @Override
     public void delete(String fullId, String type, String localId, String rev, Connection connection)
             throws SQLException, ResourceException {
@@ -0,0 +1,771 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.handler;
+
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.QUERY_FILTER;
+import static org.forgerock.openidm.repo.QueryConstants.SORT_KEYS;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.BadRequestException;
+import org.forgerock.json.resource.InternalServerErrorException;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.PreconditionFailedException;
+import org.forgerock.json.resource.ResourceException;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.json.resource.SortKey;
+import org.forgerock.openidm.repo.jdbc.Constants;
+import org.forgerock.openidm.repo.jdbc.DatabaseType;
+import org.forgerock.openidm.repo.jdbc.ErrorType;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.util.query.QueryFilter;
+import org.forgerock.util.query.QueryFilterVisitor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Table handler storing time-stamped objects, such as audit events, in rolling tables partitioned by day or by
+ * month of their timestamp.
+ *
+ * <p>
+ * Each partition is a table named after the mapped table with the partition key appended, for example
+ * {@code auditaccess_20261017} for a daily partition or {@code auditaccess_202610} for a monthly one. The
+ * partitions are created on demand from the mapped table, which keeps the objects stored before partitioning was
+ * enabled and is queried as the oldest partition. Each partition is handled by its own {@link MappedTableHandler},
+ * so vendor specific SQL is shared with unpartitioned tables.
+ *
+ * <p>
+ * Objects are read from the table they were last created or read in, remembered for a bounded number of recent
+ * objects; other objects are searched in each partition, newest first. Query filters bounded by the timestamp
+ * property only query the partitions of the bounded range; the results of several partitions are merged and paged
+ * in memory. Explicit queries run against each partition, newest first, until the requested page is complete, with
+ * their results concatenated and then paged. Commands run against each partition, with their counts summed.
+ *
+ * <p>
+ * The {@code retention} is a number of partitions rather than a period: the oldest partitions are dropped as a
+ * whole, instead of deleting their rows, only when a new partition is created and more than {@code retention}
+ * partitions exist. Partitions are created by the first object of their day or month, so objects are kept beyond
+ * the retention period while no new objects are stored, and days or months without objects do not count against
+ * the retention.
+ *
+ * <p>
+ * Partitioning is enabled with the {@code partitioning} property of an explicit mapping, and is supported on H2
+ * and PostgreSQL:
+ *
+ * <pre><code>
+ * "audit/access" : {
+ *     "table" : "auditaccess",
+ *     "partitioning" : {
+ *         "property" : "timestamp",
+ *         "interval" : "day",
+ *         "retention" : 90
+ *     },
+ *     "objectToColumn" : { ... }
+ * }
+ * </code></pre>
+ */
+public class PartitionedTableHandler implements TableHandler {
+
+    private static final Logger logger = LoggerFactory.getLogger(PartitionedTableHandler.class);
+
+    /** Maximum time, in milliseconds, before partitions created by other nodes are discovered */
+    private static final long REFRESH_INTERVAL = TimeUnit.MINUTES.toMillis(1);
+
+    /** Maximum number of objects whose table is remembered */
+    private static final int MAX_LOCATIONS = 10000;
+
+    /**
+     * Partitioning interval, each defining the length of its partition keys, which are the digits of the
+     * timestamp prefix, so that keys sort in time order.
+     */
+    public enum Interval {
+        /** A partition per day, with keys such as {@code 20261017} */
+        day(8),
+        /** A partition per month, with keys such as {@code 202610} */
+        month(6);
+
+        private final int keyLength;
+
+        Interval(int keyLength) {
+            this.keyLength = keyLength;
+        }
+    }
+
+    /**
+     * Factory of the handlers of the partition tables.
+     */
+    public interface PartitionHandlerFactory {
+        /**
+         * Creates the handler of a partition table.
+         *
+         * @param tableName the name of the partition table
+         * @return the table handler
+         */
+        MappedTableHandler create(String tableName);
+    }
+
+    /**
+     * Provider of connections for creating and dropping partitions outside of the transaction of the write that
+     * needs the partition, as PostgreSQL DDL is transactional.
+     */
+    public interface ConnectionProvider {
+        /**
+         * @return a new connection, closed by the caller
+         * @throws SQLException if no connection could be obtained
+         */
+        Connection getConnection() throws SQLException;
+    }
+
+    private final DatabaseType databaseType;
+    private final String schemaName;
+    private final String tableName;
+    private final JsonPointer timestampProperty;
+    private final String timestampColumn;
+    private final Interval interval;
+    private final int retention;
+    private final PartitionHandlerFactory handlerFactory;
+    private final ConnectionProvider connectionProvider;
+
+    /** The handler of the mapped table, holding the objects stored before partitioning */
+    private final MappedTableHandler baseHandler;
+
+    /** The handlers of the partitions, by partition key */
+    private final NavigableMap<String, MappedTableHandler> partitions = new ConcurrentSkipListMap<>();
+
+    /** The handlers of the tables holding the recently created or read objects, by object identifier */
+    @SuppressWarnings("serial")
+    private final Map<String, MappedTableHandler> locations = Collections.synchronizedMap(
+            new LinkedHashMap<String, MappedTableHandler>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, MappedTableHandler> eldest) {
+                    return size() > MAX_LOCATIONS;
+                }
+            });
+
+    private volatile long lastRefresh;
+
+    /**
+     * Creates a partitioned table handler.
+     *
+     * @param databaseType the type of the database, H2 or PostgreSQL
+     * @param schemaName the schema of the tables
+     * @param tableName the mapped table, used as the template of the partitions
+     * @param timestampProperty the property holding the ISO-8601 timestamp of the objects
+     * @param timestampColumn the column of the timestamp property, indexed in each partition
+     * @param interval the partitioning interval
+     * @param retention the number of partitions to keep, 0 to keep all partitions
+     * @param handlerFactory the factory of the handlers of the partition tables
+     * @param connectionProvider the provider of connections to create and drop partitions
+     */
+    public PartitionedTableHandler(DatabaseType databaseType, String schemaName, String tableName,
+            JsonPointer timestampProperty, String timestampColumn, Interval interval, int retention,
+            PartitionHandlerFactory handlerFactory, ConnectionProvider connectionProvider) {
+        if (databaseType != DatabaseType.H2 && databaseType != DatabaseType.POSTGRESQL) {
+            throw new IllegalArgumentException("Table partitioning is not supported on " + databaseType);
+        }
+        this.databaseType = databaseType;
+        this.schemaName = schemaName;
+        this.tableName = tableName;
+        this.timestampProperty = timestampProperty;
+        this.timestampColumn = timestampColumn;
+        this.interval = interval;
+        this.retention = retention;
+        this.handlerFactory = handlerFactory;
+        this.connectionProvider = connectionProvider;
+        this.baseHandler = handlerFactory.create(tableName);
+    }
+
+    @Override
+    public ResourceResponse read(String fullId, String type, String localId, Connection connection)
+            throws NotFoundException, IOException, SQLException {
+        final MappedTableHandler located = locatedHandler(localId);
+        if (located != null) {
+            try {
+                return located.read(fullId, type, localId, connection);
+            } catch (NotFoundException e) {
+                // deleted, or created again in another partition
+                locations.remove(localId);
+            }
+        }
+        return locate(fullId, type, localId, connection).read(fullId, type, localId, connection);
+    }
+
+    @Override
+    public void create(String fullId, String type, String localId, Map<String, Object> obj, Connection connection)
+            throws PreconditionFailedException, InternalServerErrorException, IOException, SQLException {
+        final MappedTableHandler handler = partition(partitionKey(obj));
+        handler.create(fullId, type, localId, obj, connection);
+        locations.put(localId, handler);
+    }
+
+    @Override
+    public void createBatch(String type, List<Map<String, Object>> objects, Connection connection)
+            throws PreconditionFailedException, InternalServerErrorException, IOException, SQLException {
+        final Map<String, List<Map<String, Object>>> byPartition = new LinkedHashMap<>();
+        for (Map<String, Object> obj : objects) {
+            byPartition.computeIfAbsent(partitionKey(obj), key -> new ArrayList<>()).add(obj);
+        }
+        for (Map.Entry<String, List<Map<String, Object>>> entry : byPartition.entrySet()) {
+            final MappedTableHandler handler = partition(entry.getKey());
+            handler.createBatch(type, entry.getValue(), connection);
+            for (Map<String, Object> obj : entry.getValue()) {
+                locations.put((String) obj.get(Constants.OBJECT_ID), handler);
+            }
+        }
+    }
+
+    @Override
+    public void update(String fullId, String type, String localId, String rev, Map<String, Object> obj,
+            Connection connection) throws NotFoundException, PreconditionFailedException, BadRequestException,
+            InternalServerErrorException, IOException, SQLException {
+        locate(fullId, type, localId, connection).update(fullId, type, localId, rev, obj, connection);
+    }
+
+    @Override
+    public void delete(String fullId, String type, String localId, String rev, Connection connection)
+            throws SQLException, ResourceException {
+        try {
+            locate(fullId, type, localId, connection).delete(fullId, type, localId, rev, connection);
+            locations.remove(localId);
+        } catch (IOException e) {
+            throw new InternalServerErrorException("Failed to read " + fullId, e);
+        }
+    }
+
+    @Override
+    public List<Map<String, Object>> query(String type, Map<String, Object> params, Connection connection)
+            throws SQLException, ResourceException {
+        final List<MappedTableHandler> handlers = queriedHandlers(params, connection);
+        if (handlers.size() == 1) {
+            return handlers.get(0).query(type, params, connection);
+        }
+
+        // Query each partition for all the results up to the requested page, then page them
+        final Object pageSizeParam = params.get(PAGE_SIZE);
+        final int pageSize = pageSizeParam != null ? ((Number) pageSizeParam).intValue() : 0;
+        final Object offsetParam = params.get(PAGED_RESULTS_OFFSET);
+        final int offset = offsetParam != null ? ((Number) offsetParam).intValue() : 0;
+        final Map<String, Object> partitionParams = new HashMap<>(params);
+        if (pageSize > 0) {
+            partitionParams.put(PAGE_SIZE, offset + pageSize);
+            partitionParams.put(PAGED_RESULTS_OFFSET, 0);
+        }
+        final boolean explicit = params.get(QUERY_FILTER) == null;
+        final List<Map<String, Object>> results = new ArrayList<>();
+        for (MappedTableHandler handler : handlers) {
+            results.addAll(handler.query(type, partitionParams, connection));
+            if (explicit && pageSize > 0 && results.size() >= offset + pageSize) {
+                // Explicit queries are concatenated newest partition first, older partitions are not needed
+                break;
+            }
+        }
+        if (!explicit) {
+            @SuppressWarnings("unchecked")
+            final List<SortKey> sortKeys = (List<SortKey>) params.get(SORT_KEYS);
+            results.sort(resultComparator(sortKeys));
+        }
+        if (pageSize <= 0) {
+            return results;
+        }
+        return new ArrayList<>(results.subList(Math.min(offset, results.size()),
+                Math.min(offset + pageSize, results.size())));
+    }
+
+    @Override
+    public Integer queryCount(String type, Map<String, Object> params, Connection connection)
+            throws SQLException, ResourceException {
+        int total = 0;
+        for (MappedTableHandler handler : queriedHandlers(params, connection)) {
+            final Integer count = handler.queryCount(type, params, connection);
+            if (count == null) {
+                return null;
+            }
+            total += count;
+        }
+        return total;
+    }
+
+    @Override
+    public Integer command(String type, Map<String, Object> params, Connection connection)
+            throws SQLException, ResourceException {
+        int total = 0;
+        for (MappedTableHandler handler : allHandlers(connection)) {
+            final Integer count = handler.command(type, params, connection);
+            if (count != null) {
+                total += count;
+            }
+        }
+        return total;
+    }
+
+    @Override
+    public boolean isErrorType(SQLException exception, ErrorType errorType) {
+        return baseHandler.isErrorType(exception, errorType);
+    }
+
+    @Override
+    public boolean isRetryable(SQLException exception, Connection connection) {
+        return baseHandler.isRetryable(exception, connection);
+    }
+
+    /**
+     * Finds the table holding an object, searching the table it was last found in first, then the newest
+     * partitions first.
+     *
+     * @return the handler of the table holding the object
+     * @throws NotFoundException if no table holds the object
+     */
+    private MappedTableHandler locate(String fullId, String type, String localId, Connection connection)
+            throws NotFoundException, IOException, SQLException {
+        final List<MappedTableHandler> handlers = allHandlers(connection);
+        final MappedTableHandler located = locatedHandler(localId);
+        if (located != null) {
+            handlers.remove(located);
+            handlers.add(0, located);
+        }
+        for (MappedTableHandler handler : handlers) {
+            try {
+                handler.read(fullId, type, localId, connection);
+                locations.put(localId, handler);
+                return handler;
+            } catch (NotFoundException e) {
+                // not in this partition
+            }
+        }
+        locations.remove(localId);
+        throw new NotFoundException("Object " + fullId + " not found in " + type);
+    }
+
+    /**
+     * @return the handler of the table an object was last created or read in, or null if not remembered or if the
+     *         partition was dropped since
+     */
+    private MappedTableHandler locatedHandler(String localId) {
+        final MappedTableHandler handler = locations.get(localId);
+        if (handler == null || handler == baseHandler || partitions.containsValue(handler)) {
+            return handler;
+        }
+        locations.remove(localId);
+        return null;
+    }
+
+    /**
+     * @return the handlers of all the partitions, newest first, followed by the handler of the mapped table
+     */
+    private List<MappedTableHandler> allHandlers(Connection connection) throws SQLException {
+        refreshPartitions(connection);
+        final List<MappedTableHandler> handlers = new ArrayList<>(partitions.size() + 1);
+        handlers.addAll(partitions.descendingMap().values());
+        handlers.add(baseHandler);
+        return handlers;
+    }
+
+    /**
+     * Returns the handlers of the partitions to query, which are the partitions within the timestamp range of a
+     * query filter, or all partitions for other queries. The mapped table is always queried, as the timestamps of
+     * the objects it holds are not bounded.
+     *
+     * @return the handlers of the partitions to query, newest first, followed by the handler of the mapped table
+     */
+    private List<MappedTableHandler> queriedHandlers(Map<String, Object> params, Connection connection)
+            throws SQLException {
+        @SuppressWarnings("unchecked")
+        final QueryFilter<JsonPointer> queryFilter = (QueryFilter<JsonPointer>) params.get(QUERY_FILTER);
+        if (queryFilter == null) {
+            return allHandlers(connection);
+        }
+        refreshPartitions(connection);
+        final String[] range = queryFilter.accept(new TimestampRangeVisitor(timestampProperty), null);
+        NavigableMap<String, MappedTableHandler> queried = partitions;
+        if (range[0] != null) {
+            queried = queried.tailMap(range[0], true);
+        }
+        if (range[1] != null) {
+            queried = queried.headMap(range[1], true);
+        }
+        final List<MappedTableHandler> handlers = new ArrayList<>(queried.size() + 1);
+        handlers.addAll(queried.descendingMap().values());
+        handlers.add(baseHandler);
+        logger.debug("Querying {} of {} partitions of {}", queried.size(), partitions.size(), tableName);
+        return handlers;
+    }
+
+    /**
+     * Returns the partition key of an object, from the day or month of its timestamp in UTC. Objects without a
+     * timestamp are stored in the partition of the current time.
+     */
+    private String partitionKey(Map<String, Object> obj) {
+        final JsonValue value = new JsonValue(obj).get(timestampProperty);
+        final Object timestamp = value != null ? value.getObject() : null;
+        Instant instant;
+        try {
+            instant = timestamp instanceof String ? Instant.parse(toUtc((String) timestamp)) : Instant.now();
+        } catch (RuntimeException e) {
+            logger.debug("Unparsable timestamp {} stored in the current partition of {}", timestamp, tableName);
+            instant = Instant.now();
+        }
+        return boundKey(instant.toString(), '0');
+    }
+
+    /**
+     * Returns the partition key of a timestamp bound, the digits of its prefix padded to the key length.
+     *
+     * @param bound the timestamp, or a prefix of it
+     * @param padding the digit to pad a shorter bound with, 0 for a lower bound and 9 for an upper bound
+     */
+    private String boundKey(String bound, char padding) {
+        final StringBuilder key = new StringBuilder(interval.keyLength);
+        for (int i = 0; i < bound.length() && key.length() < interval.keyLength; i++) {
+            final char c = bound.charAt(i);
+            if (Character.isDigit(c)) {
+                key.append(c);
+            } else if (c == 'T') {
+                break;
+            }
+        }
+        while (key.length() < interval.keyLength) {
+            key.append(padding);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Returns the UTC form of a timestamp with a time zone offset, or the timestamp itself if it has no offset or
+     * is only a prefix of a timestamp.
+     */
+    private static String toUtc(String timestamp) {
+        try {
+            return OffsetDateTime.parse(timestamp).toInstant().toString();
+        } catch (DateTimeParseException e) {
+            return timestamp;
+        }
+    }
+
+    private String partitionTable(String key) {
+        return tableName + "_" + key;
+    }
+
+    /**
+     * Returns the handler of a partition, creating the partition if it does not exist.
+     */
+    private MappedTableHandler partition(String key) throws SQLException {
+        final MappedTableHandler handler = partitions.get(key);
+        return handler != null ? handler : createPartition(key);
+    }
+
+    private synchronized MappedTableHandler createPartition(String key) throws SQLException {
+        MappedTableHandler handler = partitions.get(key);
+        if (handler != null) {
+            return handler;
+        }
+        final String partition = partitionTable(key);
+        try (Connection connection = connectionProvider.getConnection()) {
+            connection.setAutoCommit(true);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : createPartitionSql(partition)) {
+                    logger.debug("Creating partition: {}", sql);
+                    statement.executeUpdate(sql);
+                }
+            } catch (SQLException e) {
+                // The partition may have been created concurrently by another node
+                if (!loadPartitionKeys(connection).contains(key)) {
+                    throw e;
+                }
+            }
+            logger.info("Created partition {} of {}", partition, tableName);
+            handler = handlerFactory.create(partition);
+            partitions.put(key, handler);
+            dropExpiredPartitions(connection);
+        }
+        return handler;
+    }
+
+    /**
+     * Returns the statements creating a partition table like the mapped table, with its primary key and an index on
+     * the timestamp column.
+     */
+    private List<String> createPartitionSql(String partition) {
+        final String qualified = schemaName + "." + partition;
+        final String template = schemaName + "." + tableName;
+        final List<String> statements = new ArrayList<>();
+        if (databaseType == DatabaseType.POSTGRESQL) {
+            statements.add("CREATE TABLE IF NOT EXISTS " + qualified + " (LIKE " + template + " INCLUDING ALL)");
+        } else {
+            statements.add("CREATE TABLE IF NOT EXISTS " + qualified
+                    + " AS SELECT * FROM " + template + " WITH NO DATA");
+            statements.add("ALTER TABLE " + qualified
+                    + " ADD CONSTRAINT IF NOT EXISTS pk_" + partition + " PRIMARY KEY (objectid)");
+        }
+        statements.add("CREATE INDEX IF NOT EXISTS idx_" + partition + "_" + timestampColumn
+                + " ON " + qualified + " (" + timestampColumn + ")");
+        return statements;
+    }
+
+    /**
+     * Drops the oldest partitions beyond the retention.
+     */
+    private void dropExpiredPartitions(Connection connection) throws SQLException {
+        if (retention <= 0) {
+            return;
+        }
+        while (partitions.size() > retention) {
+            final String key = partitions.firstKey();
+            final String partition = partitionTable(key);
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("DROP TABLE IF EXISTS " + schemaName + "." + partition);
+            }
+            final MappedTableHandler dropped = partitions.remove(key);
+            synchronized (locations) {
+                locations.values().removeIf(handler -> handler == dropped);
+            }
+            logger.info("Dropped partition {} of {}, beyond the retention of {} partitions",
+                    partition, tableName, retention);
+        }
+    }
+
+    /**
+     * Discovers the partitions created by other nodes, at most once per refresh interval.
+     */
+    private void refreshPartitions(Connection connection) throws SQLException {
+        final long now = System.currentTimeMillis();
+        if (now - lastRefresh < REFRESH_INTERVAL) {
+            return;
+        }
+        final List<String> keys = loadPartitionKeys(connection);
+        for (String key : keys) {
+            if (!partitions.containsKey(key)) {
+                partitions.put(key, handlerFactory.create(partitionTable(key)));
+            }
+        }
+        partitions.keySet().retainAll(keys);
+        lastRefresh = now;
+    }
+
+    /**
+     * Reads the keys of the existing partitions from the database metadata.
+     */
+    private List<String> loadPartitionKeys(Connection connection) throws SQLException {
+        final DatabaseMetaData metaData = connection.getMetaData();
+        String schema = schemaName;
+        String prefix = tableName + "_";
+        if (metaData.storesUpperCaseIdentifiers()) {
+            schema = schema.toUpperCase();
+            prefix = prefix.toUpperCase();
+        } else if (metaData.storesLowerCaseIdentifiers()) {
+            schema = schema.toLowerCase();
+            prefix = prefix.toLowerCase();
+        }
+        final String escape = metaData.getSearchStringEscape();
+        final String pattern = prefix.replace("_", escape + "_") + "%";
+        final List<String> keys = new ArrayList<>();
+        try (var tables = metaData.getTables(null, schema, pattern, new String[] { "TABLE" })) {
+            while (tables.next()) {
+                final String key = tables.getString("TABLE_NAME").substring(prefix.length());
+                if (key.length() == interval.keyLength && key.chars().allMatch(Character::isDigit)) {
+                    keys.add(key);
+                }
+            }
+        }
+        Collections.sort(keys);
+        return keys;
+    }
+
+    /**
+     * Returns the comparator ordering merged results as the database orders the results of a partition, by the
+     * sort keys then by identifier.
+     */
+    private static Comparator<Map<String, Object>> resultComparator(List<SortKey> sortKeys) {
+        final List<SortKey> keys = new ArrayList<>();
+        if (sortKeys != null) {
+            keys.addAll(sortKeys);
+        }
+        keys.add(SortKey.ascendingOrder(Constants.OBJECT_ID));
+        return (left, right) -> {
+            for (SortKey sortKey : keys) {
+                final int result = compareValues(new JsonValue(left).get(sortKey.getField()),
+                        new JsonValue(right).get(sortKey.getField()));
+                if (result != 0) {
+                    return sortKey.isAscendingOrder() ? result : -result;
+                }
+            }
+            return 0;
+        };
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static int compareValues(JsonValue left, JsonValue right) {
+        final Object leftValue = left != null ? left.getObject() : null;
+        final Object rightValue = right != null ? right.getObject() : null;
+        if (leftValue == null || rightValue == null) {
+            return leftValue == null ? (rightValue == null ? 0 : -1) : 1;
+        }
+        if (leftValue instanceof Number && rightValue instanceof Number) {
+            return Double.compare(((Number) leftValue).doubleValue(), ((Number) rightValue).doubleValue());
+        }
+        if (leftValue instanceof Comparable && leftValue.getClass() == rightValue.getClass()) {
+            return ((Comparable) leftValue).compareTo(rightValue);
+        }
+        return leftValue.toString().compareTo(rightValue.toString());
+    }
+
+    /**
+     * Computes the keys of the first and last partitions a query filter bounding the timestamp property may match,
+     * as an array of two keys, each null when unbounded.
+     * <p>
+     * Objects are partitioned by their UTC timestamp, so a bound with a time zone offset is converted to UTC. The
+     * database compares the timestamp column as a string though, so the partitions of the bound as written are
+     * queried as well.
+     */
+    private final class TimestampRangeVisitor implements QueryFilterVisitor<String[], Void, JsonPointer> {
+
+        private final JsonPointer timestampProperty;
+
+        TimestampRangeVisitor(JsonPointer timestampProperty) {
+            this.timestampProperty = timestampProperty;
+        }
+
+        private String[] unbounded() {
+            return new String[2];
+        }
+
+        private String[] bound(JsonPointer field, Object value, boolean lower, boolean upper) {
+            if (!timestampProperty.equals(field) || !(value instanceof String)) {
+                return unbounded();
+            }
+            final String bound = (String) value;
+            final String utcBound = toUtc(bound);
+            return new String[] {
+                lower ? min(boundKey(bound, '0'), boundKey(utcBound, '0')) : null,
+                upper ? max(boundKey(bound, '9'), boundKey(utcBound, '9')) : null
+            };
+        }
+
+        private String min(String key, String otherKey) {
+            return key.compareTo(otherKey) <= 0 ? key : otherKey;
+        }
+
+        private String max(String key, String otherKey) {
+            return key.compareTo(otherKey) >= 0 ? key : otherKey;
+        }
+
+        @Override
+        public String[] visitAndFilter(Void p, List<QueryFilter<JsonPointer>> subFilters) {
+            final String[] range = unbounded();
+            for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                final String[] subRange = subFilter.accept(this, p);
+                if (subRange[0] != null && (range[0] == null || subRange[0].compareTo(range[0]) > 0)) {
+                    range[0] = subRange[0];
+                }
+                if (subRange[1] != null && (range[1] == null || subRange[1].compareTo(range[1]) < 0)) {
+                    range[1] = subRange[1];
+                }
+            }
+            return range;
+        }
+
+        @Override
+        public String[] visitOrFilter(Void p, List<QueryFilter<JsonPointer>> subFilters) {
+            String[] range = null;
+            for (QueryFilter<JsonPointer> subFilter : subFilters) {
+                final String[] subRange = subFilter.accept(this, p);
+                if (range == null) {
+                    range = subRange;
+                    continue;
+                }
+                range[0] = range[0] == null || subRange[0] == null
+                        ? null : (subRange[0].compareTo(range[0]) < 0 ? subRange[0] : range[0]);
+                range[1] = range[1] == null || subRange[1] == null
+                        ? null : (subRange[1].compareTo(range[1]) > 0 ? subRange[1] : range[1]);
+            }
+            return range != null ? range : unbounded();
+        }
+
+        @Override
+        public String[] visitEqualsFilter(Void p, JsonPointer field, Object valueAssertion) {
+            return bound(field, valueAssertion, true, true);
+        }
+
+        @Override
+        public String[] visitStartsWithFilter(Void p, JsonPointer field, Object valueAssertion) {
+            return bound(field, valueAssertion, true, true);
+        }
+
+        @Override
+        public String[] visitGreaterThanFilter(Void p, JsonPointer field, Object valueAssertion) {
+            return bound(field, valueAssertion, true, false);
+        }
+
+        @Override
+        public String[] visitGreaterThanOrEqualToFilter(Void p, JsonPointer field, Object valueAssertion) {
+            return bound(field, valueAssertion, true, false);
+        }
+
+        @Override
+        public String[] visitLessThanFilter(Void p, JsonPointer field, Object valueAssertion) {
+            return bound(field, valueAssertion, false, true);
+        }
+
+        @Override
+        public String[] visitLessThanOrEqualToFilter(Void p, JsonPointer field, Object valueAssertion) {
+            return bound(field, valueAssertion, false, true);
+        }
+
+        @Override
+        public String[] visitBooleanLiteralFilter(Void p, boolean value) {
+            return unbounded();
+        }
+
+        @Override
+        public String[] visitContainsFilter(Void p, JsonPointer field, Object valueAssertion) {
+            return unbounded();
+        }
+
+        @Override
+        public String[] visitExtendedMatchFilter(Void p, JsonPointer field, String operator, Object valueAssertion) {
+            return unbounded();
+        }
+
+        @Override
+        public String[] visitNotFilter(Void p, QueryFilter<JsonPointer> subFilter) {
+            return unbounded();
+        }
+
+        @Override
+        public String[] visitPresentFilter(Void p, JsonPointer field) {
+            return unbounded();
+        }
+    }
+}
@@ -18,10 +18,17 @@ package org.forgerock.openidm.repo.jdbc.impl.handler;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.json.resource.ResourcePath.resourcePath;
+import static org.testng.Assert.assertEquals;
 
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openidm.repo.jdbc.SQLExceptionHandler;
+import org.testng.annotations.Test;
 
 /**
  * Common superclass for {@link GenericTableHandler} test cases.
@@ -87,4 +94,60 @@ public abstract class AbstractGenericTableHandlerTest extends AbstractTableHandl
         return "SELECT * FROM wrenidm.genericobjects WHERE objectid IN (${list:ids})";
     }
 
+    /**
+     * Read the stored index property rows of the resource with the given ID.
+     */
+    protected Set<List<String>> readIndexedProperties(String id) throws Exception {
+        Set<List<String>> result = new HashSet<>();
+        try (var statement = connection.prepareStatement(
+                "SELECT prop.propkey, prop.proptype, prop.propvalue "
+                + "FROM wrenidm.genericobjectproperties prop, wrenidm.genericobjects obj "
+                + "WHERE prop.genericobjects_id = obj.id AND obj.objectid = ?")) {
+            statement.setString(1, id);
+            try (var resultSet = statement.executeQuery()) {
+                while (resultSet.next()) {
+                    result.add(List.of(resultSet.getString(1), String.valueOf(resultSet.getString(2)),
+                            String.valueOf(resultSet.getString(3))));
+                }
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testUpdateIndexedProperties() throws Exception {
+        createResource(RESOURCE_ID, Map.of(
+                "name", "HELLO",
+                "score", 7,
+                "visible", true,
+                "tags", List.of("foo", "bar", "baz"),
+                "meta", Map.of("owner", "john")));
+
+        Map<String, Object> template = Map.of(
+                "name", "HELLO",
+                "score", 7.5,
+                "tags", List.of("foo", "qux"),
+                "meta", Map.of("owner", "john", "group", "admins"));
+        tableHandler.update(
+            resourcePath(OBJECT_TYPE).child(RESOURCE_ID).toString(),
+            OBJECT_TYPE,
+            RESOURCE_ID,
+            "0",
+            new LinkedHashMap<>(template),
+            connection
+        );
+        createResource("expected", template);
+
+        // differential update results in the same rows as a complete rewrite
+        var expected = new HashSet<List<String>>();
+        for (var row : readIndexedProperties("expected")) {
+            expected.add(row.get(0).equals("/_id") ? List.of("/_id", row.get(1), RESOURCE_ID) : row);
+        }
+        var updated = new HashSet<List<String>>();
+        for (var row : readIndexedProperties(RESOURCE_ID)) {
+            updated.add(row.get(0).equals("/_rev") ? List.of("/_rev", row.get(1), "0") : row);
+        }
+        assertEquals(updated, expected);
+    }
+
 }
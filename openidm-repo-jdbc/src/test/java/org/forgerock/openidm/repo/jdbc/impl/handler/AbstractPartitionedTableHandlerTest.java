@@ -0,0 +1,243 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.repo.jdbc.impl.handler;
+
+import static org.forgerock.json.JsonValue.field;
+import static org.forgerock.json.JsonValue.json;
+import static org.forgerock.json.JsonValue.object;
+import static org.forgerock.openidm.repo.QueryConstants.PAGED_RESULTS_OFFSET;
+import static org.forgerock.openidm.repo.QueryConstants.PAGE_SIZE;
+import static org.forgerock.openidm.repo.QueryConstants.QUERY_FILTER;
+import static org.forgerock.openidm.repo.QueryConstants.QUERY_ID;
+import static org.forgerock.openidm.repo.jdbc.Constants.OBJECT_ID;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import org.forgerock.json.JsonPointer;
+import org.forgerock.json.JsonValue;
+import org.forgerock.json.resource.NotFoundException;
+import org.forgerock.json.resource.QueryFilters;
+import org.forgerock.json.resource.ResourceResponse;
+import org.forgerock.openidm.repo.jdbc.DatabaseType;
+import org.forgerock.openidm.repo.jdbc.TableHandler;
+import org.forgerock.openidm.repo.jdbc.impl.handler.PartitionedTableHandler.Interval;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+/**
+ * Common superclass for {@link PartitionedTableHandler} test cases, partitioning the {@code auditevent} table by
+ * day.
+ */
+public abstract class AbstractPartitionedTableHandlerTest {
+
+    private static final String OBJECT_TYPE = "audit/event";
+
+    private Connection connection;
+
+    /**
+     * Get connection to the tested database.
+     */
+    protected abstract Connection getConnection() throws Exception;
+
+    /**
+     * Get type of the tested database.
+     */
+    protected abstract DatabaseType getDatabaseType();
+
+    /**
+     * Create vendor specific handler of a partition table.
+     */
+    protected abstract MappedTableHandler createPartitionHandler(String tableName, JsonValue columnMapping,
+            Map<String, String> queryConfig);
+
+    @BeforeMethod
+    public void beginTransaction() throws Exception {
+        connection = getConnection();
+        connection.setAutoCommit(false);
+    }
+
+    @AfterMethod
+    public void dropPartitions() throws Exception {
+        if (!connection.getAutoCommit()) {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+        final DatabaseMetaData metaData = connection.getMetaData();
+        final boolean upperCase = metaData.storesUpperCaseIdentifiers();
+        final String pattern = (upperCase ? "AUDITEVENT" : "auditevent") + metaData.getSearchStringEscape() + "_%";
+        List<String> partitions = new ArrayList<>();
+        try (var tables = metaData.getTables(null, upperCase ? "WRENIDM" : "wrenidm", pattern, null)) {
+            while (tables.next()) {
+                partitions.add(tables.getString("TABLE_NAME"));
+            }
+        }
+        try (Statement statement = connection.createStatement()) {
+            for (String partition : partitions) {
+                statement.executeUpdate("DROP TABLE wrenidm." + partition);
+            }
+        }
+        connection.close();
+        connection = null;
+    }
+
+    private TableHandler createTableHandler(int retention) {
+        final JsonValue columnMapping = json(object(
+                field("_id", "objectid"),
+                field("timestamp", "activitydate"),
+                field("eventName", "eventname")));
+        return new PartitionedTableHandler(getDatabaseType(), "wrenidm", "auditevent",
+                new JsonPointer("timestamp"), "activitydate", Interval.day, retention,
+                table -> createPartitionHandler(table, columnMapping,
+                        Map.of("query-events", "SELECT * FROM ${_dbSchema}.${_table} ORDER BY objectid DESC")),
+                () -> {
+                    try {
+                        return getConnection();
+                    } catch (SQLException ex) {
+                        throw ex;
+                    } catch (Exception ex) {
+                        throw new SQLException(ex);
+                    }
+                });
+    }
+
+    private Map<String, Object> event(String timestamp, String eventName) {
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("timestamp", timestamp);
+        event.put("eventName", eventName);
+        return event;
+    }
+
+    private void createEvent(TableHandler tableHandler, String id, String timestamp) throws Exception {
+        tableHandler.create(OBJECT_TYPE + "/" + id, OBJECT_TYPE, id, event(timestamp, "access"), connection);
+    }
+
+    private List<String> queryEventIds(TableHandler tableHandler, String queryFilter, int offset, int pageSize)
+            throws Exception {
+        return queryEventIds(tableHandler, Map.of(QUERY_FILTER, QueryFilters.parse(queryFilter)), offset, pageSize);
+    }
+
+    private List<String> queryEventIds(TableHandler tableHandler, Map<String, Object> query, int offset,
+            int pageSize) throws Exception {
+        Map<String, Object> params = new HashMap<>(query);
+        params.put(PAGED_RESULTS_OFFSET, offset);
+        params.put(PAGE_SIZE, pageSize);
+        return tableHandler.query(OBJECT_TYPE, params, connection).stream()
+                .map(result -> (String) result.get(OBJECT_ID))
+                .collect(Collectors.toList());
+    }
+
+    @Test
+    public void testQueryAcrossPartitions() throws Exception {
+        TableHandler tableHandler = createTableHandler(0);
+        createEvent(tableHandler, "c", "2026-10-15T08:00:00.000Z");
+        createEvent(tableHandler, "b", "2026-10-16T08:00:00.000Z");
+        createEvent(tableHandler, "a", "2026-10-17T08:00:00.000Z");
+
+        assertEquals(tableHandler.read(OBJECT_TYPE + "/b", OBJECT_TYPE, "b", connection).getId(), "b");
+        assertEquals(queryEventIds(tableHandler, "true", 0, 0), List.of("a", "b", "c"));
+        assertEquals(queryEventIds(tableHandler, "true", 1, 1), List.of("b"));
+        assertEquals(queryEventIds(tableHandler, "timestamp ge \"2026-10-16\"", 0, 0), List.of("a", "b"));
+        assertEquals(queryEventIds(tableHandler,
+                "timestamp ge \"2026-10-15T12:00:00.000Z\" and timestamp lt \"2026-10-17\"", 0, 0), List.of("b"));
+        assertEquals(tableHandler.queryCount(OBJECT_TYPE, Map.of(
+                QUERY_FILTER, QueryFilters.parse("timestamp sw \"2026-10-1\"")), connection), Integer.valueOf(3));
+    }
+
+    @Test
+    public void testExplicitQueryPagedAcrossPartitions() throws Exception {
+        TableHandler tableHandler = createTableHandler(0);
+        createEvent(tableHandler, "a", "2026-10-15T08:00:00.000Z");
+        createEvent(tableHandler, "c", "2026-10-16T08:00:00.000Z");
+        createEvent(tableHandler, "b", "2026-10-16T09:00:00.000Z");
+
+        // concatenated newest partition first, each partition in the order of the query
+        final Map<String, Object> query = Map.of(QUERY_ID, "query-events");
+        assertEquals(queryEventIds(tableHandler, query, 0, 0), List.of("c", "b", "a"));
+        assertEquals(queryEventIds(tableHandler, query, 0, 1), List.of("c"));
+        assertEquals(queryEventIds(tableHandler, query, 1, 2), List.of("b", "a"));
+        assertEquals(queryEventIds(tableHandler, query, 3, 2), List.of());
+    }
+
+    @Test
+    public void testWritesLocateObjectPartition() throws Exception {
+        TableHandler tableHandler = createTableHandler(0);
+        createEvent(tableHandler, "c", "2026-10-15T08:00:00.000Z");
+        createEvent(tableHandler, "b", "2026-10-16T08:00:00.000Z");
+        createEvent(tableHandler, "a", "2026-10-17T08:00:00.000Z");
+
+        tableHandler.update(OBJECT_TYPE + "/b", OBJECT_TYPE, "b", "0",
+                event("2026-10-16T08:00:00.000Z", "activity"), connection);
+        tableHandler.delete(OBJECT_TYPE + "/c", OBJECT_TYPE, "c", "0", connection);
+
+        // a handler without remembered objects, such as the handler of another node, searches the partitions
+        TableHandler otherHandler = createTableHandler(0);
+        ResourceResponse updated = otherHandler.read(OBJECT_TYPE + "/b", OBJECT_TYPE, "b", connection);
+        assertEquals(updated.getRevision(), "1");
+        assertEquals(updated.getContent().get("eventName").asString(), "activity");
+        try {
+            otherHandler.read(OBJECT_TYPE + "/c", OBJECT_TYPE, "c", connection);
+            assertFalse(true, "Deleted event was read");
+        } catch (NotFoundException ex) {
+            assertTrue(ex.getMessage().contains("c"));
+        }
+    }
+
+    @Test
+    public void testQueryBoundsWithOffset() throws Exception {
+        TableHandler tableHandler = createTableHandler(0);
+        createEvent(tableHandler, "b", "2026-10-16T08:00:00.000Z");
+        // stored in the partition of 2026-10-16, the day of its UTC timestamp
+        createEvent(tableHandler, "a", "2026-10-17T01:30:00.000+02:00");
+
+        assertEquals(queryEventIds(tableHandler, "timestamp eq \"2026-10-17T01:30:00.000+02:00\"", 0, 0),
+                List.of("a"));
+        assertEquals(queryEventIds(tableHandler, "timestamp ge \"2026-10-17T01:00:00.000+02:00\"", 0, 0),
+                List.of("a"));
+        assertEquals(queryEventIds(tableHandler, "timestamp lt \"2026-10-16T12:00:00.000Z\"", 0, 0),
+                List.of("b"));
+    }
+
+    @Test
+    public void testRetentionDropsPartitions() throws Exception {
+        // dropping a partition waits for the transactions that wrote to it
+        connection.setAutoCommit(true);
+        TableHandler tableHandler = createTableHandler(2);
+        createEvent(tableHandler, "c", "2026-10-15T08:00:00.000Z");
+        createEvent(tableHandler, "b", "2026-10-16T08:00:00.000Z");
+        createEvent(tableHandler, "a", "2026-10-17T08:00:00.000Z");
+
+        assertEquals(queryEventIds(tableHandler, "true", 0, 0), List.of("a", "b"));
+        try {
+            tableHandler.read(OBJECT_TYPE + "/c", OBJECT_TYPE, "c", connection);
+            assertFalse(true, "Event of the dropped partition was read");
+        } catch (NotFoundException ex) {
+            assertTrue(ex.getMessage().contains("c"));
+        }
+    }
+
+}
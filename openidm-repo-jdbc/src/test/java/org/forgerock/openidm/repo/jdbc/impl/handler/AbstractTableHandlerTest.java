@@ -215,6 +215,65 @@ public abstract class AbstractTableHandlerTest {
         assertResourceValues(resource.getContent().asMap(), template);
     }
 
+    @Test
+    public void testCreateBatch() throws Exception {
+        List<Map<String, Object>> resources = List.of(
+                new LinkedHashMap<>(Map.of(OBJECT_ID, "batch-1", "name", "HELLO", "score", 7)),
+                new LinkedHashMap<>(Map.of(OBJECT_ID, "batch-2", "name", "HI", "visible", false)));
+        tableHandler.createBatch(OBJECT_TYPE, resources, connection);
+
+        for (Map<String, Object> resource : resources) {
+            assertEquals(resource.get(OBJECT_REV), "0");
+        }
+        var resource = readResource("batch-2");
+        assertEquals(resource.getRevision(), "0");
+        assertEquals(resource.getContent().get("name").asString(), "HI");
+        assertEquals(queryResource("name sw 'H'").size(), 2);
+    }
+
+    @Test
+    public void testUpdateBatch() throws Exception {
+        createResource("batch-1", Map.of("name", "HELLO"));
+        createResource("batch-2", Map.of("name", "HI"));
+
+        List<Map<String, Object>> resources = List.of(
+                new LinkedHashMap<>(Map.of(OBJECT_ID, "batch-1", OBJECT_REV, "0", "name", "BONJOUR")),
+                new LinkedHashMap<>(Map.of(OBJECT_ID, "batch-2", OBJECT_REV, "0", "name", "SALUT")));
+        tableHandler.updateBatch(OBJECT_TYPE, resources, connection);
+
+        for (Map<String, Object> resource : resources) {
+            assertEquals(resource.get(OBJECT_REV), "1");
+        }
+        var resource = readResource("batch-2");
+        assertEquals(resource.getRevision(), "1");
+        assertEquals(resource.getContent().get("name").asString(), "SALUT");
+        assertEquals(queryResource("name eq 'HELLO'").size(), 0);
+    }
+
+    @Test(expectedExceptions = PreconditionFailedException.class)
+    public void testUpdateBatchLock() throws Exception {
+        createResource("batch-1", Map.of("name", "HELLO"));
+
+        tableHandler.updateBatch(OBJECT_TYPE, List.of(
+                new LinkedHashMap<>(Map.of(OBJECT_ID, "batch-1", OBJECT_REV, "-1", "name", "AHOY"))), connection);
+    }
+
+    @Test
+    public void testDeleteBatch() throws Exception {
+        createResource("batch-1", Map.of("name", "HELLO"));
+        createResource("batch-2", Map.of("name", "HI"));
+        createResource("batch-3", Map.of("name", "HEY"));
+
+        Map<String, String> revisions = new LinkedHashMap<>();
+        revisions.put("batch-1", "0");
+        revisions.put("batch-2", "*");
+        tableHandler.deleteBatch(OBJECT_TYPE, revisions, connection);
+
+        assertEquals(queryResource("name sw 'H'").stream()
+                .map(resource -> resource.get(OBJECT_ID))
+                .collect(Collectors.toSet()), Set.of("batch-3"));
+    }
+
     @Test
     public void testReadNullable() throws Exception {
         createResource(RESOURCE_ID, Map.of());
@@ -142,7 +142,7 @@ define([
                     }, this));
 
                     this.data.availableProperties = _.keys(_.omit(this.data.currentManagedObject.schema.properties,"_id"));
-                    this.data.availableHashes = ["MD5","SHA-1","SHA-256","SHA-384","SHA-512"];
+                    this.data.availableHashes = ["MD5","SHA-1","SHA-256","SHA-384","SHA-512","PBKDF2-SHA256"];
                 }
 
                 this.managedRender(callback);
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.crypto;
 
@@ -49,4 +50,10 @@ public class CryptoConstants {
      * The name of the message digest algorithm that should be used to generate 512-bit SHA-2 hashes.
      */
     public static final String ALGORITHM_SHA_512 = "SHA-512";
+
+    /**
+     * The name of the field storage algorithm that should be used to generate iterated PBKDF2 hashes with
+     * HMAC-SHA256.
+     */
+    public static final String ALGORITHM_PBKDF2_SHA_256 = "PBKDF2-SHA256";
 }
@@ -23,10 +23,12 @@
  *
  *      Copyright 2006-2008 Sun Microsystems, Inc.
  *      Portions Copyright 2010-2015 ForgeRock AS.
+ *      Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.crypto;
 
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
 
@@ -40,6 +42,8 @@ import org.slf4j.LoggerFactory;
  * value.  The values that it generates are also salted, which protects against dictionary attacks. It 
  * does this by generating a random salt which is appended to the  clear-text value.  A hash is then 
  * generated based on this, the salt is appended to the hash, and  then the entire value is base64-encoded.
+ * <p>
+ * Each thread hashes with its own message digest, so fields are hashed and matched concurrently.
  */
 public class FieldStorageSchemeImpl implements FieldStorageScheme {
 
@@ -54,14 +58,10 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
     private static final int NUM_SALT_BYTES = 16;
 
     /**
-     * The message digest that will actually be used to generate the hashes.
+     * The message digests that will actually be used to generate the hashes, one per thread as a
+     * message digest is not thread safe.
      */
-    private MessageDigest messageDigest;
-
-    /** 
-     * The lock used to provide thread safe access to the message digest. 
-     */
-    private Object digestLock;
+    private final ThreadLocal<MessageDigest> messageDigest;
 
     /** 
      * The secure random number generator to use to generate the salt values. 
@@ -80,9 +80,19 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
      * @param algorithm the algorithm to use.
      * @throws Exception
      */
-    public FieldStorageSchemeImpl(int digestSize, String algorithm) throws Exception {
-        this.messageDigest = MessageDigest.getInstance(algorithm);
-        this.digestLock = new Object();
+    public FieldStorageSchemeImpl(int digestSize, final String algorithm) throws Exception {
+        // fail on an unsupported algorithm here, rather than on first use by each thread
+        MessageDigest.getInstance(algorithm);
+        this.messageDigest = new ThreadLocal<MessageDigest>() {
+            @Override
+            protected MessageDigest initialValue() {
+                try {
+                    return MessageDigest.getInstance(algorithm);
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException(e);
+                }
+            }
+        };
         this.random     = new SecureRandom();
         this.digestSize = digestSize;
     }
@@ -96,20 +106,18 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
         System.arraycopy(plaintext.getBytes(),0, plainPlusSalt, 0, plainBytesLength);
         byte[] digestBytes;
 
-        synchronized (digestLock) {
-            try {
-                // Generate the salt and put in the plain+salt array.
-                random.nextBytes(saltBytes);
-                System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
-
-                // Create the hash from the concatenated value.
-                digestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field: " + e.getMessage(), e);
-                throw e;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        try {
+            // Generate the salt and put in the plain+salt array.
+            random.nextBytes(saltBytes);
+            System.arraycopy(saltBytes,0, plainPlusSalt, plainBytesLength, NUM_SALT_BYTES);
+
+            // Create the hash from the concatenated value.
+            digestBytes = messageDigest.get().digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field: " + e.getMessage(), e);
+            throw e;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
         // Append the salt to the hashed value and base64-the whole thing.
@@ -154,18 +162,17 @@ public class FieldStorageSchemeImpl implements FieldStorageScheme {
 
         byte[] userDigestBytes;
 
-        synchronized (digestLock) {
-            try {
-                userDigestBytes = messageDigest.digest(plainPlusSalt);
-            } catch (Exception e) {
-                logger.error("Cannot encode field", storedField, e);
-                return false;
-            } finally {
-                Arrays.fill(plainPlusSalt, (byte) 0);
-            }
+        try {
+            userDigestBytes = messageDigest.get().digest(plainPlusSalt);
+        } catch (Exception e) {
+            logger.error("Cannot encode field", storedField, e);
+            return false;
+        } finally {
+            Arrays.fill(plainPlusSalt, (byte) 0);
         }
 
-        return Arrays.equals(digestBytes, userDigestBytes);
+        // Compare in constant time, so the comparison does not reveal how much of the digest matched
+        return MessageDigest.isEqual(digestBytes, userDigestBytes);
     }
     
 }
@@ -0,0 +1,167 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.crypto;
+
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Arrays;
+
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+import org.forgerock.util.encode.Base64;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * This class defines a field storage scheme based on PBKDF2 with HMAC-SHA256, as defined in RFC 8018. The hash is
+ * derived from the clear-text value and a random salt with a configurable number of iterations, which makes
+ * dictionary attacks more costly than with the salted digest schemes.
+ * <p>
+ * The stored value is the number of iterations followed by a colon and the base64-encoded hash and salt, so values
+ * hashed with a previous number of iterations still match once the number of iterations is changed.
+ */
+public class PBKDF2FieldStorageScheme implements FieldStorageScheme {
+
+    private final static Logger logger = LoggerFactory.getLogger(PBKDF2FieldStorageScheme.class);
+
+    /**
+     * The name of the secret key factory algorithm used to derive the hashes.
+     */
+    private static final String KEY_ALGORITHM = "PBKDF2WithHmacSHA256";
+
+    /**
+     * The default number of iterations.
+     */
+    public static final int DEFAULT_ITERATIONS = 100000;
+
+    /**
+     * The number of bytes of random data to use as the salt when generating the hashes.
+     */
+    private static final int NUM_SALT_BYTES = 16;
+
+    /**
+     * Size of the derived hash in bytes.
+     */
+    private static final int HASH_LENGTH = 256 / 8;
+
+    /**
+     * The secret key factories used to derive the hashes, one per thread as a factory is not documented to be
+     * thread safe.
+     */
+    private static final ThreadLocal<SecretKeyFactory> keyFactory = new ThreadLocal<SecretKeyFactory>() {
+        @Override
+        protected SecretKeyFactory initialValue() {
+            try {
+                return SecretKeyFactory.getInstance(KEY_ALGORITHM);
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    };
+
+    /**
+     * The secure random number generator to use to generate the salt values.
+     */
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * The number of iterations of newly hashed fields.
+     */
+    private final int iterations;
+
+    /**
+     * Creates a new instance of this field storage scheme with the default number of iterations.
+     */
+    public PBKDF2FieldStorageScheme() {
+        this(DEFAULT_ITERATIONS);
+    }
+
+    /**
+     * Creates a new instance of this field storage scheme.
+     *
+     * @param iterations the number of iterations of newly hashed fields.
+     */
+    public PBKDF2FieldStorageScheme(int iterations) {
+        if (iterations < 1) {
+            throw new IllegalArgumentException("The number of PBKDF2 iterations must be positive");
+        }
+        this.iterations = iterations;
+    }
+
+    @Override
+    public String hashField(String plaintext) {
+        byte[] saltBytes = new byte[NUM_SALT_BYTES];
+        random.nextBytes(saltBytes);
+        byte[] hashBytes;
+        try {
+            hashBytes = derive(plaintext, saltBytes, iterations);
+        } catch (GeneralSecurityException e) {
+            logger.error("Cannot encode field: " + e.getMessage(), e);
+            throw new IllegalStateException(e);
+        }
+
+        // Append the salt to the hash and base64 the whole thing, prefixed by the iterations.
+        byte[] hashPlusSalt = new byte[HASH_LENGTH + NUM_SALT_BYTES];
+        System.arraycopy(hashBytes, 0, hashPlusSalt, 0, HASH_LENGTH);
+        System.arraycopy(saltBytes, 0, hashPlusSalt, HASH_LENGTH, NUM_SALT_BYTES);
+        return iterations + ":" + Base64.encode(hashPlusSalt);
+    }
+
+    @Override
+    public boolean fieldMatches(String plaintextfield, String storedField) {
+        byte[] hashBytes = new byte[HASH_LENGTH];
+        byte[] saltBytes;
+        int storedIterations;
+        try {
+            int separator = storedField.indexOf(':');
+            storedIterations = Integer.parseInt(storedField.substring(0, separator));
+            byte[] decodedBytes = Base64.decode(storedField.substring(separator + 1));
+            int saltLength = decodedBytes.length - HASH_LENGTH;
+            if (storedIterations < 1 || saltLength <= 0) {
+                logger.error("Invalid decoded stored field");
+                return false;
+            }
+            saltBytes = new byte[saltLength];
+            System.arraycopy(decodedBytes, 0, hashBytes, 0, HASH_LENGTH);
+            System.arraycopy(decodedBytes, HASH_LENGTH, saltBytes, 0, saltLength);
+        } catch (Exception e) {
+            // May catch NPE if Base64.decode returns null on bad (non-base64) input
+            logger.error("Cannot decode stored field", e);
+            return false;
+        }
+
+        try {
+            return MessageDigest.isEqual(hashBytes, derive(plaintextfield, saltBytes, storedIterations));
+        } catch (GeneralSecurityException e) {
+            logger.error("Cannot encode field", e);
+            return false;
+        }
+    }
+
+    private static byte[] derive(String plaintext, byte[] salt, int iterations) throws GeneralSecurityException {
+        char[] plainChars = plaintext.toCharArray();
+        PBEKeySpec keySpec = new PBEKeySpec(plainChars, salt, iterations, HASH_LENGTH * 8);
+        try {
+            return keyFactory.get().generateSecret(keySpec).getEncoded();
+        } finally {
+            keySpec.clearPassword();
+            Arrays.fill(plainChars, '\0');
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.1.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.1.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openidm.crypto;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Measures the hashes and verifications per second of the field storage schemes, shared by all benchmark threads
+ * as {@code CryptoService} shares them between requests.
+ * <p>
+ * Not run by the unit tests. Run it across thread counts from the test classpath with:
+ * <pre>
+ * java -cp ... org.forgerock.openidm.crypto.FieldStorageSchemeBenchmark [threads...]
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FieldStorageSchemeBenchmark {
+
+    @Param({ CryptoConstants.ALGORITHM_SHA_256, CryptoConstants.ALGORITHM_SHA_512,
+            CryptoConstants.ALGORITHM_PBKDF2_SHA_256 })
+    public String algorithm;
+
+    private FieldStorageScheme fieldStorageScheme;
+    private String hashedField;
+
+    @Setup
+    public void setup() throws Exception {
+        switch (algorithm) {
+        case CryptoConstants.ALGORITHM_SHA_256:
+            fieldStorageScheme = new SaltedSHA256FieldStorageScheme();
+            break;
+        case CryptoConstants.ALGORITHM_SHA_512:
+            fieldStorageScheme = new SaltedSHA512FieldStorageScheme();
+            break;
+        default:
+            fieldStorageScheme = new PBKDF2FieldStorageScheme();
+            break;
+        }
+        hashedField = fieldStorageScheme.hashField("Passw0rd");
+    }
+
+    @Benchmark
+    public String hash() {
+        return fieldStorageScheme.hashField("Passw0rd");
+    }
+
+    @Benchmark
+    public boolean verify() {
+        return fieldStorageScheme.fieldMatches("Passw0rd", hashedField);
+    }
+
+    /**
+     * Runs the benchmark with each of the given thread counts.
+     *
+     * @param args the thread counts, 1, 4 and 16 by default
+     */
+    public static void main(String[] args) throws Exception {
+        String[] threadCounts = args.length > 0 ? args : new String[] { "1", "4", "16" };
+        for (String threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(FieldStorageSchemeBenchmark.class.getSimpleName())
+                    .threads(Integer.parseInt(threads))
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -12,12 +12,20 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Portions copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openidm.crypto;
 
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
@@ -50,4 +58,44 @@ public class FieldStorageSchemeTest {
         assertThat(fieldStorageScheme.fieldMatches(testField, hashedField)).isTrue();
         assertThat(fieldStorageScheme.fieldMatches(testField + " ", hashedField)).isFalse();
     }
+
+    @Test
+    public void testPBKDF2FieldStorageScheme() {
+        FieldStorageScheme fieldStorageScheme = new PBKDF2FieldStorageScheme(1000);
+        String testField = "valueToHash";
+
+        String hashedField = fieldStorageScheme.hashField(testField);
+        assertThat(hashedField).startsWith("1000:");
+        assertThat(fieldStorageScheme.fieldMatches(testField, hashedField)).isTrue();
+        assertThat(fieldStorageScheme.fieldMatches(testField + " ", hashedField)).isFalse();
+        assertThat(fieldStorageScheme.fieldMatches(testField, "invalid")).isFalse();
+
+        // fields hashed with a previous number of iterations still match
+        assertThat(new PBKDF2FieldStorageScheme(2000).fieldMatches(testField, hashedField)).isTrue();
+    }
+
+    @Test
+    public void testConcurrentHashing() throws Exception {
+        final FieldStorageScheme fieldStorageScheme = new SaltedSHA256FieldStorageScheme();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Boolean>> results = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                final String testField = "valueToHash" + i;
+                results.add(executor.submit(new Callable<Boolean>() {
+                    @Override
+                    public Boolean call() {
+                        String hashedField = fieldStorageScheme.hashField(testField);
+                        return fieldStorageScheme.fieldMatches(testField, hashedField)
+                                && !fieldStorageScheme.fieldMatches(testField + " ", hashedField);
+                    }
+                }));
+            }
+            for (Future<Boolean> result : results) {
+                assertThat(result.get()).isTrue();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
 }